@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.vector;
+
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Batch evaluation of the formulas of {@code FutureValueFactor}, {@code PresentValueFactor} (as used by
+ * {@code PresentValue}), {@code SimpleInterest} and {@code CompoundInterest} on arrays of {@code double} values.
+ * Element {@code i} of the result is calculated from element {@code i} of each argument array. The kernels use
+ * SIMD instructions through the incubating Vector API, if the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and plain loops otherwise. Setting the system property
+ * {@code org.javamoney.calc.vector.scalar} to {@code true} forces the scalar implementation.
+ * <p>
+ * Calculations are done in double precision, they are not a replacement of the {@code BigDecimal} based operators
+ * where amounts must be exact.
+ *
+ * @author Anatole Tresch
+ */
+public final class BatchKernels {
+
+    private static final Logger LOG = Logger.getLogger(BatchKernels.class.getName());
+
+    private static final Kernels KERNELS = loadKernels();
+
+    private BatchKernels() {
+    }
+
+    private static Kernels loadKernels() {
+        if (!Boolean.getBoolean("org.javamoney.calc.vector.scalar")) {
+            try {
+                return (Kernels) Class.forName("org.javamoney.calc.vector.VectorizedKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                LOG.log(Level.FINE, "Vector API not available, using scalar kernels.", e);
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    /**
+     * Access if the kernels are vectorized using the Vector API.
+     *
+     * @return true, if SIMD kernels are used.
+     */
+    public static boolean isVectorized() {
+        return !(KERNELS instanceof ScalarKernels);
+    }
+
+    /**
+     * Calculates the future value factors {@code (1+r)^n}.
+     *
+     * @param rates   the rates, not null.
+     * @param periods the periods, not negative, not null.
+     * @param result  the array to write the factors to, not null.
+     * @throws IllegalArgumentException if the arrays have different lengths or a period is negative.
+     */
+    public static void futureValueFactors(double[] rates, int[] periods, double[] result) {
+        int length = checkLength(rates.length, periods, result);
+        checkPeriods(periods, 1);
+        KERNELS.futureValueFactors(rates, periods, result, length);
+    }
+
+    /**
+     * Calculates the present value factors, {@code (1+r)^n} as defined by {@code PresentValueFactor}, which is the
+     * divisor applied by {@code PresentValue}. Use {@link #presentValues(double[], double[], int[], double[])} to
+     * calculate the present values directly.
+     *
+     * @param rates   the rates, not null.
+     * @param periods the periods, not negative, not null.
+     * @param result  the array to write the factors to, not null.
+     * @throws IllegalArgumentException if the arrays have different lengths or a period is negative.
+     */
+    public static void presentValueFactors(double[] rates, int[] periods, double[] result) {
+        futureValueFactors(rates, periods, result);
+    }
+
+    /**
+     * Calculates the present values {@code a/(1+r)^n}.
+     *
+     * @param amounts the amounts, not null.
+     * @param rates   the rates, not null.
+     * @param periods the periods, not negative, not null.
+     * @param result  the array to write the present values to, not null.
+     * @throws IllegalArgumentException if the arrays have different lengths or a period is negative.
+     */
+    public static void presentValues(double[] amounts, double[] rates, int[] periods, double[] result) {
+        int length = checkLength(amounts.length, periods, result);
+        checkLength(rates.length, periods, result);
+        checkPeriods(periods, 1);
+        KERNELS.presentValues(amounts, rates, periods, result, length);
+    }
+
+    /**
+     * Calculates the simple interests {@code a*r*n}.
+     *
+     * @param amounts the amounts, not null.
+     * @param rates   the rates, not null.
+     * @param periods the periods, not null.
+     * @param result  the array to write the interests to, not null.
+     * @throws IllegalArgumentException if the arrays have different lengths.
+     */
+    public static void simpleInterests(double[] amounts, double[] rates, int[] periods, double[] result) {
+        int length = checkLength(amounts.length, periods, result);
+        checkLength(rates.length, periods, result);
+        KERNELS.simpleInterests(amounts, rates, periods, result, length);
+    }
+
+    /**
+     * Calculates the compound interests {@code a*((1+r/m)^(n*m)-1)}, compounding once per period.
+     *
+     * @param amounts the amounts, not null.
+     * @param rates   the rates, not null.
+     * @param periods the periods, not negative, not null.
+     * @param result  the array to write the interests to, not null.
+     * @throws IllegalArgumentException if the arrays have different lengths or a period is negative.
+     */
+    public static void compoundInterests(double[] amounts, double[] rates, int[] periods, double[] result) {
+        compoundInterests(amounts, rates, periods, 1, result);
+    }
+
+    /**
+     * Calculates the compound interests {@code a*((1+r/m)^(n*m)-1)}.
+     *
+     * @param amounts         the amounts, not null.
+     * @param rates           the rates, not null.
+     * @param periods         the periods, not negative, not null.
+     * @param timesCompounded the times compounded per period, {@code m}, positive.
+     * @param result          the array to write the interests to, not null.
+     * @throws IllegalArgumentException if the arrays have different lengths, a period is negative,
+     *                                  {@code timesCompounded} is not positive or {@code n*m} exceeds
+     *                                  {@link Integer#MAX_VALUE}.
+     */
+    public static void compoundInterests(double[] amounts, double[] rates, int[] periods, int timesCompounded,
+                                         double[] result) {
+        if (timesCompounded <= 0) {
+            throw new IllegalArgumentException("timesCompounded must be > 0");
+        }
+        int length = checkLength(amounts.length, periods, result);
+        checkLength(rates.length, periods, result);
+        checkPeriods(periods, timesCompounded);
+        KERNELS.compoundInterests(amounts, rates, periods, timesCompounded, result, length);
+    }
+
+    private static int checkLength(int length, int[] periods, double[] result) {
+        Objects.requireNonNull(periods, "Periods required.");
+        Objects.requireNonNull(result, "Result required.");
+        if (periods.length != length || result.length != length) {
+            throw new IllegalArgumentException("Array lengths differ: " + length + '/' + periods.length + '/'
+                    + result.length);
+        }
+        return length;
+    }
+
+    private static void checkPeriods(int[] periods, int timesCompounded) {
+        // the vectorized kernels multiply periods and timesCompounded in 32 bit lanes
+        int max = Integer.MAX_VALUE / timesCompounded;
+        for (int period : periods) {
+            if (period < 0) {
+                throw new IllegalArgumentException("Periods must be >= 0");
+            }
+            if (period > max) {
+                throw new IllegalArgumentException("Compounding periods exceed " + Integer.MAX_VALUE + ": "
+                        + period + '*' + timesCompounded);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.vector;
+
+/**
+ * An implementation of the batch kernels. Arguments are validated by {@link BatchKernels}, implementations
+ * process the first {@code length} elements of the arrays passed.
+ *
+ * @author Anatole Tresch
+ */
+interface Kernels {
+
+    /**
+     * Calculates {@code (1+r)^n} for each element.
+     *
+     * @param rates   the rates.
+     * @param periods the periods, not negative.
+     * @param result  the array to write the factors to.
+     * @param length  the number of elements to process.
+     */
+    void futureValueFactors(double[] rates, int[] periods, double[] result, int length);
+
+    /**
+     * Calculates {@code a/(1+r)^n} for each element.
+     *
+     * @param amounts the amounts.
+     * @param rates   the rates.
+     * @param periods the periods, not negative.
+     * @param result  the array to write the present values to.
+     * @param length  the number of elements to process.
+     */
+    void presentValues(double[] amounts, double[] rates, int[] periods, double[] result, int length);
+
+    /**
+     * Calculates {@code a*r*n} for each element.
+     *
+     * @param amounts the amounts.
+     * @param rates   the rates.
+     * @param periods the periods.
+     * @param result  the array to write the interests to.
+     * @param length  the number of elements to process.
+     */
+    void simpleInterests(double[] amounts, double[] rates, int[] periods, double[] result, int length);
+
+    /**
+     * Calculates {@code a*((1+r/m)^(n*m)-1)} for each element.
+     *
+     * @param amounts         the amounts.
+     * @param rates           the rates.
+     * @param periods         the periods, not negative.
+     * @param timesCompounded the times compounded per period, {@code m}, positive.
+     * @param result          the array to write the interests to.
+     * @param length          the number of elements to process.
+     */
+    void compoundInterests(double[] amounts, double[] rates, int[] periods, int timesCompounded, double[] result,
+                           int length);
+}
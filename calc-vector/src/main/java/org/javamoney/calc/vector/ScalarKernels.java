@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.vector;
+
+/**
+ * Plain loop implementation of the batch kernels, used if the Vector API is not available.
+ *
+ * @author Anatole Tresch
+ */
+final class ScalarKernels implements Kernels {
+
+    @Override
+    public void futureValueFactors(double[] rates, int[] periods, double[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = Math.pow(1 + rates[i], periods[i]);
+        }
+    }
+
+    @Override
+    public void presentValues(double[] amounts, double[] rates, int[] periods, double[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = amounts[i] / Math.pow(1 + rates[i], periods[i]);
+        }
+    }
+
+    @Override
+    public void simpleInterests(double[] amounts, double[] rates, int[] periods, double[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = amounts[i] * rates[i] * periods[i];
+        }
+    }
+
+    @Override
+    public void compoundInterests(double[] amounts, double[] rates, int[] periods, int timesCompounded,
+                                  double[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = amounts[i] * (Math.pow(1 + rates[i] / timesCompounded, (long) periods[i] * timesCompounded) - 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ScalarKernels";
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch kernels using the Vector API. Integer powers are evaluated by square-and-multiply on all lanes at once,
+ * which needs only {@code log2(n)} vector multiplications and avoids the scalar fallback of
+ * {@link VectorOperators#POW} on platforms without a vectorized math library. Remaining elements not filling a
+ * whole vector are calculated by scalar loops.
+ *
+ * @author Anatole Tresch
+ */
+final class VectorizedKernels implements Kernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    /** Integer species with the same number of lanes as {@link #DOUBLES}. */
+    private static final VectorSpecies<Integer> INTS =
+            IntVector.SPECIES_PREFERRED.withShape(VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    VectorizedKernels() {
+        if (INTS.length() != DOUBLES.length()) {
+            throw new IllegalStateException("Unsupported vector shape: " + DOUBLES);
+        }
+    }
+
+    private static DoubleVector pow(DoubleVector base, IntVector exponent) {
+        DoubleVector result = DoubleVector.broadcast(DOUBLES, 1.0);
+        IntVector e = exponent;
+        while (true) {
+            VectorMask<Integer> odd = e.and(1).compare(VectorOperators.NE, 0);
+            result = result.blend(result.mul(base), odd.cast(DOUBLES));
+            e = e.lanewise(VectorOperators.ASHR, 1);
+            if (!e.compare(VectorOperators.GT, 0).anyTrue()) {
+                return result;
+            }
+            base = base.mul(base);
+        }
+    }
+
+    private static DoubleVector toDoubles(IntVector values) {
+        return (DoubleVector) values.convertShape(VectorOperators.I2D, DOUBLES, 0);
+    }
+
+    @Override
+    public void futureValueFactors(double[] rates, int[] periods, double[] result, int length) {
+        int bound = DOUBLES.loopBound(length);
+        for (int i = 0; i < bound; i += DOUBLES.length()) {
+            DoubleVector base = DoubleVector.fromArray(DOUBLES, rates, i).add(1.0);
+            pow(base, IntVector.fromArray(INTS, periods, i)).intoArray(result, i);
+        }
+        for (int i = bound; i < length; i++) {
+            result[i] = Math.pow(1 + rates[i], periods[i]);
+        }
+    }
+
+    @Override
+    public void presentValues(double[] amounts, double[] rates, int[] periods, double[] result, int length) {
+        int bound = DOUBLES.loopBound(length);
+        for (int i = 0; i < bound; i += DOUBLES.length()) {
+            DoubleVector base = DoubleVector.fromArray(DOUBLES, rates, i).add(1.0);
+            DoubleVector factor = pow(base, IntVector.fromArray(INTS, periods, i));
+            DoubleVector.fromArray(DOUBLES, amounts, i).div(factor).intoArray(result, i);
+        }
+        for (int i = bound; i < length; i++) {
+            result[i] = amounts[i] / Math.pow(1 + rates[i], periods[i]);
+        }
+    }
+
+    @Override
+    public void simpleInterests(double[] amounts, double[] rates, int[] periods, double[] result, int length) {
+        int bound = DOUBLES.loopBound(length);
+        for (int i = 0; i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, amounts, i)
+                    .mul(DoubleVector.fromArray(DOUBLES, rates, i))
+                    .mul(toDoubles(IntVector.fromArray(INTS, periods, i)))
+                    .intoArray(result, i);
+        }
+        for (int i = bound; i < length; i++) {
+            result[i] = amounts[i] * rates[i] * periods[i];
+        }
+    }
+
+    @Override
+    public void compoundInterests(double[] amounts, double[] rates, int[] periods, int timesCompounded,
+                                  double[] result, int length) {
+        int bound = DOUBLES.loopBound(length);
+        for (int i = 0; i < bound; i += DOUBLES.length()) {
+            DoubleVector base = DoubleVector.fromArray(DOUBLES, rates, i).div(timesCompounded).add(1.0);
+            DoubleVector factor = pow(base, IntVector.fromArray(INTS, periods, i).mul(timesCompounded));
+            DoubleVector.fromArray(DOUBLES, amounts, i).mul(factor.sub(1.0)).intoArray(result, i);
+        }
+        for (int i = bound; i < length; i++) {
+            result[i] = amounts[i] * (Math.pow(1 + rates[i] / timesCompounded, (long) periods[i] * timesCompounded) - 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VectorizedKernels{species=" + DOUBLES + '}';
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+/**
+ * Double precision batch kernels for the formulas of {@code org.javamoney.calc.common}, evaluating arrays of
+ * rates, periods and amounts at once. The kernels use the incubating Vector API ({@code jdk.incubator.vector}) if
+ * the module is available, e.g. with {@code --add-modules jdk.incubator.vector}, and a scalar implementation
+ * otherwise. Results are accurate to about 1e-12 relative, they are meant for screening and what-if
+ * calculations, not for booking amounts.
+ */
+package org.javamoney.calc.vector;
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.vector;
+
+import org.javamoney.calc.common.CompoundInterest;
+import org.javamoney.calc.common.FutureValueFactor;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.calc.common.SimpleInterest;
+import org.javamoney.moneta.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.money.MonetaryAmount;
+
+/**
+ * Compares the scalar and vectorized batch kernels with the {@code BigDecimal} operators applied element by
+ * element. The {@code BigDecimal} variants run on a sample of {@code operatorSize} elements only, compare the time
+ * per element. Not run by the unit tests, start with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class BatchKernelsBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"10000"})
+    public int operatorSize;
+
+    private double[] amounts;
+    private double[] rates;
+    private int[] periods;
+    private double[] result;
+    private MonetaryAmount[] moneyAmounts;
+    private RateAndPeriods[] rateAndPeriods;
+
+    private final Kernels scalar = new ScalarKernels();
+    private Kernels vectorized;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(17);
+        amounts = new double[size];
+        rates = new double[size];
+        periods = new int[size];
+        result = new double[size];
+        for (int i = 0; i < size; i++) {
+            amounts[i] = random.nextInt(100_000_000) / 100.0;
+            rates[i] = random.nextInt(1000) / 10_000.0;
+            periods[i] = 1 + random.nextInt(30);
+        }
+        moneyAmounts = new MonetaryAmount[operatorSize];
+        rateAndPeriods = new RateAndPeriods[operatorSize];
+        for (int i = 0; i < operatorSize; i++) {
+            moneyAmounts[i] = Money.of(BigDecimal.valueOf(amounts[i]), "CHF");
+            rateAndPeriods[i] = RateAndPeriods.of(rates[i], periods[i]);
+        }
+        vectorized = BatchKernels.isVectorized() ? new VectorizedKernels() : scalar;
+    }
+
+    @Benchmark
+    public double[] futureValueFactorsScalar() {
+        scalar.futureValueFactors(rates, periods, result, size);
+        return result;
+    }
+
+    @Benchmark
+    public double[] futureValueFactorsVectorized() {
+        vectorized.futureValueFactors(rates, periods, result, size);
+        return result;
+    }
+
+    @Benchmark
+    public BigDecimal futureValueFactorsOperator() {
+        BigDecimal last = null;
+        for (RateAndPeriods rp : rateAndPeriods) {
+            last = FutureValueFactor.calculate(rp);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public double[] simpleInterestsScalar() {
+        scalar.simpleInterests(amounts, rates, periods, result, size);
+        return result;
+    }
+
+    @Benchmark
+    public double[] simpleInterestsVectorized() {
+        vectorized.simpleInterests(amounts, rates, periods, result, size);
+        return result;
+    }
+
+    @Benchmark
+    public MonetaryAmount simpleInterestsOperator() {
+        MonetaryAmount last = null;
+        for (int i = 0; i < operatorSize; i++) {
+            last = SimpleInterest.calculate(moneyAmounts[i], rateAndPeriods[i]);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public double[] compoundInterestsScalar() {
+        scalar.compoundInterests(amounts, rates, periods, 12, result, size);
+        return result;
+    }
+
+    @Benchmark
+    public double[] compoundInterestsVectorized() {
+        vectorized.compoundInterests(amounts, rates, periods, 12, result, size);
+        return result;
+    }
+
+    @Benchmark
+    public MonetaryAmount compoundInterestsOperator() {
+        MonetaryAmount last = null;
+        for (int i = 0; i < operatorSize; i++) {
+            last = CompoundInterest.calculate(moneyAmounts[i], rateAndPeriods[i], 12);
+        }
+        return last;
+    }
+
+    public static void main(String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchKernelsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
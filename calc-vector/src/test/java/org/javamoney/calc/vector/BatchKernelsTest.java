@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.vector;
+
+import org.javamoney.calc.common.CompoundInterest;
+import org.javamoney.calc.common.FutureValueFactor;
+import org.javamoney.calc.common.PresentValueFactor;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.calc.common.SimpleInterest;
+import org.javamoney.moneta.Money;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BatchKernels}, comparing the scalar and the vectorized kernels with the {@code BigDecimal}
+ * operators.
+ */
+public class BatchKernelsTest {
+
+    /** Odd size, so the scalar tail of the vectorized kernels is covered. */
+    private static final int SIZE = 1001;
+    private static final double TOLERANCE = 1e-10;
+
+    private final double[] amounts = new double[SIZE];
+    private final double[] rates = new double[SIZE];
+    private final int[] periods = new int[SIZE];
+
+    public BatchKernelsTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            amounts[i] = random.nextInt(10_000_000) / 100.0;
+            rates[i] = (random.nextInt(2000) - 500) / 10_000.0;
+            periods[i] = random.nextInt(60);
+        }
+    }
+
+    private static void assertClose(String message, double expected, double actual) {
+        assertEquals(message, expected, actual, Math.max(1.0, Math.abs(expected)) * TOLERANCE);
+    }
+
+    private void verify(Kernels kernels) {
+        double[] result = new double[SIZE];
+        kernels.futureValueFactors(rates, periods, result, SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            assertClose("futureValueFactor " + i, FutureValueFactor.calculate(RateAndPeriods.of(rates[i],
+                    periods[i])).doubleValue(), result[i]);
+        }
+        kernels.presentValues(amounts, rates, periods, result, SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            assertClose("presentValue " + i, BigDecimal.valueOf(amounts[i]).divide(PresentValueFactor.calculate(
+                    RateAndPeriods.of(rates[i], periods[i])), MathContext.DECIMAL64).doubleValue(),
+                    result[i]);
+        }
+        kernels.simpleInterests(amounts, rates, periods, result, SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            assertClose("simpleInterest " + i, SimpleInterest.calculate(Money.of(amounts[i], "CHF"),
+                    RateAndPeriods.of(rates[i], periods[i])).getNumber().doubleValue(), result[i]);
+        }
+        kernels.compoundInterests(amounts, rates, periods, 12, result, SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            assertClose("compoundInterest " + i, CompoundInterest.calculate(Money.of(amounts[i], "CHF"),
+                    RateAndPeriods.of(rates[i], periods[i]), 12).getNumber().doubleValue(), result[i]);
+        }
+    }
+
+    /**
+     * The scalar kernels match the operators.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void scalarKernels() throws Exception {
+        verify(new ScalarKernels());
+    }
+
+    /**
+     * The vectorized kernels match the operators, if the Vector API is available.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void vectorizedKernels() throws Exception {
+        // skip, if the Vector API is not available
+        Assume.assumeTrue(BatchKernels.isVectorized());
+        verify(new VectorizedKernels());
+    }
+
+    /**
+     * The public kernels write all elements.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void futureValueFactors() throws Exception {
+        double[] result = new double[3];
+        BatchKernels.futureValueFactors(new double[]{0.05, 0, 0.1}, new int[]{2, 5, 0}, result);
+        assertEquals(1.1025, result[0], 1e-12);
+        assertEquals(1.0, result[1], 1e-12);
+        assertEquals(1.0, result[2], 1e-12);
+    }
+
+    /**
+     * Arrays of different lengths are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void simpleInterests_lengthMismatch() throws Exception {
+        BatchKernels.simpleInterests(new double[2], new double[2], new int[2], new double[1]);
+    }
+
+    /**
+     * Negative periods are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void compoundInterests_negativePeriods() throws Exception {
+        BatchKernels.compoundInterests(new double[1], new double[1], new int[]{-1}, new double[1]);
+    }
+
+    /**
+     * Compounding periods not fitting into an int are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void compoundInterests_periodOverflow() throws Exception {
+        BatchKernels.compoundInterests(new double[1], new double[1], new int[]{Integer.MAX_VALUE / 12 + 1}, 12,
+                new double[1]);
+    }
+}
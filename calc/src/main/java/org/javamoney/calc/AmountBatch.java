@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.common.Rate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import javax.money.MonetaryException;
+import javax.money.MonetaryOperator;
+
+/**
+ * A compact, columnar representation of many amounts. The currencies are dictionary encoded as a {@code short}
+ * per amount and the numbers are stored as unscaled {@code long} values with a scale shared by the whole batch,
+ * so an amount takes about 10 bytes instead of a separate {@link MonetaryAmount} instance. Numbers not fitting
+ * into a {@code long} are kept as {@link BigDecimal} in a side table.
+ * <p>
+ * Numbers are rounded to the scale of the batch using {@link RoundingMode#HALF_EVEN}. Batches are immutable,
+ * operations return new batches sharing the currency column where possible. Instances of {@link Rate} are
+ * applied directly on the unscaled values, {@link CompositeMonetaryOperator}s are applied operator by operator,
+ * rounding each intermediate batch, or, with deferred rounding, rounding once per amount.
+ *
+ * @author Anatole Tresch
+ */
+public final class AmountBatch {
+
+    /** Marks a number kept in the overflow table. */
+    private static final long OVERFLOW = Long.MIN_VALUE;
+    private static final int MAX_CURRENCIES = 1 << 16;
+
+    private final int scale;
+    private final CurrencyUnit[] currencies;
+    private final short[] currencyIds;
+    private final long[] units;
+    private final Map<Integer, BigDecimal> overflows;
+
+    private AmountBatch(int scale, CurrencyUnit[] currencies, short[] currencyIds, long[] units,
+                        Map<Integer, BigDecimal> overflows) {
+        this.scale = scale;
+        this.currencies = currencies;
+        this.currencyIds = currencyIds;
+        this.units = units;
+        this.overflows = overflows;
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @param scale the scale of the numbers, 0 to 18.
+     * @return a new builder, never null.
+     */
+    public static Builder newBuilder(int scale) {
+        return new Builder(scale, 16);
+    }
+
+    /**
+     * Creates a new builder, allocating the columns for the given number of amounts.
+     *
+     * @param scale        the scale of the numbers, 0 to 18.
+     * @param expectedSize the expected number of amounts.
+     * @return a new builder, never null.
+     */
+    public static Builder newBuilder(int scale, int expectedSize) {
+        return new Builder(scale, Math.max(expectedSize, 0));
+    }
+
+    /**
+     * Creates a batch containing the given amounts.
+     *
+     * @param amounts the amounts, not null.
+     * @param scale   the scale of the numbers, 0 to 18.
+     * @return the new batch, never null.
+     */
+    public static AmountBatch of(Iterable<? extends MonetaryAmount> amounts, int scale) {
+        Builder builder = newBuilder(scale);
+        for (MonetaryAmount amount : amounts) {
+            builder.add(amount);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Access the number of amounts.
+     *
+     * @return the size of the batch.
+     */
+    public int size() {
+        return units.length;
+    }
+
+    /**
+     * Access the scale all numbers are rounded to.
+     *
+     * @return the scale.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Access the currencies of the currency dictionary.
+     *
+     * @return the currencies, never null.
+     */
+    public Set<CurrencyUnit> getCurrencies() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(currencies)));
+    }
+
+    /**
+     * Access the currency of an amount.
+     *
+     * @param index the index.
+     * @return the currency, never null.
+     */
+    public CurrencyUnit getCurrency(int index) {
+        return currencies[currencyIds[index] & 0xFFFF];
+    }
+
+    /**
+     * Access if the number of an amount does not fit into an unscaled {@code long}.
+     *
+     * @param index the index.
+     * @return true, if the number is kept in the overflow table.
+     */
+    public boolean isOverflow(int index) {
+        return units[index] == OVERFLOW;
+    }
+
+    /**
+     * Access the unscaled number of an amount.
+     *
+     * @param index the index.
+     * @return the number multiplied by 10^scale.
+     * @throws ArithmeticException if the number does not fit into a {@code long}.
+     * @see #isOverflow(int)
+     */
+    public long getUnscaled(int index) {
+        long value = units[index];
+        if (value == OVERFLOW) {
+            throw new ArithmeticException("Number overflows long: " + overflows.get(index));
+        }
+        return value;
+    }
+
+    /**
+     * Access the number of an amount.
+     *
+     * @param index the index.
+     * @return the number, never null.
+     */
+    public BigDecimal getNumber(int index) {
+        long value = units[index];
+        if (value == OVERFLOW) {
+            return overflows.get(index);
+        }
+        return BigDecimal.valueOf(value, scale);
+    }
+
+    /**
+     * Creates an amount using the default amount factory.
+     *
+     * @param index the index.
+     * @return the amount, never null.
+     */
+    public MonetaryAmount get(int index) {
+        return get(index, Monetary.getDefaultAmountFactory());
+    }
+
+    /**
+     * Creates an amount using the given factory.
+     *
+     * @param index   the index.
+     * @param factory the factory, not null.
+     * @param <T>     the amount type.
+     * @return the amount, never null.
+     */
+    public <T extends MonetaryAmount> T get(int index, MonetaryAmountFactory<T> factory) {
+        return factory.setCurrency(getCurrency(index)).setNumber(getNumber(index)).create();
+    }
+
+    /**
+     * Multiplies all amounts with the given factor. Numbers and factors fitting into a {@code long} are
+     * multiplied in fixed-point, without creating any objects.
+     *
+     * @param factor the factor, not null.
+     * @return the new batch, never null.
+     */
+    public AmountBatch multiply(BigDecimal factor) {
+        Objects.requireNonNull(factor, "Factor required.");
+        int factorScale = Math.max(factor.scale(), 0);
+        boolean fixedPoint = factor.precision() <= FixedPoint.MAX_DIGITS
+                && FixedPoint.fitsUnscaled(factor, factorScale);
+        long factorUnits = fixedPoint ? FixedPoint.unscaled(factor, factorScale) : 0L;
+        long[] result = new long[units.length];
+        Map<Integer, BigDecimal> resultOverflows = new HashMap<>();
+        for (int i = 0; i < units.length; i++) {
+            long value = units[i];
+            if (fixedPoint && value != OVERFLOW) {
+                try {
+                    result[i] = FixedPoint.multiply(value, factorUnits, factorScale);
+                    if (result[i] != OVERFLOW) {
+                        continue;
+                    }
+                } catch (ArithmeticException e) {
+                    // overflow, multiply as BigDecimal
+                }
+            }
+            store(result, resultOverflows, i, getNumber(i).multiply(factor).setScale(scale, RoundingMode.HALF_EVEN));
+        }
+        return new AmountBatch(scale, currencies, currencyIds, result, resultOverflows);
+    }
+
+    /**
+     * Applies the operator to all amounts. Operators not applied directly on the columns are evaluated on an
+     * unrounded view of each amount, rounding the result to the scale of this batch.
+     *
+     * @param operator the operator, not null.
+     * @return the new batch, never null.
+     */
+    public AmountBatch apply(MonetaryOperator operator) {
+        Objects.requireNonNull(operator, "Operator required.");
+        if (operator instanceof Rate) {
+            return multiply(((Rate) operator).get());
+        }
+        if (operator instanceof CompositeMonetaryOperator) {
+            CompositeMonetaryOperator composite = (CompositeMonetaryOperator) operator;
+            if (!composite.isDeferredRounding()) {
+                AmountBatch result = this;
+                for (MonetaryOperator op : composite.getOperators()) {
+                    result = result.apply(op);
+                }
+                return result;
+            }
+        }
+        if (units.length == 0) {
+            return this;
+        }
+        Writer writer = new Writer(scale, currencies, units.length);
+        UnroundedAmount template = UnroundedAmount.of(currencies[0], BigDecimal.ZERO);
+        for (int i = 0; i < units.length; i++) {
+            MonetaryAmount result = operator.apply(template.with(getCurrency(i), getNumber(i)));
+            writer.add(result.getCurrency(), result instanceof UnroundedAmount
+                    ? ((UnroundedAmount) result).numberValue() : result.getNumber().numberValue(BigDecimal.class));
+        }
+        return writer.build(false);
+    }
+
+    private static void store(long[] units, Map<Integer, BigDecimal> overflows, int index, BigDecimal value) {
+        if (value.unscaledValue().bitLength() < Long.SIZE) {
+            long unscaled = value.unscaledValue().longValue();
+            if (unscaled != OVERFLOW) {
+                units[index] = unscaled;
+                return;
+            }
+        }
+        units[index] = OVERFLOW;
+        overflows.put(index, value);
+    }
+
+    @Override
+    public String toString() {
+        return "AmountBatch{" +
+                "size=" + units.length +
+                ", scale=" + scale +
+                ", currencies=" + Arrays.toString(currencies) +
+                ", overflows=" + overflows.size() +
+                '}';
+    }
+
+    /**
+     * Collects the columns of a new batch.
+     */
+    private static final class Writer {
+        private final int scale;
+        private final List<CurrencyUnit> currencies = new ArrayList<>();
+        private final Map<CurrencyUnit, Integer> ids = new HashMap<>();
+        private short[] currencyIds;
+        private long[] units;
+        private final Map<Integer, BigDecimal> overflows = new HashMap<>();
+        private int size;
+        private CurrencyUnit lastCurrency;
+        private short lastId;
+
+        Writer(int scale, CurrencyUnit[] dictionary, int capacity) {
+            this.scale = scale;
+            for (CurrencyUnit currency : dictionary) {
+                id(currency);
+            }
+            this.currencyIds = new short[capacity];
+            this.units = new long[capacity];
+        }
+
+        private short id(CurrencyUnit currency) {
+            if (currency.equals(lastCurrency)) {
+                return lastId;
+            }
+            Integer id = ids.get(currency);
+            if (id == null) {
+                if (currencies.size() == MAX_CURRENCIES) {
+                    throw new MonetaryException("Too many currencies in batch: " + MAX_CURRENCIES);
+                }
+                id = currencies.size();
+                currencies.add(currency);
+                ids.put(currency, id);
+            }
+            lastCurrency = currency;
+            lastId = (short) id.intValue();
+            return lastId;
+        }
+
+        private void ensureCapacity() {
+            if (size == units.length) {
+                int capacity = Math.max(16, size + (size >> 1));
+                units = Arrays.copyOf(units, capacity);
+                currencyIds = Arrays.copyOf(currencyIds, capacity);
+            }
+        }
+
+        void add(CurrencyUnit currency, BigDecimal number) {
+            Objects.requireNonNull(currency, "Currency required.");
+            Objects.requireNonNull(number, "Number required.");
+            ensureCapacity();
+            currencyIds[size] = id(currency);
+            store(units, overflows, size, number.setScale(scale, RoundingMode.HALF_EVEN));
+            size++;
+        }
+
+        void addUnscaled(CurrencyUnit currency, long unscaled) {
+            Objects.requireNonNull(currency, "Currency required.");
+            ensureCapacity();
+            currencyIds[size] = id(currency);
+            if (unscaled == OVERFLOW) {
+                store(units, overflows, size, BigDecimal.valueOf(unscaled, scale));
+            } else {
+                units[size] = unscaled;
+            }
+            size++;
+        }
+
+        /**
+         * Creates the batch.
+         *
+         * @param copy if the columns must be copied, because the writer is still used afterwards.
+         * @return the new batch, never null.
+         */
+        AmountBatch build(boolean copy) {
+            CurrencyUnit[] dictionary = currencies.toArray(new CurrencyUnit[0]);
+            if (!copy && size == units.length) {
+                return new AmountBatch(scale, dictionary, currencyIds, units, overflows);
+            }
+            return new AmountBatch(scale, dictionary, Arrays.copyOf(currencyIds, size), Arrays.copyOf(units, size),
+                    new HashMap<>(overflows));
+        }
+    }
+
+    /**
+     * Builder for creating new batches.
+     */
+    public static final class Builder {
+
+        private final Writer writer;
+
+        private Builder(int scale, int capacity) {
+            if (scale < 0 || scale > FixedPoint.MAX_DIGITS) {
+                throw new IllegalArgumentException("Scale must be between 0 and " + FixedPoint.MAX_DIGITS + ": "
+                        + scale);
+            }
+            this.writer = new Writer(scale, new CurrencyUnit[0], capacity);
+        }
+
+        /**
+         * Adds an amount.
+         *
+         * @param amount the amount, not null.
+         * @return this builder for chaining.
+         */
+        public Builder add(MonetaryAmount amount) {
+            Objects.requireNonNull(amount, "Amount required.");
+            writer.add(amount.getCurrency(), amount.getNumber().numberValue(BigDecimal.class));
+            return this;
+        }
+
+        /**
+         * Adds an amount.
+         *
+         * @param currency the currency, not null.
+         * @param number   the number, not null.
+         * @return this builder for chaining.
+         */
+        public Builder add(CurrencyUnit currency, BigDecimal number) {
+            writer.add(currency, number);
+            return this;
+        }
+
+        /**
+         * Adds an amount given as unscaled number, without creating a {@link BigDecimal}.
+         *
+         * @param currency the currency, not null.
+         * @param unscaled the number multiplied by 10^scale.
+         * @return this builder for chaining.
+         */
+        public Builder addUnscaled(CurrencyUnit currency, long unscaled) {
+            writer.addUnscaled(currency, unscaled);
+            return this;
+        }
+
+        /**
+         * Creates a new batch containing the amounts added so far.
+         *
+         * @return the new batch, never null.
+         */
+        public AmountBatch build() {
+            return writer.build(true);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import javax.money.MonetaryOperator;
+
+/**
+ * Applies an operator to all positions of a {@link PositionFile}, writing the results to a new position file of
+ * the same scale. Both files are memory mapped in partitions of {@link Builder#partitionSize(int) partitionSize}
+ * records, which are decoded into an {@link AmountBatch}, evaluated and encoded independently, in parallel.
+ * The heap used is bounded by the partition size and the parallelism, regardless of the file size.
+ * <p>
+ * Results are rounded to the scale of the input file, as defined by {@link AmountBatch#apply(MonetaryOperator)}.
+ * A result not fitting into an unscaled {@code long} fails the valuation with an {@link ArithmeticException}.
+ *
+ * @author Anatole Tresch
+ */
+public final class BulkValuation {
+
+    private static final int MAX_PARTITION_SIZE = Integer.MAX_VALUE / PositionFile.RECORD_SIZE;
+
+    private final int partitionSize;
+    private final int parallelism;
+
+    private BulkValuation(Builder builder) {
+        this.partitionSize = builder.partitionSize;
+        this.parallelism = builder.parallelism;
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @return a new builder, never null.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Access the number of records evaluated as one batch.
+     *
+     * @return the partition size.
+     */
+    public int getPartitionSize() {
+        return partitionSize;
+    }
+
+    /**
+     * Access the maximal number of partitions evaluated concurrently.
+     *
+     * @return the parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Applies the operator to all positions of the input file, writing the results to the output file.
+     *
+     * @param input    the position file to read, not null.
+     * @param output   the position file to write, replaced if existing, not null.
+     * @param operator the operator, e.g. a {@link CompositeMonetaryOperator}, not null.
+     * @return the number of positions evaluated.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public long run(Path input, Path output, MonetaryOperator operator) throws IOException {
+        Objects.requireNonNull(operator, "Operator required.");
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            PositionFile header = PositionFile.readHeader(in, input);
+            PositionFile.writeHeader(out, header.getScale(), header.getCount());
+            int partitions = (int) ((header.getCount() + partitionSize - 1) / partitionSize);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.submit(() -> IntStream.range(0, partitions).parallel()
+                        .forEach(partition -> evaluate(in, out, header, partition, operator))).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Valuation interrupted: " + input);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException("Valuation failed: " + input, cause);
+            } finally {
+                pool.shutdown();
+            }
+            out.force(false);
+            return header.getCount();
+        }
+    }
+
+    private void evaluate(FileChannel in, FileChannel out, PositionFile header, int partition,
+                          MonetaryOperator operator) {
+        long first = (long) partition * partitionSize;
+        int size = (int) Math.min(partitionSize, header.getCount() - first);
+        long offset = PositionFile.HEADER_SIZE + first * PositionFile.RECORD_SIZE;
+        long length = (long) size * PositionFile.RECORD_SIZE;
+        try {
+            MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            AmountBatch result = PositionFile.decode(source, size, header.getScale()).apply(operator);
+            MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, offset, length);
+            PositionFile.encode(result, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BulkValuation{" +
+                "partitionSize=" + partitionSize +
+                ", parallelism=" + parallelism +
+                '}';
+    }
+
+    /**
+     * Builder for creating new instances.
+     */
+    public static final class Builder {
+
+        private int partitionSize = 1 << 20;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of records evaluated as one batch, by default 1048576.
+         *
+         * @param partitionSize the partition size, positive.
+         * @return this builder for chaining.
+         */
+        public Builder partitionSize(int partitionSize) {
+            if (partitionSize <= 0 || partitionSize > MAX_PARTITION_SIZE) {
+                throw new IllegalArgumentException("Partition size must be between 1 and " + MAX_PARTITION_SIZE
+                        + ": " + partitionSize);
+            }
+            this.partitionSize = partitionSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximal number of partitions evaluated concurrently, by default the number of processors.
+         *
+         * @param parallelism the parallelism, positive.
+         * @return this builder for chaining.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be > 0: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Creates a new instance.
+         *
+         * @return the new instance, never null.
+         */
+        public BulkValuation build() {
+            return new BulkValuation(this);
+        }
+    }
+}
@@ -19,19 +19,59 @@ package org.javamoney.calc;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.math.RoundingMode;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.money.MonetaryAmount;
+import javax.money.NumberValue;
 
 /**
  * Singleton to control the default {@link MathContext} to be used along the calculation library.
+ *
+ * By default all calculations use the same {@link MathContext}, see {@link #setMathContext(MathContext)}. With
+ * {@link PrecisionMode#CURRENCY} operators supporting it derive a smaller working precision from the amount, see
+ * {@link #mathContext(MonetaryAmount)}, and {@link PrecisionMode#AUDIT} allows to verify this before enabling it.
+ * Products of long-backed amounts are only rounded by {@link FixedPoint} if enabled, see
+ * {@link #setFixedPointRounding(boolean)}.
  */
 public final class CalculationContext {
 
+    private static final Logger LOG = Logger.getLogger(CalculationContext.class.getName());
+
     private static final CalculationContext instance = new CalculationContext();
 
+    /**
+     * Defines how operators evaluate the working precision of their calculations.
+     */
+    public enum PrecisionMode {
+        /** All calculations use the precision of {@link #mathContext()}, the default. */
+        FIXED,
+        /**
+         * Calculations use the precision required by the amount's currency and magnitude, plus the
+         * {@link #precisionMargin() margin}, but never more than {@link #mathContext()}.
+         */
+        CURRENCY,
+        /**
+         * Calculations are evaluated with both precisions. Results with the full precision are returned, results
+         * differing after rounding to the currency's fraction digits are logged and counted.
+         */
+        AUDIT
+    }
+
     private MathContext mathContext;
     private BigDecimal one;
     private BigDecimal zero;
     private BigDecimal ten;
+    private MathContext[] tunedContexts;
+    private volatile PrecisionMode precisionMode = PrecisionMode.FIXED;
+    private volatile int precisionMargin = 8;
+    private volatile boolean fixedPointRounding;
+    private final AtomicLong auditMismatches = new AtomicLong();
 
     private CalculationContext(){
         init(MathContext.DECIMAL64);
@@ -114,11 +154,203 @@ public final class CalculationContext {
         instance.init(Objects.requireNonNull(mathContext));
     }
 
+    /**
+     * Access the precision mode.
+     *
+     * @return the precision mode, never null.
+     */
+    public static PrecisionMode precisionMode() {
+        return instance.precisionMode;
+    }
+
+    /**
+     * Sets the precision mode, default is {@link PrecisionMode#FIXED}.
+     *
+     * @param precisionMode the precision mode, not null.
+     */
+    public static void setPrecisionMode(PrecisionMode precisionMode) {
+        instance.precisionMode = Objects.requireNonNull(precisionMode);
+    }
+
+    /**
+     * Access the number of digits added to the precision derived from an amount. The margin covers the growth of
+     * the result compared to the amount, e.g. for compounding, and the error accumulated by the calculation steps.
+     *
+     * @return the margin in digits.
+     */
+    public static int precisionMargin() {
+        return instance.precisionMargin;
+    }
+
+    /**
+     * Sets the number of digits added to the precision derived from an amount, default is 8.
+     *
+     * @param precisionMargin the margin in digits, &gt;= 0.
+     */
+    public static void setPrecisionMargin(int precisionMargin) {
+        if (precisionMargin < 0) {
+            throw new IllegalArgumentException("Precision margin must be >= 0.");
+        }
+        instance.precisionMargin = precisionMargin;
+    }
+
+    /**
+     * Checks if the operators multiply long-backed amounts using {@link FixedPoint}, see
+     * {@link #setFixedPointRounding(boolean)}.
+     *
+     * @return true, if fixed-point rounding is enabled.
+     */
+    public static boolean fixedPointRounding() {
+        return instance.fixedPointRounding;
+    }
+
+    /**
+     * Enables multiplying long-backed amounts, such as {@code FastMoney}, using {@link FixedPoint}, default is
+     * false. Products are then rounded {@link RoundingMode#HALF_EVEN} to the amount's scale, factors with any
+     * number of fraction digits are accepted, and products out of the amount's range are widened to the default
+     * amount type. Otherwise the amount multiplies itself, so {@code FastMoney} truncates products and rejects
+     * factors with more than 5 fraction digits.
+     *
+     * @param fixedPointRounding true, to enable fixed-point rounding.
+     */
+    public static void setFixedPointRounding(boolean fixedPointRounding) {
+        instance.fixedPointRounding = fixedPointRounding;
+    }
+
+    /**
+     * Multiplies an amount by a factor, as done by the operators of this library: long-backed amounts use
+     * {@link FixedPoint#multiply(MonetaryAmount, BigDecimal)} if {@link #fixedPointRounding()} is enabled, all
+     * other amounts {@link MonetaryAmount#multiply(Number)}.
+     *
+     * @param amount the amount, not null.
+     * @param factor the factor, not null.
+     * @return the product, never null.
+     */
+    public static MonetaryAmount multiply(MonetaryAmount amount, BigDecimal factor) {
+        if (instance.fixedPointRounding && FixedPoint.isFixedPoint(amount)) {
+            return FixedPoint.multiply(amount, factor);
+        }
+        return amount.multiply(factor);
+    }
+
+    /**
+     * Evaluates the {@link MathContext} for a calculation based on the given amount. With
+     * {@link PrecisionMode#CURRENCY} the precision is the number of integer digits of the amount plus the default
+     * fraction digits of its currency plus the {@link #precisionMargin() margin}, limited to the precision of
+     * {@link #mathContext()}. Otherwise, and for currencies without default fraction digits, {@link #mathContext()}
+     * is returned.
+     *
+     * @param amount the amount, not null.
+     * @return the math context, never null.
+     */
+    public static MathContext mathContext(MonetaryAmount amount) {
+        if (instance.precisionMode != PrecisionMode.CURRENCY) {
+            return instance.mathContext;
+        }
+        return tunedMathContext(amount);
+    }
+
+    /**
+     * Performs a calculation on the given amount using the math context evaluated according to the
+     * {@link #precisionMode() precision mode}. With {@link PrecisionMode#AUDIT} the calculation is performed twice.
+     *
+     * @param amount      the amount the precision is derived from, not null.
+     * @param calculation the calculation, not null.
+     * @return the result of the calculation, never null.
+     */
+    public static MonetaryAmount calculate(MonetaryAmount amount, Function<MathContext, MonetaryAmount> calculation) {
+        return calculate(amount, () -> calculation.apply(instance.mathContext), calculation);
+    }
+
+    /**
+     * Performs a calculation on the given amount, for operators whose full calculation does not use
+     * {@link #mathContext()}, e.g. an exact power. {@link PrecisionMode#FIXED} performs the full calculation,
+     * {@link PrecisionMode#CURRENCY} the tuned one, and {@link PrecisionMode#AUDIT} both, returning the full one.
+     *
+     * @param amount      the amount the precision is derived from, not null.
+     * @param full        the calculation of {@link PrecisionMode#FIXED}, not null.
+     * @param calculation the calculation with a derived precision, not null.
+     * @return the result of the calculation, never null.
+     */
+    public static MonetaryAmount calculate(MonetaryAmount amount, Supplier<MonetaryAmount> full,
+                                           Function<MathContext, MonetaryAmount> calculation) {
+        switch (instance.precisionMode) {
+            case CURRENCY:
+                return calculation.apply(tunedMathContext(amount));
+            case AUDIT:
+                return audit(amount, full, calculation);
+            case FIXED:
+            default:
+                return full.get();
+        }
+    }
+
+    /**
+     * Access the number of results that differed in {@link PrecisionMode#AUDIT} so far.
+     *
+     * @return the number of mismatches.
+     */
+    public static long auditMismatches() {
+        return instance.auditMismatches.get();
+    }
+
+    /**
+     * Resets the number of audit mismatches to zero.
+     */
+    public static void resetAuditMismatches() {
+        instance.auditMismatches.set(0);
+    }
+
+    private static MathContext tunedMathContext(MonetaryAmount amount) {
+        MathContext full = instance.mathContext;
+        int fractionDigits = amount.getCurrency().getDefaultFractionDigits();
+        if (fractionDigits < 0) {
+            return full;
+        }
+        NumberValue number = amount.getNumber();
+        int integerDigits = Math.max(number.getPrecision() - number.getScale(), 1);
+        int precision = integerDigits + fractionDigits + instance.precisionMargin;
+        if (full.getPrecision() > 0 && precision >= full.getPrecision()) {
+            return full;
+        }
+        MathContext[] contexts = instance.tunedContexts;
+        return precision < contexts.length ? contexts[precision] : new MathContext(precision, full.getRoundingMode());
+    }
+
+    private static MonetaryAmount audit(MonetaryAmount amount, Supplier<MonetaryAmount> fullCalculation,
+                                        Function<MathContext, MonetaryAmount> calculation) {
+        MathContext full = instance.mathContext;
+        MonetaryAmount expected = fullCalculation.get();
+        MathContext tuned = tunedMathContext(amount);
+        if (tuned != full) {
+            MonetaryAmount actual = calculation.apply(tuned);
+            int fractionDigits = amount.getCurrency().getDefaultFractionDigits();
+            RoundingMode roundingMode = full.getRoundingMode();
+            BigDecimal expectedNumber = expected.getNumber().numberValue(BigDecimal.class)
+                    .setScale(fractionDigits, roundingMode);
+            BigDecimal actualNumber = actual.getNumber().numberValue(BigDecimal.class)
+                    .setScale(fractionDigits, roundingMode);
+            if (expectedNumber.compareTo(actualNumber) != 0) {
+                instance.auditMismatches.incrementAndGet();
+                if (LOG.isLoggable(Level.WARNING)) {
+                    LOG.warning("Precision audit mismatch for " + amount + " with " + tuned + ": " + actualNumber
+                            + ", expected " + expectedNumber + " with " + full + ".");
+                }
+            }
+        }
+        return expected;
+    }
+
     private void init(MathContext mathContext){
         this.mathContext = mathContext;
         one = new BigDecimal(1, mathContext);
         zero = new BigDecimal(0, mathContext);
         ten = new BigDecimal(10, mathContext);
+        MathContext[] contexts = new MathContext[64];
+        for (int i = 1; i < contexts.length; i++) {
+            contexts[i] = new MathContext(i, mathContext.getRoundingMode());
+        }
+        tunedContexts = contexts;
     }
 
 }
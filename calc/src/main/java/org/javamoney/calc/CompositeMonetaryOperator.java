@@ -29,13 +29,19 @@ import javax.money.MonetaryOperator;
  * A composition is an operator that contains multiple other operators that are applied as
  * a chain of functions to a MonetaryAmount. This allows to easily encapsulate a chain of operations
  * to a higher valued operation programmatically.
+ * <p>
+ * By default each operator rounds its result according to the amount type used. A composition returned by
+ * {@link #withDeferredRounding()} instead carries an unrounded intermediate value through all operators and
+ * rounds exactly once, converting the final value back to the type of the amount passed. Amounts created by
+ * {@link ValidatedAmount} are evaluated on the decorated amount, so only the final result is validated.
  *
  * @author Anatole
  * @author Werner
  */
 public class CompositeMonetaryOperator implements MonetaryOperator {
 
-    private final List<MonetaryOperator> functions = new ArrayList<>();
+    private final List<MonetaryOperator> functions;
+    private final boolean deferredRounding;
 
     /**
      * Instantiates a new Composite monetary operator.
@@ -44,6 +50,8 @@ public class CompositeMonetaryOperator implements MonetaryOperator {
      */
     @SafeVarargs
     public CompositeMonetaryOperator(Iterable<MonetaryOperator>... operations) {
+        this.functions = new ArrayList<>();
+        this.deferredRounding = false;
         if (operations != null) {
             for (Iterable<MonetaryOperator> iterable : operations) {
                 for (MonetaryOperator monetaryOperator : iterable) {
@@ -61,11 +69,60 @@ public class CompositeMonetaryOperator implements MonetaryOperator {
      */
     public CompositeMonetaryOperator(String name, MonetaryOperator... operations) {
         Objects.requireNonNull(name);
+        this.functions = new ArrayList<>();
+        this.deferredRounding = false;
         Collections.addAll(functions, operations);
     }
 
+    private CompositeMonetaryOperator(List<MonetaryOperator> functions, boolean deferredRounding) {
+        this.functions = functions;
+        this.deferredRounding = deferredRounding;
+    }
+
+    /**
+     * Access a composition of the same operators, which rounds only once after the last operator was applied.
+     * Intermediate values are kept unrounded, limited only by a working precision of at least 34 digits.
+     *
+     * @return the composition with deferred rounding, never null.
+     */
+    public CompositeMonetaryOperator withDeferredRounding() {
+        if (deferredRounding) {
+            return this;
+        }
+        return new CompositeMonetaryOperator(functions, true);
+    }
+
+    /**
+     * Access if this composition defers rounding to the end of the chain.
+     *
+     * @return true, if intermediate results are not rounded.
+     */
+    public boolean isDeferredRounding() {
+        return deferredRounding;
+    }
+
+    /**
+     * Access the operators of this composition, in the order they are applied.
+     *
+     * @return the operators, never null.
+     */
+    public List<MonetaryOperator> getOperators() {
+        return Collections.unmodifiableList(functions);
+    }
+
     @Override
     public MonetaryAmount apply(MonetaryAmount value) {
+        if (deferredRounding) {
+            if (value instanceof ValidatedMoney) {
+                // evaluate on the decorated amount, validating only the final result
+                return value.with(this);
+            }
+            return UnroundedAmount.round(chain(UnroundedAmount.of(value)), value);
+        }
+        return chain(value);
+    }
+
+    private MonetaryAmount chain(MonetaryAmount value) {
         MonetaryAmount amount = value;
         for (MonetaryOperator op : functions) {
             amount = op.apply(amount);
@@ -76,6 +133,7 @@ public class CompositeMonetaryOperator implements MonetaryOperator {
     @Override
     public String toString() {
         return "Composition{chain=" + functions +
+                (deferredRounding ? ", deferredRounding" : "") +
                 '}';
     }
 }
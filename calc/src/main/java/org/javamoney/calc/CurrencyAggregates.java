@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+
+/**
+ * Mutable per-currency aggregates (count, sum, average and weighted average) of {@link MonetaryAmount}s, e.g. for
+ * grouping a large set of trades by currency. Currencies are interned to small integer ids and all accumulators are
+ * kept in arrays indexed by these ids. Amounts are summed up as fixed-point {@code long} values at the aggregate's
+ * scale; amounts with more decimals and overflows are kept exactly in a {@link BigDecimal} per currency, so the
+ * results are exact and the common case needs no {@link BigDecimal} arithmetic. Reading an amount's number still
+ * creates objects.
+ *
+ * <pre>
+ * CurrencyAggregates totals = trades.stream().map(Trade::getNotional).collect(CurrencyAggregates.collector());
+ * MonetaryAmount chfTotal = totals.sum(Monetary.getCurrency("CHF"));
+ * </pre>
+ *
+ * Weighted averages use integral weights, such as quantities. Instances of this class are not thread-safe, parallel
+ * streams combine separate instances using {@link #merge(CurrencyAggregates)}.
+ *
+ * @author Anatole Tresch
+ */
+public final class CurrencyAggregates {
+
+    /** The default fixed-point scale, matching {@code FastMoney}. */
+    public static final int DEFAULT_SCALE = 5;
+
+    private final int scale;
+    private long[] counts = new long[0];
+    private long[] sums = new long[0];
+    private BigDecimal[] sumOverflows = new BigDecimal[0];
+    private long[] weightedSums = new long[0];
+    private BigDecimal[] weightedOverflows = new BigDecimal[0];
+    private long[] weights = new long[0];
+    private BigDecimal[] weightOverflows = new BigDecimal[0];
+
+    private CurrencyUnit lastCurrency;
+    private int lastId;
+
+    private CurrencyAggregates(int scale) {
+        if (scale < 0 || scale > FixedPoint.MAX_DIGITS) {
+            throw new IllegalArgumentException("Scale must be in 0.." + FixedPoint.MAX_DIGITS);
+        }
+        this.scale = scale;
+    }
+
+    /**
+     * Creates new, empty aggregates using the {@link #DEFAULT_SCALE}.
+     *
+     * @return the new aggregates, never null.
+     */
+    public static CurrencyAggregates of() {
+        return new CurrencyAggregates(DEFAULT_SCALE);
+    }
+
+    /**
+     * Creates new, empty aggregates using the given fixed-point scale. Amounts with more decimals are aggregated
+     * exactly as well, but more slowly.
+     *
+     * @param scale the fixed-point scale, 0..18.
+     * @return the new aggregates, never null.
+     */
+    public static CurrencyAggregates of(int scale) {
+        return new CurrencyAggregates(scale);
+    }
+
+    /**
+     * Collector aggregating amounts by currency.
+     *
+     * @return the collector, never null.
+     */
+    public static Collector<MonetaryAmount, ?, CurrencyAggregates> collector() {
+        return Collector.of(CurrencyAggregates::of, CurrencyAggregates::add, CurrencyAggregates::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Collector aggregating weighted amounts extracted from arbitrary elements by currency.
+     *
+     * @param amount the function extracting the amount, not null.
+     * @param weight the function extracting the weight, not null.
+     * @param <T>    the element type.
+     * @return the collector, never null.
+     */
+    public static <T> Collector<T, ?, CurrencyAggregates> collector(Function<? super T, ? extends MonetaryAmount> amount,
+                                                                     ToLongFunction<? super T> weight) {
+        Objects.requireNonNull(amount, "Amount function required.");
+        Objects.requireNonNull(weight, "Weight function required.");
+        return Collector.of(CurrencyAggregates::of,
+                (aggregates, element) -> aggregates.add(amount.apply(element), weight.applyAsLong(element)),
+                CurrencyAggregates::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Adds an amount with weight {@code 1}.
+     *
+     * @param amount the amount, not null.
+     */
+    public void add(MonetaryAmount amount) {
+        add(amount, 1L);
+    }
+
+    /**
+     * Adds a weighted amount. The weight is only used for the weighted average.
+     *
+     * @param amount the amount, not null.
+     * @param weight the weight.
+     */
+    public void add(MonetaryAmount amount, long weight) {
+        int id = slot(amount.getCurrency());
+        BigDecimal number = amount.getNumber().numberValue(BigDecimal.class);
+        counts[id]++;
+        addWeight(id, weight);
+        if (FixedPoint.fitsUnscaled(number, scale)) {
+            long units = FixedPoint.unscaled(number, scale);
+            long sum = sums[id];
+            long next = sum + units;
+            if (((sum ^ next) & (units ^ next)) < 0) {
+                sumOverflows[id] = plus(sumOverflows[id], number);
+            } else {
+                sums[id] = next;
+            }
+            long product = units * weight;
+            if (multiplyFits(units, weight, product)) {
+                long weighted = weightedSums[id];
+                next = weighted + product;
+                if (((weighted ^ next) & (product ^ next)) >= 0) {
+                    weightedSums[id] = next;
+                    return;
+                }
+            }
+            weightedOverflows[id] = plus(weightedOverflows[id],
+                    BigDecimal.valueOf(units, scale).multiply(BigDecimal.valueOf(weight)));
+        } else {
+            sumOverflows[id] = plus(sumOverflows[id], number);
+            weightedOverflows[id] = plus(weightedOverflows[id], number.multiply(BigDecimal.valueOf(weight)));
+        }
+    }
+
+    /**
+     * Adds all aggregates of the given instance to this instance.
+     *
+     * @param other the other aggregates, not null.
+     * @return this instance, for chaining.
+     */
+    public CurrencyAggregates merge(CurrencyAggregates other) {
+        for (int id = 0; id < other.counts.length; id++) {
+            if (other.counts[id] == 0) {
+                continue;
+            }
+            slot(CurrencyIndex.currency(id));
+            counts[id] += other.counts[id];
+            sumOverflows[id] = plus(plus(sumOverflows[id], other.sumOverflows[id]),
+                    BigDecimal.valueOf(other.sums[id], other.scale));
+            weightedOverflows[id] = plus(plus(weightedOverflows[id], other.weightedOverflows[id]),
+                    BigDecimal.valueOf(other.weightedSums[id], other.scale));
+            weightOverflows[id] = plus(plus(weightOverflows[id], other.weightOverflows[id]),
+                    BigDecimal.valueOf(other.weights[id]));
+        }
+        return this;
+    }
+
+    /**
+     * Access the currencies aggregated so far.
+     *
+     * @return the currencies, never null.
+     */
+    public Set<CurrencyUnit> getCurrencies() {
+        Set<CurrencyUnit> result = new LinkedHashSet<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                result.add(CurrencyIndex.currency(id));
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Access the number of amounts aggregated for the given currency.
+     *
+     * @param currency the currency, not null.
+     * @return the count, 0 for unknown currencies.
+     */
+    public long count(CurrencyUnit currency) {
+        int id = find(currency);
+        return id < 0 ? 0 : counts[id];
+    }
+
+    /**
+     * Calculates the exact sum of all amounts of the given currency.
+     *
+     * @param currency the currency, not null.
+     * @return the sum, zero for unknown currencies, never null.
+     */
+    public BigDecimal sumNumber(CurrencyUnit currency) {
+        int id = find(currency);
+        if (id < 0) {
+            return BigDecimal.ZERO;
+        }
+        return plus(sumOverflows[id], BigDecimal.valueOf(sums[id], scale));
+    }
+
+    /**
+     * Calculates the sum of all amounts of the given currency.
+     *
+     * @param currency the currency, not null.
+     * @return the sum, created by the default {@link MonetaryAmountFactory}, never null.
+     */
+    public MonetaryAmount sum(CurrencyUnit currency) {
+        return amount(currency, sumNumber(currency));
+    }
+
+    /**
+     * Calculates the sums of all currencies.
+     *
+     * @return the sums by currency, never null.
+     */
+    public Map<CurrencyUnit, MonetaryAmount> sums() {
+        Map<CurrencyUnit, MonetaryAmount> result = new LinkedHashMap<>();
+        for (CurrencyUnit currency : getCurrencies()) {
+            result.put(currency, sum(currency));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Calculates the arithmetic mean of all amounts of the given currency, using
+     * {@link CalculationContext#mathContext()}.
+     *
+     * @param currency the currency, not null.
+     * @return the average, never null.
+     * @throws IllegalArgumentException if no amount of this currency was aggregated.
+     */
+    public MonetaryAmount average(CurrencyUnit currency) {
+        long count = count(currency);
+        if (count == 0) {
+            throw new IllegalArgumentException("No amounts for currency: " + currency);
+        }
+        return amount(currency, sumNumber(currency).divide(BigDecimal.valueOf(count), CalculationContext.mathContext()));
+    }
+
+    /**
+     * Calculates the weighted average of all amounts of the given currency, using
+     * {@link CalculationContext#mathContext()}.
+     *
+     * @param currency the currency, not null.
+     * @return the weighted average, never null.
+     * @throws IllegalArgumentException if no amount of this currency was aggregated, or the weights sum up to zero.
+     */
+    public MonetaryAmount weightedAverage(CurrencyUnit currency) {
+        int id = find(currency);
+        if (id < 0 || counts[id] == 0) {
+            throw new IllegalArgumentException("No amounts for currency: " + currency);
+        }
+        BigDecimal totalWeight = plus(weightOverflows[id], BigDecimal.valueOf(weights[id]));
+        if (totalWeight.signum() == 0) {
+            throw new IllegalArgumentException("Weights sum up to zero for currency: " + currency);
+        }
+        BigDecimal weighted = plus(weightedOverflows[id], BigDecimal.valueOf(weightedSums[id], scale));
+        return amount(currency, weighted.divide(totalWeight, CalculationContext.mathContext()));
+    }
+
+    /**
+     * Access the fixed-point scale of these aggregates.
+     *
+     * @return the scale.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    @Override
+    public String toString() {
+        return "CurrencyAggregates{" +
+                "sums=" + sums() +
+                '}';
+    }
+
+    private static MonetaryAmount amount(CurrencyUnit currency, BigDecimal number) {
+        return Monetary.getDefaultAmountFactory().setCurrency(currency).setNumber(number).create();
+    }
+
+    private void addWeight(int id, long weight) {
+        long total = weights[id];
+        long next = total + weight;
+        if (((total ^ next) & (weight ^ next)) < 0) {
+            weightOverflows[id] = plus(weightOverflows[id], BigDecimal.valueOf(weight));
+        } else {
+            weights[id] = next;
+        }
+    }
+
+    private int find(CurrencyUnit currency) {
+        Objects.requireNonNull(currency, "Currency required.");
+        int id = CurrencyIndex.find(currency);
+        return id < counts.length ? id : -1;
+    }
+
+    /**
+     * Evaluates the id of the given currency and makes sure the arrays are large enough to hold it.
+     */
+    private int slot(CurrencyUnit currency) {
+        if (currency == lastCurrency) {
+            return lastId;
+        }
+        int id = CurrencyIndex.id(currency);
+        if (id >= counts.length) {
+            int size = Math.max(id + 1, CurrencyIndex.size());
+            counts = Arrays.copyOf(counts, size);
+            sums = Arrays.copyOf(sums, size);
+            sumOverflows = Arrays.copyOf(sumOverflows, size);
+            weightedSums = Arrays.copyOf(weightedSums, size);
+            weightedOverflows = Arrays.copyOf(weightedOverflows, size);
+            weights = Arrays.copyOf(weights, size);
+            weightOverflows = Arrays.copyOf(weightOverflows, size);
+        }
+        lastCurrency = currency;
+        lastId = id;
+        return id;
+    }
+
+    private static boolean multiplyFits(long a, long b, long product) {
+        if (((Math.abs(a) | Math.abs(b)) >>> 31) == 0) {
+            return true;
+        }
+        return (b == 0 || product / b == a) && !(a == Long.MIN_VALUE && b == -1);
+    }
+
+    /**
+     * Null-tolerant addition, null values representing zero.
+     */
+    private static BigDecimal plus(BigDecimal a, BigDecimal b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a.add(b);
+    }
+}
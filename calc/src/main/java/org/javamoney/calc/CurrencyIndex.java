@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.money.CurrencyUnit;
+
+/**
+ * Interns currencies to small, dense integer ids, so per-currency state can be kept in primitive arrays. Ids are
+ * assigned once and never change for the lifetime of the class loader. Lookups of known currencies are lock-free
+ * and do not allocate; new currencies are added copy-on-write.
+ *
+ * @author Anatole Tresch
+ */
+final class CurrencyIndex {
+
+    private static final Object LOCK = new Object();
+
+    private static volatile Map<CurrencyUnit, Integer> ids = new HashMap<>();
+    private static volatile CurrencyUnit[] currencies = new CurrencyUnit[0];
+
+    private CurrencyIndex() {
+    }
+
+    /**
+     * Access the id of the given currency, assigning a new one if the currency was not seen before.
+     *
+     * @param currency the currency, not null.
+     * @return the id, &gt;= 0.
+     */
+    static int id(CurrencyUnit currency) {
+        Integer id = ids.get(currency);
+        if (id != null) {
+            return id;
+        }
+        synchronized (LOCK) {
+            id = ids.get(Objects.requireNonNull(currency, "Currency required."));
+            if (id == null) {
+                CurrencyUnit[] next = Arrays.copyOf(currencies, currencies.length + 1);
+                id = currencies.length;
+                next[id] = currency;
+                Map<CurrencyUnit, Integer> nextIds = new HashMap<>(ids);
+                nextIds.put(currency, id);
+                currencies = next;
+                ids = nextIds;
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Access the id of the given currency without assigning one.
+     *
+     * @param currency the currency, not null.
+     * @return the id, or -1 if the currency was not seen before.
+     */
+    static int find(CurrencyUnit currency) {
+        Integer id = ids.get(Objects.requireNonNull(currency, "Currency required."));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Access the currency with the given id.
+     *
+     * @param id the id, as returned by {@link #id(CurrencyUnit)}.
+     * @return the currency, never null.
+     */
+    static CurrencyUnit currency(int id) {
+        return currencies[id];
+    }
+
+    /**
+     * Access the number of ids assigned so far.
+     *
+     * @return the number of interned currencies.
+     */
+    static int size() {
+        return currencies.length;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.stream.Collector;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import javax.money.MonetaryException;
+
+/**
+ * A reproducible sum of {@link MonetaryAmount}s. Summing amounts with {@code reduce(MonetaryAmount::add)} rounds
+ * every intermediate result to the amounts' context, so the total depends on the order of additions and, for
+ * parallel streams, on the partitioning. This class accumulates exactly instead, as a fixed-point {@code long} at
+ * the sum's scale with an exact {@link BigDecimal} for everything beyond it, and rounds only once, when the total is
+ * converted to an amount. Since exact addition is associative and commutative, the total is bit-identical for any
+ * order and partitioning.
+ *
+ * <pre>
+ * MonetaryAmount total = values.parallelStream().collect(ExactSum.collector()).toAmount();
+ * </pre>
+ *
+ * Instances of this class are not thread-safe, parallel streams combine separate instances using
+ * {@link #merge(ExactSum)}.
+ *
+ * @author Anatole Tresch
+ */
+public final class ExactSum {
+
+    /** The default fixed-point scale, matching {@code FastMoney}. */
+    public static final int DEFAULT_SCALE = 5;
+
+    private final int scale;
+    private CurrencyUnit currency;
+    private long units;
+    private BigDecimal overflow;
+    private long count;
+
+    private ExactSum(int scale) {
+        if (scale < 0 || scale > FixedPoint.MAX_DIGITS) {
+            throw new IllegalArgumentException("Scale must be in 0.." + FixedPoint.MAX_DIGITS);
+        }
+        this.scale = scale;
+    }
+
+    /**
+     * Creates a new, empty sum using the {@link #DEFAULT_SCALE}. The currency is defined by the first amount added.
+     *
+     * @return the new sum, never null.
+     */
+    public static ExactSum of() {
+        return new ExactSum(DEFAULT_SCALE);
+    }
+
+    /**
+     * Creates a new, empty sum using the given fixed-point scale. The scale only affects performance, amounts with
+     * more decimals are summed up exactly as well.
+     *
+     * @param scale the fixed-point scale, 0..18.
+     * @return the new sum, never null.
+     */
+    public static ExactSum of(int scale) {
+        return new ExactSum(scale);
+    }
+
+    /**
+     * Collector summing up amounts exactly.
+     *
+     * @return the collector, never null.
+     */
+    public static Collector<MonetaryAmount, ?, ExactSum> collector() {
+        return Collector.of(ExactSum::of, ExactSum::add, ExactSum::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Adds the given amount.
+     *
+     * @param amount the amount, not null.
+     * @return this instance, for chaining.
+     * @throws MonetaryException if the amount's currency differs from the currency of the amounts added before.
+     */
+    public ExactSum add(MonetaryAmount amount) {
+        checkCurrency(amount.getCurrency());
+        add(amount.getNumber().numberValue(BigDecimal.class));
+        count++;
+        return this;
+    }
+
+    /**
+     * Adds all amounts of the given sum to this sum.
+     *
+     * @param other the other sum, not null.
+     * @return this instance, for chaining.
+     * @throws MonetaryException if the currencies differ.
+     */
+    public ExactSum merge(ExactSum other) {
+        if (other.count == 0) {
+            return this;
+        }
+        checkCurrency(other.currency);
+        if (other.scale == scale) {
+            addUnits(other.units);
+        } else {
+            add(BigDecimal.valueOf(other.units, other.scale));
+        }
+        if (other.overflow != null) {
+            overflow = overflow == null ? other.overflow : overflow.add(other.overflow);
+        }
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * Access the exact, unrounded total.
+     *
+     * @return the total, never null.
+     */
+    public BigDecimal getNumber() {
+        BigDecimal total = BigDecimal.valueOf(units, scale);
+        return overflow == null ? total : overflow.add(total);
+    }
+
+    /**
+     * Access the currency of the amounts added.
+     *
+     * @return the currency, or null, if no amount was added.
+     */
+    public CurrencyUnit getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Access the number of amounts added.
+     *
+     * @return the count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Creates the total as amount, created by the default {@link MonetaryAmountFactory}, rounding once according
+     * to the factory's context.
+     *
+     * @return the total, never null.
+     * @throws MonetaryException if no amount was added, so the currency is unknown.
+     */
+    public MonetaryAmount toAmount() {
+        return toAmount(Monetary.getDefaultAmountFactory());
+    }
+
+    /**
+     * Creates the total as amount, created by the given factory, rounding once according to the factory's context.
+     *
+     * @param factory the factory, not null.
+     * @param <T>     the amount type.
+     * @return the total, never null.
+     * @throws MonetaryException if no amount was added, so the currency is unknown.
+     */
+    public <T extends MonetaryAmount> T toAmount(MonetaryAmountFactory<T> factory) {
+        if (currency == null) {
+            throw new MonetaryException("No amount added, currency unknown.");
+        }
+        return factory.setCurrency(currency).setNumber(getNumber()).create();
+    }
+
+    @Override
+    public String toString() {
+        return "ExactSum{" +
+                "currency=" + currency +
+                ", count=" + count +
+                ", number=" + getNumber() +
+                '}';
+    }
+
+    private void checkCurrency(CurrencyUnit other) {
+        if (currency == null) {
+            currency = Objects.requireNonNull(other, "Currency required.");
+        } else if (!currency.equals(other)) {
+            throw new MonetaryException("Currency mismatch: " + currency + '/' + other);
+        }
+    }
+
+    private void add(BigDecimal number) {
+        if (FixedPoint.fitsUnscaled(number, scale)) {
+            addUnits(FixedPoint.unscaled(number, scale));
+        } else {
+            overflow = overflow == null ? number : overflow.add(number);
+        }
+    }
+
+    private void addUnits(long value) {
+        long next = units + value;
+        if (((units ^ next) & (value ^ next)) < 0) {
+            BigDecimal spilled = BigDecimal.valueOf(units, scale);
+            overflow = overflow == null ? spilled : overflow.add(spilled);
+            units = value;
+        } else {
+            units = next;
+        }
+    }
+}
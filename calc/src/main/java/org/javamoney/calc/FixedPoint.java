@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryContext;
+
+/**
+ * Fixed-point arithmetic for long-backed amounts, such as {@code FastMoney}. Amounts whose {@link MonetaryContext}
+ * declares a fixed scale and a precision that fits into 64 bits are multiplied using their unscaled {@code long}
+ * value, with a 128 bit intermediate product. The exact product is always rounded {@link RoundingMode#HALF_EVEN}
+ * to the amount's scale; products that do not fit into 64 bits are calculated as {@link BigDecimal} with the same
+ * rounding, and products out of the amount's range are widened to the default amount type. Note that this differs
+ * from {@code FastMoney.multiply}, which truncates the product and rejects factors with more than 5 fraction
+ * digits, so the operators of this library only use it if enabled, see
+ * {@link CalculationContext#setFixedPointRounding(boolean)}. All other amounts are calculated by the amount itself
+ * using {@link MonetaryAmount#multiply(Number)}.
+ *
+ * @author Anatole Tresch
+ */
+public final class FixedPoint {
+
+    /** The maximal number of decimal digits that always fit into a {@code long}. */
+    static final int MAX_DIGITS = 18;
+
+    private static final long MASK32 = 0xFFFFFFFFL;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Checks if the given amount is backed by a scaled {@code long}, i.e. its context declares a fixed scale and
+     * a limited precision of at most 19 digits.
+     *
+     * @param amount the amount, not null.
+     * @return true, if the amount is long-backed.
+     */
+    public static boolean isFixedPoint(MonetaryAmount amount) {
+        MonetaryContext context = amount.getContext();
+        int precision = context.getPrecision();
+        int scale = context.getMaxScale();
+        return context.isFixedScale() && precision > 0 && precision <= MAX_DIGITS + 1
+                && scale >= 0 && scale <= MAX_DIGITS;
+    }
+
+    /**
+     * Multiplies the given amount with the given factor. The product of long-backed amounts is rounded
+     * {@link RoundingMode#HALF_EVEN} to the amount's scale, a product out of the amount's range is created by the
+     * {@link Monetary#getDefaultAmountFactory() default amount factory}; all other amounts are multiplied by the
+     * amount itself.
+     *
+     * @param amount the amount, not null.
+     * @param factor the factor, not null.
+     * @return the product, never null.
+     */
+    public static MonetaryAmount multiply(MonetaryAmount amount, BigDecimal factor) {
+        Objects.requireNonNull(factor, "Factor required.");
+        if (isFixedPoint(amount)) {
+            int scale = amount.getContext().getMaxScale();
+            BigDecimal number = amount.getNumber().numberValue(BigDecimal.class);
+            if (fitsUnscaled(number, scale) && factor.precision() <= MAX_DIGITS) {
+                int factorScale = Math.max(factor.scale(), 0);
+                if (fitsUnscaled(factor, factorScale)) {
+                    try {
+                        long result = multiply(unscaled(number, scale), unscaled(factor, factorScale), factorScale);
+                        return amount.getFactory().setNumber(BigDecimal.valueOf(result, scale)).create();
+                    } catch (ArithmeticException e) {
+                        // overflow, multiply as BigDecimal
+                    }
+                }
+            }
+            BigDecimal product = number.multiply(factor).setScale(scale, RoundingMode.HALF_EVEN);
+            try {
+                return amount.getFactory().setNumber(product).create();
+            } catch (ArithmeticException e) {
+                return Monetary.getDefaultAmountFactory().setCurrency(amount.getCurrency()).setNumber(product)
+                        .create();
+            }
+        }
+        return amount.multiply(factor);
+    }
+
+    /**
+     * Checks if the given value can be represented as unscaled {@code long} with the given scale without loss.
+     *
+     * @param value the value, not null.
+     * @param scale the target scale, &gt;= 0.
+     * @return true, if {@link #unscaled(BigDecimal, int)} can be used.
+     */
+    static boolean fitsUnscaled(BigDecimal value, int scale) {
+        if (value.signum() == 0) {
+            return true;
+        }
+        return value.scale() <= scale && value.precision() - value.scale() + scale <= MAX_DIGITS;
+    }
+
+    /**
+     * Access the unscaled {@code long} value of the given value at the given scale. The caller must ensure the
+     * value fits using {@link #fitsUnscaled(BigDecimal, int)}.
+     *
+     * @param value the value, not null.
+     * @param scale the target scale, &gt;= 0.
+     * @return the unscaled value.
+     */
+    static long unscaled(BigDecimal value, int scale) {
+        return value.movePointRight(scale).longValue();
+    }
+
+    /**
+     * Access {@code 10^exponent}.
+     *
+     * @param exponent the exponent, 0..18.
+     * @return the power of ten.
+     */
+    static long powerOfTen(int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    /**
+     * Calculates {@code value * factor / 10^factorScale}, rounded {@code HALF_EVEN}, using a 128 bit intermediate
+     * product.
+     *
+     * @param value       the first factor.
+     * @param factor      the unscaled second factor.
+     * @param factorScale the scale of the second factor, &gt;= 0.
+     * @return the rounded product.
+     * @throws ArithmeticException if the result does not fit into a {@code long}.
+     */
+    static long multiply(long value, long factor, int factorScale) {
+        boolean negative = (value < 0) != (factor < 0);
+        // magnitudes as unsigned values, Long.MIN_VALUE maps to 2^63
+        long a = value < 0 ? -value : value;
+        long b = factor < 0 ? -factor : factor;
+        long lo = a * b;
+        long hi = multiplyHighUnsigned(a, b);
+        boolean sticky = false;
+        int remaining = factorScale;
+        while (remaining > 0) {
+            int step = Math.min(remaining, MAX_DIGITS);
+            remaining -= step;
+            long divisor = POWERS_OF_TEN[step];
+            long qHi = Long.divideUnsigned(hi, divisor);
+            long rHi = Long.remainderUnsigned(hi, divisor);
+            long qLo = divideUnsigned(rHi, lo, divisor);
+            long remainder = lo - qLo * divisor;
+            hi = qHi;
+            lo = qLo;
+            if (remaining > 0) {
+                sticky |= remainder != 0;
+            } else {
+                long half = divisor - remainder;
+                if (remainder > half || (remainder == half && (sticky || (lo & 1L) != 0))) {
+                    lo++;
+                    if (lo == 0) {
+                        hi++;
+                    }
+                }
+            }
+        }
+        if (hi != 0 || (lo < 0 && !(negative && lo == Long.MIN_VALUE))) {
+            throw new ArithmeticException("Fixed-point overflow.");
+        }
+        return negative ? -lo : lo;
+    }
+
+    /**
+     * Calculates the high 64 bits of the unsigned 128 bit product of two unsigned values.
+     */
+    private static long multiplyHighUnsigned(long a, long b) {
+        long a1 = a >>> 32;
+        long a0 = a & MASK32;
+        long b1 = b >>> 32;
+        long b0 = b & MASK32;
+        long p00 = a0 * b0;
+        long p01 = a0 * b1;
+        long p10 = a1 * b0;
+        long p11 = a1 * b1;
+        long middle = (p00 >>> 32) + (p01 & MASK32) + (p10 & MASK32);
+        return p11 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+
+    /**
+     * Divides the unsigned 128 bit value {@code hi:lo} by {@code divisor}, where {@code hi < divisor}, so the
+     * quotient fits into 64 bits (Knuth, algorithm D, with two 32 bit digits).
+     */
+    private static long divideUnsigned(long hi, long lo, long divisor) {
+        if (hi == 0) {
+            return Long.divideUnsigned(lo, divisor);
+        }
+        final long base = 1L << 32;
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long v = divisor << shift;
+        long vn1 = v >>> 32;
+        long vn0 = v & MASK32;
+        long un32 = (hi << shift) | (shift == 0 ? 0 : lo >>> (64 - shift));
+        long un10 = lo << shift;
+        long un1 = un10 >>> 32;
+        long un0 = un10 & MASK32;
+        long q1 = Long.divideUnsigned(un32, vn1);
+        long rhat = Long.remainderUnsigned(un32, vn1);
+        while (q1 >= base || Long.compareUnsigned(q1 * vn0, base * rhat + un1) > 0) {
+            q1--;
+            rhat += vn1;
+            if (rhat >= base) {
+                break;
+            }
+        }
+        long un21 = un32 * base + un1 - q1 * v;
+        long q0 = Long.divideUnsigned(un21, vn1);
+        rhat = Long.remainderUnsigned(un21, vn1);
+        while (q0 >= base || Long.compareUnsigned(q0 * vn0, base * rhat + un0) > 0) {
+            q0--;
+            rhat += vn1;
+            if (rhat >= base) {
+                break;
+            }
+        }
+        return q1 * base + q0;
+    }
+}
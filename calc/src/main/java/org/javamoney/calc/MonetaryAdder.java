@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import javax.money.MonetaryException;
+
+/**
+ * A running total of {@link MonetaryAmount}s of one currency that can be updated concurrently by many threads,
+ * similar to {@link java.util.concurrent.atomic.LongAdder}. Updates are spread over several cells, so threads
+ * rarely contend on the same memory. Each cell keeps a fixed-point {@code long} sum at the adder's scale and an
+ * exact {@link BigDecimal} sum for amounts with more decimals and for overflows, so the total is always exact.
+ *
+ * The total is calculated on demand by {@link #sum()}; concurrent updates during the calculation may or may not
+ * be included.
+ *
+ * @author Anatole Tresch
+ */
+public final class MonetaryAdder {
+
+    private static final AtomicLongFieldUpdater<Cell> UNITS = AtomicLongFieldUpdater.newUpdater(Cell.class, "units");
+
+    /** Per-thread cell probe, shared by all adders. */
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(
+            () -> new int[]{(int) (Thread.currentThread().getId() * 0x9E3779B9L) | 1});
+
+    private final CurrencyUnit currency;
+    private final int scale;
+    private final Cell[] cells;
+
+    private MonetaryAdder(CurrencyUnit currency, int scale) {
+        this.currency = Objects.requireNonNull(currency, "Currency required.");
+        if (scale < 0 || scale > FixedPoint.MAX_DIGITS) {
+            throw new IllegalArgumentException("Scale must be in 0.." + FixedPoint.MAX_DIGITS);
+        }
+        this.scale = scale;
+        int size = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors(), 1) * 2 - 1);
+        this.cells = new Cell[size];
+        for (int i = 0; i < size; i++) {
+            cells[i] = new Cell();
+        }
+    }
+
+    /**
+     * Creates a new adder, summing up fixed-point with at least 5 decimals.
+     *
+     * @param currency the currency of all amounts added, not null.
+     * @return the new adder, never null.
+     */
+    public static MonetaryAdder of(CurrencyUnit currency) {
+        return new MonetaryAdder(currency, Math.max(Objects.requireNonNull(currency).getDefaultFractionDigits(), 5));
+    }
+
+    /**
+     * Creates a new adder, summing up fixed-point with the given scale. Amounts with more decimals are summed up
+     * exactly as well, but more slowly.
+     *
+     * @param currency the currency of all amounts added, not null.
+     * @param scale    the fixed-point scale, 0..18.
+     * @return the new adder, never null.
+     */
+    public static MonetaryAdder of(CurrencyUnit currency, int scale) {
+        return new MonetaryAdder(currency, scale);
+    }
+
+    /**
+     * Adds the given amount.
+     *
+     * @param amount the amount, not null.
+     * @throws MonetaryException if the amount's currency is not the currency of this adder.
+     */
+    public void add(MonetaryAmount amount) {
+        if (!currency.equals(amount.getCurrency())) {
+            throw new MonetaryException("Currency mismatch: " + currency + '/' + amount.getCurrency());
+        }
+        BigDecimal number = amount.getNumber().numberValue(BigDecimal.class);
+        int[] probe = PROBE.get();
+        Cell cell = cells[probe[0] & (cells.length - 1)];
+        if (FixedPoint.fitsUnscaled(number, scale)) {
+            long units = FixedPoint.unscaled(number, scale);
+            for (; ; ) {
+                long current = cell.units;
+                long next = current + units;
+                if (((current ^ next) & (units ^ next)) < 0) {
+                    break; // overflow, add exactly instead
+                }
+                if (UNITS.compareAndSet(cell, current, next)) {
+                    return;
+                }
+                cell = cells[advance(probe) & (cells.length - 1)];
+            }
+        }
+        synchronized (cell) {
+            cell.overflow = cell.overflow.add(number);
+        }
+    }
+
+    /**
+     * Calculates the current total.
+     *
+     * @return the exact total, never null.
+     */
+    public BigDecimal sumNumber() {
+        long units = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for (Cell cell : cells) {
+            long cellUnits = cell.units;
+            long next = units + cellUnits;
+            if (((units ^ next) & (cellUnits ^ next)) < 0) {
+                total = total.add(BigDecimal.valueOf(units, scale));
+                next = cellUnits;
+            }
+            units = next;
+            synchronized (cell) {
+                total = total.add(cell.overflow);
+            }
+        }
+        return total.add(BigDecimal.valueOf(units, scale));
+    }
+
+    /**
+     * Calculates the current total as amount, created by the default {@link MonetaryAmountFactory}.
+     *
+     * @return the total, never null.
+     */
+    public MonetaryAmount sum() {
+        return sum(Monetary.getDefaultAmountFactory());
+    }
+
+    /**
+     * Calculates the current total as amount, created by the given factory.
+     *
+     * @param factory the amount factory, not null.
+     * @param <T>     the amount type.
+     * @return the total, never null.
+     */
+    public <T extends MonetaryAmount> T sum(MonetaryAmountFactory<T> factory) {
+        return factory.setCurrency(currency).setNumber(sumNumber()).create();
+    }
+
+    /**
+     * Resets the total to zero. Updates running concurrently may or may not be included afterwards.
+     */
+    public void reset() {
+        for (Cell cell : cells) {
+            cell.units = 0;
+            synchronized (cell) {
+                cell.overflow = BigDecimal.ZERO;
+            }
+        }
+    }
+
+    /**
+     * Access the currency of this adder.
+     *
+     * @return the currency, never null.
+     */
+    public CurrencyUnit getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Access the fixed-point scale of this adder.
+     *
+     * @return the scale.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    @Override
+    public String toString() {
+        return "MonetaryAdder{" +
+                "currency=" + currency +
+                ", sum=" + sumNumber() +
+                '}';
+    }
+
+    private static int advance(int[] probe) {
+        int p = probe[0];
+        p ^= p << 13;
+        p ^= p >>> 17;
+        p ^= p << 5;
+        probe[0] = p;
+        return p;
+    }
+
+    /**
+     * A padded cell, keeping the fixed-point and the exact part of its sum.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell {
+        private long p0, p1, p2, p3, p4, p5, p6;
+        volatile long units;
+        /** Guarded by this. */
+        BigDecimal overflow = BigDecimal.ZERO;
+        private long q0, q1, q2, q3, q4, q5, q6;
+    }
+}
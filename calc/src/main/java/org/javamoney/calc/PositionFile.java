@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+
+/**
+ * Binary file format for large numbers of amounts, read and written by {@link BulkValuation}. A file consists of
+ * a 16 byte header (magic {@code JMPF}, format version, scale, the number of records as {@code long}) followed by
+ * fixed size records of 12 bytes: the three letter currency code in ASCII, padded with a zero byte, and the
+ * unscaled number as big-endian {@code long}. Fixed size records allow mapping and processing any range of a file
+ * independently.
+ *
+ * @author Anatole Tresch
+ */
+public final class PositionFile {
+
+    static final int MAGIC = 0x4A4D5046;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 12;
+
+    private final int scale;
+    private final long count;
+
+    private PositionFile(int scale, long count) {
+        this.scale = scale;
+        this.count = count;
+    }
+
+    /**
+     * Reads the header of a position file.
+     *
+     * @param path the file, not null.
+     * @return the header information, never null.
+     * @throws IOException if the file cannot be read or is not a position file.
+     */
+    public static PositionFile of(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel, path);
+        }
+    }
+
+    /**
+     * Writes a batch to a new position file, replacing an existing file.
+     *
+     * @param path  the file, not null.
+     * @param batch the amounts, not null.
+     * @throws IOException if the file cannot be written.
+     * @throws ArithmeticException if a number does not fit into a {@code long}.
+     * @throws IllegalArgumentException if a currency code is not three ASCII characters.
+     */
+    public static void write(Path path, AmountBatch batch) throws IOException {
+        Objects.requireNonNull(batch, "Batch required.");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(channel, batch.getScale(), batch.size());
+            if (batch.size() > 0) {
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE,
+                        (long) batch.size() * RECORD_SIZE);
+                encode(batch, records);
+                records.force();
+            }
+        }
+    }
+
+    /**
+     * Reads all amounts of a position file. Use {@link BulkValuation} for files not fitting into memory.
+     *
+     * @param path the file, not null.
+     * @return the amounts, never null.
+     * @throws IOException if the file cannot be read or is not a position file.
+     */
+    public static AmountBatch read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            PositionFile header = readHeader(channel, path);
+            if (header.count > Integer.MAX_VALUE / RECORD_SIZE) {
+                throw new IOException("Position file too large to be read at once: " + path);
+            }
+            int count = (int) header.count;
+            if (count == 0) {
+                return AmountBatch.newBuilder(header.scale).build();
+            }
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) count * RECORD_SIZE),
+                    count, header.scale);
+        }
+    }
+
+    /**
+     * Access the scale of the numbers.
+     *
+     * @return the scale.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Access the number of records.
+     *
+     * @return the number of records.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    static PositionFile readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Not a position file: " + path);
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a position file: " + path);
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported position file version " + version + ": " + path);
+        }
+        int scale = header.get();
+        header.getShort();
+        long count = header.getLong();
+        if (scale < 0 || count < 0 || channel.size() < HEADER_SIZE + count * RECORD_SIZE) {
+            throw new IOException("Corrupt position file: " + path);
+        }
+        return new PositionFile(scale, count);
+    }
+
+    static void writeHeader(FileChannel channel, int scale, long count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put(VERSION).put((byte) scale).putShort((short) 0).putLong(count).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Decodes records into a batch.
+     *
+     * @param records the records, positioned at the first record.
+     * @param count   the number of records.
+     * @param scale   the scale.
+     * @return the batch, never null.
+     */
+    static AmountBatch decode(ByteBuffer records, int count, int scale) {
+        AmountBatch.Builder builder = AmountBatch.newBuilder(scale, count);
+        Map<Integer, CurrencyUnit> currencies = new HashMap<>();
+        int lastCode = 0;
+        CurrencyUnit lastCurrency = null;
+        for (int i = 0; i < count; i++) {
+            int code = records.getInt();
+            if (code != lastCode || lastCurrency == null) {
+                lastCurrency = currencies.get(code);
+                if (lastCurrency == null) {
+                    byte[] chars = {(byte) (code >>> 24), (byte) (code >>> 16), (byte) (code >>> 8)};
+                    lastCurrency = Monetary.getCurrency(new String(chars, StandardCharsets.US_ASCII));
+                    currencies.put(code, lastCurrency);
+                }
+                lastCode = code;
+            }
+            builder.addUnscaled(lastCurrency, records.getLong());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Encodes a batch as records.
+     *
+     * @param batch   the batch.
+     * @param records the target buffer, positioned at the first record.
+     */
+    static void encode(AmountBatch batch, ByteBuffer records) {
+        Map<CurrencyUnit, Integer> codes = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            CurrencyUnit currency = batch.getCurrency(i);
+            Integer code = codes.get(currency);
+            if (code == null) {
+                code = code(currency);
+                codes.put(currency, code);
+            }
+            records.putInt(code).putLong(batch.getUnscaled(i));
+        }
+    }
+
+    private static int code(CurrencyUnit currency) {
+        String code = currency.getCurrencyCode();
+        if (code.length() != 3) {
+            throw new IllegalArgumentException("Currency code must have 3 characters: " + code);
+        }
+        int result = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = code.charAt(i);
+            if (c > 0x7F) {
+                throw new IllegalArgumentException("Currency code must be ASCII: " + code);
+            }
+            result = (result << 8) | c;
+        }
+        return result << 8;
+    }
+
+    @Override
+    public String toString() {
+        return "PositionFile{" +
+                "scale=" + scale +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import javax.money.MonetaryContext;
+import javax.money.MonetaryContextBuilder;
+import javax.money.MonetaryException;
+import javax.money.NumberValue;
+
+/**
+ * An intermediate amount that is not rounded to any amount type's {@link MonetaryContext}. Additions, subtractions
+ * and multiplications are exact, only results exceeding the working precision (at least 34 digits, or more if
+ * {@link CalculationContext#mathContext()} is wider) and divisions are rounded. Used to carry a value through a
+ * chain of operators, rounding only once at the end using {@link #round(MonetaryAmount, MonetaryAmount)}.
+ *
+ * @author Anatole Tresch
+ */
+final class UnroundedAmount implements MonetaryAmount {
+
+    private static final int MIN_WORKING_PRECISION = MathContext.DECIMAL128.getPrecision();
+
+    private final CurrencyUnit currency;
+    private final BigDecimal number;
+    private final MathContext mathContext;
+    private final MonetaryContext monetaryContext;
+
+    private UnroundedAmount(CurrencyUnit currency, BigDecimal number, MathContext mathContext,
+                            MonetaryContext monetaryContext) {
+        this.currency = Objects.requireNonNull(currency, "Currency required.");
+        this.number = mathContext.getPrecision() > 0 && number.precision() > mathContext.getPrecision()
+                ? number.round(mathContext) : number;
+        this.mathContext = mathContext;
+        this.monetaryContext = monetaryContext;
+    }
+
+    /**
+     * Creates an unrounded amount with the value of the given amount, using the current working precision.
+     *
+     * @param amount the amount, not null.
+     * @return the unrounded amount, never null.
+     */
+    static UnroundedAmount of(MonetaryAmount amount) {
+        if (amount instanceof UnroundedAmount) {
+            return (UnroundedAmount) amount;
+        }
+        return of(amount.getCurrency(), amount.getNumber().numberValue(BigDecimal.class));
+    }
+
+    /**
+     * Creates an unrounded amount, using the current working precision.
+     *
+     * @param currency the currency, not null.
+     * @param number   the number, not null.
+     * @return the unrounded amount, never null.
+     */
+    static UnroundedAmount of(CurrencyUnit currency, BigDecimal number) {
+        MathContext global = CalculationContext.mathContext();
+        MathContext working = global.getPrecision() == 0 || global.getPrecision() >= MIN_WORKING_PRECISION
+                ? global : new MathContext(MIN_WORKING_PRECISION, global.getRoundingMode());
+        MonetaryContext context = MonetaryContextBuilder.of(UnroundedAmount.class)
+                .setPrecision(working.getPrecision()).setMaxScale(-1).setFixedScale(false)
+                .set(working.getRoundingMode()).build();
+        return new UnroundedAmount(currency, number, working, context);
+    }
+
+    /**
+     * Converts the given result to the type of the given target amount, rounding once according to the target's
+     * {@link MonetaryContext}. Results not being unrounded amounts, e.g. created by an operator using its own
+     * factory, are converted likewise.
+     *
+     * @param result the result, not null.
+     * @param target the amount defining the result type, not null.
+     * @return the rounded result, created by the target's factory, never null.
+     */
+    static MonetaryAmount round(MonetaryAmount result, MonetaryAmount target) {
+        BigDecimal value = result instanceof UnroundedAmount ? ((UnroundedAmount) result).number
+                : result.getNumber().numberValue(BigDecimal.class);
+        MonetaryContext context = target.getContext();
+        RoundingMode roundingMode = context.get(RoundingMode.class);
+        if (roundingMode == null) {
+            roundingMode = RoundingMode.HALF_EVEN;
+        }
+        if (context.getPrecision() > 0 && value.precision() > context.getPrecision()) {
+            value = value.round(new MathContext(context.getPrecision(), roundingMode));
+        }
+        if (context.getMaxScale() >= 0 && value.scale() > context.getMaxScale()) {
+            value = value.setScale(context.getMaxScale(), roundingMode);
+        }
+        return target.getFactory().setCurrency(result.getCurrency()).setNumber(value).create();
+    }
+
+    private UnroundedAmount with(BigDecimal value) {
+        return new UnroundedAmount(currency, value, mathContext, monetaryContext);
+    }
+
+    /**
+     * Creates an unrounded amount sharing the working precision of this amount.
+     *
+     * @param currency the currency, not null.
+     * @param value    the number, not null.
+     * @return the new amount, never null.
+     */
+    UnroundedAmount with(CurrencyUnit currency, BigDecimal value) {
+        return new UnroundedAmount(currency, value, mathContext, monetaryContext);
+    }
+
+    /**
+     * Access the number as {@link BigDecimal}, without creating a {@link NumberValue}.
+     *
+     * @return the number, never null.
+     */
+    BigDecimal numberValue() {
+        return number;
+    }
+
+    private BigDecimal numberOf(MonetaryAmount amount) {
+        if (!currency.equals(amount.getCurrency())) {
+            throw new MonetaryException("Currency mismatch: " + currency + '/' + amount.getCurrency());
+        }
+        return amount.getNumber().numberValue(BigDecimal.class);
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        Objects.requireNonNull(number, "Number required.");
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof NumberValue) {
+            return ((NumberValue) number).numberValue(BigDecimal.class);
+        }
+        if (number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        }
+        return new BigDecimal(number.toString());
+    }
+
+    private MathContext divisionContext() {
+        return mathContext.getPrecision() == 0 ? MathContext.DECIMAL128 : mathContext;
+    }
+
+    @Override
+    public CurrencyUnit getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public NumberValue getNumber() {
+        return new UnroundedNumber(number);
+    }
+
+    @Override
+    public MonetaryContext getContext() {
+        return monetaryContext;
+    }
+
+    @Override
+    public MonetaryAmountFactory<UnroundedAmount> getFactory() {
+        return new Factory(this);
+    }
+
+    @Override
+    public boolean isGreaterThan(MonetaryAmount amount) {
+        return number.compareTo(numberOf(amount)) > 0;
+    }
+
+    @Override
+    public boolean isGreaterThanOrEqualTo(MonetaryAmount amount) {
+        return number.compareTo(numberOf(amount)) >= 0;
+    }
+
+    @Override
+    public boolean isLessThan(MonetaryAmount amount) {
+        return number.compareTo(numberOf(amount)) < 0;
+    }
+
+    @Override
+    public boolean isLessThanOrEqualTo(MonetaryAmount amount) {
+        return number.compareTo(numberOf(amount)) <= 0;
+    }
+
+    @Override
+    public boolean isEqualTo(MonetaryAmount amount) {
+        return number.compareTo(numberOf(amount)) == 0;
+    }
+
+    @Override
+    public int signum() {
+        return number.signum();
+    }
+
+    @Override
+    public UnroundedAmount add(MonetaryAmount amount) {
+        return with(number.add(numberOf(amount)));
+    }
+
+    @Override
+    public UnroundedAmount subtract(MonetaryAmount amount) {
+        return with(number.subtract(numberOf(amount)));
+    }
+
+    @Override
+    public UnroundedAmount multiply(long multiplicand) {
+        return with(number.multiply(BigDecimal.valueOf(multiplicand)));
+    }
+
+    @Override
+    public UnroundedAmount multiply(double multiplicand) {
+        return with(number.multiply(BigDecimal.valueOf(multiplicand)));
+    }
+
+    @Override
+    public UnroundedAmount multiply(Number multiplicand) {
+        return with(number.multiply(toBigDecimal(multiplicand)));
+    }
+
+    @Override
+    public UnroundedAmount divide(long divisor) {
+        return with(number.divide(BigDecimal.valueOf(divisor), divisionContext()));
+    }
+
+    @Override
+    public UnroundedAmount divide(double divisor) {
+        return with(number.divide(BigDecimal.valueOf(divisor), divisionContext()));
+    }
+
+    @Override
+    public UnroundedAmount divide(Number divisor) {
+        return with(number.divide(toBigDecimal(divisor), divisionContext()));
+    }
+
+    @Override
+    public UnroundedAmount remainder(long divisor) {
+        return with(number.remainder(BigDecimal.valueOf(divisor)));
+    }
+
+    @Override
+    public UnroundedAmount remainder(double divisor) {
+        return with(number.remainder(BigDecimal.valueOf(divisor)));
+    }
+
+    @Override
+    public UnroundedAmount remainder(Number divisor) {
+        return with(number.remainder(toBigDecimal(divisor)));
+    }
+
+    @Override
+    public UnroundedAmount[] divideAndRemainder(long divisor) {
+        return divideAndRemainder(BigDecimal.valueOf(divisor));
+    }
+
+    @Override
+    public UnroundedAmount[] divideAndRemainder(double divisor) {
+        return divideAndRemainder(BigDecimal.valueOf(divisor));
+    }
+
+    @Override
+    public UnroundedAmount[] divideAndRemainder(Number divisor) {
+        BigDecimal[] result = number.divideAndRemainder(toBigDecimal(divisor));
+        return new UnroundedAmount[]{with(result[0]), with(result[1])};
+    }
+
+    @Override
+    public UnroundedAmount divideToIntegralValue(long divisor) {
+        return with(number.divideToIntegralValue(BigDecimal.valueOf(divisor)));
+    }
+
+    @Override
+    public UnroundedAmount divideToIntegralValue(double divisor) {
+        return with(number.divideToIntegralValue(BigDecimal.valueOf(divisor)));
+    }
+
+    @Override
+    public UnroundedAmount divideToIntegralValue(Number divisor) {
+        return with(number.divideToIntegralValue(toBigDecimal(divisor)));
+    }
+
+    @Override
+    public UnroundedAmount scaleByPowerOfTen(int power) {
+        return with(number.scaleByPowerOfTen(power));
+    }
+
+    @Override
+    public UnroundedAmount abs() {
+        return number.signum() < 0 ? with(number.negate()) : this;
+    }
+
+    @Override
+    public UnroundedAmount negate() {
+        return with(number.negate());
+    }
+
+    @Override
+    public UnroundedAmount plus() {
+        return this;
+    }
+
+    @Override
+    public UnroundedAmount stripTrailingZeros() {
+        return with(number.stripTrailingZeros());
+    }
+
+    @Override
+    public int compareTo(MonetaryAmount o) {
+        int result = currency.getCurrencyCode().compareTo(o.getCurrency().getCurrencyCode());
+        if (result == 0) {
+            result = number.compareTo(o.getNumber().numberValue(BigDecimal.class));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UnroundedAmount)) {
+            return false;
+        }
+        UnroundedAmount other = (UnroundedAmount) o;
+        return currency.equals(other.currency) && number.equals(other.number);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(currency, number);
+    }
+
+    @Override
+    public String toString() {
+        return currency.getCurrencyCode() + ' ' + number.toPlainString();
+    }
+
+    /**
+     * The number of an unrounded amount.
+     */
+    private static final class UnroundedNumber extends NumberValue {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BigDecimal number;
+
+        private UnroundedNumber(BigDecimal number) {
+            this.number = number;
+        }
+
+        @Override
+        public Class<?> getNumberType() {
+            return BigDecimal.class;
+        }
+
+        @Override
+        public int getPrecision() {
+            return number.precision();
+        }
+
+        @Override
+        public int getScale() {
+            return number.scale();
+        }
+
+        @Override
+        public int intValueExact() {
+            return number.intValueExact();
+        }
+
+        @Override
+        public long longValueExact() {
+            return number.longValueExact();
+        }
+
+        @Override
+        public double doubleValueExact() {
+            double result = number.doubleValue();
+            if (Double.isInfinite(result) || new BigDecimal(result).compareTo(number) != 0) {
+                throw new ArithmeticException("Value not exactly representable as double: " + number);
+            }
+            return result;
+        }
+
+        @Override
+        public <T extends Number> T numberValue(Class<T> numberType) {
+            return convert(numberType, false);
+        }
+
+        @Override
+        public <T extends Number> T numberValueExact(Class<T> numberType) {
+            return convert(numberType, true);
+        }
+
+        private <T extends Number> T convert(Class<T> numberType, boolean exact) {
+            Object result;
+            if (numberType == BigDecimal.class || numberType == Number.class) {
+                result = number;
+            } else if (numberType == BigInteger.class) {
+                result = exact ? number.toBigIntegerExact() : number.toBigInteger();
+            } else if (numberType == Long.class) {
+                result = exact ? number.longValueExact() : number.longValue();
+            } else if (numberType == Integer.class) {
+                result = exact ? number.intValueExact() : number.intValue();
+            } else if (numberType == Short.class) {
+                result = exact ? number.shortValueExact() : (short) number.intValue();
+            } else if (numberType == Byte.class) {
+                result = exact ? number.byteValueExact() : (byte) number.intValue();
+            } else if (numberType == Double.class) {
+                result = exact ? doubleValueExact() : number.doubleValue();
+            } else if (numberType == Float.class) {
+                result = (float) (exact ? doubleValueExact() : number.doubleValue());
+            } else {
+                throw new IllegalArgumentException("Unsupported number type: " + numberType);
+            }
+            return numberType.cast(result);
+        }
+
+        @Override
+        public NumberValue round(MathContext mathContext) {
+            return new UnroundedNumber(number.round(mathContext));
+        }
+
+        @Override
+        public long getAmountFractionNumerator() {
+            return number.remainder(BigDecimal.ONE).movePointRight(Math.max(number.scale(), 0)).longValue();
+        }
+
+        @Override
+        public long getAmountFractionDenominator() {
+            return BigDecimal.TEN.pow(Math.max(number.scale(), 0)).longValue();
+        }
+
+        @Override
+        public int intValue() {
+            return number.intValue();
+        }
+
+        @Override
+        public long longValue() {
+            return number.longValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return number.floatValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return number.doubleValue();
+        }
+
+        @Override
+        public String toString() {
+            return number.toString();
+        }
+    }
+
+    /**
+     * Factory creating unrounded amounts sharing the working precision of an existing one.
+     */
+    private static final class Factory implements MonetaryAmountFactory<UnroundedAmount> {
+
+        private final UnroundedAmount template;
+        private CurrencyUnit currency;
+        private BigDecimal number = BigDecimal.ZERO;
+
+        private Factory(UnroundedAmount template) {
+            this.template = template;
+            this.currency = template.currency;
+        }
+
+        @Override
+        public Class<? extends MonetaryAmount> getAmountType() {
+            return UnroundedAmount.class;
+        }
+
+        @Override
+        public MonetaryAmountFactory<UnroundedAmount> setCurrency(CurrencyUnit currency) {
+            this.currency = Objects.requireNonNull(currency);
+            return this;
+        }
+
+        @Override
+        public MonetaryAmountFactory<UnroundedAmount> setCurrency(String currencyCode) {
+            return setCurrency(Monetary.getCurrency(currencyCode));
+        }
+
+        @Override
+        public MonetaryAmountFactory<UnroundedAmount> setNumber(double number) {
+            this.number = BigDecimal.valueOf(number);
+            return this;
+        }
+
+        @Override
+        public MonetaryAmountFactory<UnroundedAmount> setNumber(long number) {
+            this.number = BigDecimal.valueOf(number);
+            return this;
+        }
+
+        @Override
+        public MonetaryAmountFactory<UnroundedAmount> setNumber(Number number) {
+            this.number = toBigDecimal(number);
+            return this;
+        }
+
+        @Override
+        public NumberValue getMaxNumber() {
+            return null;
+        }
+
+        @Override
+        public NumberValue getMinNumber() {
+            return null;
+        }
+
+        @Override
+        public MonetaryAmountFactory<UnroundedAmount> setContext(MonetaryContext monetaryContext) {
+            return this;
+        }
+
+        @Override
+        public UnroundedAmount create() {
+            return new UnroundedAmount(currency, number, template.mathContext, template.monetaryContext);
+        }
+
+        @Override
+        public MonetaryContext getDefaultMonetaryContext() {
+            return template.monetaryContext;
+        }
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.banking.AnnualPercentageYield;
+import org.javamoney.calc.banking.BalloonLoanPayment;
+import org.javamoney.calc.common.AverageCollectionPeriod;
+import org.javamoney.calc.common.BasisPoint;
+import org.javamoney.calc.common.CompoundInterest;
+import org.javamoney.calc.common.ContinuousCompoundInterest;
+import org.javamoney.calc.common.DiscountFactor;
+import org.javamoney.calc.common.DoublingTime;
+import org.javamoney.calc.common.DoublingTimeSimple;
+import org.javamoney.calc.common.DoublingTimeWithContCompounding;
+import org.javamoney.calc.common.FutureValue;
+import org.javamoney.calc.common.FutureValueFactor;
+import org.javamoney.calc.common.FutureValueGrowingAnnuity;
+import org.javamoney.calc.common.FutureValueOfAnnuity;
+import org.javamoney.calc.common.FutureValueOfAnnuityDue;
+import org.javamoney.calc.common.FutureValueOfAnnuityFactor;
+import org.javamoney.calc.common.FutureValueOfAnnuityWithContCompounding;
+import org.javamoney.calc.common.FutureValueWithContinuousCompounding;
+import org.javamoney.calc.common.NumPeriodsFromPresentValue;
+import org.javamoney.calc.common.NumPeriodsOfAnnuityFromFutureValue;
+import org.javamoney.calc.common.NumPeriodsOfAnnuityFromPresentAndFutureValue;
+import org.javamoney.calc.common.PresentValue;
+import org.javamoney.calc.common.PresentValueContinuousCompounding;
+import org.javamoney.calc.common.PresentValueFactor;
+import org.javamoney.calc.common.PresentValueGrowingAnnuity;
+import org.javamoney.calc.common.PresentValueGrowingAnnuityPayment;
+import org.javamoney.calc.common.PresentValueOfAnnuity;
+import org.javamoney.calc.common.PresentValueOfAnnuityDue;
+import org.javamoney.calc.common.PresentValueOfAnnuityPayment;
+import org.javamoney.calc.common.PresentValueOfAnnuityPaymentFactor;
+import org.javamoney.calc.common.PresentValueOfPerpetuity;
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.calc.common.RuleOf72;
+import org.javamoney.calc.common.SimpleInterest;
+import org.javamoney.calc.common.WeightedAverage;
+import org.javamoney.calc.securities.BidAskSpread;
+import org.javamoney.calc.securities.BondEquivalentYield;
+import org.javamoney.calc.securities.BookValuePerShare;
+import org.javamoney.calc.securities.CapitalAssetPricingModelFormula;
+import org.javamoney.calc.securities.CapitalGainsYield;
+import org.javamoney.calc.securities.CurrentYield;
+import org.javamoney.calc.securities.DilutedEarningsPerShare;
+import org.javamoney.calc.securities.DividendPayoutRatio;
+import org.javamoney.calc.securities.DividendYield;
+import org.javamoney.calc.securities.DividendsPerShare;
+import org.javamoney.calc.securities.EarningsPerShare;
+import org.javamoney.calc.securities.EquityMultiplier;
+import org.javamoney.calc.securities.EstimatedEarnings;
+import org.javamoney.calc.securities.GeometricMeanReturn;
+import org.javamoney.calc.securities.HoldingPeriodReturn;
+import org.javamoney.calc.securities.MultiStageDividendDiscount;
+import org.javamoney.calc.securities.NetAssetValue;
+import org.javamoney.calc.securities.PreferredStock;
+import org.javamoney.calc.securities.PriceToBookValue;
+import org.javamoney.calc.securities.PriceToEarningsRatio;
+import org.javamoney.calc.securities.PriceToSalesRatio;
+import org.javamoney.calc.securities.RiskPremium;
+import org.javamoney.calc.securities.StockPresentValue;
+import org.javamoney.calc.securities.TaxEquivalentYield;
+import org.javamoney.calc.securities.TotalStockReturn;
+import org.javamoney.calc.securities.YieldToMaturity;
+import org.javamoney.calc.securities.ZeroCouponBondValue;
+import org.javamoney.calc.securities.ZeroCouponBondYield;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+
+/**
+ * Exercises the operators of the {@code common}, {@code banking} and {@code securities} packages with representative
+ * inputs, so they are compiled by the JIT before real traffic arrives. The warm-up runs in rounds until the JIT's
+ * accumulated compilation time, as reported by the {@link CompilationMXBean}, stops increasing for a number of
+ * consecutive rounds, or until the time budget is used up. If the JVM does not report compilation times, the warm-up
+ * runs for the configured minimal number of rounds.
+ *
+ * <pre>
+ * CompletableFuture&lt;Warmup.Report&gt; warmup = Warmup.newBuilder().timeBudget(Duration.ofSeconds(20)).build().start();
+ * // readiness probe
+ * boolean ready = warmup.isDone();
+ * </pre>
+ *
+ * By default the inputs are created for all amount types registered with {@link Monetary}, so both the
+ * {@code BigDecimal} and the fixed-point paths are exercised.
+ *
+ * @author Anatole Tresch
+ */
+public final class Warmup {
+
+    private static final int[] PERIODS = {1, 5, 12, 30, 120};
+    private static final double[] RATES = {0.01, 0.035, 0.05, 0.075, 0.12};
+
+    private final Duration timeBudget;
+    private final int minRounds;
+    private final int stableRounds;
+    private final int iterations;
+    private final List<MonetaryAmount> amounts;
+
+    /** Keeps results reachable, so the exercised calculations cannot be eliminated. */
+    private volatile int sink;
+
+    private Warmup(Builder builder) {
+        this.timeBudget = builder.timeBudget;
+        this.minRounds = builder.minRounds;
+        this.stableRounds = builder.stableRounds;
+        this.iterations = builder.iterations;
+        this.amounts = builder.amounts.isEmpty() ? defaultAmounts() : new ArrayList<>(builder.amounts);
+    }
+
+    /**
+     * Creates a new builder instance.
+     *
+     * @return a new builder, never null.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts the warm-up on a new daemon thread.
+     *
+     * @return the future completed with the report when the warm-up finished, never null.
+     */
+    public CompletableFuture<Report> start() {
+        CompletableFuture<Report> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(run());
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }, "javamoney-calc-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Runs the warm-up on the calling thread.
+     *
+     * @return the report, never null.
+     */
+    public Report run() {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean monitored = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+        List<Function<Inputs, Object>> exercises = exercises();
+        long start = System.nanoTime();
+        long deadline = start + timeBudget.toNanos();
+        long lastCompilationTime = monitored ? compilation.getTotalCompilationTime() : -1L;
+        int rounds = 0;
+        int stable = 0;
+        long invocations = 0;
+        long failures = 0;
+        boolean settled = false;
+        Inputs inputs = new Inputs();
+        while (System.nanoTime() < deadline) {
+            int hash = 0;
+            for (int i = 0; i < iterations; i++) {
+                inputs.select(rounds * iterations + i);
+                for (Function<Inputs, Object> exercise : exercises) {
+                    try {
+                        hash += Objects.hashCode(exercise.apply(inputs));
+                    } catch (RuntimeException e) {
+                        failures++;
+                    }
+                    invocations++;
+                }
+            }
+            sink = hash;
+            rounds++;
+            if (monitored) {
+                long compilationTime = compilation.getTotalCompilationTime();
+                stable = compilationTime == lastCompilationTime ? stable + 1 : 0;
+                lastCompilationTime = compilationTime;
+                if (rounds >= minRounds && stable >= stableRounds) {
+                    settled = true;
+                    break;
+                }
+            } else if (rounds >= minRounds) {
+                break;
+            }
+        }
+        return new Report(rounds, invocations, failures, settled, Duration.ofNanos(System.nanoTime() - start),
+                lastCompilationTime);
+    }
+
+    private static List<MonetaryAmount> defaultAmounts() {
+        List<MonetaryAmount> result = new ArrayList<>();
+        for (Class<? extends MonetaryAmount> type : Monetary.getAmountTypes()) {
+            MonetaryAmountFactory<? extends MonetaryAmount> factory = Monetary.getAmountFactory(type);
+            result.add(factory.setCurrency("CHF").setNumber(new BigDecimal("1234.56")).create());
+            result.add(factory.setCurrency("USD").setNumber(new BigDecimal("98765.4321")).create());
+        }
+        return result;
+    }
+
+    /**
+     * The inputs of one invocation, varied over the iterations so the profiles cover different branches.
+     */
+    private final class Inputs {
+        MonetaryAmount amount;
+        MonetaryAmount larger;
+        Rate rate;
+        Rate growth;
+        int periods;
+        RateAndPeriods rateAndPeriods;
+        List<Rate> returns;
+
+        void select(int index) {
+            amount = amounts.get(index % amounts.size());
+            larger = amount.multiply(2);
+            rate = Rate.of(RATES[index % RATES.length]);
+            growth = Rate.of(RATES[(index + 1) % RATES.length] / 3);
+            periods = PERIODS[(index / RATES.length) % PERIODS.length];
+            rateAndPeriods = RateAndPeriods.of(rate, periods);
+            returns = Arrays.asList(rate, growth, rate);
+        }
+    }
+
+    private List<Function<Inputs, Object>> exercises() {
+        List<Function<Inputs, Object>> result = new ArrayList<>();
+        // CalculationContext
+        result.add(in -> CalculationContext.bigDecimal(in.periods).multiply(CalculationContext.ten(),
+                CalculationContext.mathContext()).add(CalculationContext.one()).subtract(CalculationContext.zero()));
+        result.add(in -> CalculationContext.bigDecimal(in.rate.get()).divide(CalculationContext.bigDecimal(3.0),
+                CalculationContext.mathContext()));
+        // common
+        result.add(in -> AverageCollectionPeriod.calculate(in.periods));
+        result.add(in -> AverageCollectionPeriod.calculate(in.amount, in.periods));
+        result.add(in -> in.amount.with(BasisPoint.of(in.periods)));
+        result.add(in -> in.amount.with(CompoundInterest.of(in.rateAndPeriods, 12)));
+        result.add(in -> in.amount.with(ContinuousCompoundInterest.of(in.rateAndPeriods)));
+        result.add(in -> DiscountFactor.calculate(in.rateAndPeriods));
+        result.add(in -> DoublingTime.calculate(in.rate));
+        result.add(in -> DoublingTimeSimple.calculate(in.rate));
+        result.add(in -> DoublingTimeWithContCompounding.calculate(in.rate));
+        result.add(in -> in.amount.with(FutureValue.of(in.rateAndPeriods)));
+        result.add(in -> FutureValueFactor.calculate(in.rateAndPeriods));
+        result.add(in -> in.amount.with(FutureValueGrowingAnnuity.of(in.rate, in.growth, in.periods)));
+        result.add(in -> in.amount.with(FutureValueOfAnnuity.of(in.rateAndPeriods)));
+        result.add(in -> in.amount.with(FutureValueOfAnnuityDue.of(in.rateAndPeriods)));
+        result.add(in -> FutureValueOfAnnuityFactor.calculate(in.rateAndPeriods));
+        result.add(in -> in.amount.with(FutureValueOfAnnuityWithContCompounding.of(in.rateAndPeriods)));
+        result.add(in -> in.amount.with(FutureValueWithContinuousCompounding.of(in.rateAndPeriods)));
+        result.add(in -> NumPeriodsFromPresentValue.calculate(in.amount, in.larger, in.rate));
+        result.add(in -> NumPeriodsOfAnnuityFromFutureValue.calculate(in.amount, in.larger, in.rate));
+        result.add(in -> NumPeriodsOfAnnuityFromPresentAndFutureValue.calculate(in.larger, in.amount,
+                in.rateAndPeriods));
+        result.add(in -> in.amount.with(PresentValue.of(in.rateAndPeriods)));
+        result.add(in -> in.amount.with(PresentValueContinuousCompounding.of(in.rateAndPeriods)));
+        result.add(in -> PresentValueFactor.calculate(in.rateAndPeriods));
+        result.add(in -> in.amount.with(PresentValueGrowingAnnuity.of(in.rate, in.growth)));
+        result.add(in -> in.amount.with(PresentValueGrowingAnnuityPayment.of(in.rateAndPeriods, in.growth)));
+        result.add(in -> in.amount.with(PresentValueOfAnnuity.of(in.rateAndPeriods)));
+        result.add(in -> in.amount.with(PresentValueOfAnnuityDue.of(in.rateAndPeriods)));
+        result.add(in -> in.amount.with(PresentValueOfAnnuityPayment.of(in.rateAndPeriods)));
+        result.add(in -> PresentValueOfAnnuityPaymentFactor.calculate(in.rateAndPeriods));
+        result.add(in -> in.amount.with(PresentValueOfPerpetuity.of(in.rate)));
+        result.add(in -> RuleOf72.calculate(in.rate));
+        result.add(in -> in.amount.with(SimpleInterest.of(in.rateAndPeriods)));
+        result.add(in -> WeightedAverage.newBuilder().add(in.rate.get(), BigDecimal.ONE)
+                .add(in.growth.get(), BigDecimal.valueOf(in.periods)).calculate());
+        // banking
+        result.add(in -> in.amount.with(AnnualPercentageYield.of(in.rate, in.periods)));
+        result.add(in -> in.amount.with(BalloonLoanPayment.of(in.rateAndPeriods, in.amount.divide(2))));
+        // securities
+        result.add(in -> BidAskSpread.calculate(in.larger, in.amount));
+        result.add(in -> BondEquivalentYield.calculate(in.larger, in.amount, in.periods));
+        result.add(in -> BookValuePerShare.calculate(in.amount, in.periods));
+        result.add(in -> CapitalAssetPricingModelFormula.calculate(in.growth, BigDecimal.valueOf(1.2), in.rate));
+        result.add(in -> CapitalGainsYield.calculate(in.amount, in.larger));
+        result.add(in -> CurrentYield.calculate(in.amount, in.larger));
+        result.add(in -> DilutedEarningsPerShare.calculate(in.larger, BigDecimal.valueOf(in.periods),
+                BigDecimal.ONE));
+        result.add(in -> DividendPayoutRatio.calculate(in.amount, in.larger));
+        result.add(in -> DividendYield.calculate(in.amount, in.larger));
+        result.add(in -> DividendsPerShare.calculate(in.amount, in.periods));
+        result.add(in -> EarningsPerShare.calculate(in.amount, in.periods));
+        result.add(in -> EquityMultiplier.calculate(in.larger, in.amount));
+        result.add(in -> EstimatedEarnings.calculate(in.larger, in.amount));
+        result.add(in -> EstimatedEarnings.calculate(in.larger, in.rate.get()));
+        result.add(in -> GeometricMeanReturn.calculate(in.returns));
+        result.add(in -> HoldingPeriodReturn.calculate(in.returns));
+        result.add(in -> in.amount.with(MultiStageDividendDiscount.newBuilder()
+                .requiredRateOfReturn(Rate.of(in.rate.get().add(in.growth.get())))
+                .addStage(in.rate, in.periods)
+                .terminalGrowthRate(in.growth).build()));
+        result.add(in -> NetAssetValue.calculate(in.larger, in.amount, in.periods));
+        result.add(in -> in.amount.with(PreferredStock.of(in.rate)));
+        result.add(in -> PriceToBookValue.calculate(in.larger, in.amount));
+        result.add(in -> PriceToEarningsRatio.calculate(in.larger, in.amount));
+        result.add(in -> PriceToSalesRatio.calculate(in.larger, in.amount));
+        result.add(in -> RiskPremium.calculate(in.rate, in.growth));
+        result.add(in -> in.amount.with(StockPresentValue.of(in.rate, in.growth)));
+        result.add(in -> TaxEquivalentYield.calculate(in.rate, in.growth));
+        result.add(in -> TotalStockReturn.calculate(in.amount, in.larger, in.amount.divide(10)));
+        result.add(in -> YieldToMaturity.calculate(in.amount.divide(10), in.larger, in.amount, in.periods));
+        result.add(in -> in.amount.with(ZeroCouponBondValue.of(in.rate, in.periods)));
+        result.add(in -> ZeroCouponBondYield.calculate(in.larger, in.amount, in.periods));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public String toString() {
+        return "Warmup{" +
+                "timeBudget=" + timeBudget +
+                ", minRounds=" + minRounds +
+                ", stableRounds=" + stableRounds +
+                ", iterations=" + iterations +
+                ", amounts=" + amounts +
+                '}';
+    }
+
+    /**
+     * The builder for a {@link Warmup}.
+     */
+    public static final class Builder {
+        private Duration timeBudget = Duration.ofSeconds(30);
+        private int minRounds = 5;
+        private int stableRounds = 3;
+        private int iterations = 200;
+        private final List<MonetaryAmount> amounts = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximal duration of the warm-up, default is 30 seconds.
+         *
+         * @param timeBudget the time budget, not null and positive.
+         * @return the builder, for chaining.
+         */
+        public Builder timeBudget(Duration timeBudget) {
+            if (timeBudget.isNegative() || timeBudget.isZero()) {
+                throw new IllegalArgumentException("Time budget must be positive.");
+            }
+            this.timeBudget = timeBudget;
+            return this;
+        }
+
+        /**
+         * Sets the minimal number of rounds, default is 5.
+         *
+         * @param minRounds the minimal number of rounds, &gt; 0.
+         * @return the builder, for chaining.
+         */
+        public Builder minRounds(int minRounds) {
+            if (minRounds < 1) {
+                throw new IllegalArgumentException("Min rounds must be > 0.");
+            }
+            this.minRounds = minRounds;
+            return this;
+        }
+
+        /**
+         * Sets the number of consecutive rounds without JIT compilation after which the compilation is considered
+         * settled, default is 3.
+         *
+         * @param stableRounds the number of rounds, &gt; 0.
+         * @return the builder, for chaining.
+         */
+        public Builder stableRounds(int stableRounds) {
+            if (stableRounds < 1) {
+                throw new IllegalArgumentException("Stable rounds must be > 0.");
+            }
+            this.stableRounds = stableRounds;
+            return this;
+        }
+
+        /**
+         * Sets the number of invocations of each operator per round, default is 200.
+         *
+         * @param iterations the number of iterations, &gt; 0.
+         * @return the builder, for chaining.
+         */
+        public Builder iterations(int iterations) {
+            if (iterations < 1) {
+                throw new IllegalArgumentException("Iterations must be > 0.");
+            }
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * Adds sample amounts used as inputs. If none are added, amounts of all registered amount types are used.
+         *
+         * @param amounts the amounts, not null.
+         * @return the builder, for chaining.
+         */
+        public Builder amounts(MonetaryAmount... amounts) {
+            for (MonetaryAmount amount : amounts) {
+                this.amounts.add(Objects.requireNonNull(amount));
+            }
+            return this;
+        }
+
+        /**
+         * Creates the warm-up.
+         *
+         * @return the new warm-up, never null.
+         */
+        public Warmup build() {
+            return new Warmup(this);
+        }
+
+        @Override
+        public String toString() {
+            return "Warmup.Builder{" +
+                    "timeBudget=" + timeBudget +
+                    ", minRounds=" + minRounds +
+                    ", stableRounds=" + stableRounds +
+                    ", iterations=" + iterations +
+                    ", amounts=" + amounts +
+                    '}';
+        }
+    }
+
+    /**
+     * The outcome of a warm-up.
+     */
+    public static final class Report {
+        private final int rounds;
+        private final long invocations;
+        private final long failures;
+        private final boolean settled;
+        private final Duration duration;
+        private final long compilationTime;
+
+        private Report(int rounds, long invocations, long failures, boolean settled, Duration duration,
+                       long compilationTime) {
+            this.rounds = rounds;
+            this.invocations = invocations;
+            this.failures = failures;
+            this.settled = settled;
+            this.duration = duration;
+            this.compilationTime = compilationTime;
+        }
+
+        /**
+         * Access the number of rounds run.
+         *
+         * @return the rounds.
+         */
+        public int getRounds() {
+            return rounds;
+        }
+
+        /**
+         * Access the total number of operator invocations.
+         *
+         * @return the invocations.
+         */
+        public long getInvocations() {
+            return invocations;
+        }
+
+        /**
+         * Access the number of invocations that failed, e.g. because of inputs not valid for an operator.
+         *
+         * @return the failures.
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Checks if the JIT compilation settled before the time budget was used up.
+         *
+         * @return true, if the compilation settled.
+         */
+        public boolean isSettled() {
+            return settled;
+        }
+
+        /**
+         * Access the duration of the warm-up.
+         *
+         * @return the duration, never null.
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+
+        /**
+         * Access the JVM's accumulated JIT compilation time in milliseconds at the end of the warm-up.
+         *
+         * @return the compilation time, or -1, if not supported by the JVM.
+         */
+        public long getCompilationTime() {
+            return compilationTime;
+        }
+
+        @Override
+        public String toString() {
+            return "Warmup.Report{" +
+                    "rounds=" + rounds +
+                    ", invocations=" + invocations +
+                    ", failures=" + failures +
+                    ", settled=" + settled +
+                    ", duration=" + duration +
+                    ", compilationTime=" + compilationTime +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.codec;
+
+import org.javamoney.calc.CompositeMonetaryOperator;
+import org.javamoney.calc.common.AbstractRateAndPeriodBasedOperator;
+import org.javamoney.calc.common.BasisPoint;
+import org.javamoney.calc.common.CompoundInterest;
+import org.javamoney.calc.common.ContinuousCompoundInterest;
+import org.javamoney.calc.common.FutureValue;
+import org.javamoney.calc.common.FutureValueOfAnnuity;
+import org.javamoney.calc.common.FutureValueOfAnnuityDue;
+import org.javamoney.calc.common.FutureValueOfAnnuityWithContCompounding;
+import org.javamoney.calc.common.FutureValueWithContinuousCompounding;
+import org.javamoney.calc.common.PresentValue;
+import org.javamoney.calc.common.PresentValueContinuousCompounding;
+import org.javamoney.calc.common.PresentValueOfAnnuity;
+import org.javamoney.calc.common.PresentValueOfAnnuityDue;
+import org.javamoney.calc.common.PresentValueOfAnnuityPayment;
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.calc.common.SimpleInterest;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.money.MonetaryOperator;
+
+/**
+ * The codecs for the operators of this library.
+ *
+ * @author Anatole Tresch
+ */
+final class DefaultCodecs {
+
+    private DefaultCodecs() {
+    }
+
+    static List<OperatorCodec<?>> all() {
+        return Arrays.asList(
+                new CompositeCodec(),
+                new RateCodec(),
+                new BasisPointCodec(),
+                new CompoundInterestCodec(),
+                new RateAndPeriodsCodec<>(10, ContinuousCompoundInterest.class, ContinuousCompoundInterest::of),
+                new RateAndPeriodsCodec<>(11, FutureValue.class, FutureValue::of),
+                new RateAndPeriodsCodec<>(12, FutureValueOfAnnuity.class, FutureValueOfAnnuity::of),
+                new RateAndPeriodsCodec<>(13, FutureValueOfAnnuityDue.class, FutureValueOfAnnuityDue::of),
+                new RateAndPeriodsCodec<>(14, FutureValueOfAnnuityWithContCompounding.class,
+                        FutureValueOfAnnuityWithContCompounding::of),
+                new RateAndPeriodsCodec<>(15, FutureValueWithContinuousCompounding.class,
+                        FutureValueWithContinuousCompounding::of),
+                new RateAndPeriodsCodec<>(16, PresentValue.class, PresentValue::of),
+                new RateAndPeriodsCodec<>(17, PresentValueContinuousCompounding.class,
+                        PresentValueContinuousCompounding::of),
+                new RateAndPeriodsCodec<>(18, PresentValueOfAnnuity.class, PresentValueOfAnnuity::of),
+                new RateAndPeriodsCodec<>(19, PresentValueOfAnnuityDue.class, PresentValueOfAnnuityDue::of),
+                new RateAndPeriodsCodec<>(20, PresentValueOfAnnuityPayment.class, PresentValueOfAnnuityPayment::of),
+                new RateAndPeriodsCodec<>(21, SimpleInterest.class, SimpleInterest::of));
+    }
+
+    private abstract static class AbstractCodec<T extends MonetaryOperator> implements OperatorCodec<T> {
+        private final int id;
+        private final Class<T> type;
+
+        AbstractCodec(int id, Class<T> type) {
+            this.id = id;
+            this.type = type;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public Class<T> getOperatorType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "{id=" + id + ", type=" + type.getName() + '}';
+        }
+    }
+
+    private static final class CompositeCodec extends AbstractCodec<CompositeMonetaryOperator> {
+        /** Maximum number of operators of a composition. */
+        private static final int MAX_SIZE = 1024;
+
+        CompositeCodec() {
+            super(1, CompositeMonetaryOperator.class);
+        }
+
+        @Override
+        public void write(CompositeMonetaryOperator operator, DataOutput out, OperatorCodecs codecs)
+                throws IOException {
+            out.writeBoolean(operator.isDeferredRounding());
+            out.writeInt(operator.getOperators().size());
+            for (MonetaryOperator op : operator.getOperators()) {
+                codecs.write(op, out);
+            }
+        }
+
+        @Override
+        public CompositeMonetaryOperator read(DataInput in, OperatorCodecs codecs) throws IOException {
+            boolean deferredRounding = in.readBoolean();
+            int size = in.readInt();
+            if (size < 0 || size > MAX_SIZE) {
+                throw new IOException("Invalid composition size: " + size);
+            }
+            List<MonetaryOperator> operators = new ArrayList<>(Math.min(size, 16));
+            for (int i = 0; i < size; i++) {
+                operators.add(codecs.read(in));
+            }
+            CompositeMonetaryOperator result = new CompositeMonetaryOperator(operators);
+            return deferredRounding ? result.withDeferredRounding() : result;
+        }
+    }
+
+    private static final class RateCodec extends AbstractCodec<Rate> {
+        RateCodec() {
+            super(2, Rate.class);
+        }
+
+        @Override
+        public void write(Rate operator, DataOutput out, OperatorCodecs codecs) throws IOException {
+            OperatorCodecs.writeRate(operator, out);
+        }
+
+        @Override
+        public Rate read(DataInput in, OperatorCodecs codecs) throws IOException {
+            return OperatorCodecs.readRate(in);
+        }
+    }
+
+    private static final class BasisPointCodec extends AbstractCodec<BasisPoint> {
+        BasisPointCodec() {
+            super(3, BasisPoint.class);
+        }
+
+        @Override
+        public void write(BasisPoint operator, DataOutput out, OperatorCodecs codecs) throws IOException {
+            OperatorCodecs.writeDecimal(operator.getBasisPoints(), out);
+        }
+
+        @Override
+        public BasisPoint read(DataInput in, OperatorCodecs codecs) throws IOException {
+            return BasisPoint.of(OperatorCodecs.readDecimal(in));
+        }
+    }
+
+    private static final class CompoundInterestCodec extends AbstractCodec<CompoundInterest> {
+        CompoundInterestCodec() {
+            super(4, CompoundInterest.class);
+        }
+
+        @Override
+        public void write(CompoundInterest operator, DataOutput out, OperatorCodecs codecs) throws IOException {
+            OperatorCodecs.writeRateAndPeriods(operator.getRateAndPeriods(), out);
+            out.writeInt(operator.getTimesCompounded());
+        }
+
+        @Override
+        public CompoundInterest read(DataInput in, OperatorCodecs codecs) throws IOException {
+            return CompoundInterest.of(OperatorCodecs.readRateAndPeriods(in), in.readInt());
+        }
+    }
+
+    /**
+     * Codec for operators defined by their {@link RateAndPeriods} only.
+     */
+    private static final class RateAndPeriodsCodec<T extends AbstractRateAndPeriodBasedOperator> extends AbstractCodec<T> {
+        private final Function<RateAndPeriods, T> factory;
+
+        RateAndPeriodsCodec(int id, Class<T> type, Function<RateAndPeriods, T> factory) {
+            super(id, type);
+            this.factory = factory;
+        }
+
+        @Override
+        public void write(T operator, DataOutput out, OperatorCodecs codecs) throws IOException {
+            OperatorCodecs.writeRateAndPeriods(operator.getRateAndPeriods(), out);
+        }
+
+        @Override
+        public T read(DataInput in, OperatorCodecs codecs) throws IOException {
+            return factory.apply(OperatorCodecs.readRateAndPeriods(in));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.codec;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.money.MonetaryOperator;
+
+/**
+ * Cache of decoded operators, keyed by the {@link OperatorCodecs#key(byte[]) key} of their definition. Workers
+ * receive a definition once, and afterwards only its key with each batch; a request with an unknown key is
+ * answered by asking the sender for the definition again. The least recently used operators are evicted when
+ * the maximal size is reached. Instances are thread-safe.
+ *
+ * @author Anatole Tresch
+ */
+public final class OperatorCache {
+
+    private final OperatorCodecs codecs;
+    private final int maxSize;
+    private final Map<String, MonetaryOperator> operators;
+
+    private OperatorCache(OperatorCodecs codecs, int maxSize) {
+        this.codecs = Objects.requireNonNull(codecs, "Codecs required.");
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be > 0: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.operators = new LinkedHashMap<String, MonetaryOperator>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MonetaryOperator> eldest) {
+                return size() > OperatorCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param codecs  the codecs used to decode definitions, not null.
+     * @param maxSize the maximal number of operators cached, positive.
+     * @return the new cache, never null.
+     */
+    public static OperatorCache of(OperatorCodecs codecs, int maxSize) {
+        return new OperatorCache(codecs, maxSize);
+    }
+
+    /**
+     * Decodes and caches a definition. A definition already cached is not decoded again.
+     *
+     * @param definition the definition, not null.
+     * @return the key of the definition, never null.
+     * @throws IOException if the definition is invalid.
+     */
+    public String put(byte[] definition) throws IOException {
+        String key = OperatorCodecs.key(definition);
+        synchronized (operators) {
+            if (operators.containsKey(key)) {
+                return key;
+            }
+        }
+        MonetaryOperator operator = codecs.decode(definition);
+        synchronized (operators) {
+            operators.put(key, operator);
+        }
+        return key;
+    }
+
+    /**
+     * Access a cached operator.
+     *
+     * @param key the key of the definition, not null.
+     * @return the operator, or null, if the definition is not cached.
+     */
+    public MonetaryOperator get(String key) {
+        synchronized (operators) {
+            return operators.get(key);
+        }
+    }
+
+    /**
+     * Access the number of cached operators.
+     *
+     * @return the number of cached operators.
+     */
+    public int size() {
+        synchronized (operators) {
+            return operators.size();
+        }
+    }
+
+    /**
+     * Removes all cached operators.
+     */
+    public void clear() {
+        synchronized (operators) {
+            operators.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OperatorCache{" +
+                "size=" + size() +
+                ", maxSize=" + maxSize +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import javax.money.MonetaryOperator;
+
+/**
+ * Encodes and decodes one type of operator. Codecs are registered with {@link OperatorCodecs}, which writes the
+ * codec's id before the operator's data.
+ *
+ * @param <T> the operator type.
+ * @author Anatole Tresch
+ */
+public interface OperatorCodec<T extends MonetaryOperator> {
+
+    /**
+     * Access the id identifying this codec in encoded data. Ids below 1000 are reserved for the codecs of this
+     * library.
+     *
+     * @return the id, 0 to 32767.
+     */
+    int getId();
+
+    /**
+     * Access the operator type encoded.
+     *
+     * @return the type, never null.
+     */
+    Class<T> getOperatorType();
+
+    /**
+     * Writes the data of an operator.
+     *
+     * @param operator the operator, not null.
+     * @param out      the output, not null.
+     * @param codecs   the registry, for writing nested operators.
+     * @throws IOException if writing fails.
+     */
+    void write(T operator, DataOutput out, OperatorCodecs codecs) throws IOException;
+
+    /**
+     * Reads the data of an operator.
+     *
+     * @param in     the input, not null.
+     * @param codecs the registry, for reading nested operators.
+     * @return the operator, never null.
+     * @throws IOException if reading fails or the data is invalid.
+     */
+    T read(DataInput in, OperatorCodecs codecs) throws IOException;
+}
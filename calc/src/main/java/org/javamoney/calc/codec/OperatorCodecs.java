@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.codec;
+
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.money.MonetaryOperator;
+
+/**
+ * Registry of {@link OperatorCodec}s, encoding operators, including nested ones such as the operators of a
+ * {@link org.javamoney.calc.CompositeMonetaryOperator}, into a compact binary definition and back. Definitions
+ * are identified by {@link #key(byte[])}, so receivers can cache decoded operators, see {@link OperatorCache}.
+ * <p>
+ * The {@link #defaults() default registry} supports {@code CompositeMonetaryOperator}, {@code Rate},
+ * {@code BasisPoint}, {@code CompoundInterest} and the operators defined by a {@link RateAndPeriods} only, such
+ * as {@code FutureValue}, {@code PresentValue} or {@code SimpleInterest}. Further operators are supported by
+ * registering codecs. Operators implemented as lambdas cannot be encoded. Instances are immutable and
+ * thread-safe.
+ *
+ * @author Anatole Tresch
+ */
+public final class OperatorCodecs {
+
+    /** Version of the definition format. */
+    private static final int VERSION = 1;
+
+    /** Maximum nesting depth of the operators of a definition. */
+    private static final int MAX_DEPTH = 64;
+
+    /** Nesting depth of the operators read by the current thread. */
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private static final OperatorCodecs DEFAULTS = newBuilder().build();
+
+    private final Map<Class<?>, OperatorCodec<?>> codecsByType;
+    private final Map<Integer, OperatorCodec<?>> codecsById;
+
+    private OperatorCodecs(Builder builder) {
+        this.codecsByType = new HashMap<>(builder.codecsByType);
+        this.codecsById = new HashMap<>(builder.codecsById);
+    }
+
+    /**
+     * Access the registry containing the codecs of this library.
+     *
+     * @return the default registry, never null.
+     */
+    public static OperatorCodecs defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Creates a new builder, initialized with the codecs of this library.
+     *
+     * @return a new builder, never null.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Encodes an operator as definition.
+     *
+     * @param operator the operator, not null.
+     * @return the definition, never null.
+     * @throws IllegalArgumentException if no codec is registered for the operator or a nested operator.
+     */
+    public byte[] encode(MonetaryOperator operator) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            write(operator, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode " + operator, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes an operator from its definition.
+     *
+     * @param definition the definition, not null.
+     * @return the operator, never null.
+     * @throws IOException if the definition is invalid or contains an unknown codec id.
+     */
+    public MonetaryOperator decode(byte[] definition) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(definition))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported definition version: " + version);
+            }
+            MonetaryOperator result = read(in);
+            if (in.read() >= 0) {
+                throw new IOException("Trailing data in definition.");
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Writes an operator, preceded by the id of its codec. Used by codecs to write nested operators.
+     *
+     * @param operator the operator, not null.
+     * @param out      the output, not null.
+     * @throws IOException if writing fails.
+     * @throws IllegalArgumentException if no codec is registered for the operator.
+     */
+    @SuppressWarnings("unchecked")
+    public void write(MonetaryOperator operator, DataOutput out) throws IOException {
+        Objects.requireNonNull(operator, "Operator required.");
+        OperatorCodec<MonetaryOperator> codec =
+                (OperatorCodec<MonetaryOperator>) codecsByType.get(operator.getClass());
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec registered for " + operator.getClass().getName());
+        }
+        out.writeShort(codec.getId());
+        codec.write(operator, out, this);
+    }
+
+    /**
+     * Reads an operator written by {@link #write(MonetaryOperator, DataOutput)}.
+     *
+     * @param in the input, not null.
+     * @return the operator, never null.
+     * @throws IOException if reading fails, the codec id is unknown or operators are nested too deeply.
+     */
+    public MonetaryOperator read(DataInput in) throws IOException {
+        int[] depth = DEPTH.get();
+        if (depth[0] >= MAX_DEPTH) {
+            throw new IOException("Operators nested deeper than " + MAX_DEPTH + " levels.");
+        }
+        int id = in.readShort();
+        OperatorCodec<?> codec = codecsById.get(id);
+        if (codec == null) {
+            throw new IOException("Unknown operator codec id: " + id);
+        }
+        depth[0]++;
+        try {
+            return codec.read(in, this);
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    /**
+     * Evaluates the key of a definition, the hex encoded SHA-256 hash of its bytes.
+     *
+     * @param definition the definition, not null.
+     * @return the key, never null.
+     */
+    public static String key(byte[] definition) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(definition);
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+
+    /**
+     * Writes a decimal as scale and unscaled bytes.
+     *
+     * @param value the value, not null.
+     * @param out   the output, not null.
+     * @throws IOException if writing fails.
+     */
+    public static void writeDecimal(BigDecimal value, DataOutput out) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeShort(unscaled.length);
+        out.write(unscaled);
+    }
+
+    /**
+     * Reads a decimal written by {@link #writeDecimal(BigDecimal, DataOutput)}.
+     *
+     * @param in the input, not null.
+     * @return the value, never null.
+     * @throws IOException if reading fails.
+     */
+    public static BigDecimal readDecimal(DataInput in) throws IOException {
+        int scale = in.readInt();
+        int length = in.readUnsignedShort();
+        if (length == 0) {
+            throw new IOException("Invalid decimal.");
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    /**
+     * Writes a rate including its optional info.
+     *
+     * @param rate the rate, not null.
+     * @param out  the output, not null.
+     * @throws IOException if writing fails.
+     */
+    public static void writeRate(Rate rate, DataOutput out) throws IOException {
+        writeDecimal(rate.get(), out);
+        out.writeBoolean(rate.getInfo() != null);
+        if (rate.getInfo() != null) {
+            out.writeUTF(rate.getInfo());
+        }
+    }
+
+    /**
+     * Reads a rate written by {@link #writeRate(Rate, DataOutput)}.
+     *
+     * @param in the input, not null.
+     * @return the rate, never null.
+     * @throws IOException if reading fails.
+     */
+    public static Rate readRate(DataInput in) throws IOException {
+        BigDecimal rate = readDecimal(in);
+        return Rate.of(rate, in.readBoolean() ? in.readUTF() : null);
+    }
+
+    /**
+     * Writes a rate and its periods.
+     *
+     * @param rateAndPeriods the rate and periods, not null.
+     * @param out            the output, not null.
+     * @throws IOException if writing fails.
+     */
+    public static void writeRateAndPeriods(RateAndPeriods rateAndPeriods, DataOutput out) throws IOException {
+        writeRate(rateAndPeriods.getRate(), out);
+        out.writeInt(rateAndPeriods.getPeriods());
+    }
+
+    /**
+     * Reads a rate and periods written by {@link #writeRateAndPeriods(RateAndPeriods, DataOutput)}.
+     *
+     * @param in the input, not null.
+     * @return the rate and periods, never null.
+     * @throws IOException if reading fails or the periods are invalid.
+     */
+    public static RateAndPeriods readRateAndPeriods(DataInput in) throws IOException {
+        Rate rate = readRate(in);
+        int periods = in.readInt();
+        if (periods < 0) {
+            throw new IOException("Invalid periods: " + periods);
+        }
+        return RateAndPeriods.of(rate, periods);
+    }
+
+    @Override
+    public String toString() {
+        return "OperatorCodecs{codecs=" + codecsById.values() + '}';
+    }
+
+    /**
+     * Builder for creating new registries.
+     */
+    public static final class Builder {
+
+        private final Map<Class<?>, OperatorCodec<?>> codecsByType = new HashMap<>();
+        private final Map<Integer, OperatorCodec<?>> codecsById = new HashMap<>();
+
+        private Builder() {
+            for (OperatorCodec<?> codec : DefaultCodecs.all()) {
+                register(codec);
+            }
+        }
+
+        /**
+         * Registers a codec, replacing a codec registered for the same operator type.
+         *
+         * @param codec the codec, not null.
+         * @return this builder for chaining.
+         * @throws IllegalArgumentException if the id is invalid or used by a codec of another operator type.
+         */
+        public Builder register(OperatorCodec<?> codec) {
+            Objects.requireNonNull(codec, "Codec required.");
+            if (codec.getId() < 0 || codec.getId() > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Codec id must be between 0 and " + Short.MAX_VALUE + ": "
+                        + codec.getId());
+            }
+            OperatorCodec<?> existing = codecsById.get(codec.getId());
+            if (existing != null && !existing.getOperatorType().equals(codec.getOperatorType())) {
+                throw new IllegalArgumentException("Codec id " + codec.getId() + " already used for "
+                        + existing.getOperatorType().getName());
+            }
+            OperatorCodec<?> replaced = codecsByType.put(codec.getOperatorType(), codec);
+            if (replaced != null) {
+                codecsById.remove(replaced.getId());
+            }
+            codecsById.put(codec.getId(), codec);
+            return this;
+        }
+
+        /**
+         * Creates a new registry.
+         *
+         * @return the new registry, never null.
+         */
+        public OperatorCodecs build() {
+            return new OperatorCodecs(this);
+        }
+    }
+}
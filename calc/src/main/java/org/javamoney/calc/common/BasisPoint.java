@@ -39,9 +39,12 @@ public final class BasisPoint implements MonetaryOperator {
 	private static final BigDecimal ONE_TENTHOUSAND = new BigDecimal(10000,
 			CalculationContext.mathContext());
 
+	private final BigDecimal basisPoints;
+
 	private final BigDecimal basisPointValue;
 
 	private BasisPoint(final Number decimal) {
+		basisPoints = new BigDecimal(decimal.toString());
 		basisPointValue = calcBasisPoint(decimal);
 	}
 
@@ -55,20 +58,30 @@ public final class BasisPoint implements MonetaryOperator {
 		return new BasisPoint(number);
 	}
 
+	/**
+	 * Access the number of basis points this instance was created with.
+	 *
+	 * @return the basis points, never null.
+	 */
+	public BigDecimal getBasisPoints() {
+		return basisPoints;
+	}
+
 	/**
 	 * Gets the permil of the amount.
 	 * <p>
 	 * This returns the monetary amount in permil. For example, for 10% 'EUR
 	 * 2.35' will return 0.235.
 	 * <p>
-	 * This is returned as a {@code MonetaryAmount}.
+	 * This is returned as a {@code MonetaryAmount}. The product is rounded as described in
+	 * {@link #calculate(MonetaryAmount, Number)}.
 	 *
 	 * @param amount amount of the permil applied being created to.
 	 * @return the permil of the given amount, never {@code null}
 	 */
 	@Override
 	public MonetaryAmount apply(MonetaryAmount amount) {
-		return amount.multiply(basisPointValue);
+		return CalculationContext.multiply(amount, basisPointValue);
 	}
 
 	/*
@@ -92,14 +105,17 @@ public final class BasisPoint implements MonetaryOperator {
 	 * This returns the monetary amount in permil. For example, for 10% 'EUR
 	 * 2.35' will return 0.235.
 	 * <p>
-	 * This is returned as a {@code MonetaryAmount}.
+	 * This is returned as a {@code MonetaryAmount}. The amount multiplies itself, so e.g. {@code FastMoney}
+	 * truncates the product, unless {@link CalculationContext#setFixedPointRounding(boolean) fixed-point rounding}
+	 * is enabled, which rounds the product of long-backed amounts {@link java.math.RoundingMode#HALF_EVEN
+	 * HALF_EVEN}.
 	 *
 	 * @param amount      the amount
 	 * @param basisPoints the basis points
 	 * @return the permil result of the amount, never {@code null}
 	 */
 	public static MonetaryAmount calculate(MonetaryAmount amount, Number basisPoints) {
-		return amount.multiply(calcBasisPoint(basisPoints));
+		return CalculationContext.multiply(amount, calcBasisPoint(basisPoints));
 	}
 
 
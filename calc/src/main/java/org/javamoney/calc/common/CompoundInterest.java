@@ -17,9 +17,10 @@
  */
 package org.javamoney.calc.common;
 
-import static org.javamoney.calc.CalculationContext.mathContext;
 import static org.javamoney.calc.CalculationContext.one;
 
+import org.javamoney.calc.CalculationContext;
+
 import java.math.BigDecimal;
 
 import javax.money.MonetaryAmount;
@@ -110,10 +111,12 @@ public final class CompoundInterest extends AbstractRateAndPeriodBasedOperator {
      * @return the resulting amount, never null.
      */
     public static MonetaryAmount calculate(MonetaryAmount amount, RateAndPeriods rateAndPeriods, int timesCompounded) {
-        BigDecimal part2 = rateAndPeriods.getRate().get().divide(BigDecimal.valueOf(timesCompounded), mathContext());
-        BigDecimal base = one().add(part2);
-        BigDecimal multiplicator = base.pow(rateAndPeriods.getPeriods() * timesCompounded, mathContext());
-        return amount.multiply(multiplicator).subtract(amount);
+        return CalculationContext.calculate(amount, mathContext -> {
+            BigDecimal part2 = rateAndPeriods.getRate().get().divide(BigDecimal.valueOf(timesCompounded), mathContext);
+            BigDecimal base = one().add(part2);
+            BigDecimal multiplicator = base.pow(rateAndPeriods.getPeriods() * timesCompounded, mathContext);
+            return amount.multiply(multiplicator).subtract(amount);
+        });
     }
 
     @Override
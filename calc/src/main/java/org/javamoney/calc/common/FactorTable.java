@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw
+ */
+package org.javamoney.calc.common;
+
+import org.javamoney.calc.CalculationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * A factor table holds precomputed values of a factor formula, such as
+ * {@link PresentValueOfAnnuityPaymentFactor}, {@link FutureValueOfAnnuityFactor} or {@link PresentValueFactor},
+ * for a fixed grid of rates (in basis points) and periods. Lookups on the grid are served in constant time,
+ * whereas rates and periods outside of the grid fall back to the live calculation.
+ *
+ * Tabulated values are rounded to the {@link MathContext} that was active in the {@link CalculationContext}
+ * when the table was built. If the calculation context is changed afterwards, the table is bypassed and all
+ * values are calculated live.
+ *
+ * Tables can be written to a compact binary file using {@link #writeTo(Path)} and memory-mapped on startup using
+ * {@link #map(Path, String, Function)}, so the values are computed only once:
+ *
+ * <pre>
+ * FactorTable table = FactorTable.newBuilder("pvaf", PresentValueOfAnnuityPaymentFactor::calculate)
+ *         .rates(1, 2000).maxPeriods(480).build();
+ * table.writeTo(file);
+ * ...
+ * FactorTable mapped = FactorTable.map(file, "pvaf", PresentValueOfAnnuityPaymentFactor::calculate);
+ * BigDecimal factor = mapped.get(RateAndPeriods.of(0.0425, 360));
+ * </pre>
+ *
+ * Instances of this class are immutable and thread-safe.
+ *
+ * @author Anatole Tresch
+ */
+public final class FactorTable {
+
+    /** The file magic, {@code JMFT}. */
+    private static final int MAGIC = 0x4A4D4654;
+    /** The file format version. */
+    private static final int VERSION = 1;
+    /** Scale marker for grid points that could not be tabulated. */
+    private static final short NOT_TABULATED = Short.MIN_VALUE;
+    /** The number of decimal places of a basis point rate. */
+    private static final int BASIS_POINT_SCALE = 4;
+    /** The number of bytes of a grid point, its unscaled value and its scale. */
+    private static final int ENTRY_BYTES = Long.BYTES + Short.BYTES;
+    /** The maximal number of grid points, limited by the size of a buffer including the header. */
+    private static final int MAX_SIZE = (Integer.MAX_VALUE - 4096) / ENTRY_BYTES;
+
+    private final String name;
+    private final Function<RateAndPeriods, BigDecimal> factorFunction;
+    private final int minBasisPoints;
+    private final int maxBasisPoints;
+    private final int maxPeriods;
+    private final MathContext mathContext;
+    /** Unscaled values of the grid points, followed by their scales. */
+    private final ByteBuffer data;
+    private final int scaleOffset;
+
+    private FactorTable(String name, Function<RateAndPeriods, BigDecimal> factorFunction, int minBasisPoints,
+                        int maxBasisPoints, int maxPeriods, MathContext mathContext, ByteBuffer data) {
+        this.name = name;
+        this.factorFunction = factorFunction;
+        this.minBasisPoints = minBasisPoints;
+        this.maxBasisPoints = maxBasisPoints;
+        this.maxPeriods = maxPeriods;
+        this.mathContext = mathContext;
+        this.data = data;
+        this.scaleOffset = Math.toIntExact(size(minBasisPoints, maxBasisPoints, maxPeriods) * Long.BYTES);
+    }
+
+    /**
+     * Creates a new builder instance.
+     *
+     * @param name           the table's name, used to verify mapped tables, not null.
+     * @param factorFunction the factor formula to be tabulated, e.g.
+     *                       {@code PresentValueOfAnnuityPaymentFactor::calculate}, not null.
+     * @return a new builder, never null.
+     */
+    public static Builder newBuilder(String name, Function<RateAndPeriods, BigDecimal> factorFunction) {
+        return new Builder(name, factorFunction);
+    }
+
+    /**
+     * Memory-maps a table previously written with {@link #writeTo(Path)}.
+     *
+     * @param file           the table file, not null.
+     * @param name           the expected table name, not null.
+     * @param factorFunction the factor formula, used for values outside of the grid, not null.
+     * @return the mapped table, never null.
+     * @throws IOException              if the file cannot be read or is not a valid factor table.
+     * @throws IllegalArgumentException if the file contains a table with another name.
+     */
+    public static FactorTable map(Path file, String name, Function<RateAndPeriods, BigDecimal> factorFunction)
+            throws IOException {
+        Objects.requireNonNull(name, "Name required.");
+        Objects.requireNonNull(factorFunction, "Factor function required.");
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Factor table too large: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 32 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a factor table: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported factor table version " + version + ": " + file);
+        }
+        int minBasisPoints = buffer.getInt();
+        int maxBasisPoints = buffer.getInt();
+        int maxPeriods = buffer.getInt();
+        int precision = buffer.getInt();
+        int roundingMode = buffer.getInt();
+        int nameLength = buffer.getInt();
+        if (maxBasisPoints < minBasisPoints || maxPeriods < 0 || precision < 0 || nameLength < 0
+                || roundingMode < 0 || roundingMode >= RoundingMode.values().length
+                || nameLength > buffer.remaining()) {
+            throw new IOException("Corrupt factor table header: " + file);
+        }
+        byte[] nameBytes = new byte[nameLength];
+        buffer.get(nameBytes);
+        String storedName = new String(nameBytes, StandardCharsets.UTF_8);
+        if (!name.equals(storedName)) {
+            throw new IllegalArgumentException("Factor table " + file + " contains '" + storedName
+                    + "', but '" + name + "' was expected.");
+        }
+        long size = size(minBasisPoints, maxBasisPoints, maxPeriods);
+        if (size > MAX_SIZE) {
+            throw new IOException("Factor table too large, " + size + " entries: " + file);
+        }
+        int dataOffset = align(buffer.position());
+        if (buffer.capacity() != dataOffset + size * ENTRY_BYTES) {
+            throw new IOException("Truncated factor table: " + file);
+        }
+        buffer.position(dataOffset);
+        return new FactorTable(name, factorFunction, minBasisPoints, maxBasisPoints, maxPeriods,
+                new MathContext(precision, RoundingMode.values()[roundingMode]), buffer.slice());
+    }
+
+    /**
+     * Access the factor for the given rate and periods. If the rate is a whole number of basis points and both
+     * rate and periods are within the table's grid, the tabulated value is returned, otherwise the value is
+     * calculated using the table's factor function.
+     *
+     * @param rateAndPeriods the rate and periods, not null.
+     * @return the factor, never null.
+     */
+    public BigDecimal get(RateAndPeriods rateAndPeriods) {
+        Objects.requireNonNull(rateAndPeriods, "RateAndPeriods required.");
+        int periods = rateAndPeriods.getPeriods();
+        if (periods <= maxPeriods) {
+            BigDecimal basisPoints = rateAndPeriods.getRate().get().movePointRight(BASIS_POINT_SCALE);
+            if (basisPoints.scale() > 0) {
+                basisPoints = basisPoints.stripTrailingZeros();
+            }
+            if (basisPoints.scale() <= 0 && basisPoints.precision() - basisPoints.scale() <= 10) {
+                long bp = basisPoints.longValue();
+                if (bp >= minBasisPoints && bp <= maxBasisPoints) {
+                    BigDecimal value = lookup((int) bp, periods);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+            }
+        }
+        return factorFunction.apply(rateAndPeriods);
+    }
+
+    /**
+     * Access the factor for the given rate in basis points and periods, falling back to the live calculation
+     * outside of the table's grid.
+     *
+     * @param basisPoints the rate in basis points, e.g. {@code 425} for {@code 4.25%}.
+     * @param periods     the periods, &gt;= 0.
+     * @return the factor, never null.
+     */
+    public BigDecimal get(int basisPoints, int periods) {
+        if (basisPoints >= minBasisPoints && basisPoints <= maxBasisPoints && periods >= 0 && periods <= maxPeriods) {
+            BigDecimal value = lookup(basisPoints, periods);
+            if (value != null) {
+                return value;
+            }
+        }
+        return factorFunction.apply(RateAndPeriods.of(basisPointRate(basisPoints), periods));
+    }
+
+    private BigDecimal lookup(int basisPoints, int periods) {
+        if (!mathContext.equals(CalculationContext.mathContext())) {
+            return null;
+        }
+        int index = (basisPoints - minBasisPoints) * (maxPeriods + 1) + periods;
+        short scale = data.getShort(scaleOffset + index * Short.BYTES);
+        if (scale == NOT_TABULATED) {
+            return null;
+        }
+        return BigDecimal.valueOf(data.getLong(index * Long.BYTES), scale);
+    }
+
+    /**
+     * Writes this table to the given file, replacing any existing content.
+     *
+     * @param file the target file, not null.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(Path file) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(align(32 + nameBytes.length));
+        header.putInt(MAGIC).putInt(VERSION)
+                .putInt(minBasisPoints).putInt(maxBasisPoints).putInt(maxPeriods)
+                .putInt(mathContext.getPrecision()).putInt(mathContext.getRoundingMode().ordinal())
+                .putInt(nameBytes.length).put(nameBytes);
+        header.clear();
+        ByteBuffer content = data.duplicate();
+        content.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+    }
+
+    /**
+     * Access the table's name.
+     *
+     * @return the name, never null.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Access the lowest tabulated rate in basis points.
+     *
+     * @return the lowest rate.
+     */
+    public int getMinBasisPoints() {
+        return minBasisPoints;
+    }
+
+    /**
+     * Access the highest tabulated rate in basis points.
+     *
+     * @return the highest rate.
+     */
+    public int getMaxBasisPoints() {
+        return maxBasisPoints;
+    }
+
+    /**
+     * Access the highest tabulated number of periods.
+     *
+     * @return the highest number of periods, &gt;= 0.
+     */
+    public int getMaxPeriods() {
+        return maxPeriods;
+    }
+
+    /**
+     * Access the {@link MathContext} the tabulated values were calculated with.
+     *
+     * @return the math context, never null.
+     */
+    public MathContext getMathContext() {
+        return mathContext;
+    }
+
+    @Override
+    public String toString() {
+        return "FactorTable{" +
+                "name='" + name + '\'' +
+                ", basisPoints=" + minBasisPoints + ".." + maxBasisPoints +
+                ", periods=0.." + maxPeriods +
+                ", mathContext=" + mathContext +
+                ", mapped=" + data.isDirect() +
+                '}';
+    }
+
+    private static Rate basisPointRate(int basisPoints) {
+        return Rate.of(BigDecimal.valueOf(basisPoints, BASIS_POINT_SCALE));
+    }
+
+    private static long size(int minBasisPoints, int maxBasisPoints, int maxPeriods) {
+        try {
+            long rows = Math.addExact(Math.subtractExact((long) maxBasisPoints, minBasisPoints), 1L);
+            return Math.multiplyExact(rows, (long) maxPeriods + 1);
+        } catch (ArithmeticException e) {
+            // exceeds any table, rejected by the callers
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static int align(int offset) {
+        return (offset + Long.BYTES - 1) & ~(Long.BYTES - 1);
+    }
+
+    /**
+     * Builder for creating {@link FactorTable} instances.
+     */
+    public static final class Builder {
+
+        private final String name;
+        private final Function<RateAndPeriods, BigDecimal> factorFunction;
+        private int minBasisPoints = 1;
+        private int maxBasisPoints = 2000;
+        private int maxPeriods = 480;
+
+        private Builder(String name, Function<RateAndPeriods, BigDecimal> factorFunction) {
+            this.name = Objects.requireNonNull(name, "Name required.");
+            this.factorFunction = Objects.requireNonNull(factorFunction, "Factor function required.");
+        }
+
+        /**
+         * Sets the range of rates to be tabulated, in basis points, both inclusive. Default is {@code 1..2000}.
+         *
+         * @param minBasisPoints the lowest rate, e.g. {@code 1} for {@code 0.01%}.
+         * @param maxBasisPoints the highest rate, &gt;= minBasisPoints.
+         * @return the builder, for chaining.
+         */
+        public Builder rates(int minBasisPoints, int maxBasisPoints) {
+            if (maxBasisPoints < minBasisPoints) {
+                throw new IllegalArgumentException("maxBasisPoints must be >= minBasisPoints.");
+            }
+            this.minBasisPoints = minBasisPoints;
+            this.maxBasisPoints = maxBasisPoints;
+            return this;
+        }
+
+        /**
+         * Sets the highest number of periods to be tabulated. Default is {@code 480}.
+         *
+         * @param maxPeriods the highest number of periods, &gt;= 0.
+         * @return the builder, for chaining.
+         */
+        public Builder maxPeriods(int maxPeriods) {
+            if (maxPeriods < 0) {
+                throw new IllegalArgumentException("Periods must be >= 0");
+            }
+            this.maxPeriods = maxPeriods;
+            return this;
+        }
+
+        /**
+         * Calculates all values of the grid and creates the table. Grid points whose value cannot be calculated
+         * (e.g. a division by a zero rate) or cannot be stored with 64 bits are calculated live on access.
+         *
+         * @return the new table, never null.
+         */
+        public FactorTable build() {
+            long size = size(minBasisPoints, maxBasisPoints, maxPeriods);
+            if (size > MAX_SIZE) {
+                throw new IllegalArgumentException("Factor table too large: " + size + " entries.");
+            }
+            MathContext mathContext = CalculationContext.mathContext();
+            int columns = maxPeriods + 1;
+            long[] values = new long[(int) size];
+            short[] scales = new short[(int) size];
+            IntStream.rangeClosed(minBasisPoints, maxBasisPoints).parallel().forEach(bp -> {
+                Rate rate = basisPointRate(bp);
+                int row = (bp - minBasisPoints) * columns;
+                for (int periods = 0; periods <= maxPeriods; periods++) {
+                    scales[row + periods] = NOT_TABULATED;
+                    BigDecimal value;
+                    try {
+                        value = factorFunction.apply(RateAndPeriods.of(rate, periods)).round(mathContext);
+                    } catch (ArithmeticException e) {
+                        continue;
+                    }
+                    if (value.unscaledValue().bitLength() < Long.SIZE
+                            && value.scale() > NOT_TABULATED && value.scale() <= Short.MAX_VALUE) {
+                        values[row + periods] = value.unscaledValue().longValue();
+                        scales[row + periods] = (short) value.scale();
+                    }
+                }
+            });
+            ByteBuffer data = ByteBuffer.allocate((int) size * ENTRY_BYTES);
+            data.asLongBuffer().put(values);
+            data.position((int) size * Long.BYTES);
+            data.asShortBuffer().put(scales);
+            data.clear();
+            return new FactorTable(name, factorFunction, minBasisPoints, maxBasisPoints, maxPeriods,
+                    mathContext, data);
+        }
+
+        @Override
+        public String toString() {
+            return "FactorTable.Builder{" +
+                    "name='" + name + '\'' +
+                    ", basisPoints=" + minBasisPoints + ".." + maxBasisPoints +
+                    ", periods=0.." + maxPeriods +
+                    '}';
+        }
+    }
+}
@@ -67,15 +67,22 @@ public final class FutureValue extends AbstractRateAndPeriodBasedOperator{
     }
 
     /**
-     * Performs the calculation.
+     * Performs the calculation. The factor is the exact power, only {@link CalculationContext.PrecisionMode#CURRENCY}
+     * limits its precision. The amount multiplies itself with the factor, so e.g. {@code FastMoney} rejects factors
+     * with more than 5 fraction digits, unless {@link CalculationContext#setFixedPointRounding(boolean) fixed-point
+     * rounding} is enabled, which rounds the result of long-backed amounts
+     * {@link java.math.RoundingMode#HALF_EVEN HALF_EVEN}.
      *
      * @param amount         the base amount, not null.
      * @param rateAndPeriods the target rate and periods, not null.
      * @return the resulting amount, never null.
      */
     public static MonetaryAmount calculate(MonetaryAmount amount, RateAndPeriods rateAndPeriods) {
-        BigDecimal f = (CalculationContext.one().add(rateAndPeriods.getRate().get())).pow(rateAndPeriods.getPeriods());
-        return amount.multiply(f);
+        BigDecimal base = CalculationContext.one().add(rateAndPeriods.getRate().get());
+        // the full calculation is exact, also when audited
+        return CalculationContext.calculate(amount,
+                () -> CalculationContext.multiply(amount, base.pow(rateAndPeriods.getPeriods())),
+                mathContext -> CalculationContext.multiply(amount, base.pow(rateAndPeriods.getPeriods(), mathContext)));
     }
 
     @Override
@@ -143,7 +143,8 @@ public final class FutureValueGrowingAnnuity implements MonetaryOperator {
         BigDecimal num = CalculationContext.one().add(discountRate.get()).pow(periods)
                 .subtract(CalculationContext.one().add(growthRate.get()).pow(periods));
         BigDecimal denum = discountRate.get().subtract(growthRate.get());
-        return firstPayment.multiply(num.divide(denum, CalculationContext.mathContext()));
+        return CalculationContext.calculate(firstPayment,
+                mathContext -> firstPayment.multiply(num.divide(denum, mathContext)));
     }
 
     @Override
@@ -72,8 +72,8 @@ public final class FutureValueOfAnnuity extends AbstractRateAndPeriodBasedOperat
         // Am * (((1 + r).pow(n))-1/rate)
         Rate rate = rateAndPeriods.getRate();
         int periods = rateAndPeriods.getPeriods();
-        return amount.multiply(one().add(rate.get()).pow(periods).subtract(one()).divide(
-                rate.get(),CalculationContext.mathContext()));
+        return CalculationContext.calculate(amount, mathContext ->
+                amount.multiply(one().add(rate.get()).pow(periods).subtract(one()).divide(rate.get(), mathContext)));
     }
 
     @Override
@@ -73,9 +73,10 @@ public final class FutureValueOfAnnuityDue extends AbstractRateAndPeriodBasedOpe
         Rate rate = rateAndPeriods.getRate();
         int periods = rateAndPeriods.getPeriods();
         BigDecimal base = CalculationContext.one().add(rate.get());
-        BigDecimal counter = base.pow(periods, CalculationContext.mathContext()).subtract(BigDecimal.ONE);
-        return amount.multiply(
-                counter.divide(rate.get(), CalculationContext.mathContext()).multiply(base));
+        return CalculationContext.calculate(amount, mathContext -> {
+            BigDecimal counter = base.pow(periods, mathContext).subtract(BigDecimal.ONE);
+            return amount.multiply(counter.divide(rate.get(), mathContext).multiply(base));
+        });
     }
 
     @Override
@@ -82,11 +82,13 @@ public final class PresentValueGrowingAnnuityPayment extends AbstractRateAndPeri
         Rate discountRate = discountRateAndPeriods.getRate();
         int periods = discountRateAndPeriods.getPeriods();
         BigDecimal numerator = discountRate.get().subtract(growthRate.get());
-        BigDecimal denum = BigDecimal.ONE.subtract(BigDecimal.ONE
-                .add(growthRate.get())
-                .divide(BigDecimal.ONE.add(discountRate.get()), CalculationContext.mathContext())
-                .pow(periods, CalculationContext.mathContext()));
-        return amount.multiply(numerator.divide(denum, CalculationContext.mathContext()));
+        return CalculationContext.calculate(amount, mathContext -> {
+            BigDecimal denum = BigDecimal.ONE.subtract(BigDecimal.ONE
+                    .add(growthRate.get())
+                    .divide(BigDecimal.ONE.add(discountRate.get()), mathContext)
+                    .pow(periods, mathContext));
+            return amount.multiply(numerator.divide(denum, mathContext));
+        });
     }
 
     @Override
@@ -83,11 +83,11 @@ public final class PresentValueOfAnnuityPayment extends AbstractRateAndPeriodBas
         Rate rate = rateAndPeriods.getRate();
         int periods = rateAndPeriods.getPeriods();
         // AP(m) = PV(m,r,n) / [ (1-((1 + r).pow(-n))) / r ]
-        return PresentValue.calculate(amount, rateAndPeriods).divide(
+        return CalculationContext.calculate(amount, mathContext -> PresentValue.calculate(amount, rateAndPeriods).divide(
                 BigDecimal.ONE.subtract((BigDecimal.ONE.add(rate.get())
-                        .pow(-1 * periods, CalculationContext.mathContext()).
-                                divide(rate.get(), CalculationContext.mathContext())
-                )));
+                        .pow(-1 * periods, mathContext).
+                                divide(rate.get(), mathContext)
+                ))));
     }
 
     @Override
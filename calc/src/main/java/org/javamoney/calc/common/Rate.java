@@ -24,6 +24,8 @@ import java.util.function.Supplier;
 import javax.money.MonetaryAmount;
 import javax.money.MonetaryOperator;
 
+import org.javamoney.calc.CalculationContext;
+
 /**
  * A rate is simply a multiplicand that is used as a constant, e.g. a calculalatory interest rate.
  * When combined with a {@link MonetaryAmount} the according abosulte rate related to that amount is
@@ -170,13 +172,17 @@ public final class Rate implements MonetaryOperator, Supplier<BigDecimal> {
 		return "Rate[" + rate + "]";
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * @see javax.money.MonetaryOperator#apply(javax.money.MonetaryAmount)
+	/**
+	 * Multiplies the amount with this rate. The amount multiplies itself, so e.g. {@code FastMoney} truncates the
+	 * product, unless {@link CalculationContext#setFixedPointRounding(boolean) fixed-point rounding} is enabled,
+	 * which rounds the product of long-backed amounts {@link java.math.RoundingMode#HALF_EVEN HALF_EVEN}.
+	 *
+	 * @param amount the amount, not null.
+	 * @return the product, never null.
 	 */
 	@Override
 	public MonetaryAmount apply(MonetaryAmount amount) {
-		return amount.multiply(rate);
+		return CalculationContext.multiply(amount, rate);
 	}
 
 }
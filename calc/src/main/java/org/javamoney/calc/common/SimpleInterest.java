@@ -59,7 +59,9 @@ public final class SimpleInterest extends AbstractRateAndPeriodBasedOperator {
     }
 
     /**
-     * Performs the calculation.
+     * Performs the calculation. The amount multiplies itself with the factor, so e.g. {@code FastMoney} truncates
+     * the result, unless {@link CalculationContext#setFixedPointRounding(boolean) fixed-point rounding} is
+     * enabled, which rounds the result of long-backed amounts {@link java.math.RoundingMode#HALF_EVEN HALF_EVEN}.
      *
      * @param amount         the first payment
      * @param rateAndPeriods The rate and periods, not null.
@@ -73,9 +75,8 @@ public final class SimpleInterest extends AbstractRateAndPeriodBasedOperator {
             return amount.getFactory().setNumber(0.0).create();
         }
         Rate rate = rateAndPeriods.getRate();
-        BigDecimal factor = rate.get().multiply(
-                BigDecimal.valueOf(periods), CalculationContext.mathContext());
-        return amount.multiply(factor);
+        return CalculationContext.calculate(amount, mathContext -> CalculationContext.multiply(amount,
+                rate.get().multiply(BigDecimal.valueOf(periods), mathContext)));
     }
 
     @Override
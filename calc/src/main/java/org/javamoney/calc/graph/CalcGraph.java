@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.graph;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+/**
+ * A dependency graph over monetary calculations. Inputs are modelled as {@link InputNode}s, calculations as nodes
+ * derived from other nodes. When an input changes, only the calculations downstream of it are re-evaluated, each
+ * at most once and only after all of its dependencies are up to date. Calculations whose result did not change
+ * do not propagate any further, so the cost of an update is proportional to its effective fan-out.
+ *
+ * <pre>
+ * CalcGraph graph = new CalcGraph();
+ * InputNode&lt;Rate&gt; rate = graph.input(Rate.of(0.05));
+ * InputNode&lt;MonetaryAmount&gt; payment = graph.input(Money.of(1000, "CHF"));
+ * CalcNode&lt;FutureValueOfAnnuity&gt; fva = graph.map(rate, r -&gt; FutureValueOfAnnuity.of(RateAndPeriods.of(r, 10)));
+ * CalcNode&lt;MonetaryAmount&gt; value = graph.apply(payment, fva);
+ * rate.set(Rate.of(0.055)); // re-evaluates fva and value only
+ * </pre>
+ *
+ * Several inputs can be updated with a single propagation using {@link #batch(Runnable)}. If a calculation throws
+ * a {@link RuntimeException}, the node keeps the failure and rethrows it on {@link CalcNode#get()}; dependent
+ * calculations fail accordingly.
+ *
+ * Instances of this class are not thread-safe, access must be confined to a single thread or synchronized
+ * externally.
+ *
+ * @author Anatole Tresch
+ */
+public final class CalcGraph {
+
+    private final PriorityQueue<CalcNode<?>> pending =
+            new PriorityQueue<>(Comparator.comparingInt(node -> node.rank));
+    private int batchDepth;
+    private boolean propagating;
+
+    /**
+     * Creates a new input node.
+     *
+     * @param value the initial value, may be null.
+     * @param <T>   the value type.
+     * @return the new input, never null.
+     */
+    public <T> InputNode<T> input(T value) {
+        return new InputNode<>(this, value);
+    }
+
+    /**
+     * Creates a calculation depending on a single node.
+     *
+     * @param source      the source node, not null.
+     * @param calculation the calculation, not null.
+     * @param <A>         the source type.
+     * @param <R>         the result type.
+     * @return the new node, evaluated already, never null.
+     */
+    public <A, R> CalcNode<R> map(CalcNode<A> source, Function<? super A, ? extends R> calculation) {
+        Objects.requireNonNull(calculation);
+        return compute(() -> calculation.apply(source.get()), source);
+    }
+
+    /**
+     * Creates a calculation depending on two nodes.
+     *
+     * @param first       the first node, not null.
+     * @param second      the second node, not null.
+     * @param calculation the calculation, not null.
+     * @param <A>         the first type.
+     * @param <B>         the second type.
+     * @param <R>         the result type.
+     * @return the new node, evaluated already, never null.
+     */
+    public <A, B, R> CalcNode<R> combine(CalcNode<A> first, CalcNode<B> second,
+                                         BiFunction<? super A, ? super B, ? extends R> calculation) {
+        Objects.requireNonNull(calculation);
+        return compute(() -> calculation.apply(first.get(), second.get()), first, second);
+    }
+
+    /**
+     * Creates a node applying an operator node to an amount node, e.g. a {@code FutureValueOfAnnuity} derived
+     * from a {@code RateAndPeriods} node.
+     *
+     * @param amount   the amount node, not null.
+     * @param operator the operator node, not null.
+     * @return the new node, evaluated already, never null.
+     */
+    public CalcNode<MonetaryAmount> apply(CalcNode<? extends MonetaryAmount> amount,
+                                          CalcNode<? extends MonetaryOperator> operator) {
+        return compute(() -> amount.get().with(operator.get()), amount, operator);
+    }
+
+    /**
+     * Creates a calculation with arbitrary dependencies. The calculation must only read the values of the given
+     * dependencies, otherwise it is not re-evaluated when other nodes change.
+     *
+     * @param calculation  the calculation, not null.
+     * @param dependencies the nodes read by the calculation, all belonging to this graph.
+     * @param <R>          the result type.
+     * @return the new node, evaluated already, never null.
+     */
+    public <R> CalcNode<R> compute(Supplier<? extends R> calculation, CalcNode<?>... dependencies) {
+        Objects.requireNonNull(calculation);
+        int rank = 0;
+        for (CalcNode<?> dependency : dependencies) {
+            if (Objects.requireNonNull(dependency).graph != this) {
+                throw new IllegalArgumentException("Node belongs to another graph: " + dependency);
+            }
+            rank = Math.max(rank, dependency.rank);
+        }
+        ComputedNode<R> node = new ComputedNode<>(this, rank + 1, calculation);
+        for (CalcNode<?> dependency : dependencies) {
+            dependency.dependents.add(node);
+        }
+        node.evaluate();
+        return node;
+    }
+
+    /**
+     * Runs the given updates as a batch: inputs set within the batch are propagated once, when the outermost
+     * batch completes.
+     *
+     * @param updates the updates, not null.
+     */
+    public void batch(Runnable updates) {
+        batchDepth++;
+        try {
+            updates.run();
+        } finally {
+            batchDepth--;
+        }
+        if (batchDepth == 0) {
+            propagate();
+        }
+    }
+
+    /**
+     * Checks if there are calculations waiting to be re-evaluated, i.e. within a batch.
+     *
+     * @return true, if there are pending re-evaluations.
+     */
+    public boolean isDirty() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Called by an input whose value has changed.
+     *
+     * @param node the changed node.
+     */
+    void changed(CalcNode<?> node) {
+        schedule(node);
+        if (batchDepth == 0) {
+            propagate();
+        }
+    }
+
+    private void schedule(CalcNode<?> node) {
+        for (CalcNode<?> dependent : node.dependents) {
+            if (!dependent.queued) {
+                dependent.queued = true;
+                pending.add(dependent);
+            }
+        }
+    }
+
+    private void propagate() {
+        if (propagating) {
+            return;
+        }
+        propagating = true;
+        try {
+            CalcNode<?> node;
+            while ((node = pending.poll()) != null) {
+                node.queued = false;
+                if (node.evaluate()) {
+                    node.fireChanged();
+                    schedule(node);
+                }
+            }
+        } finally {
+            propagating = false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CalcGraph{" +
+                "pending=" + pending.size() +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A node of a {@link CalcGraph}, holding the current value of an input or of a calculation.
+ *
+ * @param <T> the value type.
+ * @author Anatole Tresch
+ */
+public abstract class CalcNode<T> implements Supplier<T> {
+
+    /** The owning graph. */
+    final CalcGraph graph;
+    /** The topological rank, inputs have rank 0, computed nodes are ranked above all their dependencies. */
+    final int rank;
+    /** The nodes depending on this node. */
+    final List<CalcNode<?>> dependents = new ArrayList<>();
+    /** Flag set while the node is scheduled for re-evaluation. */
+    boolean queued;
+
+    private final List<Consumer<? super T>> listeners = new ArrayList<>();
+    private T value;
+    private RuntimeException error;
+
+    CalcNode(CalcGraph graph, int rank) {
+        this.graph = Objects.requireNonNull(graph);
+        this.rank = rank;
+    }
+
+    /**
+     * Access the current value.
+     *
+     * @return the current value, may be null.
+     * @throws RuntimeException the exception thrown by the last evaluation of this node, if any.
+     */
+    @Override
+    public T get() {
+        if (error != null) {
+            throw error;
+        }
+        return value;
+    }
+
+    /**
+     * Checks if the last evaluation of this node failed.
+     *
+     * @return true, if {@link #get()} throws the failure of the last evaluation.
+     */
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    /**
+     * Registers a listener that is called with the new value whenever the value of this node changes.
+     *
+     * @param listener the listener, not null.
+     * @return this node, for chaining.
+     */
+    public CalcNode<T> addListener(Consumer<? super T> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+        return this;
+    }
+
+    /**
+     * Re-evaluates this node.
+     *
+     * @return true, if the value or failure state has changed.
+     */
+    abstract boolean evaluate();
+
+    /**
+     * Updates the node's state.
+     *
+     * @param newValue the new value.
+     * @param newError the new failure, or null.
+     * @return true, if the value or failure state has changed.
+     */
+    final boolean update(T newValue, RuntimeException newError) {
+        boolean changed = newError != null ? newError != error : error != null || !Objects.equals(value, newValue);
+        this.value = newError != null ? null : newValue;
+        this.error = newError;
+        return changed;
+    }
+
+    final void fireChanged() {
+        if (error == null) {
+            for (Consumer<? super T> listener : listeners) {
+                listener.accept(value);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                (error != null ? "error=" + error : "value=" + value) +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.graph;
+
+import java.util.function.Supplier;
+
+/**
+ * A node whose value is calculated from other nodes of the same graph.
+ *
+ * @param <T> the value type.
+ */
+final class ComputedNode<T> extends CalcNode<T> {
+
+    private final Supplier<? extends T> calculation;
+
+    ComputedNode(CalcGraph graph, int rank, Supplier<? extends T> calculation) {
+        super(graph, rank);
+        this.calculation = calculation;
+    }
+
+    @Override
+    boolean evaluate() {
+        T result;
+        try {
+            result = calculation.get();
+        } catch (RuntimeException e) {
+            return update(null, e);
+        }
+        return update(result, null);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.graph;
+
+/**
+ * An observable input of a {@link CalcGraph}. Setting a new value re-evaluates all calculations depending on it,
+ * either immediately or, within {@link CalcGraph#batch(Runnable)}, once at the end of the batch.
+ *
+ * @param <T> the value type.
+ * @author Anatole Tresch
+ */
+public final class InputNode<T> extends CalcNode<T> {
+
+    InputNode(CalcGraph graph, T value) {
+        super(graph, 0);
+        update(value, null);
+    }
+
+    /**
+     * Sets a new value. If the value equals the current value, nothing is recalculated.
+     *
+     * @param value the new value, may be null.
+     */
+    public void set(T value) {
+        if (update(value, null)) {
+            fireChanged();
+            graph.changed(this);
+        }
+    }
+
+    @Override
+    boolean evaluate() {
+        return false;
+    }
+}
@@ -9,10 +9,13 @@
 module org.javamoney.calc {
     requires transitive java.base;
     requires transitive java.logging;
+    requires java.management;
     requires static java.annotation;
     requires transitive java.money;
     exports org.javamoney.calc;
     exports org.javamoney.calc.common;
     exports org.javamoney.calc.banking;
     exports org.javamoney.calc.securities;
+    exports org.javamoney.calc.graph;
+    exports org.javamoney.calc.codec;
 }
\ No newline at end of file
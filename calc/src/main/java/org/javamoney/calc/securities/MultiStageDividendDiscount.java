@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.securities;
+
+import org.javamoney.calc.AmountBatch;
+import org.javamoney.calc.CalculationContext;
+import org.javamoney.calc.FixedPoint;
+import org.javamoney.calc.common.Rate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+/**
+ * Multi-stage dividend discount model: the present value of a stock whose dividends grow at explicit rates for a
+ * number of periods per stage, followed by constant growth forever, which is valued as terminal value using the
+ * Gordon growth model (see {@link StockPresentValue}). The operator is applied to the dividend just paid,
+ * {@code D0}:
+ * <pre>
+ * PV = sum(t=1..T) D0 * prod(1+g_i) / (1+r)^t + D_T * (1+g_terminal) / (r - g_terminal) / (1+r)^T
+ * </pre>
+ * Instead of discounting each period separately, all stages are evaluated in one pass multiplying an incremental
+ * growth-to-discount ratio {@code (1+g)/(1+r)}, which results in a single factor per model. Applying the model
+ * therefore costs one multiplication, also for an {@link AmountBatch} of dividends. Universes of stocks with
+ * individual rates are evaluated with {@link #evaluate(int[], double[][], double[], double[], double[], double[])}.
+ *
+ * @author Anatole Tresch
+ * @see <a href="https://en.wikipedia.org/wiki/Dividend_discount_model">https://en.wikipedia.org/wiki/Dividend_discount_model</a>
+ */
+public final class MultiStageDividendDiscount implements MonetaryOperator {
+
+    private final Rate requiredRateOfReturn;
+    private final List<Stage> stages;
+    private final Rate terminalGrowthRate;
+    private final BigDecimal factor;
+
+    private MultiStageDividendDiscount(Builder builder) {
+        this.requiredRateOfReturn = Objects.requireNonNull(builder.requiredRateOfReturn,
+                "Required rate of return required.");
+        this.terminalGrowthRate = Objects.requireNonNull(builder.terminalGrowthRate, "Terminal growth rate required.");
+        this.stages = Collections.unmodifiableList(new ArrayList<>(builder.stages));
+        this.factor = calculateFactor();
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @return a new builder, never null.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    private BigDecimal calculateFactor() {
+        MathContext mathContext = CalculationContext.mathContext();
+        BigDecimal r = requiredRateOfReturn.get();
+        BigDecimal spread = r.subtract(terminalGrowthRate.get());
+        if (spread.signum() <= 0) {
+            throw new IllegalArgumentException("Required rate of return must exceed the terminal growth rate.");
+        }
+        BigDecimal discountBase = CalculationContext.one().add(r);
+        BigDecimal ratio = CalculationContext.one();
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Stage stage : stages) {
+            BigDecimal step = CalculationContext.one().add(stage.growthRate.get()).divide(discountBase, mathContext);
+            for (int i = 0; i < stage.periods; i++) {
+                ratio = ratio.multiply(step, mathContext);
+                sum = sum.add(ratio, mathContext);
+            }
+        }
+        BigDecimal terminal = ratio.multiply(CalculationContext.one().add(terminalGrowthRate.get()), mathContext)
+                .divide(spread, mathContext);
+        return sum.add(terminal, mathContext);
+    }
+
+    /**
+     * Gets required rate of return.
+     *
+     * @return the required rate of return
+     */
+    public Rate getRequiredRateOfReturn() {
+        return requiredRateOfReturn;
+    }
+
+    /**
+     * Gets the explicit growth stages, in order.
+     *
+     * @return the stages, never null.
+     */
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    /**
+     * Gets the growth rate after the last stage.
+     *
+     * @return the terminal growth rate
+     */
+    public Rate getTerminalGrowthRate() {
+        return terminalGrowthRate;
+    }
+
+    /**
+     * Gets the present value per unit of the dividend just paid.
+     *
+     * @return the factor, never null.
+     */
+    public BigDecimal getFactor() {
+        return factor;
+    }
+
+    /**
+     * Calculates the present values of a batch of dividends just paid, e.g. of all stocks of a sector sharing this
+     * model.
+     *
+     * @param dividends the dividends, not null.
+     * @return the present values, never null.
+     */
+    public AmountBatch calculate(AmountBatch dividends) {
+        return dividends.multiply(factor);
+    }
+
+    @Override
+    public MonetaryAmount apply(MonetaryAmount dividend) {
+        return FixedPoint.multiply(dividend, factor);
+    }
+
+    /**
+     * Evaluates the model for a universe of stocks in double precision, each with its own rates, sharing the
+     * number of periods per stage. The calculation loops over the stocks in the innermost loop on plain arrays,
+     * which allows the JIT to use SIMD instructions.
+     *
+     * @param stagePeriods        the number of periods of each stage, not null.
+     * @param stageGrowthRates    the growth rates, indexed by stage, then by stock, not null.
+     * @param terminalGrowthRates the terminal growth rates by stock, not null.
+     * @param requiredRates       the required rates of return by stock, not null.
+     * @param dividends           the dividends just paid by stock, not null.
+     * @param result              the array to write the present values to, not null.
+     * @throws IllegalArgumentException if the array lengths differ or a required rate of return does not exceed
+     *                                  the terminal growth rate.
+     */
+    public static void evaluate(int[] stagePeriods, double[][] stageGrowthRates, double[] terminalGrowthRates,
+                                double[] requiredRates, double[] dividends, double[] result) {
+        int size = dividends.length;
+        if (stageGrowthRates.length != stagePeriods.length) {
+            throw new IllegalArgumentException("Growth rates required for each stage.");
+        }
+        for (double[] growthRates : stageGrowthRates) {
+            checkLength(growthRates, size);
+        }
+        checkLength(terminalGrowthRates, size);
+        checkLength(requiredRates, size);
+        checkLength(result, size);
+        for (int i = 0; i < size; i++) {
+            if (!(requiredRates[i] > terminalGrowthRates[i])) {
+                throw new IllegalArgumentException("Required rate of return must exceed the terminal growth rate: "
+                        + i);
+            }
+        }
+        double[] ratio = new double[size];
+        double[] step = new double[size];
+        double[] discount = new double[size];
+        for (int i = 0; i < size; i++) {
+            ratio[i] = 1.0;
+            discount[i] = 1.0 / (1.0 + requiredRates[i]);
+            result[i] = 0.0;
+        }
+        for (int s = 0; s < stagePeriods.length; s++) {
+            double[] growthRates = stageGrowthRates[s];
+            for (int i = 0; i < size; i++) {
+                step[i] = (1.0 + growthRates[i]) * discount[i];
+            }
+            for (int p = 0; p < stagePeriods[s]; p++) {
+                for (int i = 0; i < size; i++) {
+                    ratio[i] *= step[i];
+                    result[i] += ratio[i];
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            double terminal = ratio[i] * (1.0 + terminalGrowthRates[i]) / (requiredRates[i] - terminalGrowthRates[i]);
+            result[i] = dividends[i] * (result[i] + terminal);
+        }
+    }
+
+    private static void checkLength(double[] values, int size) {
+        if (values.length != size) {
+            throw new IllegalArgumentException("Array length must be " + size + ": " + values.length);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MultiStageDividendDiscount that = (MultiStageDividendDiscount) o;
+        return requiredRateOfReturn.equals(that.requiredRateOfReturn) && stages.equals(that.stages)
+                && terminalGrowthRate.equals(that.terminalGrowthRate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(requiredRateOfReturn, stages, terminalGrowthRate);
+    }
+
+    @Override
+    public String toString() {
+        return "MultiStageDividendDiscount{" +
+                "requiredRateOfReturn=" + requiredRateOfReturn +
+                ", stages=" + stages +
+                ", terminalGrowthRate=" + terminalGrowthRate +
+                '}';
+    }
+
+    /**
+     * A stage of explicit dividend growth.
+     */
+    public static final class Stage {
+        private final Rate growthRate;
+        private final int periods;
+
+        private Stage(Rate growthRate, int periods) {
+            this.growthRate = Objects.requireNonNull(growthRate, "Growth rate required.");
+            if (periods < 0) {
+                throw new IllegalArgumentException("Periods must be >= 0");
+            }
+            this.periods = periods;
+        }
+
+        /**
+         * Gets the growth rate per period.
+         *
+         * @return the growth rate
+         */
+        public Rate getGrowthRate() {
+            return growthRate;
+        }
+
+        /**
+         * Gets the number of periods.
+         *
+         * @return the periods
+         */
+        public int getPeriods() {
+            return periods;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Stage stage = (Stage) o;
+            return periods == stage.periods && growthRate.equals(stage.growthRate);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * growthRate.hashCode() + periods;
+        }
+
+        @Override
+        public String toString() {
+            return "Stage{" +
+                    "growthRate=" + growthRate +
+                    ", periods=" + periods +
+                    '}';
+        }
+    }
+
+    /**
+     * Builder for creating new models.
+     */
+    public static final class Builder {
+        private Rate requiredRateOfReturn;
+        private final List<Stage> stages = new ArrayList<>();
+        private Rate terminalGrowthRate = Rate.ZERO;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the required rate of return per period, used to discount all dividends.
+         *
+         * @param requiredRateOfReturn the required rate of return, not null.
+         * @return this builder for chaining.
+         */
+        public Builder requiredRateOfReturn(Rate requiredRateOfReturn) {
+            this.requiredRateOfReturn = Objects.requireNonNull(requiredRateOfReturn);
+            return this;
+        }
+
+        /**
+         * Adds a stage of explicit growth, following the stages added before.
+         *
+         * @param growthRate the growth rate per period, not null.
+         * @param periods    the number of periods, &gt;= 0.
+         * @return this builder for chaining.
+         */
+        public Builder addStage(Rate growthRate, int periods) {
+            stages.add(new Stage(growthRate, periods));
+            return this;
+        }
+
+        /**
+         * Sets the constant growth rate after the last stage, by default zero.
+         *
+         * @param terminalGrowthRate the terminal growth rate, not null.
+         * @return this builder for chaining.
+         */
+        public Builder terminalGrowthRate(Rate terminalGrowthRate) {
+            this.terminalGrowthRate = Objects.requireNonNull(terminalGrowthRate);
+            return this;
+        }
+
+        /**
+         * Creates a new model.
+         *
+         * @return the new model, never null.
+         * @throws IllegalArgumentException if the required rate of return does not exceed the terminal growth rate.
+         */
+        public MultiStageDividendDiscount build() {
+            return new MultiStageDividendDiscount(this);
+        }
+    }
+}
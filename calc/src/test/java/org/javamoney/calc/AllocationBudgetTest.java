@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.banking.AnnualPercentageYield;
+import org.javamoney.calc.banking.BalloonLoanPayment;
+import org.javamoney.calc.common.BasisPoint;
+import org.javamoney.calc.common.CompoundInterest;
+import org.javamoney.calc.common.ContinuousCompoundInterest;
+import org.javamoney.calc.common.FutureValue;
+import org.javamoney.calc.common.FutureValueGrowingAnnuity;
+import org.javamoney.calc.common.FutureValueOfAnnuity;
+import org.javamoney.calc.common.FutureValueOfAnnuityDue;
+import org.javamoney.calc.common.FutureValueOfAnnuityPayment;
+import org.javamoney.calc.common.FutureValueOfAnnuityWithContCompounding;
+import org.javamoney.calc.common.FutureValueWithContinuousCompounding;
+import org.javamoney.calc.common.PresentValue;
+import org.javamoney.calc.common.PresentValueContinuousCompounding;
+import org.javamoney.calc.common.PresentValueGrowingAnnuity;
+import org.javamoney.calc.common.PresentValueGrowingAnnuityPayment;
+import org.javamoney.calc.common.PresentValueOfAnnuity;
+import org.javamoney.calc.common.PresentValueOfAnnuityDue;
+import org.javamoney.calc.common.PresentValueOfAnnuityPayment;
+import org.javamoney.calc.common.PresentValueOfPerpetuity;
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.calc.common.SimpleInterest;
+import org.javamoney.calc.common.WeightedAverage;
+import org.javamoney.calc.securities.MultiStageDividendDiscount;
+import org.javamoney.calc.securities.PreferredStock;
+import org.javamoney.calc.securities.StockPresentValue;
+import org.javamoney.calc.securities.ZeroCouponBondValue;
+import org.javamoney.moneta.Money;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the bytes allocated per invocation of the public operators, using the JVM's per-thread allocation
+ * counters, and fails if an operator exceeds its budget configured in {@code allocation-budgets.properties}.
+ * Budgets are deliberately generous, they catch regressions such as an additional {@code BigDecimal} per loop
+ * iteration, not single objects. They can be scaled with the system property {@code allocation.budget.factor}.
+ * The tests are skipped on JVMs not supporting allocation counters, and on Java versions other than the one the
+ * budgets were measured on, see {@code measured.java.specification.version}.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 20_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static Properties budgets;
+    private static double factor;
+
+    private static final MonetaryAmount AMOUNT = Money.of(new BigDecimal("1234.56"), "CHF");
+    private static final RateAndPeriods RATE_AND_PERIODS = RateAndPeriods.of(0.05, 10);
+    private static final Rate RATE = Rate.of(0.05);
+    private static final Rate GROWTH = Rate.of(0.02);
+
+    /** Keeps results reachable, so the measured calculations cannot be eliminated. */
+    private static volatile Object sink;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        // skip, if thread allocation counters are not available
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean
+                        && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported());
+        threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+            assertNotNull("allocation-budgets.properties missing.", in);
+            budgets.load(in);
+        }
+        // skip, if the budgets were measured on another Java version
+        Assume.assumeTrue(System.getProperty("java.specification.version")
+                        .equals(budgets.getProperty("measured.java.specification.version")));
+        factor = Double.parseDouble(System.getProperty("allocation.budget.factor", "1"));
+    }
+
+    private static long allocatedBytesPerInvocation(Supplier<?> invocation) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink = invocation.get();
+        }
+        long thread = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED; i++) {
+            sink = invocation.get();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - start) / MEASURED;
+    }
+
+    private static void assertBudgets(Map<String, Supplier<?>> invocations) {
+        List<String> violations = new ArrayList<>();
+        for (Map.Entry<String, Supplier<?>> en : invocations.entrySet()) {
+            String budget = budgets.getProperty(en.getKey());
+            assertNotNull("No allocation budget configured for " + en.getKey(), budget);
+            long allocated = allocatedBytesPerInvocation(en.getValue());
+            if (allocated > Long.parseLong(budget.trim()) * factor) {
+                violations.add(en.getKey() + ": " + allocated + " bytes/invocation, budget " + budget);
+            }
+        }
+        assertTrue("Allocation budgets exceeded: " + violations, violations.isEmpty());
+    }
+
+    private static Supplier<?> applying(MonetaryOperator operator) {
+        return () -> AMOUNT.with(operator);
+    }
+
+    /**
+     * Operators of the common package stay within their allocation budgets.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void common() throws Exception {
+        Map<String, Supplier<?>> invocations = new LinkedHashMap<>();
+        invocations.put("BasisPoint", applying(BasisPoint.of(15)));
+        invocations.put("CompoundInterest", applying(CompoundInterest.of(RATE_AND_PERIODS, 12)));
+        invocations.put("ContinuousCompoundInterest", applying(ContinuousCompoundInterest.of(RATE_AND_PERIODS)));
+        invocations.put("FutureValue", applying(FutureValue.of(RATE_AND_PERIODS)));
+        invocations.put("FutureValueGrowingAnnuity", applying(FutureValueGrowingAnnuity.of(RATE, GROWTH, 10)));
+        invocations.put("FutureValueOfAnnuity", applying(FutureValueOfAnnuity.of(RATE_AND_PERIODS)));
+        invocations.put("FutureValueOfAnnuityDue", applying(FutureValueOfAnnuityDue.of(RATE_AND_PERIODS)));
+        invocations.put("FutureValueOfAnnuityPayment", applying(FutureValueOfAnnuityPayment.of(RATE_AND_PERIODS)));
+        invocations.put("FutureValueOfAnnuityWithContCompounding",
+                applying(FutureValueOfAnnuityWithContCompounding.of(RATE_AND_PERIODS)));
+        invocations.put("FutureValueWithContinuousCompounding",
+                applying(FutureValueWithContinuousCompounding.of(RATE_AND_PERIODS)));
+        invocations.put("PresentValue", applying(PresentValue.of(RATE_AND_PERIODS)));
+        invocations.put("PresentValueContinuousCompounding",
+                applying(PresentValueContinuousCompounding.of(RATE_AND_PERIODS)));
+        invocations.put("PresentValueGrowingAnnuity", applying(PresentValueGrowingAnnuity.of(RATE, GROWTH)));
+        invocations.put("PresentValueGrowingAnnuityPayment",
+                applying(PresentValueGrowingAnnuityPayment.of(RATE_AND_PERIODS, GROWTH)));
+        invocations.put("PresentValueOfAnnuity", applying(PresentValueOfAnnuity.of(RATE_AND_PERIODS)));
+        invocations.put("PresentValueOfAnnuityDue", applying(PresentValueOfAnnuityDue.of(RATE_AND_PERIODS)));
+        invocations.put("PresentValueOfAnnuityPayment", applying(PresentValueOfAnnuityPayment.of(RATE_AND_PERIODS)));
+        invocations.put("PresentValueOfPerpetuity", applying(PresentValueOfPerpetuity.of(RATE)));
+        invocations.put("Rate", applying(RATE));
+        invocations.put("SimpleInterest", applying(SimpleInterest.of(RATE_AND_PERIODS)));
+        WeightedAverage weightedAverage = WeightedAverage.newBuilder()
+                .add(new BigDecimal("1.5"), new BigDecimal("2"))
+                .add(new BigDecimal("3.25"), new BigDecimal("1"))
+                .add(new BigDecimal("0.75"), new BigDecimal("5")).build();
+        invocations.put("WeightedAverage", weightedAverage::calculateWeightedAverage);
+        assertBudgets(invocations);
+    }
+
+    /**
+     * Operators of the banking package stay within their allocation budgets.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void banking() throws Exception {
+        Map<String, Supplier<?>> invocations = new LinkedHashMap<>();
+        invocations.put("AnnualPercentageYield", applying(AnnualPercentageYield.of(RATE, 12)));
+        invocations.put("BalloonLoanPayment",
+                applying(BalloonLoanPayment.of(RATE_AND_PERIODS, Money.of(100, "CHF"))));
+        assertBudgets(invocations);
+    }
+
+    /**
+     * Operators of the securities package stay within their allocation budgets.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void securities() throws Exception {
+        Map<String, Supplier<?>> invocations = new LinkedHashMap<>();
+        invocations.put("MultiStageDividendDiscount", applying(MultiStageDividendDiscount.newBuilder()
+                .requiredRateOfReturn(RATE).addStage(Rate.of(0.08), 5).terminalGrowthRate(GROWTH).build()));
+        invocations.put("PreferredStock", applying(PreferredStock.of(RATE)));
+        invocations.put("StockPresentValue", applying(StockPresentValue.of(RATE, GROWTH)));
+        invocations.put("ZeroCouponBondValue", applying(ZeroCouponBondValue.of(RATE, 10)));
+        assertBudgets(invocations);
+    }
+
+    /**
+     * Composite operators stay within their allocation budgets.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void composite() throws Exception {
+        CompositeMonetaryOperator composite = new CompositeMonetaryOperator("composite",
+                BasisPoint.of(15), SimpleInterest.of(RATE_AND_PERIODS), FutureValue.of(RATE_AND_PERIODS));
+        Map<String, Supplier<?>> invocations = new LinkedHashMap<>();
+        invocations.put("CompositeMonetaryOperator", applying(composite));
+        invocations.put("CompositeMonetaryOperator.deferredRounding", applying(composite.withDeferredRounding()));
+        assertBudgets(invocations);
+    }
+
+    /**
+     * Validated amounts stay within their allocation budgets.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void validatedMoney() throws Exception {
+        MonetaryAmount validated = ValidatedAmount.unsignedAmount(AMOUNT);
+        Map<String, Supplier<?>> invocations = new LinkedHashMap<>();
+        invocations.put("ValidatedMoney.add", () -> validated.add(AMOUNT));
+        invocations.put("ValidatedMoney.multiply", () -> validated.multiply(2));
+        invocations.put("ValidatedMoney.with", () -> validated.with(RATE));
+        assertBudgets(invocations);
+    }
+}
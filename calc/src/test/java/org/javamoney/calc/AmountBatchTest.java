@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.calc.common.SimpleInterest;
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AmountBatch}.
+ */
+public class AmountBatchTest {
+
+    private static final MonetaryOperator DIVIDE_BY_THREE = amount -> amount.divide(3);
+    private static final MonetaryOperator MULTIPLY_BY_THREE = amount -> amount.multiply(3);
+
+    /**
+     * Amounts are stored by dictionary encoded currency and unscaled number.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void of() throws Exception {
+        AmountBatch batch = AmountBatch.of(Arrays.asList(Money.of(new BigDecimal("10.125"), "CHF"),
+                FastMoney.of(2, "USD"), Money.of(new BigDecimal("-0.001"), "CHF")), 2);
+        assertEquals(3, batch.size());
+        assertEquals(2, batch.getScale());
+        assertEquals(2, batch.getCurrencies().size());
+        assertEquals("CHF", batch.getCurrency(0).getCurrencyCode());
+        assertEquals("USD", batch.getCurrency(1).getCurrencyCode());
+        assertEquals(1012, batch.getUnscaled(0));
+        assertEquals(200, batch.getUnscaled(1));
+        assertEquals(0, batch.getUnscaled(2));
+        assertEquals(new BigDecimal("10.12"), batch.getNumber(0));
+        MonetaryAmount amount = batch.get(1, Monetary.getAmountFactory(FastMoney.class));
+        assertEquals(FastMoney.of(2, "USD"), amount);
+    }
+
+    /**
+     * Numbers not fitting into a long are kept in the overflow table.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void overflow() throws Exception {
+        BigDecimal large = new BigDecimal("123456789012345678901.5");
+        AmountBatch batch = AmountBatch.newBuilder(2)
+                .add(Monetary.getCurrency("CHF"), large)
+                .add(Monetary.getCurrency("CHF"), BigDecimal.ONE).build();
+        assertTrue(batch.isOverflow(0));
+        assertFalse(batch.isOverflow(1));
+        assertEquals(new BigDecimal("123456789012345678901.50"), batch.getNumber(0));
+        try {
+            batch.getUnscaled(0);
+            fail("ArithmeticException expected.");
+        } catch (ArithmeticException e) {
+            // expected
+        }
+        AmountBatch doubled = batch.multiply(new BigDecimal(2));
+        assertEquals(new BigDecimal("246913578024691357803.00"), doubled.getNumber(0));
+        assertEquals(200, doubled.getUnscaled(1));
+    }
+
+    /**
+     * Multiplying in fixed-point rounds like the BigDecimal arithmetic and widens on overflow.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void multiply() throws Exception {
+        AmountBatch batch = AmountBatch.newBuilder(2)
+                .add(Monetary.getCurrency("CHF"), new BigDecimal("10.05"))
+                .add(Monetary.getCurrency("CHF"), new BigDecimal("-10.05"))
+                .add(Monetary.getCurrency("CHF"), new BigDecimal("90000000000000000.00")).build();
+        AmountBatch result = batch.apply(Rate.of(new BigDecimal("0.5")));
+        assertEquals(new BigDecimal("5.02"), result.getNumber(0));
+        assertEquals(new BigDecimal("-5.02"), result.getNumber(1));
+        result = batch.multiply(new BigDecimal("1000"));
+        assertTrue(result.isOverflow(2));
+        assertEquals(new BigDecimal("90000000000000000000.00"), result.getNumber(2));
+        assertSame(batch.getCurrency(0), result.getCurrency(0));
+    }
+
+    /**
+     * Other operators are applied on every amount, rounding the result to the batch's scale.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply() throws Exception {
+        AmountBatch batch = AmountBatch.newBuilder(2)
+                .add(Monetary.getCurrency("CHF"), new BigDecimal("1000"))
+                .add(Monetary.getCurrency("EUR"), new BigDecimal("333.33")).build();
+        AmountBatch result = batch.apply(SimpleInterest.of(RateAndPeriods.of(0.05, 3)));
+        assertEquals(new BigDecimal("150.00"), result.getNumber(0));
+        assertEquals(new BigDecimal("50.00"), result.getNumber(1));
+        assertEquals("EUR", result.getCurrency(1).getCurrencyCode());
+    }
+
+    /**
+     * Compositions round every step, unless rounding is deferred.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply_composite() throws Exception {
+        AmountBatch batch = AmountBatch.newBuilder(2)
+                .add(Monetary.getCurrency("CHF"), BigDecimal.ONE).build();
+        CompositeMonetaryOperator composite = new CompositeMonetaryOperator("third", DIVIDE_BY_THREE,
+                MULTIPLY_BY_THREE);
+        assertEquals(new BigDecimal("0.99"), batch.apply(composite).getNumber(0));
+        assertEquals(new BigDecimal("1.00"), batch.apply(composite.withDeferredRounding()).getNumber(0));
+    }
+
+    /**
+     * Invalid scales are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void newBuilder_invalidScale() throws Exception {
+        AmountBatch.newBuilder(19);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.calc.common.SimpleInterest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.money.Monetary;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BulkValuation}.
+ */
+public class BulkValuationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * All partitions are evaluated and written to the output file.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void run() throws Exception {
+        Path input = new File(folder.getRoot(), "positions.bin").toPath();
+        Path output = new File(folder.getRoot(), "valuation.bin").toPath();
+        Random random = new Random(7);
+        AmountBatch.Builder builder = AmountBatch.newBuilder(2);
+        String[] currencies = {"CHF", "EUR", "USD"};
+        for (int i = 0; i < 2500; i++) {
+            builder.addUnscaled(Monetary.getCurrency(currencies[i % 3]), random.nextInt(10_000_000) - 1_000_000);
+        }
+        AmountBatch positions = builder.build();
+        PositionFile.write(input, positions);
+
+        CompositeMonetaryOperator operator = new CompositeMonetaryOperator("valuation",
+                SimpleInterest.of(RateAndPeriods.of(0.05, 2)), Rate.of(new BigDecimal("1.5")));
+        long count = BulkValuation.newBuilder().partitionSize(1000).parallelism(3).build()
+                .run(input, output, operator);
+        assertEquals(2500, count);
+
+        AmountBatch result = PositionFile.read(output);
+        assertEquals(2500, result.size());
+        assertEquals(2, result.getScale());
+        for (int i = 0; i < result.size(); i++) {
+            BigDecimal interest = positions.getNumber(i).multiply(new BigDecimal("0.10"))
+                    .setScale(2, RoundingMode.HALF_EVEN);
+            BigDecimal expected = interest.multiply(new BigDecimal("1.5")).setScale(2, RoundingMode.HALF_EVEN);
+            assertEquals(positions.getCurrency(i), result.getCurrency(i));
+            assertEquals("position " + i, expected, result.getNumber(i));
+        }
+    }
+
+    /**
+     * Invalid partition sizes are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void partitionSize_invalid() throws Exception {
+        BulkValuation.newBuilder().partitionSize(0);
+    }
+}
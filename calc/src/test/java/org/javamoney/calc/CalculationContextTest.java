@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.CalculationContext.PrecisionMode;
+import org.javamoney.calc.common.CompoundInterest;
+import org.javamoney.calc.common.FutureValue;
+import org.javamoney.calc.common.FutureValueOfAnnuityDue;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.moneta.Money;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the precision modes of {@link CalculationContext}.
+ */
+public class CalculationContextTest {
+
+    @After
+    public void reset() {
+        CalculationContext.setPrecisionMode(PrecisionMode.FIXED);
+        CalculationContext.setPrecisionMargin(8);
+        CalculationContext.resetAuditMismatches();
+    }
+
+    /**
+     * By default the global math context is used.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void mathContext_fixed() throws Exception {
+        assertSame(CalculationContext.mathContext(), CalculationContext.mathContext(Money.of(1234.56, "EUR")));
+    }
+
+    /**
+     * The precision is derived from the currency's fraction digits and the amount's magnitude.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void mathContext_currency() throws Exception {
+        CalculationContext.setPrecisionMode(PrecisionMode.CURRENCY);
+        assertEquals(14, CalculationContext.mathContext(Money.of(1234.56, "EUR")).getPrecision());
+        assertEquals(12, CalculationContext.mathContext(Money.of(1234, "JPY")).getPrecision());
+        assertEquals(11, CalculationContext.mathContext(Money.of(new BigDecimal("0.05"), "EUR")).getPrecision());
+        assertSame(CalculationContext.mathContext(), CalculationContext.mathContext(Money.of(1e12, "EUR")));
+        assertEquals(RoundingMode.HALF_EVEN,
+                CalculationContext.mathContext(Money.of(1, "EUR")).getRoundingMode());
+    }
+
+    /**
+     * Results with the derived precision match the full precision at the currency's fraction digits.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void calculate_currency() throws Exception {
+        MonetaryAmount amount = Money.of(new BigDecimal("15432.10"), "EUR");
+        MonetaryOperator[] operators = {CompoundInterest.of(RateAndPeriods.of(0.035, 20), 12),
+                FutureValueOfAnnuityDue.of(RateAndPeriods.of(0.05, 30))};
+        for (MonetaryOperator operator : operators) {
+            BigDecimal full = amount.with(operator).getNumber().numberValue(BigDecimal.class);
+            CalculationContext.setPrecisionMode(PrecisionMode.CURRENCY);
+            BigDecimal tuned = amount.with(operator).getNumber().numberValue(BigDecimal.class);
+            CalculationContext.setPrecisionMode(PrecisionMode.FIXED);
+            assertEquals(operator.toString(), full.setScale(2, RoundingMode.HALF_EVEN),
+                    tuned.setScale(2, RoundingMode.HALF_EVEN));
+        }
+    }
+
+    /**
+     * The audit mode returns the full precision result and counts mismatches.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void calculate_audit() throws Exception {
+        MonetaryAmount amount = Money.of(new BigDecimal("15432.10"), "EUR");
+        MonetaryOperator operator = FutureValueOfAnnuityDue.of(RateAndPeriods.of(0.05, 30));
+        MonetaryAmount full = amount.with(operator);
+        CalculationContext.setPrecisionMode(PrecisionMode.AUDIT);
+        assertEquals(full, amount.with(operator));
+        assertEquals(0, CalculationContext.auditMismatches());
+        CalculationContext.setPrecisionMargin(0);
+        assertEquals(full, amount.with(operator));
+        assertEquals(1, CalculationContext.auditMismatches());
+    }
+
+    /**
+     * The audit mode returns the exact result of the fixed mode, also for operators not limited by the math
+     * context.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void calculate_auditExact() throws Exception {
+        MonetaryAmount amount = Money.of(new BigDecimal("15432.10"), "EUR");
+        MonetaryOperator operator = FutureValue.of(RateAndPeriods.of(0.035, 40));
+        MonetaryAmount fixed = amount.with(operator);
+        assertTrue(fixed.getNumber().getPrecision() > MathContext.DECIMAL64.getPrecision());
+        CalculationContext.setPrecisionMode(PrecisionMode.AUDIT);
+        assertEquals(fixed, amount.with(operator));
+        assertEquals(0, CalculationContext.auditMismatches());
+    }
+
+    /**
+     * The derived precision never exceeds the global math context.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void mathContext_limited() throws Exception {
+        CalculationContext.setPrecisionMode(PrecisionMode.CURRENCY);
+        CalculationContext.setPrecisionMargin(40);
+        assertEquals(MathContext.DECIMAL64, CalculationContext.mathContext(Money.of(1, "EUR")));
+    }
+
+    /**
+     * Negative margins are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void setPrecisionMargin_negative() throws Exception {
+        CalculationContext.setPrecisionMargin(-1);
+    }
+}
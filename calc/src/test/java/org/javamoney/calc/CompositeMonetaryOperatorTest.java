@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.common.Rate;
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CompositeMonetaryOperator}.
+ */
+public class CompositeMonetaryOperatorTest {
+
+    private static final MonetaryOperator DIVIDE_BY_THREE = amount -> amount.divide(3);
+    private static final MonetaryOperator MULTIPLY_BY_THREE = amount -> amount.multiply(3);
+
+    /**
+     * By default every operator rounds its intermediate result.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply_roundsEachStep() throws Exception {
+        CompositeMonetaryOperator op = new CompositeMonetaryOperator("third", DIVIDE_BY_THREE, MULTIPLY_BY_THREE);
+        assertFalse(op.isDeferredRounding());
+        MonetaryAmount result = FastMoney.of(1, "CHF").with(op);
+        assertEquals(0, new BigDecimal("0.99999").compareTo(result.getNumber().numberValue(BigDecimal.class)));
+    }
+
+    /**
+     * With deferred rounding the chain is rounded once, returning the type of the amount passed.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply_deferredRounding() throws Exception {
+        CompositeMonetaryOperator op = new CompositeMonetaryOperator("third", DIVIDE_BY_THREE, MULTIPLY_BY_THREE)
+                .withDeferredRounding();
+        assertTrue(op.isDeferredRounding());
+        assertSame(op, op.withDeferredRounding());
+        MonetaryAmount result = FastMoney.of(1, "CHF").with(op);
+        assertEquals(FastMoney.class, result.getClass());
+        assertEquals("CHF", result.getCurrency().getCurrencyCode());
+        assertEquals(0, BigDecimal.ONE.compareTo(result.getNumber().numberValue(BigDecimal.class)));
+    }
+
+    /**
+     * Operators of this library accept the unrounded intermediate values.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply_deferredRoundingWithRates() throws Exception {
+        CompositeMonetaryOperator op = new CompositeMonetaryOperator("rates", Rate.of(new BigDecimal("0.00001")),
+                MULTIPLY_BY_THREE, Rate.of(new BigDecimal("0.5"))).withDeferredRounding();
+        MonetaryAmount result = FastMoney.of(1, "CHF").with(op);
+        // 0.000015 rounded once with HALF_EVEN, while per-step rounding yields 0.00000 * 3 * 0.5
+        assertEquals(0, new BigDecimal("0.00002").compareTo(result.getNumber().numberValue(BigDecimal.class)));
+    }
+
+    /**
+     * Results of operators creating their own amounts are converted to the type of the amount passed.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply_deferredRoundingOwnAmount() throws Exception {
+        MonetaryOperator third = amount -> Money.of(amount.getNumber().numberValue(BigDecimal.class)
+                .divide(new BigDecimal(3), MathContext.DECIMAL64), amount.getCurrency());
+        CompositeMonetaryOperator op = new CompositeMonetaryOperator("own", third).withDeferredRounding();
+        MonetaryAmount result = FastMoney.of(1, "CHF").with(op);
+        assertEquals(FastMoney.class, result.getClass());
+        assertEquals(new BigDecimal("0.33333"), result.getNumber().numberValue(BigDecimal.class));
+    }
+
+    /**
+     * Validated amounts are evaluated on the decorated amount and validated once.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply_deferredRoundingValidatedAmount() throws Exception {
+        CompositeMonetaryOperator op = new CompositeMonetaryOperator("third", DIVIDE_BY_THREE, MULTIPLY_BY_THREE)
+                .withDeferredRounding();
+        MonetaryAmount validated = ValidatedAmount.of(FastMoney.of(1, "CHF"),
+                amount -> amount.isLessThanOrEqualTo(FastMoney.of(1, "CHF")));
+        MonetaryAmount result = validated.with(op);
+        assertEquals(validated.getClass(), result.getClass());
+        assertEquals(0, BigDecimal.ONE.compareTo(result.getNumber().numberValue(BigDecimal.class)));
+        assertTrue(result.isEqualTo(op.apply(validated)));
+    }
+
+    /**
+     * The operators are accessible in the order applied.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void getOperators() throws Exception {
+        CompositeMonetaryOperator op = new CompositeMonetaryOperator("third", DIVIDE_BY_THREE, MULTIPLY_BY_THREE);
+        assertEquals(2, op.getOperators().size());
+        assertSame(DIVIDE_BY_THREE, op.getOperators().get(0));
+        assertEquals(op.getOperators(), op.withDeferredRounding().getOperators());
+    }
+}
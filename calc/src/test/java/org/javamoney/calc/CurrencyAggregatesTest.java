@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.moneta.CurrencyUnitBuilder;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CurrencyAggregates}.
+ */
+public class CurrencyAggregatesTest {
+
+    private static final CurrencyUnit CHF = Monetary.getCurrency("CHF");
+    private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+
+    /**
+     * Amounts are grouped by currency.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void collector() throws Exception {
+        List<MonetaryAmount> amounts = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            amounts.add(Money.of(i, i % 2 == 0 ? "CHF" : "EUR"));
+        }
+        CurrencyAggregates aggregates = amounts.stream().collect(CurrencyAggregates.collector());
+        assertEquals(500, aggregates.count(CHF));
+        assertEquals(500, aggregates.count(EUR));
+        assertEquals(0, aggregates.count(Monetary.getCurrency("USD")));
+        assertEquals(Money.of(250500, "CHF"), aggregates.sum(CHF));
+        assertEquals(Money.of(250000, "EUR"), aggregates.sum(EUR));
+        assertEquals(Money.of(501, "CHF"), aggregates.average(CHF));
+        assertEquals(2, aggregates.sums().size());
+    }
+
+    /**
+     * Parallel collection gives the same result as sequential collection.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void collector_parallel() throws Exception {
+        List<MonetaryAmount> amounts = new ArrayList<>();
+        for (int i = 1; i <= 10_000; i++) {
+            amounts.add(Money.of(new BigDecimal(i).movePointLeft(2), i % 3 == 0 ? "CHF" : "EUR"));
+        }
+        CurrencyAggregates sequential = amounts.stream().collect(CurrencyAggregates.collector());
+        CurrencyAggregates parallel = amounts.parallelStream().collect(CurrencyAggregates.collector());
+        assertEquals(sequential.count(CHF), parallel.count(CHF));
+        assertEquals(0, sequential.sumNumber(CHF).compareTo(parallel.sumNumber(CHF)));
+        assertEquals(0, sequential.sumNumber(EUR).compareTo(parallel.sumNumber(EUR)));
+    }
+
+    /**
+     * Weighted averages use the given weights.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void weightedAverage() throws Exception {
+        CurrencyAggregates aggregates = CurrencyAggregates.of();
+        aggregates.add(Money.of(10, "CHF"), 3);
+        aggregates.add(Money.of(20, "CHF"), 1);
+        assertEquals(Money.of(new BigDecimal("12.5"), "CHF"), aggregates.weightedAverage(CHF));
+        assertEquals(Money.of(15, "CHF"), aggregates.average(CHF));
+    }
+
+    /**
+     * Amounts beyond the fixed-point scale or range are aggregated exactly.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void add_exact() throws Exception {
+        CurrencyAggregates aggregates = CurrencyAggregates.of(2);
+        aggregates.add(Money.of(new BigDecimal("0.001"), "CHF"), Long.MAX_VALUE);
+        aggregates.add(Money.of(new BigDecimal("9e15"), "CHF"), Long.MAX_VALUE);
+        aggregates.add(Money.of(new BigDecimal("9e15"), "CHF"));
+        assertEquals(0, new BigDecimal("18000000000000000.001").compareTo(aggregates.sumNumber(CHF)));
+        assertEquals(3, aggregates.count(CHF));
+    }
+
+    /**
+     * Averages of unknown currencies are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void average_unknownCurrency() throws Exception {
+        CurrencyAggregates.of().average(Monetary.getCurrency("JPY"));
+    }
+
+    /**
+     * Queries do not intern currencies not added before.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void sum_doesNotInternCurrency() throws Exception {
+        CurrencyUnit currency = CurrencyUnitBuilder.of("XQQ", "CurrencyAggregatesTest").build();
+        CurrencyAggregates aggregates = CurrencyAggregates.of();
+        aggregates.add(Money.of(1, CHF));
+        int size = CurrencyIndex.size();
+        assertEquals(0, aggregates.count(currency));
+        assertTrue(aggregates.sum(currency).isZero());
+        assertEquals(-1, CurrencyIndex.find(currency));
+        assertEquals(size, CurrencyIndex.size());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.common.PresentValue;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.money.MonetaryAmount;
+
+/**
+ * Compares {@link ExactSum} with a naive {@code reduce(MonetaryAmount::add)}, sequentially and in parallel, for
+ * amounts with long fractions (present values) and for fixed-point amounts. Not run by the unit tests, start with
+ * {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExactSumBenchmark {
+
+    @Param({"present-values", "fast-money"})
+    public String values;
+
+    @Param({"100000"})
+    public int size;
+
+    private List<MonetaryAmount> amounts;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(17);
+        amounts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if ("fast-money".equals(values)) {
+                amounts.add(FastMoney.of(BigDecimal.valueOf(random.nextInt(100_000_000), 2), "CHF"));
+            } else {
+                amounts.add(PresentValue.calculate(Money.of(random.nextInt(1_000_000), "CHF"),
+                        RateAndPeriods.of(random.nextInt(100) / 1000.0, 1 + random.nextInt(30))));
+            }
+        }
+    }
+
+    @Benchmark
+    public MonetaryAmount naiveReduce() {
+        return amounts.stream().reduce(MonetaryAmount::add).get();
+    }
+
+    @Benchmark
+    public MonetaryAmount naiveReduceParallel() {
+        return amounts.parallelStream().reduce(MonetaryAmount::add).get();
+    }
+
+    @Benchmark
+    public BigDecimal exactSum() {
+        return amounts.stream().collect(ExactSum.collector()).getNumber();
+    }
+
+    @Benchmark
+    public BigDecimal exactSumParallel() {
+        return amounts.parallelStream().collect(ExactSum.collector()).getNumber();
+    }
+
+    public static void main(String... args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExactSumBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.common.PresentValue;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ExactSum}.
+ */
+public class ExactSumTest {
+
+    private static List<MonetaryAmount> presentValues(int size) {
+        Random random = new Random(17);
+        List<MonetaryAmount> values = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            values.add(PresentValue.calculate(Money.of(random.nextInt(1_000_000), "CHF"),
+                    RateAndPeriods.of(random.nextInt(100) / 1000.0, 1 + random.nextInt(30))));
+        }
+        return values;
+    }
+
+    /**
+     * The total is bit-identical for any order and partitioning.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void collector_reproducible() throws Exception {
+        List<MonetaryAmount> values = presentValues(5_000);
+        BigDecimal expected = values.stream().collect(ExactSum.collector()).getNumber();
+        for (int parallelism : new int[]{1, 2, 3, 7, 16}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                BigDecimal total = pool.submit(() -> values.parallelStream().collect(ExactSum.collector()))
+                        .get().getNumber();
+                assertEquals(expected, total);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        List<MonetaryAmount> shuffled = new ArrayList<>(values);
+        Collections.shuffle(shuffled, new Random(3));
+        assertEquals(expected, shuffled.stream().collect(ExactSum.collector()).getNumber());
+        assertEquals(expected, values.stream().map(v -> v.getNumber().numberValue(BigDecimal.class))
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    /**
+     * Overflows of the fixed-point sum are kept exactly.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void add_overflow() throws Exception {
+        ExactSum sum = ExactSum.of(18);
+        for (int i = 0; i < 10; i++) {
+            sum.add(FastMoney.of(new BigDecimal("0.9"), "USD"));
+        }
+        sum.add(Money.of(new BigDecimal("1e20"), "USD"));
+        assertEquals(0, new BigDecimal("100000000000000000009").compareTo(sum.getNumber()));
+        assertEquals(11, sum.getCount());
+        assertEquals(Money.of(new BigDecimal("100000000000000000009"), "USD"),
+                sum.toAmount(Money.of(0, "USD").getFactory()));
+    }
+
+    /**
+     * Amounts of different currencies are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = MonetaryException.class)
+    public void add_currencyMismatch() throws Exception {
+        ExactSum.of().add(Money.of(1, "CHF")).add(Money.of(1, "EUR"));
+    }
+
+    /**
+     * Empty sums have no currency.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = MonetaryException.class)
+    public void toAmount_empty() throws Exception {
+        ExactSum.of().toAmount();
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.calc.common.BasisPoint;
+import org.javamoney.calc.common.FutureValue;
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.calc.common.SimpleInterest;
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import javax.money.MonetaryAmount;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FixedPoint}.
+ */
+public class FixedPointTest {
+
+    /**
+     * Long-backed amounts are detected by their context.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void isFixedPoint() throws Exception {
+        assertTrue(FixedPoint.isFixedPoint(FastMoney.of(10, "CHF")));
+        assertFalse(FixedPoint.isFixedPoint(Money.of(10, "CHF")));
+    }
+
+    /**
+     * The 128 bit multiplication matches BigDecimal arithmetic.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void multiply_matchesBigDecimal() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >> random.nextInt(64);
+            long factor = random.nextLong() >> random.nextInt(64);
+            int scale = random.nextInt(40);
+            BigDecimal expected = new BigDecimal(BigInteger.valueOf(value).multiply(BigInteger.valueOf(factor)), scale)
+                    .setScale(0, RoundingMode.HALF_EVEN);
+            if (expected.unscaledValue().bitLength() < Long.SIZE) {
+                assertEquals(value + " * " + factor + " / 10^" + scale,
+                        expected.longValueExact(), FixedPoint.multiply(value, factor, scale));
+            } else {
+                try {
+                    FixedPoint.multiply(value, factor, scale);
+                    fail("ArithmeticException expected for " + value + " * " + factor + " / 10^" + scale);
+                } catch (ArithmeticException e) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    /**
+     * Exact halves are rounded to the even neighbour, also when split into several division steps.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void multiply_halfEven() throws Exception {
+        assertEquals(2, FixedPoint.multiply(25, 1, 1));
+        assertEquals(4, FixedPoint.multiply(35, 1, 1));
+        assertEquals(-2, FixedPoint.multiply(-25, 1, 1));
+        assertEquals(0, FixedPoint.multiply(5, 1, 19));
+        assertEquals(1, FixedPoint.multiply(5_000_000_000_000_000_001L, 1, 19));
+        assertEquals(Long.MIN_VALUE, FixedPoint.multiply(Long.MIN_VALUE, 1, 0));
+    }
+
+    /**
+     * Long-backed amounts are multiplied in fixed-point.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void multiply_amount() throws Exception {
+        MonetaryAmount amount = FastMoney.of(new BigDecimal("1234567.89"), "CHF");
+        MonetaryAmount result = FixedPoint.multiply(amount, new BigDecimal("0.0123456789012345"));
+        assertEquals(FastMoney.class, result.getClass());
+        assertEquals(new BigDecimal("15241.57875"), result.getNumber().numberValue(BigDecimal.class));
+        assertEquals(Money.of(5, "CHF"), FixedPoint.multiply(Money.of(100, "CHF"), new BigDecimal("0.05")));
+    }
+
+    /**
+     * Differential test against {@code FastMoney.multiply}: products with at most 5 fraction digits are equal, all
+     * others are rounded HALF_EVEN instead of being truncated, on the fixed-point as well as on the BigDecimal path.
+     * Products out of range are widened to the default amount type.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void multiply_differentialFastMoney() throws Exception {
+        BigDecimal max = BigDecimal.valueOf(Long.MAX_VALUE, 5);
+        BigDecimal min = BigDecimal.valueOf(Long.MIN_VALUE, 5);
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            FastMoney amount = FastMoney.of(BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), 5), "CHF");
+            BigDecimal factor = BigDecimal.valueOf(random.nextInt(4_000_000) - 2_000_000, random.nextInt(9));
+            BigDecimal exact = amount.getNumber().numberValue(BigDecimal.class).multiply(factor);
+            BigDecimal expected = exact.setScale(5, RoundingMode.HALF_EVEN);
+            String message = amount + " * " + factor;
+            if (expected.compareTo(max) > 0 || expected.compareTo(min) < 0) {
+                MonetaryAmount widened = FixedPoint.multiply(amount, factor);
+                assertEquals(message, Money.class, widened.getClass());
+                assertEquals(message, 0, expected.compareTo(widened.getNumber().numberValue(BigDecimal.class)));
+                continue;
+            }
+            MonetaryAmount result = FixedPoint.multiply(amount, factor);
+            assertEquals(message, 0, expected.compareTo(result.getNumber().numberValue(BigDecimal.class)));
+            FastMoney fastMoney;
+            try {
+                fastMoney = amount.multiply(factor);
+            } catch (ArithmeticException e) {
+                // FastMoney rejects factors with more than 5 fraction digits
+                continue;
+            }
+            if (exact.stripTrailingZeros().scale() <= 5) {
+                assertEquals(message, fastMoney, result);
+            } else {
+                assertEquals(message, 0, exact.setScale(5, RoundingMode.DOWN)
+                        .compareTo(fastMoney.getNumber().numberValue(BigDecimal.class)));
+            }
+        }
+    }
+
+    /**
+     * Products too large for the fixed-point path are rounded the same way.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void multiply_overflowRounding() throws Exception {
+        BigDecimal half = new BigDecimal("0.5");
+        assertEquals(FastMoney.of(new BigDecimal("0.00002"), "CHF"),
+                FixedPoint.multiply(FastMoney.of(new BigDecimal("0.00003"), "CHF"), half));
+        assertEquals(FastMoney.of(new BigDecimal("45000000000000.00002"), "CHF"),
+                FixedPoint.multiply(FastMoney.of(new BigDecimal("90000000000000.00003"), "CHF"), half));
+        assertEquals(FastMoney.of(new BigDecimal("-45000000000000.00002"), "CHF"),
+                FixedPoint.multiply(FastMoney.of(new BigDecimal("-90000000000000.00003"), "CHF"), half));
+    }
+
+    /**
+     * The calc operators use the fixed-point arithmetic for long-backed amounts if enabled.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void operators() throws Exception {
+        CalculationContext.setFixedPointRounding(true);
+        try {
+            FastMoney amount = FastMoney.of(1000, "CHF");
+            assertEquals(FastMoney.of(50, "CHF"), amount.with(Rate.of(0.05)));
+            assertEquals(FastMoney.of(new BigDecimal("0.3"), "CHF"), amount.with(BasisPoint.of(3)));
+            assertEquals(FastMoney.of(150, "CHF"), amount.with(SimpleInterest.of(RateAndPeriods.of(0.05, 3))));
+            assertEquals(FastMoney.of(new BigDecimal("1157.625"), "CHF"),
+                    amount.with(FutureValue.of(RateAndPeriods.of(0.05, 3))));
+            assertEquals(FastMoney.of(new BigDecimal("0.33333"), "CHF"),
+                    FastMoney.of(1, "CHF").with(Rate.of(new BigDecimal("0.333333333"))));
+            assertEquals(FastMoney.of(new BigDecimal("0.00002"), "CHF"),
+                    FastMoney.of(new BigDecimal("0.00003"), "CHF").with(Rate.of(new BigDecimal("0.5"))));
+            assertEquals(FastMoney.of(new BigDecimal("1552.96942"), "CHF"),
+                    amount.with(FutureValue.of(RateAndPeriods.of(0.045, 10))));
+        } finally {
+            CalculationContext.setFixedPointRounding(false);
+        }
+    }
+
+    /**
+     * By default the calc operators keep the results of the amount's own multiplication.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void operators_default() throws Exception {
+        assertFalse(CalculationContext.fixedPointRounding());
+        FastMoney amount = FastMoney.of(new BigDecimal("0.00003"), "CHF");
+        assertEquals(amount.multiply(new BigDecimal("0.5")), amount.with(Rate.of(new BigDecimal("0.5"))));
+        assertEquals(FastMoney.of(new BigDecimal("0.00001"), "CHF"), amount.with(Rate.of(new BigDecimal("0.5"))));
+        assertEquals(amount.multiply(new BigDecimal("0.0003")), amount.with(BasisPoint.of(3)));
+        assertEquals(FastMoney.of(new BigDecimal("1102.5"), "CHF"),
+                FastMoney.of(1000, "CHF").with(FutureValue.of(RateAndPeriods.of(0.05, 2))));
+        try {
+            FastMoney.of(1, "CHF").with(Rate.of(new BigDecimal("0.333333333")));
+            fail("ArithmeticException expected, FastMoney rejects more than 5 fraction digits.");
+        } catch (ArithmeticException e) {
+            // expected
+        }
+        try {
+            // the exact factor 1.157625 has 6 fraction digits
+            FastMoney.of(1000, "CHF").with(FutureValue.of(RateAndPeriods.of(0.05, 3)));
+            fail("ArithmeticException expected, FastMoney rejects more than 5 fraction digits.");
+        } catch (ArithmeticException e) {
+            // expected
+        }
+    }
+}
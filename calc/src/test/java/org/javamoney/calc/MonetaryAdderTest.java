@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import javax.money.Monetary;
+import javax.money.MonetaryException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MonetaryAdder}.
+ */
+public class MonetaryAdderTest {
+
+    /**
+     * Amounts are summed up exactly, also beyond the fixed-point scale and range.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void add_exact() throws Exception {
+        MonetaryAdder adder = MonetaryAdder.of(Monetary.getCurrency("CHF"), 17);
+        for (int i = 0; i < 11; i++) {
+            adder.add(Money.of(9, "CHF"));
+        }
+        adder.add(Money.of(new BigDecimal("0.000000000000000001"), "CHF"));
+        adder.add(Money.of(new BigDecimal("-1e30"), "CHF"));
+        assertEquals(0, new BigDecimal("-999999999999999999999999999900.999999999999999999")
+                .compareTo(adder.sumNumber()));
+    }
+
+    /**
+     * Concurrent updates are all included in the total.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void add_concurrent() throws Exception {
+        MonetaryAdder adder = MonetaryAdder.of(Monetary.getCurrency("USD"));
+        int threads = 8;
+        int adds = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < adds; i++) {
+                    adder.add(FastMoney.of(new BigDecimal("0.01"), "USD"));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, new BigDecimal("1600").compareTo(adder.sumNumber()));
+        assertEquals(FastMoney.of(1600, "USD"), adder.sum(FastMoney.of(0, "USD").getFactory()));
+    }
+
+    /**
+     * Amounts in another currency are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = MonetaryException.class)
+    public void add_currencyMismatch() throws Exception {
+        MonetaryAdder.of(Monetary.getCurrency("CHF")).add(Money.of(1, "EUR"));
+    }
+
+    /**
+     * Resetting clears the total.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void reset() throws Exception {
+        MonetaryAdder adder = MonetaryAdder.of(Monetary.getCurrency("CHF"));
+        adder.add(Money.of(10, "CHF"));
+        adder.add(Money.of(new BigDecimal("0.0000001"), "CHF"));
+        adder.reset();
+        assertEquals(0, BigDecimal.ZERO.compareTo(adder.sumNumber()));
+        adder.add(Money.of(3, "CHF"));
+        assertEquals(Money.of(3, "CHF"), adder.sum(Money.of(0, "CHF").getFactory()));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.money.Monetary;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PositionFile}.
+ */
+public class PositionFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Written batches are read back unchanged.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void writeAndRead() throws Exception {
+        Path path = new File(folder.getRoot(), "positions.bin").toPath();
+        AmountBatch batch = AmountBatch.newBuilder(3)
+                .add(Monetary.getCurrency("CHF"), new BigDecimal("12.345"))
+                .add(Monetary.getCurrency("USD"), new BigDecimal("-1"))
+                .addUnscaled(Monetary.getCurrency("CHF"), Long.MAX_VALUE).build();
+        PositionFile.write(path, batch);
+        assertEquals(PositionFile.HEADER_SIZE + 3 * PositionFile.RECORD_SIZE, Files.size(path));
+        PositionFile header = PositionFile.of(path);
+        assertEquals(3, header.getScale());
+        assertEquals(3, header.getCount());
+        AmountBatch read = PositionFile.read(path);
+        assertEquals(3, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals(batch.getCurrency(i), read.getCurrency(i));
+            assertEquals(batch.getNumber(i), read.getNumber(i));
+        }
+    }
+
+    /**
+     * Files without the expected header are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IOException.class)
+    public void read_invalid() throws Exception {
+        Path path = new File(folder.getRoot(), "invalid.bin").toPath();
+        Files.write(path, "not a position file".getBytes("UTF-8"));
+        PositionFile.read(path);
+    }
+}
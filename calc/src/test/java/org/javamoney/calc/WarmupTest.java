@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc;
+
+import org.javamoney.moneta.FastMoney;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link Warmup}.
+ */
+public class WarmupTest {
+
+    /**
+     * The warm-up runs in the background and completes its future with a report.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void start() throws Exception {
+        CompletableFuture<Warmup.Report> future = Warmup.newBuilder()
+                .timeBudget(Duration.ofSeconds(2))
+                .minRounds(2)
+                .iterations(5)
+                .amounts(Money.of(1000, "CHF"), FastMoney.of(250, "USD"))
+                .build().start();
+        Warmup.Report report = future.get(30, TimeUnit.SECONDS);
+        assertTrue(report.getRounds() >= 1);
+        assertTrue(report.getInvocations() > report.getFailures());
+        assertTrue(report.getDuration().toMillis() < 30_000);
+    }
+
+    /**
+     * The warm-up ends with the time budget, even if the compilation did not settle.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void run_timeBudget() throws Exception {
+        Warmup.Report report = Warmup.newBuilder()
+                .timeBudget(Duration.ofMillis(1))
+                .minRounds(1000)
+                .iterations(1)
+                .amounts(Money.of(1000, "CHF"))
+                .build().run();
+        assertFalse(report.isSettled());
+        assertTrue(report.getRounds() < 1000);
+    }
+
+    /**
+     * Invalid settings are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void timeBudget_invalid() throws Exception {
+        Warmup.newBuilder().timeBudget(Duration.ZERO);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.codec;
+
+import org.javamoney.calc.CompositeMonetaryOperator;
+import org.javamoney.calc.common.BasisPoint;
+import org.javamoney.calc.common.FutureValue;
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link OperatorCache}.
+ */
+public class OperatorCacheTest {
+
+    private static final MonetaryOperator VALUATION = new CompositeMonetaryOperator("valuation",
+            FutureValue.of(RateAndPeriods.of(0.05, 10)), BasisPoint.of(25), Rate.of(new BigDecimal("1.5")));
+
+    /**
+     * Definitions are decoded once and accessible by key.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void putAndGet() throws Exception {
+        OperatorCache cache = OperatorCache.of(OperatorCodecs.defaults(), 2);
+        byte[] definition = OperatorCodecs.defaults().encode(VALUATION);
+        String key = cache.put(definition);
+        assertEquals(OperatorCodecs.key(definition), key);
+        MonetaryOperator operator = cache.get(key);
+        assertNotNull(operator);
+        assertSame(operator, cache.get(cache.put(definition)));
+        assertNull(cache.get("unknown"));
+    }
+
+    /**
+     * The least recently used operators are evicted.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void evict() throws Exception {
+        OperatorCache cache = OperatorCache.of(OperatorCodecs.defaults(), 2);
+        String first = cache.put(OperatorCodecs.defaults().encode(Rate.of(0.01)));
+        String second = cache.put(OperatorCodecs.defaults().encode(Rate.of(0.02)));
+        assertNotNull(cache.get(first));
+        String third = cache.put(OperatorCodecs.defaults().encode(Rate.of(0.03)));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+    }
+
+    /**
+     * Worker processes receive a definition once and evaluate later batches by its key only.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void workerProcesses() throws Exception {
+        byte[] definition = OperatorCodecs.defaults().encode(VALUATION);
+        String key = OperatorCodecs.key(definition);
+        List<Process> workers = new ArrayList<>();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int i = 0; i < 2; i++) {
+            workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    OperatorWorker.class.getName()).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+        }
+        try {
+            int definitionsSent = 0;
+            for (int batch = 0; batch < 3; batch++) {
+                for (Process worker : workers) {
+                    List<MonetaryAmount> amounts = new ArrayList<>();
+                    for (int i = 1; i <= 10; i++) {
+                        amounts.add(Monetary.getDefaultAmountFactory().setCurrency("CHF")
+                                .setNumber(new BigDecimal(batch * 1000 + i * 17).movePointLeft(2)).create());
+                    }
+                    List<BigDecimal> results = send(worker, key, null, amounts);
+                    if (results == null) {
+                        definitionsSent++;
+                        results = send(worker, key, definition, amounts);
+                    }
+                    assertNotNull(results);
+                    for (int i = 0; i < amounts.size(); i++) {
+                        assertEquals(0, amounts.get(i).with(VALUATION).getNumber().numberValue(BigDecimal.class)
+                                .compareTo(results.get(i)));
+                    }
+                }
+            }
+            assertEquals(workers.size(), definitionsSent);
+        } finally {
+            for (Process worker : workers) {
+                DataOutputStream out = new DataOutputStream(worker.getOutputStream());
+                out.writeUTF("");
+                out.flush();
+                if (!worker.waitFor(10, TimeUnit.SECONDS)) {
+                    worker.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private static List<BigDecimal> send(Process worker, String key, byte[] definition, List<MonetaryAmount> amounts)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(worker.getOutputStream());
+        out.writeUTF(key);
+        out.writeBoolean(definition != null);
+        if (definition != null) {
+            out.writeInt(definition.length);
+            out.write(definition);
+        }
+        out.writeInt(amounts.size());
+        for (MonetaryAmount amount : amounts) {
+            out.writeUTF(amount.getCurrency().getCurrencyCode());
+            OperatorCodecs.writeDecimal(amount.getNumber().numberValue(BigDecimal.class), out);
+        }
+        out.flush();
+        DataInputStream in = new DataInputStream(worker.getInputStream());
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int count = in.readInt();
+        List<BigDecimal> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            in.readUTF();
+            results.add(OperatorCodecs.readDecimal(in));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.codec;
+
+import org.javamoney.calc.CompositeMonetaryOperator;
+import org.javamoney.calc.common.BasisPoint;
+import org.javamoney.calc.common.CompoundInterest;
+import org.javamoney.calc.common.FutureValue;
+import org.javamoney.calc.common.PresentValueGrowingAnnuity;
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link OperatorCodecs}.
+ */
+public class OperatorCodecsTest {
+
+    private static final MonetaryAmount AMOUNT = Money.of(new BigDecimal("1234.56"), "CHF");
+
+    /**
+     * Compositions of operators are decoded to operators calculating the same results.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void encodeAndDecode() throws Exception {
+        CompositeMonetaryOperator operator = new CompositeMonetaryOperator("valuation",
+                FutureValue.of(RateAndPeriods.of(0.05, 10)), BasisPoint.of(25), Rate.of(new BigDecimal("1.5"), "fx"),
+                CompoundInterest.of(RateAndPeriods.of(0.03, 2), 12)).withDeferredRounding();
+        byte[] definition = OperatorCodecs.defaults().encode(operator);
+        MonetaryOperator decoded = OperatorCodecs.defaults().decode(definition);
+        assertTrue(decoded instanceof CompositeMonetaryOperator);
+        assertTrue(((CompositeMonetaryOperator) decoded).isDeferredRounding());
+        assertEquals(4, ((CompositeMonetaryOperator) decoded).getOperators().size());
+        assertEquals("fx", ((Rate) ((CompositeMonetaryOperator) decoded).getOperators().get(2)).getInfo());
+        assertTrue(AMOUNT.with(operator).isEqualTo(AMOUNT.with(decoded)));
+        assertArrayEquals(definition, OperatorCodecs.defaults().encode(decoded));
+    }
+
+    /**
+     * Equal definitions have equal keys.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void key() throws Exception {
+        byte[] first = OperatorCodecs.defaults().encode(Rate.of(new BigDecimal("0.05")));
+        byte[] second = OperatorCodecs.defaults().encode(Rate.of(new BigDecimal("0.05")));
+        byte[] other = OperatorCodecs.defaults().encode(Rate.of(new BigDecimal("0.06")));
+        assertEquals(64, OperatorCodecs.key(first).length());
+        assertEquals(OperatorCodecs.key(first), OperatorCodecs.key(second));
+        assertFalse(OperatorCodecs.key(first).equals(OperatorCodecs.key(other)));
+    }
+
+    /**
+     * Operators without codec are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_unsupported() throws Exception {
+        OperatorCodecs.defaults().encode(PresentValueGrowingAnnuity.of(Rate.of(0.05), Rate.of(0.01)));
+    }
+
+    /**
+     * Unknown codec ids are reported on decoding.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IOException.class)
+    public void decode_unknownId() throws Exception {
+        OperatorCodecs.defaults().decode(new byte[]{1, 0x7F, 0x7F});
+    }
+
+    /**
+     * Compositions of more operators than supported are rejected before allocating them.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IOException.class)
+    public void decode_compositeTooLarge() throws Exception {
+        OperatorCodecs.defaults().decode(new byte[]{1, 0, 1, 0, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+    }
+
+    /**
+     * Deeply nested compositions are rejected instead of exhausting the stack.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void decode_nestedTooDeep() throws Exception {
+        byte[] composite = {0, 1, 0, 0, 0, 0, 1};
+        byte[] definition = new byte[1 + composite.length * 100_000];
+        definition[0] = 1;
+        for (int i = 1; i < definition.length; i += composite.length) {
+            System.arraycopy(composite, 0, definition, i, composite.length);
+        }
+        try {
+            OperatorCodecs.defaults().decode(definition);
+            fail("Nesting not rejected.");
+        } catch (IOException e) {
+            // the depth of the thread is reset after a failure
+            assertTrue(OperatorCodecs.defaults().decode(OperatorCodecs.defaults().encode(
+                    new CompositeMonetaryOperator("nested", new CompositeMonetaryOperator("inner", Rate.of(0.5)))))
+                    instanceof CompositeMonetaryOperator);
+        }
+    }
+
+    /**
+     * Additional operators are supported by registering codecs.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void register() throws Exception {
+        OperatorCodecs codecs = OperatorCodecs.newBuilder().register(new TimesCodec(1000)).build();
+        MonetaryOperator operator = new CompositeMonetaryOperator("times", new Times(3), Rate.of(0.5));
+        MonetaryOperator decoded = codecs.decode(codecs.encode(operator));
+        assertTrue(AMOUNT.with(operator).isEqualTo(AMOUNT.with(decoded)));
+        assertEquals(3, ((Times) ((CompositeMonetaryOperator) decoded).getOperators().get(0)).factor);
+    }
+
+    /**
+     * Codec ids cannot be used for different operator types.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void register_duplicateId() throws Exception {
+        OperatorCodecs.newBuilder().register(new TimesCodec(2));
+    }
+
+    private static final class Times implements MonetaryOperator {
+        private final int factor;
+
+        Times(int factor) {
+            this.factor = factor;
+        }
+
+        @Override
+        public MonetaryAmount apply(MonetaryAmount amount) {
+            return amount.multiply(factor);
+        }
+    }
+
+    private static final class TimesCodec implements OperatorCodec<Times> {
+        private final int id;
+
+        TimesCodec(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public Class<Times> getOperatorType() {
+            return Times.class;
+        }
+
+        @Override
+        public void write(Times operator, DataOutput out, OperatorCodecs codecs) throws IOException {
+            out.writeInt(operator.factor);
+        }
+
+        @Override
+        public Times read(DataInput in, OperatorCodecs codecs) throws IOException {
+            return new Times(in.readInt());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.codec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+
+/**
+ * Worker process used by {@link OperatorCacheTest}. Reads requests from stdin, each consisting of the key of an
+ * operator definition, the definition if sent, and a batch of amounts. Answers with whether the key was known
+ * and, if so, the results of applying the cached operator. An empty key ends the worker.
+ */
+public final class OperatorWorker {
+
+    private OperatorWorker() {
+    }
+
+    public static void main(String... args) throws IOException {
+        OperatorCache cache = OperatorCache.of(OperatorCodecs.defaults(), 16);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+        while (true) {
+            String key = in.readUTF();
+            if (key.isEmpty()) {
+                return;
+            }
+            if (in.readBoolean()) {
+                byte[] definition = new byte[in.readInt()];
+                in.readFully(definition);
+                key = cache.put(definition);
+            }
+            int count = in.readInt();
+            MonetaryAmount[] amounts = new MonetaryAmount[count];
+            for (int i = 0; i < count; i++) {
+                amounts[i] = Monetary.getDefaultAmountFactory().setCurrency(in.readUTF())
+                        .setNumber(OperatorCodecs.readDecimal(in)).create();
+            }
+            MonetaryOperator operator = cache.get(key);
+            out.writeBoolean(operator != null);
+            if (operator != null) {
+                out.writeInt(count);
+                for (MonetaryAmount amount : amounts) {
+                    MonetaryAmount result = amount.with(operator);
+                    out.writeUTF(result.getCurrency().getCurrencyCode());
+                    OperatorCodecs.writeDecimal(result.getNumber().numberValue(BigDecimal.class), out);
+                }
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw
+ */
+package org.javamoney.calc.common;
+
+import org.javamoney.calc.CalculationContext;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FactorTable}.
+ */
+public class FactorTableTest {
+
+    private static FactorTable pvafTable() {
+        return FactorTable.newBuilder("pvaf", PresentValueOfAnnuityPaymentFactor::calculate)
+                .rates(1, 1000).maxPeriods(120).build();
+    }
+
+    /**
+     * Grid lookups return the live values.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void get_onGrid() throws Exception {
+        FactorTable table = pvafTable();
+        for (RateAndPeriods rp : new RateAndPeriods[]{RateAndPeriods.of(0.05, 10), RateAndPeriods.of(0.0001, 1),
+                RateAndPeriods.of(0.1, 120), RateAndPeriods.of(0.0425, 0)}) {
+            assertEquals(PresentValueOfAnnuityPaymentFactor.calculate(rp).compareTo(table.get(rp)), 0);
+        }
+        assertEquals(PresentValueOfAnnuityPaymentFactor.calculate(RateAndPeriods.of(0.0425, 36))
+                .compareTo(table.get(425, 36)), 0);
+    }
+
+    /**
+     * Values outside of the grid are calculated live.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void get_offGrid() throws Exception {
+        FactorTable table = pvafTable();
+        RateAndPeriods fraction = RateAndPeriods.of(0.04255, 10);
+        RateAndPeriods tooLong = RateAndPeriods.of(0.05, 360);
+        RateAndPeriods tooHigh = RateAndPeriods.of(0.2, 10);
+        assertEquals(PresentValueOfAnnuityPaymentFactor.calculate(fraction), table.get(fraction));
+        assertEquals(PresentValueOfAnnuityPaymentFactor.calculate(tooLong), table.get(tooLong));
+        assertEquals(PresentValueOfAnnuityPaymentFactor.calculate(tooHigh), table.get(tooHigh));
+        assertEquals(PresentValueOfAnnuityPaymentFactor.calculate(RateAndPeriods.of(-0.05, 10))
+                .compareTo(table.get(-500, 10)), 0);
+    }
+
+    /**
+     * Grid points that cannot be calculated behave like the live calculation.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = ArithmeticException.class)
+    public void get_zeroRate() throws Exception {
+        FactorTable table = FactorTable.newBuilder("fvaf", FutureValueOfAnnuityFactor::calculate)
+                .rates(0, 10).maxPeriods(10).build();
+        assertNotNull(table.get(5, 5));
+        table.get(0, 5);
+    }
+
+    /**
+     * Exact factors are rounded to the calculation context.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void get_rounded() throws Exception {
+        FactorTable table = FactorTable.newBuilder("pvf", PresentValueFactor::calculate)
+                .rates(1, 100).maxPeriods(480).build();
+        RateAndPeriods rp = RateAndPeriods.of(0.01, 480);
+        assertEquals(PresentValueFactor.calculate(rp).round(CalculationContext.mathContext()), table.get(rp));
+    }
+
+    /**
+     * A changed calculation context bypasses the table.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void get_otherMathContext() throws Exception {
+        FactorTable table = pvafTable();
+        RateAndPeriods rp = RateAndPeriods.of(0.05, 10);
+        try {
+            CalculationContext.setMathContext(MathContext.DECIMAL128);
+            assertEquals(PresentValueOfAnnuityPaymentFactor.calculate(rp), table.get(rp));
+        } finally {
+            CalculationContext.setMathContext(MathContext.DECIMAL64);
+        }
+    }
+
+    /**
+     * Written tables can be mapped again.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void writeAndMap() throws Exception {
+        FactorTable table = pvafTable();
+        Path file = Files.createTempFile("pvaf", ".table");
+        try {
+            table.writeTo(file);
+            FactorTable mapped = FactorTable.map(file, "pvaf", PresentValueOfAnnuityPaymentFactor::calculate);
+            assertEquals(table.getMinBasisPoints(), mapped.getMinBasisPoints());
+            assertEquals(table.getMaxBasisPoints(), mapped.getMaxBasisPoints());
+            assertEquals(table.getMaxPeriods(), mapped.getMaxPeriods());
+            assertEquals(table.getMathContext(), mapped.getMathContext());
+            for (int bp = 1; bp <= 1000; bp += 37) {
+                for (int periods = 0; periods <= 120; periods += 11) {
+                    assertEquals(table.get(bp, periods), mapped.get(bp, periods));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Mapping a table with another name fails.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void map_wrongName() throws Exception {
+        Path file = Files.createTempFile("pvaf", ".table");
+        try {
+            pvafTable().writeTo(file);
+            FactorTable.map(file, "fvaf", FutureValueOfAnnuityFactor::calculate);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Mapping a corrupt file fails.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IOException.class)
+    public void map_corrupt() throws Exception {
+        Path file = Files.createTempFile("pvaf", ".table");
+        try {
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            FactorTable.map(file, "pvaf", PresentValueOfAnnuityPaymentFactor::calculate);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Builder rejects invalid ranges.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_invalidRange() throws Exception {
+        FactorTable.newBuilder("pvaf", PresentValueOfAnnuityPaymentFactor::calculate).rates(10, 1);
+    }
+
+    /**
+     * Mapping a header whose grid exceeds a buffer fails, also if the number of entries overflows an int.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IOException.class)
+    public void map_tooLarge() throws Exception {
+        Path file = Files.createTempFile("pvaf", ".table");
+        try {
+            byte[] name = "pvaf".getBytes(StandardCharsets.UTF_8);
+            // 65536 * 65536 entries, zero when multiplied as int
+            ByteBuffer header = ByteBuffer.allocate(40).putInt(0x4A4D4654).putInt(1)
+                    .putInt(0).putInt(65535).putInt(65535)
+                    .putInt(16).putInt(MathContext.DECIMAL64.getRoundingMode().ordinal())
+                    .putInt(name.length).put(name);
+            Files.write(file, header.array());
+            FactorTable.map(file, "pvaf", PresentValueOfAnnuityPaymentFactor::calculate);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Builder rejects grids exceeding a buffer.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_tooLarge() throws Exception {
+        FactorTable.newBuilder("pvaf", PresentValueOfAnnuityPaymentFactor::calculate)
+                .rates(Integer.MIN_VALUE, Integer.MAX_VALUE).maxPeriods(Integer.MAX_VALUE).build();
+    }
+}
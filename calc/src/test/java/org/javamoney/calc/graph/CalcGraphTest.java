@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.graph;
+
+import org.javamoney.calc.common.FutureValueOfAnnuity;
+import org.javamoney.calc.common.Rate;
+import org.javamoney.calc.common.RateAndPeriods;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.money.MonetaryAmount;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CalcGraph}.
+ */
+public class CalcGraphTest {
+
+    /**
+     * Calculations are evaluated on creation.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void compute_initial() throws Exception {
+        CalcGraph graph = new CalcGraph();
+        InputNode<Rate> rate = graph.input(Rate.of(0.05));
+        InputNode<Integer> periods = graph.input(10);
+        CalcNode<RateAndPeriods> rp = graph.combine(rate, periods, RateAndPeriods::of);
+        CalcNode<MonetaryAmount> value = graph.apply(graph.input(Money.of(1000, "CHF")),
+                graph.map(rp, FutureValueOfAnnuity::of));
+        assertEquals(FutureValueOfAnnuity.calculate(Money.of(1000, "CHF"), RateAndPeriods.of(0.05, 10)),
+                value.get());
+    }
+
+    /**
+     * Only calculations downstream of a changed input are re-evaluated.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void set_reevaluatesDownstreamOnly() throws Exception {
+        CalcGraph graph = new CalcGraph();
+        InputNode<Rate> rate1 = graph.input(Rate.of(0.05));
+        InputNode<Rate> rate2 = graph.input(Rate.of(0.03));
+        InputNode<MonetaryAmount> payment = graph.input(Money.of(1000, "CHF"));
+        AtomicInteger evaluations1 = new AtomicInteger();
+        AtomicInteger evaluations2 = new AtomicInteger();
+        CalcNode<MonetaryAmount> value1 = graph.combine(payment,
+                graph.map(rate1, r -> FutureValueOfAnnuity.of(RateAndPeriods.of(r, 10))), (p, op) -> {
+                    evaluations1.incrementAndGet();
+                    return p.with(op);
+                });
+        graph.combine(payment,
+                graph.map(rate2, r -> FutureValueOfAnnuity.of(RateAndPeriods.of(r, 10))), (p, op) -> {
+                    evaluations2.incrementAndGet();
+                    return p.with(op);
+                });
+        rate1.set(Rate.of(0.06));
+        assertEquals(2, evaluations1.get());
+        assertEquals(1, evaluations2.get());
+        assertEquals(FutureValueOfAnnuity.calculate(Money.of(1000, "CHF"), RateAndPeriods.of(0.06, 10)),
+                value1.get());
+        payment.set(Money.of(2000, "CHF"));
+        assertEquals(3, evaluations1.get());
+        assertEquals(2, evaluations2.get());
+    }
+
+    /**
+     * Setting an equal value does not propagate.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void set_unchanged() throws Exception {
+        CalcGraph graph = new CalcGraph();
+        InputNode<Rate> rate = graph.input(Rate.of(0.05));
+        AtomicInteger evaluations = new AtomicInteger();
+        graph.map(rate, r -> {
+            evaluations.incrementAndGet();
+            return RateAndPeriods.of(r, 1);
+        });
+        rate.set(Rate.of(0.05));
+        assertEquals(1, evaluations.get());
+    }
+
+    /**
+     * Unchanged intermediate results stop the propagation.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void set_cutoff() throws Exception {
+        CalcGraph graph = new CalcGraph();
+        InputNode<Integer> input = graph.input(4);
+        CalcNode<Boolean> even = graph.map(input, i -> i % 2 == 0);
+        AtomicInteger evaluations = new AtomicInteger();
+        CalcNode<String> label = graph.map(even, e -> {
+            evaluations.incrementAndGet();
+            return e ? "even" : "odd";
+        });
+        input.set(6);
+        assertEquals(1, evaluations.get());
+        input.set(7);
+        assertEquals(2, evaluations.get());
+        assertEquals("odd", label.get());
+    }
+
+    /**
+     * Diamond dependencies are evaluated once, after all their dependencies.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void set_diamond() throws Exception {
+        CalcGraph graph = new CalcGraph();
+        InputNode<Integer> input = graph.input(1);
+        CalcNode<Integer> left = graph.map(input, i -> i + 1);
+        CalcNode<Integer> right = graph.map(graph.map(input, i -> i * 2), i -> i * 10);
+        List<Integer> seen = new ArrayList<>();
+        AtomicInteger evaluations = new AtomicInteger();
+        CalcNode<Integer> sum = graph.combine(left, right, (l, r) -> {
+            evaluations.incrementAndGet();
+            return l + r;
+        });
+        sum.addListener(seen::add);
+        input.set(2);
+        assertEquals(2, evaluations.get());
+        assertEquals(Integer.valueOf(43), sum.get());
+        assertEquals(1, seen.size());
+    }
+
+    /**
+     * Batched updates are propagated once.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void batch() throws Exception {
+        CalcGraph graph = new CalcGraph();
+        InputNode<Rate> rate = graph.input(Rate.of(0.05));
+        InputNode<Integer> periods = graph.input(10);
+        AtomicInteger evaluations = new AtomicInteger();
+        CalcNode<RateAndPeriods> rp = graph.combine(rate, periods, (r, p) -> {
+            evaluations.incrementAndGet();
+            return RateAndPeriods.of(r, p);
+        });
+        graph.batch(() -> {
+            rate.set(Rate.of(0.04));
+            periods.set(12);
+            assertTrue(graph.isDirty());
+            assertEquals(1, evaluations.get());
+        });
+        assertFalse(graph.isDirty());
+        assertEquals(2, evaluations.get());
+        assertEquals(12, rp.get().getPeriods());
+    }
+
+    /**
+     * Failures are kept and propagated to dependent nodes.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void failure() throws Exception {
+        CalcGraph graph = new CalcGraph();
+        InputNode<Integer> periods = graph.input(10);
+        CalcNode<RateAndPeriods> rp = graph.map(periods, p -> RateAndPeriods.of(0.05, p));
+        CalcNode<Integer> result = graph.map(rp, RateAndPeriods::getPeriods);
+        periods.set(-1);
+        assertTrue(rp.isFailed());
+        assertTrue(result.isFailed());
+        try {
+            result.get();
+            fail("IllegalArgumentException expected.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        periods.set(5);
+        assertFalse(result.isFailed());
+        assertEquals(Integer.valueOf(5), result.get());
+    }
+
+    /**
+     * Nodes of other graphs are rejected.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void compute_otherGraph() throws Exception {
+        InputNode<Integer> foreign = new CalcGraph().input(1);
+        new CalcGraph().map(foreign, i -> i + 1);
+    }
+}
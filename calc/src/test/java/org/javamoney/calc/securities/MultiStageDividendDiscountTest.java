@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks
+ */
+package org.javamoney.calc.securities;
+
+import org.javamoney.calc.AmountBatch;
+import org.javamoney.calc.common.Rate;
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MultiStageDividendDiscount}.
+ */
+public class MultiStageDividendDiscountTest {
+
+    private static final MultiStageDividendDiscount MODEL = MultiStageDividendDiscount.newBuilder()
+            .requiredRateOfReturn(Rate.of(0.09))
+            .addStage(Rate.of(0.15), 3)
+            .addStage(Rate.of(0.08), 2)
+            .terminalGrowthRate(Rate.of(0.04))
+            .build();
+
+    /**
+     * Calculates the expected value discounting each dividend separately.
+     */
+    private static double periodByPeriod(double dividend) {
+        double value = 0;
+        double d = dividend;
+        int t = 0;
+        double[][] stages = {{0.15, 3}, {0.08, 2}};
+        for (double[] stage : stages) {
+            for (int i = 0; i < stage[1]; i++) {
+                d *= 1 + stage[0];
+                t++;
+                value += d / Math.pow(1.09, t);
+            }
+        }
+        return value + d * 1.04 / (0.09 - 0.04) / Math.pow(1.09, t);
+    }
+
+    /**
+     * The model matches the present values of the single dividends plus the terminal value.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply() throws Exception {
+        MonetaryAmount result = Money.of(2, "USD").with(MODEL);
+        assertEquals(periodByPeriod(2), result.getNumber().doubleValue(), 1e-9);
+        assertEquals("USD", result.getCurrency().getCurrencyCode());
+    }
+
+    /**
+     * Without stages the model equals the constant growth model applied to the next dividend.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void apply_noStages() throws Exception {
+        MultiStageDividendDiscount model = MultiStageDividendDiscount.newBuilder()
+                .requiredRateOfReturn(Rate.of(0.05)).terminalGrowthRate(Rate.of(0.03)).build();
+        MonetaryAmount nextDividend = Money.of(new BigDecimal("34").multiply(new BigDecimal("1.03")), "GBP");
+        assertEquals(0, StockPresentValue.of(Rate.of(0.05), Rate.of(0.03)).apply(nextDividend).getNumber()
+                .numberValue(BigDecimal.class).round(MathContext.DECIMAL32)
+                .compareTo(Money.of(34, "GBP").with(model).getNumber().numberValue(BigDecimal.class)
+                        .round(MathContext.DECIMAL32)));
+    }
+
+    /**
+     * Batches of dividends are multiplied with the model's factor.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void calculate_batch() throws Exception {
+        AmountBatch dividends = AmountBatch.newBuilder(2)
+                .add(Monetary.getCurrency("USD"), new BigDecimal("2.00"))
+                .add(Monetary.getCurrency("EUR"), new BigDecimal("0.50")).build();
+        AmountBatch result = MODEL.calculate(dividends);
+        assertEquals(periodByPeriod(2), result.getNumber(0).doubleValue(), 0.005);
+        assertEquals(periodByPeriod(0.5), result.getNumber(1).doubleValue(), 0.005);
+    }
+
+    /**
+     * The double precision universe evaluation matches the model.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void evaluate() throws Exception {
+        double[] result = new double[3];
+        MultiStageDividendDiscount.evaluate(new int[]{3, 2},
+                new double[][]{{0.15, 0.15, 0.0}, {0.08, 0.08, 0.0}},
+                new double[]{0.04, 0.04, 0.0},
+                new double[]{0.09, 0.09, 0.1},
+                new double[]{2, 0.5, 1},
+                result);
+        assertEquals(periodByPeriod(2), result[0], 1e-9);
+        assertEquals(periodByPeriod(0.5), result[1], 1e-9);
+        assertEquals(10.0, result[2], 1e-9);
+        assertEquals(MODEL.getFactor().doubleValue() * 2, result[0], 1e-9);
+    }
+
+    /**
+     * The required rate of return must exceed the terminal growth rate.
+     *
+     * @throws Exception the exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void build_invalidTerminalGrowth() throws Exception {
+        MultiStageDividendDiscount.newBuilder().requiredRateOfReturn(Rate.of(0.04))
+                .terminalGrowthRate(Rate.of(0.04)).build();
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import java.io.IOException;
+import java.math.MathContext;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryException;
+import javax.money.convert.ConversionContext;
+import javax.money.convert.ConversionQuery;
+import javax.money.convert.ConversionQueryBuilder;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.ProviderContext;
+import javax.money.spi.Bootstrap;
+
+import org.javamoney.moneta.convert.ExchangeRateBuilder;
+import org.javamoney.moneta.spi.AbstractRateProvider;
+import org.javamoney.moneta.spi.DefaultNumberValue;
+import org.javamoney.moneta.spi.MonetaryConfigProvider;
+
+/**
+ * Base of providers quoting the rates of a feed against a single base currency, loaded asynchronously by the
+ * {@link org.javamoney.moneta.spi.loader.LoaderService}. It serves queries once loading finished, restores and
+ * writes the snapshots of the loaded rates, see {@link RateStoreSnapshot}, and creates the cross rates of the
+ * quotes of a date, see {@link CrossRateMatrix}.
+ * <p>
+ * The provider is configured by the keys {@code <prefix>.digit.fraction}, {@code <prefix>.cross.rates},
+ * {@code <prefix>.snapshot}, {@code <prefix>.snapshot.file} and {@code <prefix>.snapshot.maxAge}.
+ */
+public abstract class AbstractLoadingRateProvider extends AbstractRateProvider {
+
+    private static final Logger LOG = Logger.getLogger(AbstractLoadingRateProvider.class.getName());
+
+    private final String configPrefix;
+
+    private final CurrencyUnit baseCurrency;
+
+    private final CrossRateMatrix.Mode crossRateMode;
+
+    protected volatile String loadState;
+
+    protected final CountDownLatch loadLock = new CountDownLatch(1);
+
+    /**
+     * Completed when loading finished, like {@link #loadLock}, successful or not. Checking it is the non-blocking
+     * fast path of the queries once the rates are loaded.
+     */
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+    /**
+     * Creates a provider.
+     *
+     * @param context the provider context, not null.
+     * @param configPrefix the prefix of the configuration keys, e.g. {@code "frb"}, not null.
+     * @param baseCurrency the currency all quotes of the feed are against, not null.
+     */
+    protected AbstractLoadingRateProvider(ProviderContext context, String configPrefix, CurrencyUnit baseCurrency) {
+        super(context);
+        this.configPrefix = Objects.requireNonNull(configPrefix);
+        this.baseCurrency = Objects.requireNonNull(baseCurrency);
+        this.crossRateMode = CrossRateMatrix.Mode.of(getConfig("cross.rates", null));
+    }
+
+    /**
+     * The id of the loaded resource, also naming the default snapshot file.
+     *
+     * @return the data id.
+     */
+    protected abstract String getDataId();
+
+    /**
+     * Access an exchange rate of the loaded rates, called once loading finished.
+     *
+     * @param conversionQuery the query, not null.
+     * @return the rate, or null if no rates could be loaded.
+     */
+    protected abstract ExchangeRate getLoadedExchangeRate(ConversionQuery conversionQuery);
+
+    @Override
+    public ExchangeRate getExchangeRate(ConversionQuery conversionQuery) {
+        Objects.requireNonNull(conversionQuery);
+        awaitLoaded();
+        return getLoadedExchangeRate(conversionQuery);
+    }
+
+    /**
+     * Access an exchange rate without blocking the calling thread. Once the rates are loaded, the returned future
+     * is already completed. Before, it completes when loading finishes, on a thread of the
+     * {@link ForkJoinPool#commonPool() common pool}, so dependent stages do not run on the loader's thread.
+     * Contrary to {@link #getExchangeRate(ConversionQuery)}, no timeout applies, callers can bound the wait with
+     * {@link CompletableFuture#get(long, TimeUnit)}.
+     *
+     * @param conversionQuery the query, not null.
+     * @return the future rate, completed with null if no rates could be loaded, or completed exceptionally if
+     * the rate is not available.
+     */
+    public CompletableFuture<ExchangeRate> getExchangeRateAsync(ConversionQuery conversionQuery) {
+        Objects.requireNonNull(conversionQuery);
+        if (loaded.isDone()) {
+            CompletableFuture<ExchangeRate> result = new CompletableFuture<>();
+            try {
+                result.complete(getLoadedExchangeRate(conversionQuery));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+        return loaded.thenApplyAsync(v -> getLoadedExchangeRate(conversionQuery));
+    }
+
+    /**
+     * Access an exchange rate without blocking the calling thread, see
+     * {@link #getExchangeRateAsync(ConversionQuery)}.
+     *
+     * @param base the base currency, not null.
+     * @param term the term currency, not null.
+     * @return the future rate.
+     */
+    public CompletableFuture<ExchangeRate> getExchangeRateAsync(CurrencyUnit base, CurrencyUnit term) {
+        return getExchangeRateAsync(ConversionQueryBuilder.of().setBaseCurrency(base).setTermCurrency(term).build());
+    }
+
+    /**
+     * Waits up to 30 seconds until loading finished.
+     *
+     * @throws MonetaryException if loading did not finish in time or the thread was interrupted.
+     */
+    protected final void awaitLoaded() {
+        try {
+            if (!loaded.isDone() && !loadLock.await(30, TimeUnit.SECONDS)) {
+                throw new MonetaryException("Failed to load currency conversion data: " + loadState);
+            }
+        } catch (InterruptedException e) {
+            throw new MonetaryException("Failed to load currency conversion data: Load task has been interrupted.", e);
+        }
+    }
+
+    /**
+     * Releases the queries waiting for the rates, after a load or a restored snapshot, successful or not.
+     */
+    protected final void loadFinished() {
+        loadLock.countDown();
+        loaded.complete(null);
+    }
+
+    /**
+     * The context of the rates created by this provider, with the scale configured by
+     * {@code <prefix>.digit.fraction}.
+     *
+     * @return the context.
+     */
+    protected ConversionContext getExchangeContext() {
+        return getExchangeContext(configPrefix + ".digit.fraction");
+    }
+
+    /**
+     * The mode of the cross rates of the loaded dates, configured by {@code <prefix>.cross.rates}.
+     *
+     * @return the mode.
+     */
+    protected final CrossRateMatrix.Mode getCrossRateMode() {
+        return crossRateMode;
+    }
+
+    /**
+     * Access a configuration value of this provider.
+     *
+     * @param name the key without the prefix, e.g. {@code "snapshot.file"}.
+     * @param defaultValue the value if the key is not configured, may be null.
+     * @return the value.
+     */
+    protected final String getConfig(String name, String defaultValue) {
+        return getConfigValue(configPrefix + '.' + name, defaultValue);
+    }
+
+    /**
+     * Access a configuration value, read from the {@link MonetaryConfigProvider} service.
+     *
+     * @param key the key.
+     * @param defaultValue the value if the key is not configured, may be null.
+     * @return the value.
+     */
+    protected static String getConfigValue(String key, String defaultValue) {
+        String value = Bootstrap.getService(MonetaryConfigProvider.class).getProperty(key);
+        return Objects.isNull(value) ? defaultValue : value;
+    }
+
+    /**
+     * The snapshot file of the loaded rates, see {@link RateStoreSnapshot}. By default it is kept next to the
+     * resource cache of the {@link org.javamoney.moneta.spi.loader.LoaderService}.
+     *
+     * @return the file, or null if snapshots are disabled.
+     */
+    protected Path getSnapshotFile() {
+        if (!Boolean.parseBoolean(getConfig("snapshot", "true"))) {
+            return null;
+        }
+        String file = getConfig("snapshot.file", null);
+        if (Objects.nonNull(file) && !file.trim().isEmpty()) {
+            return Paths.get(file.trim());
+        }
+        String dir = System.getProperty("temp.dir", System.getProperty("java.io.tmpdir"));
+        return Paths.get(dir, ".resourceCache", getDataId() + ".snapshot");
+    }
+
+    /**
+     * Reads the snapshot of the last load, if it is not older than {@code <prefix>.snapshot.maxAge}.
+     *
+     * @param reader reads the snapshot file.
+     * @param <T> the type of the snapshot.
+     * @return the snapshot, or null if snapshots are disabled, or there is no current snapshot, or it can not be
+     * read, the feed is loaded instead.
+     */
+    protected final <T> T readSnapshot(SnapshotReader<T> reader) {
+        Path file = getSnapshotFile();
+        if (Objects.isNull(file)) {
+            return null;
+        }
+        try {
+            Duration maxAge = Duration.parse(getConfig("snapshot.maxAge", "P1D").trim());
+            return reader.read(file, Instant.now().minus(maxAge));
+        } catch (Exception e) {
+            LOG.log(Level.FINE, "Ignoring rate snapshot " + file + ", loading " + getDataId() + " instead.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Serves the queries with the published rates of a snapshot, before the feed is loaded.
+     *
+     * @param days the number of days of the snapshot.
+     */
+    protected final void snapshotRestored(int days) {
+        loadState = "Restored exchange rates for days:" + days + " from " + getSnapshotFile();
+        LOG.info(loadState);
+        loadFinished();
+    }
+
+    /**
+     * Replaces the snapshot, failures are logged only, the snapshot is an optimization.
+     *
+     * @param writer writes the snapshot file.
+     */
+    protected final void writeSnapshot(SnapshotWriter writer) {
+        Path file = getSnapshotFile();
+        if (Objects.isNull(file)) {
+            return;
+        }
+        try {
+            writer.write(file);
+        } catch (Exception e) {
+            LOG.log(Level.FINE, "Failed to write rate snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Creates the cross rates of the quotes of a date, in the configured mode.
+     *
+     * @param targets the rates of the base currency by term currency code.
+     * @return the cross rates.
+     */
+    protected CrossRateMatrix createCrossRates(Map<String, ExchangeRate> targets) {
+        String baseCode = baseCurrency.getCurrencyCode();
+        List<String> codes = new ArrayList<>(targets.size() + 1);
+        if (!targets.containsKey(baseCode)) {
+            codes.add(baseCode);
+        }
+        codes.addAll(targets.keySet());
+        return CrossRateMatrix.of(codes, (base, term) -> createCrossRate(targets, base, term), crossRateMode);
+    }
+
+    private ExchangeRate createCrossRate(Map<String, ExchangeRate> targets, String baseCode, String termCode) {
+        String code = baseCurrency.getCurrencyCode();
+        if (code.equals(baseCode) && code.equals(termCode)) {
+            return new ExchangeRateBuilder(getExchangeContext()).setBase(baseCurrency).setTerm(baseCurrency)
+                .setFactor(DefaultNumberValue.ONE).build();
+        } else if (code.equals(baseCode)) {
+            return targets.get(termCode);
+        } else if (code.equals(termCode)) {
+            return reverseRate(targets.get(baseCode));
+        }
+        ExchangeRate rate1 = reverseRate(targets.get(baseCode));
+        ExchangeRate rate2 = targets.get(termCode);
+        return new ExchangeRateBuilder(getExchangeContext()).setBase(rate1.getBaseCurrency())
+            .setTerm(rate2.getCurrency()).setFactor(multiply(rate1.getFactor(), rate2.getFactor()))
+            .setRateChain(rate1, rate2).build();
+    }
+
+    /**
+     * Reverses a rate of this provider, by default keeping its context, see {@link #reverse(ExchangeRate)}.
+     *
+     * @param rate the rate.
+     * @return the reversed rate.
+     */
+    protected ExchangeRate reverseRate(ExchangeRate rate) {
+        return reverse(rate);
+    }
+
+    /**
+     * Reverses a rate, keeping its context.
+     *
+     * @param rate the rate, not null.
+     * @return the reversed rate, with the factor divided at {@link MathContext#DECIMAL64}.
+     * @throws IllegalArgumentException if the rate is null.
+     */
+    protected static ExchangeRate reverse(ExchangeRate rate) {
+        if (Objects.isNull(rate)) {
+            throw new IllegalArgumentException("Rate null is not reversible.");
+        }
+        return new ExchangeRateBuilder(rate).setRate(rate).setBase(rate.getCurrency()).setTerm(rate.getBaseCurrency())
+            .setFactor(divide(DefaultNumberValue.ONE, rate.getFactor(), MathContext.DECIMAL64)).build();
+    }
+
+    /**
+     * Reads a snapshot file, see {@link #readSnapshot(SnapshotReader)}.
+     *
+     * @param <T> the type of the snapshot.
+     */
+    @FunctionalInterface
+    protected interface SnapshotReader<T> {
+        /**
+         * Reads a snapshot.
+         *
+         * @param file the snapshot file.
+         * @param notBefore snapshots created before are stale.
+         * @return the snapshot, or null if there is no current snapshot.
+         * @throws IOException if reading fails.
+         */
+        T read(Path file, Instant notBefore) throws IOException;
+    }
+
+    /**
+     * Writes a snapshot file, see {@link #writeSnapshot(SnapshotWriter)}.
+     */
+    @FunctionalInterface
+    protected interface SnapshotWriter {
+        /**
+         * Writes a snapshot.
+         *
+         * @param file the snapshot file.
+         * @throws IOException if writing fails.
+         */
+        void write(Path file) throws IOException;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+import javax.money.convert.ConversionContext;
+import javax.money.convert.CurrencyConversion;
+import javax.money.convert.CurrencyConversionException;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.ExchangeRateProvider;
+
+import org.javamoney.moneta.spi.AbstractCurrencyConversion;
+
+/**
+ * Converts a batch of {@link ConversionRequest}s, resolving the rate of each distinct base currency, term currency
+ * and date only once. Amounts are converted like {@link CurrencyConversion#apply(MonetaryAmount)} of the
+ * provider's conversions does, so results equal those of single conversions. Used by the {@code convert} methods
+ * of the exchange rate providers.
+ */
+public final class BulkConversion {
+
+    /**
+     * Resolves the rate of a distinct pair and date.
+     */
+    @FunctionalInterface
+    public interface RateResolver {
+        /**
+         * Resolves a rate.
+         *
+         * @param base the base currency.
+         * @param term the term currency.
+         * @param date the date, null for the most recent rate.
+         * @return the rate, or null if none is available.
+         */
+        ExchangeRate resolve(CurrencyUnit base, CurrencyUnit term, LocalDate date);
+    }
+
+    private BulkConversion() {
+    }
+
+    /**
+     * Converts the amounts of the requests.
+     *
+     * @param requests the requests, not null.
+     * @param provider the provider of the rates.
+     * @param resolver the resolver of the rates, called once per distinct pair and date.
+     * @return the converted amounts, in the order of the requests.
+     * @throws CurrencyConversionException if a rate is not available.
+     */
+    public static List<MonetaryAmount> convert(List<ConversionRequest> requests, ExchangeRateProvider provider,
+        RateResolver resolver) {
+        Map<Key, CurrencyConversion> conversions = new HashMap<>();
+        List<MonetaryAmount> result = new ArrayList<>(requests.size());
+        for (ConversionRequest request : requests) {
+            MonetaryAmount amount = request.getAmount();
+            CurrencyUnit base = amount.getCurrency();
+            CurrencyUnit term = request.getCurrency();
+            if (base.equals(term)) {
+                result.add(amount);
+                continue;
+            }
+            CurrencyConversion conversion = conversions.computeIfAbsent(new Key(base, term, request.getDate()),
+                key -> {
+                    ExchangeRate rate = resolver.resolve(base, term, key.date);
+                    if (Objects.isNull(rate)) {
+                        throw new CurrencyConversionException(base, term, null,
+                            "No rate available" + (Objects.isNull(key.date) ? "." : " for " + key.date));
+                    }
+                    return new FixedRateConversion(provider, rate);
+                });
+            result.add(amount.with(conversion));
+        }
+        return result;
+    }
+
+    /**
+     * Base currency, term currency and date of a group of requests.
+     */
+    private static final class Key {
+        private final String base;
+        private final String term;
+        private final LocalDate date;
+
+        Key(CurrencyUnit base, CurrencyUnit term, LocalDate date) {
+            this.base = base.getCurrencyCode();
+            this.term = term.getCurrencyCode();
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return base.equals(other.base) && term.equals(other.term) && Objects.equals(date, other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return (base.hashCode() * 31 + term.hashCode()) * 31 + Objects.hashCode(date);
+        }
+    }
+
+    /**
+     * Conversion with a resolved rate.
+     */
+    static final class FixedRateConversion extends AbstractCurrencyConversion {
+        private final ExchangeRateProvider provider;
+        private final ExchangeRate rate;
+
+        FixedRateConversion(ExchangeRateProvider provider, ExchangeRate rate) {
+            this(provider, rate, rate.getContext());
+        }
+
+        private FixedRateConversion(ExchangeRateProvider provider, ExchangeRate rate,
+                                    ConversionContext conversionContext) {
+            super(rate.getCurrency(), conversionContext);
+            this.provider = provider;
+            this.rate = rate;
+        }
+
+        @Override
+        public ExchangeRateProvider getExchangeRateProvider() {
+            return provider;
+        }
+
+        @Override
+        public ExchangeRate getExchangeRate(MonetaryAmount amount) {
+            return rate;
+        }
+
+        @Override
+        public CurrencyConversion with(ConversionContext conversionContext) {
+            return new FixedRateConversion(provider, rate, conversionContext);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+
+/**
+ * A single conversion of a bulk conversion, see {@link BulkConversion}: an amount, the currency to convert it to
+ * and optionally the date of the rate to use.
+ */
+public final class ConversionRequest {
+
+    private final MonetaryAmount amount;
+    private final CurrencyUnit currency;
+    private final LocalDate date;
+
+    private ConversionRequest(MonetaryAmount amount, CurrencyUnit currency, LocalDate date) {
+        this.amount = Objects.requireNonNull(amount, "Amount required.");
+        this.currency = Objects.requireNonNull(currency, "Currency required.");
+        this.date = date;
+    }
+
+    /**
+     * Creates a request using the most recent rate.
+     *
+     * @param amount the amount, not null.
+     * @param currency the currency to convert to, not null.
+     * @return the request.
+     */
+    public static ConversionRequest of(MonetaryAmount amount, CurrencyUnit currency) {
+        return new ConversionRequest(amount, currency, null);
+    }
+
+    /**
+     * Creates a request using the rate of a date.
+     *
+     * @param amount the amount, not null.
+     * @param currency the currency to convert to, not null.
+     * @param date the date of the rate, null for the most recent rate.
+     * @return the request.
+     */
+    public static ConversionRequest of(MonetaryAmount amount, CurrencyUnit currency, LocalDate date) {
+        return new ConversionRequest(amount, currency, date);
+    }
+
+    /**
+     * The amount to convert.
+     *
+     * @return the amount, never null.
+     */
+    public MonetaryAmount getAmount() {
+        return amount;
+    }
+
+    /**
+     * The currency to convert to.
+     *
+     * @return the currency, never null.
+     */
+    public CurrencyUnit getCurrency() {
+        return currency;
+    }
+
+    /**
+     * The date of the rate to use.
+     *
+     * @return the date, or null for the most recent rate.
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof ConversionRequest) {
+            ConversionRequest other = (ConversionRequest) obj;
+            return amount.equals(other.amount) && currency.equals(other.currency) && Objects.equals(date, other.date);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amount, currency, date);
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionRequest{" +
+            "amount=" + amount +
+            ", currency=" + currency +
+            ", date=" + date +
+            '}';
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.money.convert.ExchangeRate;
+
+/**
+ * The rates between all currencies quoted on one date, including the rate chains of cross rates. A rate is looked
+ * up by the ordinals of its currencies in a flat array. Cells are either computed when the matrix is created
+ * ({@link Mode#EAGER}) or on first access ({@link Mode#LAZY}). Rates are immutable, so concurrent lazy
+ * initialization of a cell is benign, at worst a rate is computed twice.
+ */
+public final class CrossRateMatrix {
+
+    /**
+     * When the cells of a matrix are computed.
+     */
+    public enum Mode {
+        /** Cells are computed on first access. */
+        LAZY,
+        /** All cells are computed when the matrix is created. */
+        EAGER;
+
+        /**
+         * Parses a configured mode, case insensitive.
+         *
+         * @param value the configured value, may be null.
+         * @return the mode, {@link #LAZY} if not set.
+         */
+        public static Mode of(String value) {
+            if (Objects.isNull(value) || value.trim().isEmpty()) {
+                return LAZY;
+            }
+            return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        }
+    }
+
+    /**
+     * Creates the rate between two currencies, given by their codes.
+     */
+    @FunctionalInterface
+    public interface RateFactory {
+        /**
+         * Creates a rate.
+         *
+         * @param baseCode the base currency code.
+         * @param termCode the term currency code.
+         * @return the rate.
+         */
+        ExchangeRate create(String baseCode, String termCode);
+    }
+
+    private final Map<String, Integer> ordinals;
+    private final String[] codes;
+    private final ExchangeRate[] cells;
+    private final RateFactory factory;
+
+    private CrossRateMatrix(Collection<String> codes, RateFactory factory) {
+        this.factory = factory;
+        this.codes = codes.toArray(new String[0]);
+        this.ordinals = new HashMap<>(this.codes.length * 2);
+        for (int i = 0; i < this.codes.length; i++) {
+            ordinals.put(this.codes[i], i);
+        }
+        this.cells = new ExchangeRate[this.codes.length * this.codes.length];
+    }
+
+    /**
+     * Creates a new matrix.
+     *
+     * @param codes the codes of all currencies, not null.
+     * @param factory the factory computing the cells, not null.
+     * @param mode the initialization mode, not null.
+     * @return the new matrix.
+     */
+    public static CrossRateMatrix of(Collection<String> codes, RateFactory factory, Mode mode) {
+        CrossRateMatrix matrix = new CrossRateMatrix(codes, Objects.requireNonNull(factory));
+        if (mode == Mode.EAGER) {
+            for (int i = 0; i < matrix.cells.length; i++) {
+                matrix.cells[i] = factory.create(matrix.codes[i / matrix.codes.length],
+                    matrix.codes[i % matrix.codes.length]);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Access the rate between two currencies.
+     *
+     * @param baseCode the base currency code.
+     * @param termCode the term currency code.
+     * @return the rate, or null if one of the currencies is not part of this matrix.
+     */
+    public ExchangeRate get(String baseCode, String termCode) {
+        Integer base = ordinals.get(baseCode);
+        Integer term = ordinals.get(termCode);
+        if (Objects.isNull(base) || Objects.isNull(term)) {
+            return null;
+        }
+        int index = base * codes.length + term;
+        ExchangeRate rate = cells[index];
+        if (Objects.isNull(rate)) {
+            rate = factory.create(baseCode, termCode);
+            cells[index] = rate;
+        }
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return "CrossRateMatrix{currencies=" + codes.length + '}';
+    }
+}
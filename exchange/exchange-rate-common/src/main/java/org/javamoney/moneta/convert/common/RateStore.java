@@ -0,0 +1,537 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryException;
+import javax.money.convert.ExchangeRate;
+
+/**
+ * Immutable, dense store of historic quotes against a base currency. Dates are mapped to day ordinals relative to
+ * the first date, currencies to small ordinals, and the quotes are kept as scaled {@code long}s in an off-heap
+ * matrix of {@code days x currencies} cells. A cell of {@code 0} has no quote, a negative cell holds a quote of
+ * the inverse direction (base currency per unit of the term currency). {@link ExchangeRate} instances are only
+ * created on access, by a {@link RateFactory}. Instances are safe for concurrent use.
+ */
+public final class RateStore {
+
+    /**
+     * Creates the rate of a stored quote.
+     */
+    @FunctionalInterface
+    public interface RateFactory {
+        /**
+         * Creates the rate from the base currency to {@code term}.
+         *
+         * @param date the date of the quote.
+         * @param term the term currency.
+         * @param quote the quote as published.
+         * @param inverse true, if the quote is the amount of base currency per unit of {@code term}.
+         * @return the rate, not null.
+         */
+        ExchangeRate create(LocalDate date, CurrencyUnit term, BigDecimal quote, boolean inverse);
+    }
+
+    /**
+     * Receives the quotes of two currencies per day, see {@link #scan(LocalDate, LocalDate, int, int, DayVisitor)}.
+     */
+    @FunctionalInterface
+    public interface DayVisitor {
+        /**
+         * Visits a day with quotes.
+         *
+         * @param epochDay the day, see {@link LocalDate#toEpochDay()}.
+         * @param firstCell the cell of the first currency, 0 if it is not quoted on this day.
+         * @param secondCell the cell of the second currency, 0 if it is not quoted on this day.
+         */
+        void visit(long epochDay, long firstCell, long secondCell);
+    }
+
+    private final int scale;
+    private final long firstDay;
+    private final int days;
+    private final CurrencyUnit[] currencies;
+    private final Map<String, Integer> ordinals;
+    private final BitSet datesWithQuotes;
+    private final ByteBuffer quotes;
+
+    private RateStore(int scale, long firstDay, int days, CurrencyUnit[] currencies, BitSet datesWithQuotes,
+        ByteBuffer quotes) {
+        this.scale = scale;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.currencies = currencies;
+        this.ordinals = new HashMap<>(currencies.length * 2);
+        for (int i = 0; i < currencies.length; i++) {
+            ordinals.put(currencies[i].getCurrencyCode(), i);
+        }
+        this.datesWithQuotes = datesWithQuotes;
+        this.quotes = quotes;
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @param scale the number of fraction digits kept of each quote, 0 to 18.
+     * @return the builder.
+     */
+    public static Builder newBuilder(int scale) {
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("Scale must be within 0 and 18: " + scale);
+        }
+        return new Builder(scale);
+    }
+
+    /**
+     * The number of fraction digits kept of each quote.
+     *
+     * @return the scale.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Checks if any quotes are stored.
+     *
+     * @return true, if there are no quotes.
+     */
+    public boolean isEmpty() {
+        return datesWithQuotes.isEmpty();
+    }
+
+    /**
+     * The number of dates with quotes.
+     *
+     * @return the number of dates.
+     */
+    public int getDateCount() {
+        return datesWithQuotes.cardinality();
+    }
+
+    /**
+     * The most recent date with quotes.
+     *
+     * @return the date, or null if the store is empty.
+     */
+    public LocalDate getLatestDate() {
+        int day = datesWithQuotes.length() - 1;
+        return day < 0 ? null : toDate(day);
+    }
+
+    /**
+     * The dates with quotes.
+     *
+     * @return the dates in ascending order, empty if the store is empty.
+     */
+    public List<LocalDate> getDates() {
+        List<LocalDate> dates = new ArrayList<>(getDateCount());
+        for (int day = datesWithQuotes.nextSetBit(0); day >= 0; day = datesWithQuotes.nextSetBit(day + 1)) {
+            dates.add(toDate(day));
+        }
+        return dates;
+    }
+
+    /**
+     * Checks if there are quotes for a date.
+     *
+     * @param date the date.
+     * @return true, if at least one quote of this date is stored.
+     */
+    public boolean hasQuotes(LocalDate date) {
+        int day = toDay(date);
+        return day >= 0 && datesWithQuotes.get(day);
+    }
+
+    /**
+     * The currencies of this store, indexed by their ordinal.
+     *
+     * @return the number of currencies.
+     */
+    public int getCurrencyCount() {
+        return currencies.length;
+    }
+
+    /**
+     * Access a currency by its ordinal.
+     *
+     * @param ordinal the ordinal.
+     * @return the currency.
+     */
+    public CurrencyUnit getCurrency(int ordinal) {
+        return currencies[ordinal];
+    }
+
+    /**
+     * Access the ordinal of a currency.
+     *
+     * @param code the currency code.
+     * @return the ordinal, or -1 if no quotes of the currency are stored.
+     */
+    public int ordinal(String code) {
+        Integer ordinal = ordinals.get(code);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Access a quote.
+     *
+     * @param date the date.
+     * @param code the term currency code.
+     * @return the quote, or null if none is stored.
+     */
+    public BigDecimal getQuote(LocalDate date, String code) {
+        long cell = cell(toDay(date), ordinal(code));
+        return cell == 0 ? null : BigDecimal.valueOf(Math.abs(cell), scale);
+    }
+
+    /**
+     * Checks the direction of a quote.
+     *
+     * @param date the date.
+     * @param code the term currency code.
+     * @return true, if a quote of base currency per unit of the term currency is stored.
+     */
+    public boolean isInverse(LocalDate date, String code) {
+        return cell(toDay(date), ordinal(code)) < 0;
+    }
+
+    /**
+     * Access the rates of a date, as a read-only map by term currency code. The rates are created by the factory
+     * on each access, so callers should keep the rates they need.
+     *
+     * @param date the date.
+     * @param factory the factory creating the rates, not null.
+     * @return the rates of the date, empty if there are none.
+     */
+    public Map<String, ExchangeRate> getRates(LocalDate date, RateFactory factory) {
+        return new DayView(date, toDay(date), Objects.requireNonNull(factory));
+    }
+
+    /**
+     * Visits the days with quotes within a range in ascending order, passing the raw cells of two currencies: the
+     * unscaled quote at {@link #getScale()}, negative for an inverse quote, or 0 if there is none. Only the index of
+     * dates with quotes is scanned, no rates are created.
+     *
+     * @param from the first date, inclusive, may be before the first stored date.
+     * @param to the last date, inclusive, may be after the latest stored date.
+     * @param firstOrdinal the ordinal of the first currency, -1 passes 0 cells.
+     * @param secondOrdinal the ordinal of the second currency, -1 passes 0 cells.
+     * @param visitor the visitor, not null.
+     */
+    public void scan(LocalDate from, LocalDate to, int firstOrdinal, int secondOrdinal, DayVisitor visitor) {
+        long start = Math.max(from.toEpochDay() - firstDay, 0);
+        long end = Math.min(to.toEpochDay() - firstDay, days - 1L);
+        if (start > end) {
+            return;
+        }
+        for (int day = datesWithQuotes.nextSetBit((int) start); day >= 0 && day <= end;
+             day = datesWithQuotes.nextSetBit(day + 1)) {
+            visitor.visit(firstDay + day, cell(day, firstOrdinal), cell(day, secondOrdinal));
+        }
+    }
+
+    /**
+     * Writes the quotes of this store, so they can be restored by {@link #readFrom(DataInput)}.
+     *
+     * @param out the output, not null.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(scale);
+        out.writeLong(firstDay);
+        out.writeInt(days);
+        out.writeInt(currencies.length);
+        for (CurrencyUnit currency : currencies) {
+            out.writeUTF(currency.getCurrencyCode());
+        }
+        long[] words = datesWithQuotes.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+        for (int i = 0, cells = days * currencies.length; i < cells; i++) {
+            out.writeLong(quotes.getLong(i * Long.BYTES));
+        }
+    }
+
+    /**
+     * Restores a store written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in the input, not null.
+     * @return the restored store.
+     * @throws IOException if reading fails or the data is not a valid store.
+     */
+    public static RateStore readFrom(DataInput in) throws IOException {
+        int scale = in.readInt();
+        long firstDay = in.readLong();
+        int days = in.readInt();
+        int count = in.readInt();
+        if (scale < 0 || scale > 18 || days < 0 || count < 0
+            || (long) days * count * Long.BYTES > Integer.MAX_VALUE) {
+            throw new IOException("Invalid rate store: scale=" + scale + ", days=" + days + ", currencies=" + count);
+        }
+        CurrencyUnit[] currencies = new CurrencyUnit[count];
+        for (int i = 0; i < count; i++) {
+            String code = in.readUTF();
+            try {
+                currencies[i] = Monetary.getCurrency(code);
+            } catch (MonetaryException e) {
+                throw new IOException("Unknown currency in rate store: " + code, e);
+            }
+        }
+        int length = in.readInt();
+        if (length < 0 || length > (days + Long.SIZE - 1) / Long.SIZE) {
+            throw new IOException("Invalid dates of rate store: " + length);
+        }
+        long[] words = new long[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = in.readLong();
+        }
+        BitSet datesWithQuotes = BitSet.valueOf(words);
+        if (datesWithQuotes.length() > days) {
+            throw new IOException("Invalid dates of rate store: " + datesWithQuotes);
+        }
+        ByteBuffer quotes = ByteBuffer.allocateDirect(days * count * Long.BYTES);
+        for (int i = 0, cells = days * count; i < cells; i++) {
+            quotes.putLong(i * Long.BYTES, in.readLong());
+        }
+        return new RateStore(scale, firstDay, days, currencies, datesWithQuotes, quotes);
+    }
+
+    private long cell(int day, int ordinal) {
+        if (day < 0 || ordinal < 0) {
+            return 0;
+        }
+        return quotes.getLong((day * currencies.length + ordinal) * Long.BYTES);
+    }
+
+    private int toDay(LocalDate date) {
+        long day = date.toEpochDay() - firstDay;
+        return day < 0 || day >= days ? -1 : (int) day;
+    }
+
+    private LocalDate toDate(int day) {
+        return LocalDate.ofEpochDay(firstDay + day);
+    }
+
+    @Override
+    public String toString() {
+        return "RateStore{" +
+            "dates=" + getDateCount() +
+            ", currencies=" + currencies.length +
+            ", latest=" + getLatestDate() +
+            ", scale=" + scale +
+            '}';
+    }
+
+    /**
+     * Read-only view on the quotes of one date.
+     */
+    private final class DayView extends AbstractMap<String, ExchangeRate> {
+        private final LocalDate date;
+        private final int day;
+        private final RateFactory factory;
+
+        DayView(LocalDate date, int day, RateFactory factory) {
+            this.date = date;
+            this.day = day;
+            this.factory = factory;
+        }
+
+        private ExchangeRate create(int ordinal) {
+            long cell = cell(day, ordinal);
+            if (cell == 0) {
+                return null;
+            }
+            return factory.create(date, currencies[ordinal], BigDecimal.valueOf(Math.abs(cell), scale), cell < 0);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && cell(day, ordinal((String) key)) != 0;
+        }
+
+        @Override
+        public ExchangeRate get(Object key) {
+            return key instanceof String ? create(ordinal((String) key)) : null;
+        }
+
+        @Override
+        public Set<Entry<String, ExchangeRate>> entrySet() {
+            return new AbstractSet<Entry<String, ExchangeRate>>() {
+                @Override
+                public Iterator<Entry<String, ExchangeRate>> iterator() {
+                    return new Iterator<Entry<String, ExchangeRate>>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            int ordinal = from;
+                            while (ordinal < currencies.length && cell(day, ordinal) == 0) {
+                                ordinal++;
+                            }
+                            return ordinal;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < currencies.length;
+                        }
+
+                        @Override
+                        public Entry<String, ExchangeRate> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int ordinal = next;
+                            next = advance(ordinal + 1);
+                            return new SimpleImmutableEntry<>(currencies[ordinal].getCurrencyCode(), create(ordinal));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int ordinal = 0; ordinal < currencies.length; ordinal++) {
+                        if (cell(day, ordinal) != 0) {
+                            size++;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+    }
+
+    /**
+     * Collects quotes on the heap and creates the off-heap store. Builders are not thread-safe.
+     */
+    public static final class Builder {
+        private final int scale;
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<CurrencyUnit> currencies = new ArrayList<>();
+        private long[] epochDays = new long[256];
+        private int[] currencyOrdinals = new int[256];
+        private long[] cells = new long[256];
+        private int size;
+        private long minDay = Long.MAX_VALUE;
+        private long maxDay = Long.MIN_VALUE;
+
+        private Builder(int scale) {
+            this.scale = scale;
+        }
+
+        /**
+         * Adds a quote, a later quote of the same date and currency replaces an earlier one.
+         *
+         * @param date the date, not null.
+         * @param term the term currency, not null.
+         * @param quote the quote, positive. Fraction digits exceeding the store's scale are rounded half even.
+         * @param inverse true, if the quote is the amount of base currency per unit of {@code term}.
+         * @return this builder, for chaining.
+         * @throws IllegalArgumentException if the quote is not positive or does not fit the scale.
+         */
+        public Builder add(LocalDate date, CurrencyUnit term, BigDecimal quote, boolean inverse) {
+            Objects.requireNonNull(date, "Date required.");
+            Objects.requireNonNull(term, "Currency required.");
+            long unscaled = toUnscaled(quote);
+            Integer ordinal = ordinals.get(term.getCurrencyCode());
+            if (ordinal == null) {
+                ordinal = currencies.size();
+                ordinals.put(term.getCurrencyCode(), ordinal);
+                currencies.add(term);
+            }
+            if (size == cells.length) {
+                epochDays = Arrays.copyOf(epochDays, size * 2);
+                currencyOrdinals = Arrays.copyOf(currencyOrdinals, size * 2);
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            epochDays[size] = date.toEpochDay();
+            currencyOrdinals[size] = ordinal;
+            cells[size] = inverse ? -unscaled : unscaled;
+            size++;
+            minDay = Math.min(minDay, date.toEpochDay());
+            maxDay = Math.max(maxDay, date.toEpochDay());
+            return this;
+        }
+
+        private long toUnscaled(BigDecimal quote) {
+            if (Objects.isNull(quote) || quote.signum() <= 0) {
+                throw new IllegalArgumentException("Quote must be positive: " + quote);
+            }
+            try {
+                long unscaled = quote.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+                if (unscaled == 0) {
+                    throw new IllegalArgumentException("Quote is zero at scale " + scale + ": " + quote);
+                }
+                return unscaled;
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Quote exceeds scale " + scale + ": " + quote, e);
+            }
+        }
+
+        /**
+         * Creates the store.
+         *
+         * @return the new store.
+         * @throws IllegalArgumentException if the quotes span too many days.
+         */
+        public RateStore build() {
+            CurrencyUnit[] units = currencies.toArray(new CurrencyUnit[0]);
+            if (size == 0) {
+                return new RateStore(scale, 0, 0, units, new BitSet(), ByteBuffer.allocateDirect(0));
+            }
+            long span = (maxDay - minDay + 1) * Math.max(1, units.length) * Long.BYTES;
+            if (span > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Quotes span too many days: " + LocalDate.ofEpochDay(minDay)
+                    + " - " + LocalDate.ofEpochDay(maxDay));
+            }
+            int days = (int) (maxDay - minDay + 1);
+            ByteBuffer quotes = ByteBuffer.allocateDirect((int) span);
+            BitSet datesWithQuotes = new BitSet(days);
+            for (int i = 0; i < size; i++) {
+                int day = (int) (epochDays[i] - minDay);
+                quotes.putLong((day * units.length + currencyOrdinals[i]) * Long.BYTES, cells[i]);
+                datesWithQuotes.set(day);
+            }
+            return new RateStore(scale, minDay, days, units, datesWithQuotes, quotes);
+        }
+    }
+}
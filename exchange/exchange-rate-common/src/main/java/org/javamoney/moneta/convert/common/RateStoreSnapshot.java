@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryException;
+
+/**
+ * Reads and writes the quotes of a provider as a binary snapshot file, so a provider can serve the rates of its
+ * last load right after a restart, without parsing its feed. A snapshot consists of a header (magic number, format
+ * version, creation time), the quotes, and a CRC32 of all preceding bytes. Snapshots are replaced atomically where
+ * the file system supports it.
+ * <p>
+ * Quotes are either kept as a {@link RateStore}, written by {@link RateStore#writeTo(java.io.DataOutput)}, for
+ * feeds quoting most currencies on most days, or as a sparse list of (date, currency, quote) entries, see
+ * {@link #writeQuotes(Map, Path)}, for feeds with few quotes spread over many dates. Both kinds have their own
+ * magic number.
+ */
+public final class RateStoreSnapshot {
+
+    /**
+     * Magic number of snapshot files of a {@link RateStore}, {@code "JMRS"}.
+     */
+    private static final int MAGIC = 0x4A4D5253;
+
+    /**
+     * Magic number of snapshot files of sparse quotes, {@code "JMRQ"}.
+     */
+    private static final int QUOTES_MAGIC = 0x4A4D5251;
+
+    /**
+     * Version of the format, snapshots of other versions are ignored.
+     */
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+
+    private RateStoreSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot, replacing any existing snapshot.
+     *
+     * @param store the store, not null.
+     * @param file the snapshot file, missing parent directories are created.
+     * @throws IOException if writing fails, an existing snapshot is kept in this case.
+     */
+    public static void write(RateStore store, Path file) throws IOException {
+        Objects.requireNonNull(store);
+        write(file, MAGIC, store::writeTo);
+    }
+
+    /**
+     * Writes a snapshot of sparse quotes, replacing any existing snapshot. Quotes are kept exactly.
+     *
+     * @param quotes the quotes by date and term currency, not null.
+     * @param file the snapshot file, missing parent directories are created.
+     * @throws IOException if writing fails, an existing snapshot is kept in this case.
+     */
+    public static void writeQuotes(Map<LocalDate, Map<CurrencyUnit, BigDecimal>> quotes, Path file)
+        throws IOException {
+        Objects.requireNonNull(quotes);
+        write(file, QUOTES_MAGIC, out -> writeQuotes(quotes, out));
+    }
+
+    private static void write(Path file, int magic, Body body) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(
+                new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), crc))) {
+                out.writeInt(magic);
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                body.writeTo(out);
+                out.writeLong(crc.getValue());
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param file the snapshot file.
+     * @param scale the scale the quotes must have, snapshots of other scales are ignored.
+     * @param notBefore snapshots created before are considered stale and ignored.
+     * @return the store, or null if there is no snapshot or it is stale or of another format version.
+     * @throws IOException if reading fails or the snapshot is corrupt.
+     */
+    public static RateStore read(Path file, int scale, Instant notBefore) throws IOException {
+        DataInputStream in = open(file, MAGIC, notBefore);
+        if (Objects.isNull(in)) {
+            return null;
+        }
+        RateStore store = RateStore.readFrom(in);
+        if (in.available() > 0) {
+            throw new IOException("Corrupt rate snapshot, trailing data: " + file);
+        }
+        return store.getScale() == scale ? store : null;
+    }
+
+    /**
+     * Reads a snapshot of sparse quotes, written by {@link #writeQuotes(Map, Path)}.
+     *
+     * @param file the snapshot file.
+     * @param notBefore snapshots created before are considered stale and ignored.
+     * @return the quotes by date and term currency, or null if there is no snapshot or it is stale or of another
+     * format version.
+     * @throws IOException if reading fails or the snapshot is corrupt.
+     */
+    public static Map<LocalDate, Map<CurrencyUnit, BigDecimal>> readQuotes(Path file, Instant notBefore)
+        throws IOException {
+        DataInputStream in = open(file, QUOTES_MAGIC, notBefore);
+        if (Objects.isNull(in)) {
+            return null;
+        }
+        Map<LocalDate, Map<CurrencyUnit, BigDecimal>> quotes = readQuotes(in);
+        if (in.available() > 0) {
+            throw new IOException("Corrupt rate snapshot, trailing data: " + file);
+        }
+        return quotes;
+    }
+
+    /**
+     * Checks the header and checksum of a snapshot.
+     *
+     * @return the input positioned after the header, or null if there is no current snapshot of this version.
+     */
+    private static DataInputStream open(Path file, int magic, Instant notBefore) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        byte[] data = Files.readAllBytes(file);
+        if (data.length < HEADER_SIZE + Long.BYTES) {
+            throw new IOException("Truncated rate snapshot: " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.getInt(0) != magic) {
+            throw new IOException("Not a rate snapshot: " + file);
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - Long.BYTES);
+        if (crc.getValue() != buffer.getLong(data.length - Long.BYTES)) {
+            throw new IOException("Corrupt rate snapshot, checksum mismatch: " + file);
+        }
+        if (Instant.ofEpochMilli(buffer.getLong(Integer.BYTES * 2)).isBefore(notBefore)) {
+            return null;
+        }
+        return new DataInputStream(
+            new ByteArrayInputStream(data, HEADER_SIZE, data.length - HEADER_SIZE - Long.BYTES));
+    }
+
+    /**
+     * Writes the currency codes once, then per date its epoch day and the quotes as currency index, scale and
+     * unscaled bytes.
+     */
+    private static void writeQuotes(Map<LocalDate, Map<CurrencyUnit, BigDecimal>> quotes, DataOutput out)
+        throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> codes = new ArrayList<>();
+        Map<LocalDate, Map<CurrencyUnit, BigDecimal>> sorted = new TreeMap<>(quotes);
+        sorted.values().forEach(day -> day.keySet().forEach(currency ->
+            indexes.computeIfAbsent(currency.getCurrencyCode(), code -> {
+                codes.add(code);
+                return codes.size() - 1;
+            })));
+        out.writeInt(codes.size());
+        for (String code : codes) {
+            out.writeUTF(code);
+        }
+        out.writeInt(sorted.size());
+        for (Map.Entry<LocalDate, Map<CurrencyUnit, BigDecimal>> day : sorted.entrySet()) {
+            out.writeLong(day.getKey().toEpochDay());
+            out.writeInt(day.getValue().size());
+            for (Map.Entry<CurrencyUnit, BigDecimal> quote : day.getValue().entrySet()) {
+                byte[] unscaled = quote.getValue().unscaledValue().toByteArray();
+                out.writeShort(indexes.get(quote.getKey().getCurrencyCode()));
+                out.writeInt(quote.getValue().scale());
+                out.writeByte(unscaled.length);
+                out.write(unscaled);
+            }
+        }
+    }
+
+    private static Map<LocalDate, Map<CurrencyUnit, BigDecimal>> readQuotes(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > Short.MAX_VALUE) {
+            throw new IOException("Invalid currencies of rate snapshot: " + count);
+        }
+        CurrencyUnit[] currencies = new CurrencyUnit[count];
+        for (int i = 0; i < count; i++) {
+            String code = in.readUTF();
+            try {
+                currencies[i] = Monetary.getCurrency(code);
+            } catch (MonetaryException e) {
+                throw new IOException("Unknown currency in rate snapshot: " + code, e);
+            }
+        }
+        int days = in.readInt();
+        if (days < 0 || days > in.available()) {
+            throw new IOException("Invalid dates of rate snapshot: " + days);
+        }
+        Map<LocalDate, Map<CurrencyUnit, BigDecimal>> quotes = new HashMap<>();
+        for (int i = 0; i < days; i++) {
+            LocalDate date = LocalDate.ofEpochDay(in.readLong());
+            int size = in.readInt();
+            if (size < 0 || size > count) {
+                throw new IOException("Invalid quotes of rate snapshot: " + size);
+            }
+            Map<CurrencyUnit, BigDecimal> day = new HashMap<>();
+            for (int j = 0; j < size; j++) {
+                int index = in.readShort();
+                int scale = in.readInt();
+                byte[] unscaled = new byte[in.readUnsignedByte()];
+                if (index < 0 || index >= count || unscaled.length == 0) {
+                    throw new IOException("Invalid quote of rate snapshot: " + index);
+                }
+                in.readFully(unscaled);
+                day.put(currencies[index], new BigDecimal(new BigInteger(unscaled), scale));
+            }
+            quotes.put(date, day);
+        }
+        return quotes;
+    }
+
+    /**
+     * Writes the quotes of a snapshot.
+     */
+    @FunctionalInterface
+    private interface Body {
+        void writeTo(DataOutput out) throws IOException;
+    }
+}
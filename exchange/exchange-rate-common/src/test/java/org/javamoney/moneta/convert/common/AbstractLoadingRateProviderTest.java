@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.convert.ConversionContext;
+import javax.money.convert.ConversionQuery;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.ProviderContextBuilder;
+import javax.money.convert.RateType;
+
+import org.javamoney.moneta.convert.ExchangeRateBuilder;
+import org.javamoney.moneta.spi.DefaultNumberValue;
+import org.testng.annotations.Test;
+
+public class AbstractLoadingRateProviderTest {
+    private static final CurrencyUnit USD = Monetary.getCurrency("USD");
+    private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+    private static final CurrencyUnit CAD = Monetary.getCurrency("CAD");
+
+    private static final class TestProvider extends AbstractLoadingRateProvider {
+        private final Map<String, ExchangeRate> targets = new HashMap<>();
+
+        TestProvider() {
+            super(ProviderContextBuilder.of("TEST", RateType.HISTORIC).build(), "test", USD);
+            targets.put("EUR", rate(EUR, "0.8"));
+            targets.put("CAD", rate(CAD, "1.25"));
+        }
+
+        private static ExchangeRate rate(CurrencyUnit term, String factor) {
+            return new ExchangeRateBuilder(ConversionContext.of("TEST", RateType.HISTORIC)).setBase(USD).setTerm(term)
+                .setFactor(DefaultNumberValue.of(new BigDecimal(factor))).build();
+        }
+
+        @Override
+        protected String getDataId() {
+            return "AbstractLoadingRateProviderTest";
+        }
+
+        @Override
+        protected ExchangeRate getLoadedExchangeRate(ConversionQuery conversionQuery) {
+            return createCrossRates(targets).get(conversionQuery.getBaseCurrency().getCurrencyCode(),
+                conversionQuery.getCurrency().getCurrencyCode());
+        }
+    }
+
+    @Test
+    public void shouldCompleteAsyncRateWhenLoaded() throws Exception {
+        TestProvider provider = new TestProvider();
+        CompletableFuture<ExchangeRate> rate = provider.getExchangeRateAsync(EUR, CAD);
+        assertFalse(rate.isDone());
+        provider.loadFinished();
+        assertEquals(rate.get(10, TimeUnit.SECONDS).getFactor().numberValue(BigDecimal.class)
+            .compareTo(new BigDecimal("1.5625")), 0);
+        assertTrue(provider.getExchangeRateAsync(USD, EUR).isDone());
+    }
+
+    @Test
+    public void shouldCreateCrossRatesOfBaseCurrency() {
+        TestProvider provider = new TestProvider();
+        provider.loadFinished();
+        assertEquals(provider.getExchangeRate(USD, USD).getFactor().intValueExact(), 1);
+        assertEquals(provider.getExchangeRate(CAD, USD).getFactor().numberValue(BigDecimal.class)
+            .compareTo(new BigDecimal("0.8")), 0);
+        assertEquals(provider.getExchangeRate(EUR, CAD).getExchangeRateChain().size(), 2);
+    }
+
+    @Test
+    public void shouldReadAndWriteSnapshotFile() throws Exception {
+        String tempDir = System.getProperty("temp.dir");
+        Path dir = Files.createTempDirectory("loading-provider");
+        System.setProperty("temp.dir", dir.toString());
+        try {
+            TestProvider provider = new TestProvider();
+            Path file = provider.getSnapshotFile();
+            assertEquals(file, dir.resolve(".resourceCache").resolve("AbstractLoadingRateProviderTest.snapshot"));
+            assertNull(provider.readSnapshot(RateStoreSnapshot::readQuotes));
+            provider.writeSnapshot(path -> {
+                Files.createDirectories(path.getParent());
+                Files.write(path, new byte[] {1});
+            });
+            // a corrupt snapshot is ignored, the feed is loaded instead
+            assertTrue(Files.isRegularFile(file));
+            assertNull(provider.readSnapshot(RateStoreSnapshot::readQuotes));
+            Files.delete(file);
+            Files.delete(file.getParent());
+        } finally {
+            if (tempDir == null) {
+                System.clearProperty("temp.dir");
+            } else {
+                System.setProperty("temp.dir", tempDir);
+            }
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.convert.ConversionContext;
+import javax.money.convert.CurrencyConversion;
+import javax.money.convert.CurrencyConversionException;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.RateType;
+
+import org.javamoney.moneta.Money;
+import org.javamoney.moneta.convert.ExchangeRateBuilder;
+import org.javamoney.moneta.spi.DefaultNumberValue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BulkConversionTest {
+    private static final CurrencyUnit USD = Monetary.getCurrency("USD");
+    private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+    private static final CurrencyUnit JPY = Monetary.getCurrency("JPY");
+    private static final LocalDate MONDAY = LocalDate.of(2018, 3, 19);
+
+    private List<String> resolved;
+
+    @BeforeMethod
+    public void reset() {
+        resolved = new ArrayList<>();
+    }
+
+    private ExchangeRate resolve(CurrencyUnit base, CurrencyUnit term, LocalDate date) {
+        resolved.add(base.getCurrencyCode() + term.getCurrencyCode() + date);
+        if (term.equals(JPY)) {
+            return null;
+        }
+        BigDecimal factor = MONDAY.equals(date) ? new BigDecimal("2") : new BigDecimal("3");
+        return new ExchangeRateBuilder("TEST", RateType.HISTORIC).setBase(base).setTerm(term)
+            .setFactor(DefaultNumberValue.of(factor)).build();
+    }
+
+    @Test
+    public void shouldResolveEachPairAndDateOnce() {
+        List<MonetaryAmount> result = BulkConversion.convert(Arrays.asList(
+            ConversionRequest.of(Money.of(1, USD), EUR),
+            ConversionRequest.of(Money.of(2, USD), EUR, MONDAY),
+            ConversionRequest.of(Money.of(3, USD), EUR),
+            ConversionRequest.of(Money.of(4, EUR), USD),
+            ConversionRequest.of(Money.of(5, USD), EUR, MONDAY)), null, this::resolve);
+        assertEquals(result, Arrays.asList(Money.of(3, EUR), Money.of(4, EUR), Money.of(9, EUR), Money.of(12, USD),
+            Money.of(10, EUR)));
+        assertEquals(resolved, Arrays.asList("USDEURnull", "USDEUR" + MONDAY, "EURUSDnull"));
+    }
+
+    @Test
+    public void shouldKeepAmountsOfTermCurrency() {
+        MonetaryAmount amount = Money.of(7, USD);
+        List<MonetaryAmount> result = BulkConversion.convert(
+            Arrays.asList(ConversionRequest.of(amount, USD)), null, this::resolve);
+        assertSame(result.get(0), amount);
+        assertEquals(resolved.size(), 0);
+    }
+
+    @Test(expectedExceptions = CurrencyConversionException.class)
+    public void shouldFailWithoutRate() {
+        BulkConversion.convert(Arrays.asList(ConversionRequest.of(Money.of(1, USD), JPY)), null, this::resolve);
+    }
+
+    @Test
+    public void shouldKeepRateWithOtherContext() {
+        BulkConversion.FixedRateConversion conversion =
+            new BulkConversion.FixedRateConversion(null, resolve(USD, EUR, MONDAY));
+        ConversionContext context = ConversionContext.of("OTHER", RateType.ANY);
+        CurrencyConversion other = conversion.with(context);
+        assertEquals(other.getContext(), context);
+        assertEquals(other.getCurrency(), EUR);
+        assertEquals(Money.of(5, USD).with(other), Money.of(10, EUR));
+    }
+}
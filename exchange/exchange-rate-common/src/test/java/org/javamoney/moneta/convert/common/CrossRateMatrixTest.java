@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.money.Monetary;
+import javax.money.convert.ConversionContext;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.RateType;
+
+import org.javamoney.moneta.convert.ExchangeRateBuilder;
+import org.javamoney.moneta.spi.DefaultNumberValue;
+import org.testng.annotations.Test;
+
+public class CrossRateMatrixTest {
+    private static final List<String> CODES = Arrays.asList("USD", "EUR", "JPY");
+
+    private static ExchangeRate rate(String base, String term) {
+        return new ExchangeRateBuilder(ConversionContext.of("TEST", RateType.HISTORIC))
+            .setBase(Monetary.getCurrency(base)).setTerm(Monetary.getCurrency(term))
+            .setFactor(DefaultNumberValue.ONE).build();
+    }
+
+    @Test
+    public void shouldComputeCellsLazilyOnce() {
+        AtomicInteger created = new AtomicInteger();
+        CrossRateMatrix matrix = CrossRateMatrix.of(CODES, (base, term) -> {
+            created.incrementAndGet();
+            return rate(base, term);
+        }, CrossRateMatrix.Mode.LAZY);
+        assertEquals(created.get(), 0);
+        ExchangeRate rate = matrix.get("EUR", "JPY");
+        assertEquals(rate.getBaseCurrency().getCurrencyCode(), "EUR");
+        assertEquals(rate.getCurrency().getCurrencyCode(), "JPY");
+        assertSame(matrix.get("EUR", "JPY"), rate);
+        assertEquals(created.get(), 1);
+    }
+
+    @Test
+    public void shouldComputeAllCellsEagerly() {
+        AtomicInteger created = new AtomicInteger();
+        CrossRateMatrix matrix = CrossRateMatrix.of(CODES, (base, term) -> {
+            created.incrementAndGet();
+            return rate(base, term);
+        }, CrossRateMatrix.Mode.EAGER);
+        assertEquals(created.get(), 9);
+        matrix.get("JPY", "USD");
+        assertEquals(created.get(), 9);
+    }
+
+    @Test
+    public void shouldReturnNullForUnknownCurrencies() {
+        CrossRateMatrix matrix = CrossRateMatrix.of(CODES, CrossRateMatrixTest::rate, CrossRateMatrix.Mode.LAZY);
+        assertNull(matrix.get("EUR", "CHF"));
+    }
+
+    @Test
+    public void shouldParseModes() {
+        assertEquals(CrossRateMatrix.Mode.of(null), CrossRateMatrix.Mode.LAZY);
+        assertEquals(CrossRateMatrix.Mode.of(" eager "), CrossRateMatrix.Mode.EAGER);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RateStoreSnapshotTest {
+    private static final LocalDate MARCH_19 = LocalDate.of(2018, 3, 19);
+    private static final Instant EPOCH = Instant.EPOCH;
+    private static final int SCALE = 4;
+    private static final CurrencyUnit JPY = Monetary.getCurrency("JPY");
+    private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+    private static final CurrencyUnit CAD = Monetary.getCurrency("CAD");
+
+    private Path dir;
+    private Path file;
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("rate-snapshot");
+        file = dir.resolve("nested").resolve("rates.snapshot");
+    }
+
+    @AfterMethod
+    public void deleteDir() throws IOException {
+        Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+    }
+
+    private static RateStore quotes() {
+        RateStore.Builder builder = RateStore.newBuilder(SCALE);
+        for (int day = 0; day < 60; day++) {
+            if (day % 7 < 5) {
+                LocalDate date = MARCH_19.minusDays(day);
+                builder.add(date, JPY, new BigDecimal("105.83").add(BigDecimal.valueOf(day, 2)), false);
+                builder.add(date, EUR, new BigDecimal("1.2329").subtract(BigDecimal.valueOf(day, 4)), true);
+                if (day % 3 != 0) {
+                    builder.add(date, CAD, new BigDecimal("1.3078"), false);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void shouldRestoreWrittenStore() throws Exception {
+        RateStore store = quotes();
+        RateStoreSnapshot.write(store, file);
+        RateStore restored = RateStoreSnapshot.read(file, SCALE, EPOCH);
+        assertNotNull(restored);
+        assertEquals(restored.getDates(), store.getDates());
+        assertEquals(restored.getCurrencyCount(), store.getCurrencyCount());
+        for (int i = 0; i < store.getCurrencyCount(); i++) {
+            String code = store.getCurrency(i).getCurrencyCode();
+            for (LocalDate date : store.getDates()) {
+                assertEquals(restored.getQuote(date, code), store.getQuote(date, code));
+                assertEquals(restored.isInverse(date, code), store.isInverse(date, code));
+            }
+        }
+        assertEquals(restored.getQuote(MARCH_19, "EUR"), store.getQuote(MARCH_19, "EUR"));
+    }
+
+    @Test
+    public void shouldReplaceExistingSnapshot() throws Exception {
+        RateStoreSnapshot.write(quotes(), file);
+        RateStoreSnapshot.write(RateStore.newBuilder(SCALE).build(), file);
+        assertTrue(RateStoreSnapshot.read(file, SCALE, EPOCH).isEmpty());
+        assertEquals(Files.list(file.getParent()).count(), 1);
+    }
+
+    @Test
+    public void shouldIgnoreMissingSnapshot() throws Exception {
+        assertNull(RateStoreSnapshot.read(file, SCALE, EPOCH));
+    }
+
+    @Test
+    public void shouldIgnoreStaleSnapshot() throws Exception {
+        RateStoreSnapshot.write(quotes(), file);
+        assertNull(RateStoreSnapshot.read(file, SCALE,
+            Instant.now().plusSeconds(60)));
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotOfOtherScale() throws Exception {
+        RateStoreSnapshot.write(quotes(), file);
+        assertNull(RateStoreSnapshot.read(file, SCALE + 1, EPOCH));
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotOfOtherVersion() throws Exception {
+        RateStoreSnapshot.write(quotes(), file);
+        byte[] data = Files.readAllBytes(file);
+        data[7] = (byte) (RateStoreSnapshot.VERSION + 1);
+        Files.write(file, data);
+        assertNull(RateStoreSnapshot.read(file, SCALE, EPOCH));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void shouldRejectCorruptSnapshot() throws Exception {
+        RateStoreSnapshot.write(quotes(), file);
+        byte[] data = Files.readAllBytes(file);
+        data[data.length / 2] ^= 1;
+        Files.write(file, data);
+        RateStoreSnapshot.read(file, SCALE, EPOCH);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void shouldRejectTruncatedSnapshot() throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[] {0x4A, 0x4D});
+        RateStoreSnapshot.read(file, SCALE, EPOCH);
+    }
+
+    @Test
+    public void shouldRestoreWrittenQuotes() throws Exception {
+        Map<LocalDate, Map<CurrencyUnit, BigDecimal>> quotes = new HashMap<>();
+        for (int day = 0; day < 3650; day += 30) {
+            Map<CurrencyUnit, BigDecimal> rates = new HashMap<>();
+            rates.put(JPY, new BigDecimal("105.830001").add(BigDecimal.valueOf(day, 2)));
+            quotes.put(MARCH_19.minusDays(day), rates);
+        }
+        quotes.get(MARCH_19).put(CAD, new BigDecimal("1.30780000000000000001"));
+        RateStoreSnapshot.writeQuotes(quotes, file);
+        // sparse quotes over ten years stay small
+        assertTrue(Files.size(file) < 4096);
+        assertEquals(RateStoreSnapshot.readQuotes(file, EPOCH), quotes);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void shouldNotReadQuotesAsStore() throws Exception {
+        RateStoreSnapshot.writeQuotes(new HashMap<>(), file);
+        RateStoreSnapshot.read(file, SCALE, EPOCH);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.RateType;
+
+import org.javamoney.moneta.convert.ExchangeRateBuilder;
+import org.javamoney.moneta.spi.DefaultNumberValue;
+import org.testng.annotations.Test;
+
+public class RateStoreTest {
+    private static final LocalDate MONDAY = LocalDate.of(2018, 3, 19);
+    private static final CurrencyUnit USD = Monetary.getCurrency("USD");
+    private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+    private static final CurrencyUnit JPY = Monetary.getCurrency("JPY");
+
+    private static ExchangeRate create(LocalDate date, CurrencyUnit term, BigDecimal quote, boolean inverse) {
+        return new ExchangeRateBuilder("TEST", RateType.HISTORIC)
+            .setBase(inverse ? term : USD).setTerm(inverse ? USD : term).setFactor(DefaultNumberValue.of(quote))
+            .build();
+    }
+
+    private static RateStore week() {
+        return RateStore.newBuilder(4)
+            .add(MONDAY, JPY, new BigDecimal("105.83"), false)
+            .add(MONDAY, EUR, new BigDecimal("1.2329"), true)
+            .add(MONDAY.plusDays(4), JPY, new BigDecimal("104.7"), false)
+            .build();
+    }
+
+    @Test
+    public void shouldBuildEmptyStore() {
+        RateStore store = RateStore.newBuilder(4).build();
+        assertTrue(store.isEmpty());
+        assertEquals(store.getDateCount(), 0);
+        assertNull(store.getLatestDate());
+        assertFalse(store.hasQuotes(MONDAY));
+        assertNull(store.getQuote(MONDAY, "JPY"));
+        assertTrue(store.getRates(MONDAY, RateStoreTest::create).isEmpty());
+    }
+
+    @Test
+    public void shouldIndexQuotesByDateAndCurrency() {
+        RateStore store = week();
+        assertFalse(store.isEmpty());
+        assertEquals(store.getDateCount(), 2);
+        assertEquals(store.getDates(), Arrays.asList(MONDAY, MONDAY.plusDays(4)));
+        assertEquals(store.getLatestDate(), MONDAY.plusDays(4));
+        assertTrue(store.hasQuotes(MONDAY));
+        assertFalse(store.hasQuotes(MONDAY.plusDays(1)));
+        assertFalse(store.hasQuotes(MONDAY.minusDays(1)));
+        assertEquals(store.getCurrencyCount(), 2);
+        assertEquals(store.getCurrency(store.ordinal("EUR")), EUR);
+        assertEquals(store.ordinal("CHF"), -1);
+        assertEquals(store.getQuote(MONDAY, "JPY"), new BigDecimal("105.8300"));
+        assertFalse(store.isInverse(MONDAY, "JPY"));
+        assertEquals(store.getQuote(MONDAY, "EUR"), new BigDecimal("1.2329"));
+        assertTrue(store.isInverse(MONDAY, "EUR"));
+        assertNull(store.getQuote(MONDAY.plusDays(4), "EUR"));
+    }
+
+    @Test
+    public void shouldCreateRatesOfDate() {
+        Map<String, ExchangeRate> rates = week().getRates(MONDAY, RateStoreTest::create);
+        assertEquals(rates.size(), 2);
+        assertTrue(rates.containsKey("EUR"));
+        assertFalse(rates.containsKey("CHF"));
+        assertEquals(rates.get("JPY").getCurrency(), JPY);
+        assertEquals(rates.get("EUR").getBaseCurrency(), EUR);
+        assertNull(rates.get("CHF"));
+        assertEquals(week().getRates(MONDAY.plusDays(4), RateStoreTest::create).keySet().iterator().next(), "JPY");
+    }
+
+    @Test
+    public void shouldRoundQuotesToScale() {
+        RateStore store = RateStore.newBuilder(2).add(MONDAY, JPY, new BigDecimal("105.835"), false).build();
+        assertEquals(store.getQuote(MONDAY, "JPY"), new BigDecimal("105.84"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectNegativeQuotes() {
+        RateStore.newBuilder(4).add(MONDAY, JPY, new BigDecimal("-1"), false);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectQuotesExceedingScale() {
+        RateStore.newBuilder(18).add(MONDAY, JPY, new BigDecimal("100"), false);
+    }
+
+    @Test
+    public void shouldScanQuotedDaysOfRange() {
+        RateStore store = week();
+        List<String> visited = new ArrayList<>();
+        store.scan(LocalDate.MIN, LocalDate.MAX, store.ordinal("JPY"), store.ordinal("EUR"),
+            (day, first, second) -> visited.add(LocalDate.ofEpochDay(day) + ":" + first + ":" + second));
+        assertEquals(visited, Arrays.asList(MONDAY + ":1058300:-12329", MONDAY.plusDays(4) + ":1047000:0"));
+        visited.clear();
+        store.scan(MONDAY.plusDays(1), MONDAY.plusDays(3), 0, -1, (day, first, second) -> visited.add("" + day));
+        assertTrue(visited.isEmpty());
+        RateStore.newBuilder(4).build().scan(LocalDate.MIN, LocalDate.MAX, 0, 0,
+            (day, first, second) -> visited.add("" + day));
+        assertTrue(visited.isEmpty());
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.frb;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+import javax.money.CurrencyUnit;
+
+/**
+ * The daily rates between two currencies over a range of dates, as returned by
+ * {@link USFederalReserveRateProvider#getRateSeries(CurrencyUnit, CurrencyUnit, LocalDate, LocalDate, GapFill)}.
+ * Dates and factors are kept in primitive arrays, factors as unscaled values of a fixed {@link #getScale() scale}.
+ * Entries are ordered by date. Instances are immutable.
+ */
+public final class RateSeries {
+
+    /**
+     * How days without quotes within the range are handled.
+     */
+    public enum GapFill {
+        /** Only days with quotes are part of the series. */
+        NONE,
+        /**
+         * Every day of the range is part of the series, starting with the first day a rate is known and ending with
+         * the latest day of the loaded rates. Days without quotes, such as weekends and holidays, repeat the
+         * previous rate, which may be quoted before the range. The range may span at most {@link #MAX_FILLED_DAYS}.
+         */
+        PREVIOUS
+    }
+
+    /**
+     * The maximal number of days of the range of a series with {@link GapFill#PREVIOUS}, about a century.
+     */
+    public static final int MAX_FILLED_DAYS = 36_600;
+
+    private final CurrencyUnit baseCurrency;
+    private final CurrencyUnit currency;
+    private final int scale;
+    private final long[] days;
+    private final long[] factors;
+    private final BitSet filled;
+
+    private RateSeries(Builder builder) {
+        this.baseCurrency = builder.baseCurrency;
+        this.currency = builder.currency;
+        this.scale = builder.scale;
+        this.days = Arrays.copyOf(builder.days, builder.size);
+        this.factors = Arrays.copyOf(builder.factors, builder.size);
+        this.filled = (BitSet) builder.filled.clone();
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @param baseCurrency the base currency, not null.
+     * @param currency the term currency, not null.
+     * @param scale the scale of the unscaled factors.
+     * @param from the first date of the series, inclusive.
+     * @param to the last date of the series, inclusive.
+     * @param latest the latest date of the loaded rates, gaps are not filled after it, null if there are none.
+     * @param gapFill the handling of days without quotes, not null.
+     * @return the new builder.
+     * @throws IllegalArgumentException if the range is empty, or exceeds {@link #MAX_FILLED_DAYS} with
+     * {@link GapFill#PREVIOUS}.
+     */
+    static Builder newBuilder(CurrencyUnit baseCurrency, CurrencyUnit currency, int scale, LocalDate from,
+        LocalDate to, LocalDate latest, GapFill gapFill) {
+        return new Builder(baseCurrency, currency, scale, from, to, latest, gapFill);
+    }
+
+    /**
+     * The base currency of the rates.
+     *
+     * @return the base currency.
+     */
+    public CurrencyUnit getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * The term currency of the rates.
+     *
+     * @return the term currency.
+     */
+    public CurrencyUnit getCurrency() {
+        return currency;
+    }
+
+    /**
+     * The number of entries.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return days.length;
+    }
+
+    /**
+     * Checks if there are no entries.
+     *
+     * @return true, if the series is empty.
+     */
+    public boolean isEmpty() {
+        return days.length == 0;
+    }
+
+    /**
+     * The date of an entry.
+     *
+     * @param index the index, 0 to {@link #size()} - 1.
+     * @return the date.
+     */
+    public LocalDate getDate(int index) {
+        return LocalDate.ofEpochDay(days[index]);
+    }
+
+    /**
+     * The factor of an entry.
+     *
+     * @param index the index, 0 to {@link #size()} - 1.
+     * @return the factor, at {@link #getScale()}.
+     */
+    public BigDecimal getFactor(int index) {
+        return BigDecimal.valueOf(factors[index], scale);
+    }
+
+    /**
+     * The factor of an entry without creating a {@link BigDecimal}.
+     *
+     * @param index the index, 0 to {@link #size()} - 1.
+     * @return the factor, unscaled by {@link #getScale()}.
+     */
+    public long getUnscaledFactor(int index) {
+        return factors[index];
+    }
+
+    /**
+     * The number of fraction digits of the factors.
+     *
+     * @return the scale.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Checks if an entry repeats a previous rate, see {@link GapFill#PREVIOUS}.
+     *
+     * @param index the index, 0 to {@link #size()} - 1.
+     * @return true, if there were no quotes on the entry's date.
+     */
+    public boolean isFilled(int index) {
+        if (index < 0 || index >= days.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + days.length);
+        }
+        return filled.get(index);
+    }
+
+    /**
+     * Access the index of a date.
+     *
+     * @param date the date, not null.
+     * @return the index, or -1 if the date is not part of the series.
+     */
+    public int indexOf(LocalDate date) {
+        int index = Arrays.binarySearch(days, date.toEpochDay());
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public String toString() {
+        return "RateSeries{" +
+            "baseCurrency=" + baseCurrency +
+            ", currency=" + currency +
+            ", size=" + days.length +
+            (days.length == 0 ? "" : ", from=" + getDate(0) + ", to=" + getDate(days.length - 1)) +
+            '}';
+    }
+
+    /**
+     * Collects the factors of the quoted days in ascending order and fills gaps. Builders are not thread-safe.
+     */
+    static final class Builder {
+        private final CurrencyUnit baseCurrency;
+        private final CurrencyUnit currency;
+        private final int scale;
+        private final long from;
+        private final long to;
+        private final long fillTo;
+        private final GapFill gapFill;
+        private long[] days = new long[16];
+        private long[] factors = new long[16];
+        private final BitSet filled = new BitSet();
+        private int size;
+        private boolean hasPrevious;
+        private long previousFactor;
+
+        private Builder(CurrencyUnit baseCurrency, CurrencyUnit currency, int scale, LocalDate from, LocalDate to,
+            LocalDate latest, GapFill gapFill) {
+            this.baseCurrency = Objects.requireNonNull(baseCurrency, "Base currency required.");
+            this.currency = Objects.requireNonNull(currency, "Currency required.");
+            this.scale = scale;
+            this.from = from.toEpochDay();
+            this.to = to.toEpochDay();
+            this.fillTo = Objects.isNull(latest) ? this.from - 1 : Math.min(this.to, latest.toEpochDay());
+            this.gapFill = Objects.requireNonNull(gapFill, "Gap fill required.");
+            if (this.from > this.to) {
+                throw new IllegalArgumentException("Range is empty: " + from + " - " + to);
+            }
+            if (gapFill == GapFill.PREVIOUS && this.to - this.from >= MAX_FILLED_DAYS) {
+                throw new IllegalArgumentException("Range exceeds " + MAX_FILLED_DAYS + " days: " + from + " - " + to);
+            }
+        }
+
+        /**
+         * Adds the factor of a quoted day. Days must be added in ascending order, days before the range only
+         * provide the previous rate of {@link GapFill#PREVIOUS}, days after the range are ignored.
+         *
+         * @param epochDay the day.
+         * @param unscaledFactor the factor, unscaled by the scale of the series.
+         * @return this builder, for chaining.
+         */
+        Builder add(long epochDay, long unscaledFactor) {
+            if (epochDay > to) {
+                return this;
+            }
+            if (epochDay >= from) {
+                fillUntil(epochDay);
+                append(epochDay, unscaledFactor, false);
+            }
+            hasPrevious = true;
+            previousFactor = unscaledFactor;
+            return this;
+        }
+
+        private void fillUntil(long epochDay) {
+            if (gapFill != GapFill.PREVIOUS || !hasPrevious) {
+                return;
+            }
+            for (long day = size == 0 ? from : days[size - 1] + 1; day < epochDay; day++) {
+                append(day, previousFactor, true);
+            }
+        }
+
+        private void append(long epochDay, long unscaledFactor, boolean gap) {
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                factors = Arrays.copyOf(factors, size * 2);
+            }
+            days[size] = epochDay;
+            factors[size] = unscaledFactor;
+            if (gap) {
+                filled.set(size);
+            }
+            size++;
+        }
+
+        /**
+         * Creates the series, filling the days up to the end of the range or the latest date if required.
+         *
+         * @return the new series.
+         */
+        RateSeries build() {
+            fillUntil(fillTo + 1);
+            return new RateSeries(this);
+        }
+    }
+}
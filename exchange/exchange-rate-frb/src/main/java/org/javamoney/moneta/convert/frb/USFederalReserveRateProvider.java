@@ -18,18 +18,15 @@
 package org.javamoney.moneta.convert.frb;
 
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.math.MathContext;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -37,20 +34,26 @@ import java.util.stream.Stream;
 
 import javax.money.CurrencyUnit;
 import javax.money.Monetary;
+import javax.money.MonetaryAmount;
 import javax.money.MonetaryException;
 import javax.money.convert.ConversionContext;
+import javax.money.convert.ConversionContextBuilder;
 import javax.money.convert.ConversionQuery;
+import javax.money.convert.ConversionQueryBuilder;
 import javax.money.convert.CurrencyConversionException;
 import javax.money.convert.ExchangeRate;
 import javax.money.convert.ProviderContext;
 import javax.money.convert.ProviderContextBuilder;
 import javax.money.convert.RateType;
 import javax.money.spi.Bootstrap;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.javamoney.moneta.convert.ExchangeRateBuilder;
-import org.javamoney.moneta.spi.AbstractRateProvider;
+import org.javamoney.moneta.convert.common.AbstractLoadingRateProvider;
+import org.javamoney.moneta.convert.common.BulkConversion;
+import org.javamoney.moneta.convert.common.ConversionRequest;
+import org.javamoney.moneta.convert.common.CrossRateMatrix;
+import org.javamoney.moneta.convert.common.RateStore;
+import org.javamoney.moneta.convert.common.RateStoreSnapshot;
 import org.javamoney.moneta.spi.DefaultNumberValue;
 import org.javamoney.moneta.spi.loader.LoaderService;
 import org.javamoney.moneta.spi.loader.LoaderService.LoaderListener;
@@ -64,7 +67,7 @@ import org.javamoney.moneta.spi.loader.LoaderService.LoaderListener;
 * with each re-load.
 * </p>
 */
-public class USFederalReserveRateProvider extends AbstractRateProvider implements LoaderListener {
+public class USFederalReserveRateProvider extends AbstractLoadingRateProvider implements LoaderListener {
 
     private static final Logger LOG = Logger.getLogger(USFederalReserveRateProvider.class.getName());
 
@@ -72,6 +75,8 @@ public class USFederalReserveRateProvider extends AbstractRateProvider implement
 
     protected static final String BASE_CURRENCY_CODE = "USD";
 
+    private static final String CONFIG_PREFIX = "frb";
+
     /**
      * Base currency of the loaded rates is always USD.
      */
@@ -84,32 +89,22 @@ public class USFederalReserveRateProvider extends AbstractRateProvider implement
             .set("providerDescription", "Federal Reserve Bank of the United States").build();
 
     /**
-     * Historic exchange rates, rate timestamp as UTC long.
-     */
-    private final Map<LocalDate, Map<String, ExchangeRate>> rates = new ConcurrentHashMap<>();
-
-    /**
-     * Parser factory.
+     * The rates of the last load, replaced as a whole on each load, null before the first load.
      */
-    private final SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
-
-    protected volatile String loadState;
-
-    protected final CountDownLatch loadLock = new CountDownLatch(1);
+    private volatile LoadedRates current;
 
 
     public USFederalReserveRateProvider() {
-        super(CONTEXT);
+        super(CONTEXT, CONFIG_PREFIX, BASE_CURRENCY);
         initalize();
     }
 
     public USFederalReserveRateProvider(ProviderContext providerContext) {
-        super(providerContext);
+        super(providerContext, CONFIG_PREFIX, BASE_CURRENCY);
         initalize();
     }
     private void initalize() {
-        saxParserFactory.setNamespaceAware(false);
-        saxParserFactory.setValidating(false);
+        restoreSnapshot();
         LoaderService loader = Bootstrap.getService(LoaderService.class);
         loader.addLoaderListener(this, getDataId());
         try {
@@ -119,84 +114,249 @@ public class USFederalReserveRateProvider extends AbstractRateProvider implement
         }
     }
 
-    private String getDataId() {
+    @Override
+    protected String getDataId() {
         return DATA_ID;
     }
 
-    @Override
-    public ExchangeRate getExchangeRate(ConversionQuery conversionQuery) {
-        Objects.requireNonNull(conversionQuery);
-        try {
-            if (loadLock.await(30, TimeUnit.SECONDS)) {
-                if (rates.isEmpty()) {
-                    return null;
-                }
-                RateResult result = findExchangeRate(conversionQuery);
-                ExchangeRateBuilder builder = getBuilder(conversionQuery, result.date);
-                ExchangeRate sourceRate = result.targets.get(conversionQuery.getBaseCurrency().getCurrencyCode());
-                ExchangeRate target = result.targets.get(conversionQuery.getCurrency().getCurrencyCode());
-                return createExchangeRate(conversionQuery, builder, sourceRate, target);
-            }else{
-                throw new MonetaryException("Failed to load currency conversion data: " + loadState);
+    /**
+     * Publishes the rates of the last snapshot, if there is a current one, so queries are served before the feed
+     * is loaded.
+     */
+    private void restoreSnapshot() {
+        RateStore snapshot = readSnapshot((file, notBefore) ->
+            RateStoreSnapshot.read(file, USFederalReserveRateReader.QUOTE_SCALE, notBefore));
+        if (Objects.nonNull(snapshot) && !snapshot.isEmpty()) {
+            publish(snapshot);
+            snapshotRestored(snapshot.getDateCount());
+        }
+    }
+
+    /**
+     * Publishes new rates with a single write, after the cross rates of eager mode are created, so queries
+     * never see partially loaded rates nor wait for a load.
+     */
+    private void publish(RateStore newStore) {
+        LoadedRates rates = new LoadedRates(newStore);
+        if (getCrossRateMode() == CrossRateMatrix.Mode.EAGER) {
+            for (LocalDate date : newStore.getDates()) {
+                rates.crossRates.put(date, createCrossRates(newStore.getRates(date, this::createRate)));
+            }
+        }
+        this.current = rates;
+    }
+
+    /**
+     * Converts a batch of amounts. Requests are grouped by currency pair and date, and the rate of each group is
+     * resolved once, all from the same loaded rates. Blocks like {@link #getExchangeRate(ConversionQuery)} until
+     * the rates are loaded.
+     *
+     * @param requests the requests, not null.
+     * @return the converted amounts, in the order of the requests.
+     * @throws CurrencyConversionException if the rate of a request is not available.
+     */
+    public List<MonetaryAmount> convert(List<ConversionRequest> requests) {
+        Objects.requireNonNull(requests);
+        LoadedRates rates = awaitLoadedRates();
+        return BulkConversion.convert(requests, this, (base, term, date) -> {
+            ConversionQueryBuilder query = ConversionQueryBuilder.of().setBaseCurrency(base).setTermCurrency(term);
+            if (Objects.nonNull(date)) {
+                query.set(LocalDate.class, date);
             }
+            return getExchangeRate(rates, query.build());
+        });
+    }
+
+    /**
+     * Access the daily rates between two currencies over a range of dates. The series is computed with a single
+     * scan over the loaded quotes of the range, without creating {@link ExchangeRate} instances. Factors have the
+     * scale of the loaded quotes, cross rates are rounded half even to it. Blocks like
+     * {@link #getExchangeRate(ConversionQuery)} until the rates are loaded.
+     *
+     * @param base the base currency, not null.
+     * @param term the term currency, not null.
+     * @param from the first date, inclusive, not null.
+     * @param to the last date, inclusive, not null.
+     * @param gapFill the handling of days without quotes, not null.
+     * @return the series, empty if there are no rates within the range.
+     * @throws IllegalArgumentException if {@code from} is after {@code to}, or the range exceeds
+     * {@link RateSeries#MAX_FILLED_DAYS} with {@link RateSeries.GapFill#PREVIOUS}.
+     * @throws CurrencyConversionException if one of the currencies is not quoted by this provider.
+     */
+    public RateSeries getRateSeries(CurrencyUnit base, CurrencyUnit term, LocalDate from, LocalDate to,
+        RateSeries.GapFill gapFill) {
+        Objects.requireNonNull(from, "From required.");
+        Objects.requireNonNull(to, "To required.");
+        LoadedRates rates = awaitLoadedRates();
+        RateStore store = Objects.isNull(rates) ? RateStore.newBuilder(USFederalReserveRateReader.QUOTE_SCALE).build()
+            : rates.store;
+        RateSeries.Builder series = RateSeries.newBuilder(base, term, store.getScale(), from, to,
+            store.getLatestDate(), gapFill);
+        int baseOrdinal = getOrdinal(store, base, term);
+        int termOrdinal = getOrdinal(store, term, base);
+        store.scan(gapFill == RateSeries.GapFill.PREVIOUS ? LocalDate.MIN : from, to, baseOrdinal, termOrdinal,
+            (epochDay, baseCell, termCell) -> {
+                if ((baseOrdinal < 0 || baseCell != 0) && (termOrdinal < 0 || termCell != 0)) {
+                    BigDecimal factor = perDollar(termCell, store.getScale())
+                        .divide(perDollar(baseCell, store.getScale()), MathContext.DECIMAL64);
+                    series.add(epochDay, factor.setScale(store.getScale(), RoundingMode.HALF_EVEN).unscaledValue()
+                        .longValueExact());
+                }
+            });
+        return series.build();
+    }
+
+    /**
+     * Access the daily rates between two currencies over a range of dates, with days with quotes only.
+     *
+     * @param base the base currency, not null.
+     * @param term the term currency, not null.
+     * @param from the first date, inclusive, not null.
+     * @param to the last date, inclusive, not null.
+     * @return the series, see {@link #getRateSeries(CurrencyUnit, CurrencyUnit, LocalDate, LocalDate,
+     * RateSeries.GapFill)}.
+     */
+    public RateSeries getRateSeries(CurrencyUnit base, CurrencyUnit term, LocalDate from, LocalDate to) {
+        return getRateSeries(base, term, from, to, RateSeries.GapFill.NONE);
+    }
+
+    /**
+     * The ordinal of a currency in the store, -1 for the base currency of the feed.
+     */
+    private static int getOrdinal(RateStore store, CurrencyUnit currency, CurrencyUnit other) {
+        if (BASE_CURRENCY_CODE.equals(currency.getCurrencyCode())) {
+            return -1;
+        }
+        int ordinal = store.ordinal(currency.getCurrencyCode());
+        if (ordinal < 0) {
+            throw new CurrencyConversionException(currency, other, null, "Currency is not quoted by FRB.");
         }
-        catch(InterruptedException e){
-            throw new MonetaryException("Failed to load currency conversion data: Load task has been interrupted.", e);
+        return ordinal;
+    }
+
+    /**
+     * The amount of a currency per dollar of a cell, see {@link RateStore#scan}, a cell of 0 is the dollar.
+     */
+    private static BigDecimal perDollar(long cell, int scale) {
+        if (cell == 0) {
+            return BigDecimal.ONE;
         }
+        BigDecimal quote = BigDecimal.valueOf(Math.abs(cell), scale);
+        return cell < 0 ? BigDecimal.ONE.divide(quote, MathContext.DECIMAL64) : quote;
+    }
+
+    /**
+     * Waits until the rates are loaded, like {@link #getExchangeRate(ConversionQuery)}.
+     *
+     * @return the loaded rates, null if no rates could be loaded.
+     */
+    private LoadedRates awaitLoadedRates() {
+        awaitLoaded();
+        return this.current;
+    }
+
+    @Override
+    protected ExchangeRate getLoadedExchangeRate(ConversionQuery conversionQuery) {
+        return getExchangeRate(this.current, conversionQuery);
+    }
+
+    private ExchangeRate getExchangeRate(LoadedRates rates, ConversionQuery conversionQuery) {
+        if (Objects.isNull(rates) || rates.store.isEmpty()) {
+            return null;
+        }
+        RateResult result = findExchangeRate(rates, conversionQuery);
+        ExchangeRate rate = getCrossRates(result).get(conversionQuery.getBaseCurrency().getCurrencyCode(),
+            conversionQuery.getCurrency().getCurrencyCode());
+        if (Objects.nonNull(rate)) {
+            return rate;
+        }
+        ExchangeRateBuilder builder = getBuilder(conversionQuery, result.date);
+        ExchangeRate sourceRate = result.getTargets().get(conversionQuery.getBaseCurrency().getCurrencyCode());
+        ExchangeRate target = result.getTargets().get(conversionQuery.getCurrency().getCurrencyCode());
+        return createExchangeRate(rates, conversionQuery, builder, sourceRate, target);
     }
 
     private ExchangeRateBuilder getBuilder(ConversionQuery query, LocalDate localDate) {
-        ExchangeRateBuilder builder = new ExchangeRateBuilder(getExchangeContext("frb.digit.fraction"));
+        ExchangeRateBuilder builder = new ExchangeRateBuilder(getExchangeContext());
         builder.setBase(query.getBaseCurrency());
         builder.setTerm(query.getCurrency());
         return builder;
     }
 
+    private CrossRateMatrix getCrossRates(RateResult result) {
+        CrossRateMatrix crossRates = result.rates.crossRates.get(result.date);
+        if (Objects.nonNull(crossRates)) {
+            return crossRates;
+        }
+        return result.rates.crossRates.computeIfAbsent(result.date,
+            date -> createCrossRates(result.getTargets()));
+    }
+
+    /**
+     * Creates the rate of a quote of the feed, see {@link RateStore.RateFactory}.
+     */
+    private ExchangeRate createRate(LocalDate localDate, CurrencyUnit term, BigDecimal quote, boolean inverse) {
+        ExchangeRateBuilder builder = new ExchangeRateBuilder(
+            ConversionContextBuilder.create(getContext(), RateType.HISTORIC).set(localDate).build());
+        builder.setBase(inverse ? term : BASE_CURRENCY);
+        builder.setTerm(inverse ? BASE_CURRENCY : term);
+        builder.setFactor(DefaultNumberValue.of(quote));
+        ExchangeRate exchangeRate = builder.build();
+        return inverse ? reverse(exchangeRate) : exchangeRate;
+    }
+
+    /**
+     * Checks if a load ends before the current rates, e.g. the bundled feed loaded after a newer snapshot was
+     * restored. Such a load neither replaces the current rates nor the snapshot.
+     */
+    private static boolean isOutdatedBy(RateStore newStore, LoadedRates oldRates) {
+        if (Objects.isNull(oldRates) || oldRates.store.isEmpty()) {
+            return false;
+        }
+        LocalDate latest = newStore.getLatestDate();
+        return Objects.isNull(latest) || latest.isBefore(oldRates.store.getLatestDate());
+    }
+
     @Override
     public void newDataLoaded(String resourceId, InputStream is) {
-        final int oldSize = this.rates.size();
+        final LoadedRates oldRates = this.current;
+        final int oldSize = Objects.isNull(oldRates) ? 0 : oldRates.store.getDateCount();
         try {
-            Map<LocalDate, Map<String, ExchangeRate>> newRates = new HashMap<>();
-            SAXParser parser = saxParserFactory.newSAXParser();
-            parser.parse(is, new USFederalReserveRateReadingHandler(newRates, getContext()));
-
-            //Remove any older rates so the map continually only has one week of rates cached
-            Set<LocalDate> existingDates = new HashSet<>(rates.keySet());
-            rates.putAll(newRates);
-            for(LocalDate ld : existingDates) {
-                if(!newRates.containsKey(ld)) {
-                    rates.remove(ld);
-                }
+            // Replaces all older rates, so only the rates of the last load are cached
+            RateStore newStore = new USFederalReserveRateReader().read(is);
+            if (isOutdatedBy(newStore, oldRates)) {
+                loadState = "Kept exchange rates up to " + oldRates.store.getLatestDate() + ", " + resourceId
+                    + " ends at " + newStore.getLatestDate();
+                LOG.info(loadState);
+                return;
+            }
+            publish(newStore);
+            if (!newStore.isEmpty()) {
+                writeSnapshot(file -> RateStoreSnapshot.write(newStore, file));
             }
-            int newSize = this.rates.size();
+            int newSize = newStore.getDateCount();
             loadState = "Loaded " + resourceId + " exchange rates for days:" + (newSize - oldSize);
             LOG.info(loadState);
         } catch (Exception e) {
             loadState = "Last Error during data load: " + e.getMessage();
             LOG.log(Level.FINEST, "Error during data load.", e);
         } finally{
-            loadLock.countDown();
+            loadFinished();
         }
     }
 
-    private RateResult findExchangeRate(ConversionQuery conversionQuery) {
+    private RateResult findExchangeRate(LoadedRates rates, ConversionQuery conversionQuery) {
         LocalDate[] dates = getQueryDates(conversionQuery);
         if (dates == null) {
-            Comparator<LocalDate> comparator = Comparator.naturalOrder();
-            LocalDate date =
-                this.rates
-                    .keySet()
-                    .stream()
-                    .sorted(comparator.reversed())
-                    .findFirst()
-                    .orElseThrow(
-                        () -> new MonetaryException("There is not more recent exchange rate to rate on " + getDataId()));
-            return new RateResult(date, this.rates.get(date));
+            LocalDate date = rates.store.getLatestDate();
+            if (Objects.isNull(date)) {
+                throw new MonetaryException("There is not more recent exchange rate to rate on " + getDataId());
+            }
+            return new RateResult(rates, date);
         } else {
             for (LocalDate localDate : dates) {
-                Map<String, ExchangeRate> targets = this.rates.get(localDate);
-                if (Objects.nonNull(targets)) {
-                    return new RateResult(localDate, targets);
+                if (rates.store.hasQuotes(localDate)) {
+                    return new RateResult(rates, localDate);
                 }
             }
             String datesOnErros =
@@ -207,7 +367,7 @@ public class USFederalReserveRateProvider extends AbstractRateProvider implement
         }
     }
 
-    private ExchangeRate createExchangeRate(ConversionQuery query, ExchangeRateBuilder builder,
+    private ExchangeRate createExchangeRate(LoadedRates rates, ConversionQuery query, ExchangeRateBuilder builder,
         ExchangeRate sourceRate, ExchangeRate target) {
 
         if (areBothBaseCurrencies(query)) {
@@ -222,16 +382,20 @@ public class USFederalReserveRateProvider extends AbstractRateProvider implement
             return target;
         } else {
 
-            ExchangeRate rate1 =
-                getExchangeRate(query.toBuilder().setTermCurrency(Monetary.getCurrency(BASE_CURRENCY_CODE)).build());
-            ExchangeRate rate2 =
-                getExchangeRate(query.toBuilder().setBaseCurrency(Monetary.getCurrency(BASE_CURRENCY_CODE))
+            ExchangeRate rate1 = getExchangeRate(rates,
+                query.toBuilder().setTermCurrency(Monetary.getCurrency(BASE_CURRENCY_CODE)).build());
+            ExchangeRate rate2 = getExchangeRate(rates,
+                query.toBuilder().setBaseCurrency(Monetary.getCurrency(BASE_CURRENCY_CODE))
                     .setTermCurrency(query.getCurrency()).build());
             if (Objects.nonNull(rate1) && Objects.nonNull(rate2)) {
                 builder.setFactor(multiply(rate1.getFactor(), rate2.getFactor()));
                 builder.setRateChain(rate1, rate2);
                 return builder.build();
             }
+            if (Objects.isNull(sourceRate)) {
+                throw new CurrencyConversionException(query.getBaseCurrency(), query.getCurrency(), null,
+                    "No rate available for " + query.getBaseCurrency().getCurrencyCode() + '.');
+            }
             throw new CurrencyConversionException(query.getBaseCurrency(), query.getCurrency(), sourceRate.getContext());
         }
     }
@@ -241,22 +405,40 @@ public class USFederalReserveRateProvider extends AbstractRateProvider implement
             && BASE_CURRENCY_CODE.equals(query.getCurrency().getCurrencyCode());
     }
 
-    protected static ExchangeRate reverse(ExchangeRate rate) {
-        if (Objects.isNull(rate)) {
-            throw new IllegalArgumentException("Rate null is not reversible.");
-        }
-        return new ExchangeRateBuilder(rate).setRate(rate).setBase(rate.getCurrency()).setTerm(rate.getBaseCurrency())
-            .setFactor(divide(DefaultNumberValue.ONE, rate.getFactor(), MathContext.DECIMAL64)).build();
-    }
-
     private class RateResult {
+        private final LoadedRates rates;
+
         private final LocalDate date;
 
-        private final Map<String, ExchangeRate> targets;
+        private Map<String, ExchangeRate> targets;
 
-        RateResult(LocalDate date, Map<String, ExchangeRate> targets) {
+        RateResult(LoadedRates rates, LocalDate date) {
+            this.rates = rates;
             this.date = date;
-            this.targets = targets;
+        }
+
+        /**
+         * Access the rates of the quotes of the date, only needed if its cross rates are not created yet.
+         */
+        Map<String, ExchangeRate> getTargets() {
+            if (Objects.isNull(targets)) {
+                targets = rates.store.getRates(date, USFederalReserveRateProvider.this::createRate);
+            }
+            return targets;
+        }
+    }
+
+    /**
+     * The immutable quotes of a load, together with the cross rates derived from them, see
+     * {@link CrossRateMatrix}. Cross rates are only added, so readers never need to lock.
+     */
+    private static final class LoadedRates {
+        private final RateStore store;
+
+        private final Map<LocalDate, CrossRateMatrix> crossRates = new ConcurrentHashMap<>();
+
+        LoadedRates(RateStore store) {
+            this.store = store;
         }
     }
 
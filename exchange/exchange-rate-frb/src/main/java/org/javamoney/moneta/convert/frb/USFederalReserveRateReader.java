@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.frb;
+
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.javamoney.moneta.convert.common.RateStore;
+
+/**
+ * StAX based reader of the H.10 feed. The reader pulls the {@code description}, {@code dc:date} and
+ * {@code cb:value} nodes of each item into reusable character buffers, parses each distinct date only once and
+ * resolves the {@code units} attribute with a shared lookup table instead of a regular expression. The quotes are
+ * collected into a {@link RateStore}. Instances are not thread-safe, create one per load.
+ */
+final class USFederalReserveRateReader {
+
+    private static final String DC_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+    private static final String CB_NAMESPACE = "http://www.cbwiki.net/wiki/index.php/Specification_1.1";
+    private static final String UNITS_PREFIX = "Currency:_Per_";
+
+    /**
+     * The fraction digits kept of the quotes, the feed publishes four.
+     */
+    static final int QUOTE_SCALE = 8;
+
+    /**
+     * Configured once, {@link XMLInputFactory#createXMLStreamReader(InputStream)} is safe for concurrent use.
+     */
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    /**
+     * Term currencies by {@code units} attribute, empty for units that are no currency (e.g. indices).
+     */
+    private static final Map<String, Optional<CurrencyUnit>> CURRENCIES_BY_UNITS = new ConcurrentHashMap<>();
+
+    private static final Map<String, CurrencyUnit> CURRENCIES_BY_NAME;
+
+    static {
+        Map<String, CurrencyUnit> currenciesByName = new HashMap<>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            currenciesByName.put(currency.getDisplayName(Locale.ENGLISH),
+                Monetary.getCurrency(currency.getCurrencyCode()));
+        }
+        currenciesByName.put("Brazil Real", Monetary.getCurrency("BRL"));
+        currenciesByName.put("Canada Dollar", Monetary.getCurrency("CAD"));
+        currenciesByName.put("China, P.R. Yuan", Monetary.getCurrency("CNY"));
+        currenciesByName.put("Denmark Krone", Monetary.getCurrency("DKK"));
+        currenciesByName.put("EMU member countries Euro", Monetary.getCurrency("EUR"));
+        currenciesByName.put("India Rupee", Monetary.getCurrency("INR"));
+        currenciesByName.put("Japan Yen", Monetary.getCurrency("JPY"));
+        currenciesByName.put("Malaysia Ringgit", Monetary.getCurrency("MYR"));
+        currenciesByName.put("Mexico Peso", Monetary.getCurrency("MXN"));
+        currenciesByName.put("Norway Krone", Monetary.getCurrency("NOK"));
+        currenciesByName.put("South Africa Rand", Monetary.getCurrency("ZAR"));
+        currenciesByName.put("South Korea Won", Monetary.getCurrency("KRW"));
+        currenciesByName.put("Sri Lanka Rupee", Monetary.getCurrency("LKR"));
+        currenciesByName.put("Sweden Krona", Monetary.getCurrency("SEK"));
+        currenciesByName.put("Switzerland Franc", Monetary.getCurrency("CHF"));
+        currenciesByName.put("Thailand Baht", Monetary.getCurrency("THB"));
+        currenciesByName.put("Taiwan Dollar", Monetary.getCurrency("TWD"));
+        currenciesByName.put("United Kingdom Pound", Monetary.getCurrency("GBP"));
+        currenciesByName.put("Venezuela Bolivar", Monetary.getCurrency("VEF"));
+        CURRENCIES_BY_NAME = Collections.unmodifiableMap(currenciesByName);
+    }
+
+    private final TextBuffer description = new TextBuffer();
+    private final TextBuffer date = new TextBuffer();
+    private final TextBuffer value = new TextBuffer();
+
+    /** The buffer collecting the text of the current node, null if the node is not of interest. */
+    private TextBuffer current;
+
+    /** The last parsed date node, the feed lists the dates of each series in sequence. */
+    private final TextBuffer lastDateText = new TextBuffer();
+    private LocalDate lastDate;
+
+    private final Map<String, LocalDate> datesByText = new HashMap<>();
+
+    private LocalDate localDate;
+    private CurrencyUnit unitsCurrency;
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Reads the quotes of the given feed.
+     *
+     * @param is
+     *            the feed, not null.
+     * @return the quotes against USD.
+     * @throws XMLStreamException
+     *             if the feed cannot be parsed.
+     */
+    RateStore read(InputStream is) throws XMLStreamException {
+        RateStore.Builder rates = RateStore.newBuilder(QUOTE_SCALE);
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(is);
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        startElement(reader);
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (current != null) {
+                            current.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        endElement(rates);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return rates.build();
+    }
+
+    private void startElement(XMLStreamReader reader) {
+        String name = reader.getLocalName();
+        if ("description".equals(name)) {
+            current = description.clear();
+        } else if ("date".equals(name) && DC_NAMESPACE.equals(reader.getNamespaceURI())) {
+            current = date.clear();
+        } else if ("value".equals(name) && CB_NAMESPACE.equals(reader.getNamespaceURI())) {
+            String units = reader.getAttributeValue(null, "units");
+            unitsCurrency = units == null ? null : CURRENCIES_BY_UNITS.computeIfAbsent(units,
+                USFederalReserveRateReader::currencyOfUnits).orElse(null);
+            current = value.clear();
+        } else {
+            current = null;
+        }
+    }
+
+    private void endElement(RateStore.Builder rates) {
+        if (current == date) {
+            localDate = parseDate();
+        } else if (current == value && unitsCurrency != null) {
+            CurrencyUnit currencyUnit;
+            boolean inverse = false;
+            if (USFederalReserveRateProvider.BASE_CURRENCY.equals(unitsCurrency)) {
+                currencyUnit = CURRENCIES_BY_NAME.get(description.toString());
+            } else {
+                currencyUnit = unitsCurrency;
+                inverse = true;
+            }
+            if (currencyUnit != null && localDate != null && !value.isEmpty() && !value.contentEquals("ND")) {
+                BigDecimal quote = value.toBigDecimal();
+                if (quote.signum() > 0) {
+                    rates.add(localDate, currencyUnit, quote, inverse);
+                }
+            }
+            unitsCurrency = null;
+            localDate = null;
+        }
+        current = null;
+    }
+
+    private LocalDate parseDate() {
+        if (lastDate == null || !date.contentEquals(lastDateText)) {
+            lastDate = datesByText.computeIfAbsent(date.toString(), text -> OffsetDateTime.parse(text).toLocalDate());
+            lastDateText.clear().append(date);
+        }
+        return lastDate;
+    }
+
+    private static Optional<CurrencyUnit> currencyOfUnits(String units) {
+        if (units.length() == UNITS_PREFIX.length() + 3 && units.startsWith(UNITS_PREFIX)) {
+            try {
+                return Optional.of(Monetary.getCurrency(units.substring(UNITS_PREFIX.length())));
+            } catch (MonetaryException me) {
+                // ignore...currency index not an actual currency
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Growable character buffer, reused for all nodes of the same kind.
+     */
+    private static final class TextBuffer {
+        private char[] chars = new char[64];
+        private int length;
+
+        TextBuffer clear() {
+            length = 0;
+            return this;
+        }
+
+        TextBuffer append(char[] src, int start, int len) {
+            if (length + len > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + len));
+            }
+            System.arraycopy(src, start, chars, length, len);
+            length += len;
+            return this;
+        }
+
+        TextBuffer append(TextBuffer other) {
+            return append(other.chars, 0, other.length);
+        }
+
+        boolean isEmpty() {
+            return trimmedStart() >= trimmedEnd();
+        }
+
+        boolean contentEquals(TextBuffer other) {
+            if (length != other.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chars[i] != other.chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean contentEquals(String text) {
+            int start = trimmedStart();
+            if (trimmedEnd() - start != text.length()) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (chars[start + i] != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        BigDecimal toBigDecimal() {
+            int start = trimmedStart();
+            return new BigDecimal(chars, start, trimmedEnd() - start);
+        }
+
+        private int trimmedStart() {
+            int start = 0;
+            while (start < length && Character.isWhitespace(chars[start])) {
+                start++;
+            }
+            return start;
+        }
+
+        private int trimmedEnd() {
+            int end = length;
+            while (end > 0 && Character.isWhitespace(chars[end - 1])) {
+                end--;
+            }
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            int start = trimmedStart();
+            return new String(chars, start, Math.max(0, trimmedEnd() - start));
+        }
+    }
+
+}
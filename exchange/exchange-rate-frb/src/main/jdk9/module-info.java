@@ -22,6 +22,7 @@ module org.javamoney.moneta.convert.frb {
     requires java.xml.bind;
     requires org.javamoney.moneta;
     requires org.javamoney.moneta.convert;
+    requires transitive org.javamoney.moneta.convert.common;
     requires static org.osgi.core;
     requires static org.osgi.compendium;
     requires static org.osgi.annotation;
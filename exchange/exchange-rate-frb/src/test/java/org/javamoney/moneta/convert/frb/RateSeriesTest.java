@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.frb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+
+import org.testng.annotations.Test;
+
+public class RateSeriesTest {
+    private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+    private static final CurrencyUnit CAD = Monetary.getCurrency("CAD");
+    private static final LocalDate FRIDAY = LocalDate.of(2018, 3, 16);
+    private static final LocalDate MONDAY = FRIDAY.plusDays(3);
+
+    private static RateSeries build(LocalDate from, LocalDate to, RateSeries.GapFill gapFill) {
+        return RateSeries.newBuilder(EUR, CAD, 4, from, to, MONDAY.plusDays(7), gapFill)
+            .add(FRIDAY.toEpochDay(), 16000)
+            .add(MONDAY.toEpochDay(), 16100)
+            .add(MONDAY.plusDays(1).toEpochDay(), 16200)
+            .add(MONDAY.plusDays(7).toEpochDay(), 16300)
+            .build();
+    }
+
+    @Test
+    public void shouldKeepQuotedDaysOnly() {
+        RateSeries series = build(FRIDAY.plusDays(1), MONDAY.plusDays(2), RateSeries.GapFill.NONE);
+        assertEquals(series.size(), 2);
+        assertEquals(series.getBaseCurrency(), EUR);
+        assertEquals(series.getCurrency(), CAD);
+        assertEquals(series.getDate(0), MONDAY);
+        assertEquals(series.getFactor(0), new BigDecimal("1.6100"));
+        assertEquals(series.getUnscaledFactor(1), 16200);
+        assertFalse(series.isFilled(1));
+        assertEquals(series.indexOf(MONDAY.plusDays(1)), 1);
+        assertEquals(series.indexOf(FRIDAY), -1);
+    }
+
+    @Test
+    public void shouldFillGapsWithPreviousRate() {
+        RateSeries series = build(FRIDAY.plusDays(1), MONDAY.plusDays(2), RateSeries.GapFill.PREVIOUS);
+        assertEquals(series.size(), 5);
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(series.getDate(i), FRIDAY.plusDays(1 + i));
+        }
+        assertTrue(series.isFilled(0));
+        assertEquals(series.getUnscaledFactor(0), 16000);
+        assertTrue(series.isFilled(1));
+        assertFalse(series.isFilled(2));
+        assertEquals(series.getUnscaledFactor(2), 16100);
+        assertTrue(series.isFilled(4));
+        assertEquals(series.getUnscaledFactor(4), 16200);
+    }
+
+    @Test
+    public void shouldStartFillingWithFirstKnownRate() {
+        RateSeries series = RateSeries.newBuilder(EUR, CAD, 4, FRIDAY, MONDAY, MONDAY, RateSeries.GapFill.PREVIOUS)
+            .add(MONDAY.minusDays(1).toEpochDay(), 16000)
+            .build();
+        assertEquals(series.size(), 2);
+        assertEquals(series.getDate(0), MONDAY.minusDays(1));
+        assertFalse(series.isFilled(0));
+        assertTrue(series.isFilled(1));
+    }
+
+    @Test
+    public void shouldBuildEmptySeries() {
+        RateSeries series = RateSeries.newBuilder(EUR, CAD, 4, FRIDAY, MONDAY, null, RateSeries.GapFill.PREVIOUS)
+            .build();
+        assertTrue(series.isEmpty());
+        assertEquals(series.indexOf(FRIDAY), -1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectEmptyRange() {
+        RateSeries.newBuilder(EUR, CAD, 4, MONDAY, FRIDAY, MONDAY, RateSeries.GapFill.NONE);
+    }
+
+    @Test
+    public void shouldStopFillingAtLatestDate() {
+        RateSeries series = RateSeries.newBuilder(EUR, CAD, 4, FRIDAY, MONDAY.plusYears(10), MONDAY.plusDays(1),
+            RateSeries.GapFill.PREVIOUS)
+            .add(FRIDAY.toEpochDay(), 16000)
+            .add(MONDAY.toEpochDay(), 16100)
+            .build();
+        assertEquals(series.size(), 5);
+        assertEquals(series.getDate(4), MONDAY.plusDays(1));
+        assertTrue(series.isFilled(4));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectRangeExceedingMaxFilledDays() {
+        RateSeries.newBuilder(EUR, CAD, 4, FRIDAY, FRIDAY.plusDays(RateSeries.MAX_FILLED_DAYS), MONDAY,
+            RateSeries.GapFill.PREVIOUS);
+    }
+}
@@ -19,20 +19,36 @@ package org.javamoney.moneta.convert.frb;
 
 import static javax.money.convert.MonetaryConversions.getExchangeRateProvider;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Currency;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import javax.money.CurrencyUnit;
 import javax.money.Monetary;
 import javax.money.MonetaryAmount;
+import javax.money.convert.ConversionQueryBuilder;
 import javax.money.convert.CurrencyConversion;
+import javax.money.convert.CurrencyConversionException;
+import javax.money.convert.ExchangeRate;
 import javax.money.convert.ExchangeRateProvider;
 
 import org.javamoney.moneta.Money;
+import org.javamoney.moneta.convert.common.ConversionRequest;
+import org.javamoney.moneta.convert.common.RateStore;
+import org.javamoney.moneta.convert.common.RateStoreSnapshot;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
@@ -177,5 +193,97 @@ public class USFederalReserveRateProviderTest {
         assertTrue(count >=24);
     }
 
+    @Test
+    public void shouldReuseCrossRates() {
+        ExchangeRate rate = provider.getExchangeRate(EURO, CANADA_DOLLAR);
+        assertNotNull(rate);
+        assertEquals(rate.getExchangeRateChain().size(), 2);
+        assertSame(provider.getExchangeRate(EURO, CANADA_DOLLAR), rate);
+    }
+
+    @Test
+    public void shouldGetExchangeRateAsync() throws Exception {
+        CompletableFuture<ExchangeRate> rate = ((USFederalReserveRateProvider) provider).getExchangeRateAsync(EURO, CANADA_DOLLAR);
+        assertTrue(rate.isDone());
+        assertSame(rate.get(), provider.getExchangeRate(EURO, CANADA_DOLLAR));
+    }
+
+    @Test
+    public void shouldConvertInBulk() {
+        List<ConversionRequest> requests = Arrays.asList(
+            ConversionRequest.of(Money.of(10, EURO), CANADA_DOLLAR),
+            ConversionRequest.of(Money.of(10, DOLLAR), DOLLAR),
+            ConversionRequest.of(Money.of(25, EURO), CANADA_DOLLAR),
+            ConversionRequest.of(Money.of(10, CANADA_DOLLAR), EURO));
+        List<MonetaryAmount> result = ((USFederalReserveRateProvider) provider).convert(requests);
+        assertEquals(result.size(), requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ConversionRequest request = requests.get(i);
+            assertEquals(result.get(i), provider.getCurrencyConversion(request.getCurrency()).apply(request.getAmount()));
+        }
+    }
 
+    @Test(expectedExceptions = CurrencyConversionException.class)
+    public void shouldRejectBulkConversionOfUnquotedCurrency() {
+        ((USFederalReserveRateProvider) provider).convert(Arrays.asList(
+            ConversionRequest.of(Money.of(1, Monetary.getCurrency("XXX")), EURO)));
+    }
+
+    @Test
+    public void shouldGetRateSeries() {
+        USFederalReserveRateProvider frb = (USFederalReserveRateProvider) provider;
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.now();
+        RateSeries series = frb.getRateSeries(EURO, CANADA_DOLLAR, from, to);
+        assertFalse(series.isEmpty());
+        for (int i = 0; i < series.size(); i++) {
+            ExchangeRate rate = provider.getExchangeRate(ConversionQueryBuilder.of().setBaseCurrency(EURO)
+                .setTermCurrency(CANADA_DOLLAR).set(LocalDate.class, series.getDate(i)).build());
+            assertEquals(series.getFactor(i).doubleValue(), rate.getFactor().doubleValue(), 1e-7);
+        }
+        RateSeries filled = frb.getRateSeries(EURO, CANADA_DOLLAR, from, to, RateSeries.GapFill.PREVIOUS);
+        // gaps are filled up to the latest loaded date, not up to today
+        LocalDate latest = provider.getExchangeRate(DOLLAR, CANADA_DOLLAR).getContext().get(LocalDate.class);
+        assertEquals(filled.getDate(filled.size() - 1), latest);
+        assertEquals(filled.getDate(0).plusDays(filled.size() - 1), latest);
+        for (int i = 0; i < series.size(); i++) {
+            int index = filled.indexOf(series.getDate(i));
+            assertFalse(filled.isFilled(index));
+            assertEquals(filled.getUnscaledFactor(index), series.getUnscaledFactor(i));
+        }
+    }
+
+    @Test
+    public void shouldKeepNewerSnapshotWhenLoadingBundledFeed() throws Exception {
+        Path dir = Files.createTempDirectory("frb-provider");
+        String tempDir = System.getProperty("temp.dir");
+        System.setProperty("temp.dir", dir.toString());
+        try {
+            LocalDate latest = LocalDate.now();
+            Path file = dir.resolve(".resourceCache").resolve("USFederalReserveRateProvider.snapshot");
+            RateStoreSnapshot.write(RateStore.newBuilder(USFederalReserveRateReader.QUOTE_SCALE)
+                .add(latest, CANADA_DOLLAR, new BigDecimal("1.3721"), false).build(), file);
+            USFederalReserveRateProvider frb = new USFederalReserveRateProvider();
+            assertEquals(frb.getExchangeRate(DOLLAR, CANADA_DOLLAR).getContext().get(LocalDate.class), latest);
+            try (InputStream is = getClass().getResourceAsStream("/java-money/defaults/FRB/H10_H10.XML")) {
+                frb.newDataLoaded("USFederalReserveRateProvider", is);
+            }
+            assertEquals(frb.getExchangeRate(DOLLAR, CANADA_DOLLAR).getContext().get(LocalDate.class), latest);
+            assertEquals(RateStoreSnapshot.read(file, USFederalReserveRateReader.QUOTE_SCALE, Instant.EPOCH)
+                .getLatestDate(), latest);
+        } finally {
+            if (Objects.isNull(tempDir)) {
+                System.clearProperty("temp.dir");
+            } else {
+                System.setProperty("temp.dir", tempDir);
+            }
+            Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test(expectedExceptions = CurrencyConversionException.class)
+    public void shouldRejectRateSeriesOfUnknownCurrency() {
+        ((USFederalReserveRateProvider) provider).getRateSeries(EURO, Monetary.getCurrency("XXX"),
+            LocalDate.of(2000, 1, 1), LocalDate.now());
+    }
 }
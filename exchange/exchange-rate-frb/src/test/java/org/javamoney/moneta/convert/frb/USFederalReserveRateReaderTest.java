@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.frb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.javamoney.moneta.convert.common.RateStore;
+import org.testng.annotations.Test;
+
+public class USFederalReserveRateReaderTest {
+    private static final LocalDate MARCH_19 = LocalDate.of(2018, 3, 19);
+
+    private static RateStore readBundledFeed() throws Exception {
+        try (InputStream is = USFederalReserveRateReaderTest.class
+            .getResourceAsStream("/java-money/defaults/FRB/H10_H10.XML")) {
+            assertNotNull(is);
+            return new USFederalReserveRateReader().read(is);
+        }
+    }
+
+    private static String item(String description, String date, String units, String value) {
+        return "<item><description>" + description + "</description><dc:date>" + date + "</dc:date>"
+            + "<cb:statistics><cb:otherStatistic><cb:value units=\"" + units + "\">" + value
+            + "</cb:value></cb:otherStatistic></cb:statistics></item>";
+    }
+
+    private static RateStore read(String... items) throws Exception {
+        StringBuilder xml = new StringBuilder("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" "
+            + "xmlns=\"http://purl.org/rss/1.0/\" xmlns:cb=\"http://www.cbwiki.net/wiki/index.php/Specification_1.1\" "
+            + "xmlns:dc=\"http://purl.org/dc/elements/1.1/\">");
+        for (String item : items) {
+            xml.append(item);
+        }
+        xml.append("</rdf:RDF>");
+        return new USFederalReserveRateReader()
+            .read(new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void shouldReadAllDatesOfBundledFeed() throws Exception {
+        RateStore store = readBundledFeed();
+        assertEquals(store.getDateCount(), 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(store.hasQuotes(MARCH_19.plusDays(i)));
+        }
+        assertEquals(store.getLatestDate(), MARCH_19.plusDays(4));
+        assertTrue(store.getCurrencyCount() >= 20);
+    }
+
+    @Test
+    public void shouldReadRatesPerDollar() throws Exception {
+        RateStore store = readBundledFeed();
+        assertEquals(store.getQuote(MARCH_19, "JPY").compareTo(new BigDecimal("105.83")), 0);
+        assertFalse(store.isInverse(MARCH_19, "JPY"));
+    }
+
+    @Test
+    public void shouldKeepRatesPerCurrencyInverse() throws Exception {
+        RateStore store = readBundledFeed();
+        assertEquals(store.getQuote(MARCH_19, "EUR").compareTo(new BigDecimal("1.2329")), 0);
+        assertTrue(store.isInverse(MARCH_19, "EUR"));
+    }
+
+    @Test
+    public void shouldSkipIndicesAndMissingValues() throws Exception {
+        RateStore store = read(
+            item("Broad currency index (Mar 73 = 100)", "2018-03-19T12:00:00-05:00", "Index:_1973_Mar_100", "118.4948"),
+            item("Japan Yen", "2018-03-19T12:00:00-05:00", "Currency:_Per_USD", "ND"),
+            item("Atlantis Dollar", "2018-03-19T12:00:00-05:00", "Currency:_Per_USD", "1.5"),
+            item("Canada Dollar", "2018-03-20T12:00:00-05:00", "Currency:_Per_USD", "1.3083"));
+        assertEquals(store.getDateCount(), 1);
+        assertFalse(store.hasQuotes(MARCH_19));
+        assertEquals(store.getCurrencyCount(), 1);
+        assertEquals(store.ordinal("CAD"), 0);
+    }
+}
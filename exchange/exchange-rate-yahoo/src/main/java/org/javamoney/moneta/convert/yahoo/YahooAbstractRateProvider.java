@@ -18,14 +18,13 @@
 package org.javamoney.moneta.convert.yahoo;
 
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.math.MathContext;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -33,9 +32,11 @@ import java.util.stream.Stream;
 
 import javax.money.CurrencyUnit;
 import javax.money.Monetary;
+import javax.money.MonetaryAmount;
 import javax.money.MonetaryException;
 import javax.money.convert.ConversionContext;
 import javax.money.convert.ConversionQuery;
+import javax.money.convert.ConversionQueryBuilder;
 import javax.money.convert.CurrencyConversionException;
 import javax.money.convert.ExchangeRate;
 import javax.money.convert.ProviderContext;
@@ -43,41 +44,42 @@ import javax.money.convert.RateType;
 import javax.money.spi.Bootstrap;
 
 import org.javamoney.moneta.convert.ExchangeRateBuilder;
-import org.javamoney.moneta.spi.AbstractRateProvider;
+import org.javamoney.moneta.convert.common.AbstractLoadingRateProvider;
+import org.javamoney.moneta.convert.common.BulkConversion;
+import org.javamoney.moneta.convert.common.ConversionRequest;
+import org.javamoney.moneta.convert.common.CrossRateMatrix;
+import org.javamoney.moneta.convert.common.RateStoreSnapshot;
 import org.javamoney.moneta.spi.DefaultNumberValue;
 import org.javamoney.moneta.spi.loader.LoaderService;
 import org.javamoney.moneta.spi.loader.LoaderService.LoaderListener;
-import org.javamoney.moneta.spi.MonetaryConfig;
 
 /**
  * Base of Yahoo provider implementation
  *
  * @author skosoy@gmail.com
  */
-abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
+abstract class YahooAbstractRateProvider extends AbstractLoadingRateProvider implements
         LoaderListener {
 
 	private static final Logger LOG = Logger.getLogger(YahooAbstractRateProvider.class.getName());
 
     private static final String BASE_CURRENCY_CODE = "USD";
 
-    private static final String DIGIT_FRACTION_KEY = "yahoo.digit.fraction";
+    private static final String CONFIG_PREFIX = "yahoo";
 
     static final CurrencyUnit BASE_CURRENCY = Monetary.getCurrency(BASE_CURRENCY_CODE);
 
-    private final Map<LocalDate, Map<String, ExchangeRate>> rates = new ConcurrentHashMap<>();
+    /**
+     * The rates of all loads so far, replaced as a whole on each load.
+     */
+    private volatile LoadedRates current = new LoadedRates(Collections.emptyNavigableMap());
 
     private final ProviderContext context;
 
-	protected volatile String loadState;
-
-	protected final CountDownLatch loadLock = new CountDownLatch(1);
-
-    protected abstract String getDataId();
-
     YahooAbstractRateProvider(ProviderContext context) {
-        super(context);
+        super(context, CONFIG_PREFIX, BASE_CURRENCY);
 		this.context = context;
+        restoreSnapshot();
         final LoaderService loader = Bootstrap.getService(LoaderService.class);
         loader.addLoaderListener(this, getDataId());
         loader.loadDataAsync(getDataId());
@@ -85,60 +87,109 @@ abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
 
     @Override
     public void newDataLoaded(final String resourceId, final InputStream is) {
-        final int oldSize = this.rates.size();
+        final LoadedRates oldRates = this.current;
+        final int oldSize = oldRates.rates.size();
         try {
-        	final YahooRateReadingHandler parser =
-        			new YahooRateReadingHandler(rates, getContext());
-            parser.parse(is);
-			int newSize = this.rates.size();
+        	final YahooRateReadingHandler parser = new YahooRateReadingHandler(getContext());
+            // the new rates are completed aside and published with a single write
+            LoadedRates newRates = oldRates.merge(parser.parse(is));
+            publish(newRates);
+            if (!newRates.rates.isEmpty()) {
+                writeSnapshot(file -> RateStoreSnapshot.writeQuotes(YahooRateReadingHandler.toQuotes(newRates.rates),
+                        file));
+            }
+			int newSize = newRates.rates.size();
 			loadState = "Loaded " + resourceId + " exchange rates for days:" + (newSize - oldSize);
 			LOG.info(loadState);
         } catch (Exception e) {
 			loadState = "Last Error during data load: " + e.getMessage();
 			LOG.log(Level.FINEST, "Error during data load.", e);
 		} finally{
-			loadLock.countDown();
+			loadFinished();
 		}
     }
 
+    /**
+     * Publishes new rates with a single write, after the cross rates of eager mode are created.
+     */
+    private void publish(LoadedRates newRates) {
+        if (getCrossRateMode() == CrossRateMatrix.Mode.EAGER) {
+            newRates.rates.forEach((date, targets) -> newRates.crossRates.put(date, createCrossRates(targets)));
+        }
+        this.current = newRates;
+    }
+
+    /**
+     * Publishes the rates of the last snapshot, if there is a current one, so queries are served before the feed
+     * is loaded. Loads merge into the restored rates.
+     */
+    private void restoreSnapshot() {
+        Map<LocalDate, Map<CurrencyUnit, BigDecimal>> snapshot = readSnapshot(RateStoreSnapshot::readQuotes);
+        if (Objects.nonNull(snapshot) && !snapshot.isEmpty()) {
+            publish(this.current.merge(new YahooRateReadingHandler(getContext()).read(snapshot)));
+            snapshotRestored(snapshot.size());
+        }
+    }
+
+    /**
+     * Converts a batch of amounts. Requests are grouped by currency pair and date, and the rate of each group is
+     * resolved once. Blocks like {@link #getExchangeRate(ConversionQuery)} until the rates are loaded.
+     *
+     * @param requests the requests, not null.
+     * @return the converted amounts, in the order of the requests.
+     * @throws CurrencyConversionException if the rate of a request is not available.
+     */
+    public List<MonetaryAmount> convert(List<ConversionRequest> requests) {
+        Objects.requireNonNull(requests);
+        awaitLoaded();
+        LoadedRates rates = this.current;
+        return BulkConversion.convert(requests, this, (base, term, date) -> {
+            ConversionQueryBuilder query = ConversionQueryBuilder.of().setBaseCurrency(base).setTermCurrency(term);
+            if (Objects.nonNull(date)) {
+                query.set(LocalDate.class, date);
+            }
+            return getExchangeRate(rates, query.build());
+        });
+    }
+
     @Override
-    public ExchangeRate getExchangeRate(ConversionQuery conversionQuery) {
-        Objects.requireNonNull(conversionQuery);
-		try {
-			if (loadLock.await(30, TimeUnit.SECONDS)) {
-				if (rates.isEmpty()) {
-					return null;
-				}
-				RateResult result = findExchangeRate(conversionQuery);
-
-				ExchangeRateBuilder builder = getBuilder(conversionQuery, result.date);
-				ExchangeRate sourceRate = result.targets.get(conversionQuery.getBaseCurrency()
-						.getCurrencyCode());
-				ExchangeRate target = result.targets
-						.get(conversionQuery.getCurrency().getCurrencyCode());
-				return createExchangeRate(conversionQuery, builder, sourceRate, target);
-			}else{
-				throw new MonetaryException("Failed to load currency conversion data: " + loadState);
-			}
-		}
-		catch(InterruptedException e){
-			throw new MonetaryException("Failed to load currency conversion data: Load task has been interrupted.", e);
-		}
+    protected ExchangeRate getLoadedExchangeRate(ConversionQuery conversionQuery) {
+        return getExchangeRate(this.current, conversionQuery);
+    }
+
+    private ExchangeRate getExchangeRate(LoadedRates rates, ConversionQuery conversionQuery) {
+        if (rates.rates.isEmpty()) {
+            return null;
+        }
+        RateResult result = findExchangeRate(rates, conversionQuery);
+        ExchangeRate rate = getCrossRates(result).get(conversionQuery.getBaseCurrency().getCurrencyCode(),
+                conversionQuery.getCurrency().getCurrencyCode());
+        if (Objects.nonNull(rate)) {
+            return rate;
+        }
+
+        ExchangeRateBuilder builder = getBuilder(conversionQuery, result.date);
+        ExchangeRate sourceRate = result.targets.get(conversionQuery.getBaseCurrency().getCurrencyCode());
+        ExchangeRate target = result.targets.get(conversionQuery.getCurrency().getCurrencyCode());
+        return createExchangeRate(rates, conversionQuery, builder, sourceRate, target);
     }
 
-	private RateResult findExchangeRate(ConversionQuery conversionQuery) {
-		LocalDate[] dates = getQueryDates(conversionQuery);
+	private RateResult findExchangeRate(LoadedRates rates, ConversionQuery conversionQuery) {
+		LocalDate[] dates = getQueryDates(rates, conversionQuery);
 
         if (dates == null) {
-        	Comparator<LocalDate> comparator = Comparator.naturalOrder();
-    		LocalDate date = this.rates.keySet().stream().sorted(comparator.reversed()).findFirst().orElseThrow(() -> new MonetaryException("There is not more recent exchange rate to  rate on ECBRateProvider."));
-        	return new RateResult(date, this.rates.get(date));
+        	LocalDate date = rates.latestDate;
+        	Map<String, ExchangeRate> targets = date == null ? null : rates.rates.get(date);
+        	if (Objects.isNull(targets)) {
+        		throw new MonetaryException("There is not more recent exchange rate to  rate on ECBRateProvider.");
+        	}
+        	return new RateResult(rates, date, targets);
         } else {
         	for (LocalDate localDate : dates) {
-        		Map<String, ExchangeRate> targets = this.rates.get(localDate);
+        		Map<String, ExchangeRate> targets = rates.rates.get(localDate);
 
         		if(Objects.nonNull(targets)) {
-        			return new RateResult(localDate, targets);
+        			return new RateResult(rates, localDate, targets);
         		}
 			}
         	String datesOnErros = Stream.of(dates).map(date -> date.format(DateTimeFormatter.ISO_LOCAL_DATE)).collect(Collectors.joining(","));
@@ -147,7 +198,7 @@ abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
 
 	}
 
-	private ExchangeRate createExchangeRate(ConversionQuery query,
+	private ExchangeRate createExchangeRate(LoadedRates rates, ConversionQuery query,
 			ExchangeRateBuilder builder, ExchangeRate sourceRate,
 			ExchangeRate target) {
 
@@ -160,17 +211,17 @@ abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
 				return null;
 			}
 
-			return reverse(sourceRate);
+			return reverseRate(sourceRate);
 		} else if (BASE_CURRENCY_CODE.equals(query.getBaseCurrency()
 				.getCurrencyCode())) {
 			return target;
 		} else {
 
-			ExchangeRate rate1 = getExchangeRate(query.toBuilder()
+			ExchangeRate rate1 = getExchangeRate(rates, query.toBuilder()
 					.setTermCurrency(Monetary.getCurrency(BASE_CURRENCY_CODE))
 					.build());
 
-			ExchangeRate rate2 = getExchangeRate(query.toBuilder()
+			ExchangeRate rate2 = getExchangeRate(rates, query.toBuilder()
 					.setBaseCurrency(Monetary.getCurrency(BASE_CURRENCY_CODE))
 					.setTermCurrency(query.getCurrency()).build());
 
@@ -180,6 +231,11 @@ abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
 				return builder.build();
 			}
 
+			if (Objects.isNull(sourceRate)) {
+				throw new CurrencyConversionException(query.getBaseCurrency(),
+						query.getCurrency(), null, "No rate available for "
+								+ query.getBaseCurrency().getCurrencyCode() + '.');
+			}
 			throw new CurrencyConversionException(query.getBaseCurrency(),
 					query.getCurrency(), sourceRate.getContext());
 		}
@@ -192,20 +248,26 @@ abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
 
 
     private ExchangeRateBuilder getBuilder(ConversionQuery query, LocalDate localDate) {
-        ExchangeRateBuilder builder = new ExchangeRateBuilder(getExchangeContext(DIGIT_FRACTION_KEY));
+        ExchangeRateBuilder builder = new ExchangeRateBuilder(getExchangeContext());
         builder.setBase(query.getBaseCurrency());
         builder.setTerm(query.getCurrency());
 
         return builder;
     }
 
-    private ExchangeRate reverse(ExchangeRate rate) {
+    private CrossRateMatrix getCrossRates(RateResult result) {
+        return result.rates.crossRates.computeIfAbsent(result.date,
+                date -> createCrossRates(result.targets));
+    }
+
+    @Override
+    protected ExchangeRate reverseRate(ExchangeRate rate) {
         if (Objects.isNull(rate)) {
             throw new IllegalArgumentException("Rate null is not reversible.");
         }
 
         return new ExchangeRateBuilder(rate).setRate(rate).setBase(rate.getCurrency())
-        		.setTerm(rate.getBaseCurrency()).setContext(getExchangeContext(DIGIT_FRACTION_KEY))
+        		.setTerm(rate.getBaseCurrency()).setContext(getExchangeContext())
                 .setFactor(divide(DefaultNumberValue.ONE, rate.getFactor(), MathContext.DECIMAL64)).build();
     }
 
@@ -217,23 +279,59 @@ abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
 
     private class RateResult {
 
+    	private final LoadedRates rates;
+
     	private final LocalDate date;
 
     	private final Map<String, ExchangeRate> targets;
 
-    	RateResult(LocalDate date, Map<String, ExchangeRate> targets) {
+    	RateResult(LoadedRates rates, LocalDate date, Map<String, ExchangeRate> targets) {
+    		this.rates = rates;
     		this.date = date;
     		this.targets = targets;
     	}
     }
 
+    /**
+     * The immutable rates of all loads so far, together with the cross rates derived from them, see
+     * {@link CrossRateMatrix}. Cross rates are only added, so readers never need to lock.
+     */
+    private static final class LoadedRates {
+
+        private final NavigableMap<LocalDate, Map<String, ExchangeRate>> rates;
+
+        private final LocalDate latestDate;
+
+        private final Map<LocalDate, CrossRateMatrix> crossRates = new ConcurrentHashMap<>();
+
+        LoadedRates(NavigableMap<LocalDate, Map<String, ExchangeRate>> rates) {
+            this.rates = rates;
+            this.latestDate = rates.isEmpty() ? null : rates.lastKey();
+        }
+
+        /**
+         * Creates the rates including a load, a loaded rate replaces the rate of the same date and currency.
+         *
+         * @param loaded the loaded rates.
+         * @return the new rates, this instance is not changed.
+         */
+        LoadedRates merge(Map<LocalDate, Map<String, ExchangeRate>> loaded) {
+            NavigableMap<LocalDate, Map<String, ExchangeRate>> merged = new TreeMap<>(rates);
+            loaded.forEach((date, targets) -> {
+                Map<String, ExchangeRate> day = new HashMap<>(merged.getOrDefault(date, Collections.emptyMap()));
+                day.putAll(targets);
+                merged.put(date, Collections.unmodifiableMap(day));
+            });
+            return new LoadedRates(Collections.unmodifiableNavigableMap(merged));
+        }
+    }
+
     // Patch for post 1.0 API  in Moneta
     private static final String KEY_SCALE = "exchangeRateScale";
 
     @Override
 	protected int getScale(String key) {
-		String string = MonetaryConfig.getConfig().getOrDefault(
-				key, "-1");
+		String string = getConfigValue(key, "-1");
 		if (string.isEmpty()) {
 			return -1;
 		} else {
@@ -257,6 +355,10 @@ abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
 
     @Override
 	protected LocalDate[] getQueryDates(ConversionQuery query) {
+        return getQueryDates(this.current, query);
+    }
+
+	private LocalDate[] getQueryDates(LoadedRates rates, ConversionQuery query) {
 
         if (Objects.nonNull(query.get(LocalDate.class)) || Objects.nonNull(query.get(LocalDateTime.class))) {
         	LocalDate localDate = Optional.ofNullable(query.get(LocalDate.class)).orElseGet(() -> query.get(LocalDateTime.class).toLocalDate());
@@ -265,10 +367,9 @@ abstract class YahooAbstractRateProvider extends AbstractRateProvider implements
         	return query.get(LocalDate[].class);
         }
         // Return latest dates in data
-		List<LocalDate> keys = new ArrayList<>(this.rates.keySet());
-        if(!keys.isEmpty()) {
-			keys.sort(Comparator.reverseOrder());
-			return new LocalDate[]{keys.get(0)};
+        LocalDate latest = rates.latestDate;
+        if (Objects.nonNull(latest)) {
+			return new LocalDate[]{latest};
 		}
         return null;
     }
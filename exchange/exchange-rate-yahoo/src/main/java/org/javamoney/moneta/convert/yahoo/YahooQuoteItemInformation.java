@@ -18,29 +18,32 @@
 package org.javamoney.moneta.convert.yahoo;
 
 import java.math.BigDecimal;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.text.ParsePosition;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.TimeZone;
 
 import javax.money.CurrencyUnit;
 import javax.money.Monetary;
+import javax.money.MonetaryException;
 
 class YahooQuoteItemInformation {
 
-	private static final String PRICE_KEY = "price";
-	private static final String UPDATE_TIME_KEY = "utctime";
-	private static final String NAME_KEY = "name";
-	private static final String CST_ZONE = "America/Chicago";
+	static final String PRICE_KEY = "price";
+	static final String UPDATE_TIME_KEY = "utctime";
+	static final String NAME_KEY = "name";
+	private static final ZoneId CST_ZONE = ZoneId.of("America/Chicago");
 	private static final String UTC_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
 
-	private static final YahooField YAHOO_FIELD_PRICE = new YahooField(PRICE_KEY);
-	private static final YahooField YAHOO_FIELD_NAME = new YahooField(NAME_KEY);
-	private static final YahooField YAHOO_FIELD_UPDATE_TIME = new YahooField(UPDATE_TIME_KEY);
+	/**
+	 * Immutable and thread-safe, the trailing offset of the feed's time stamps is ignored, they are always UTC.
+	 */
+	private static final DateTimeFormatter UTC_FORMATTER =
+			DateTimeFormatter.ofPattern(UTC_DATE_FORMAT).withZone(ZoneOffset.UTC);
 
 
 	private final CurrencyUnit currency;
@@ -78,30 +81,44 @@ class YahooQuoteItemInformation {
 				+ ", localDate=" + localDate + ", value=" + value + "]";
 	}
 
-	public static YahooQuoteItemInformation of(List<YahooField> fields) throws ParseException{
-		CurrencyUnit currency;
-		LocalDate localDate;
-		BigDecimal value;
-
-		int positionName = fields.indexOf(YAHOO_FIELD_NAME);
-		int positionPrice = fields.indexOf(YAHOO_FIELD_PRICE);
-		int positionUctime = fields.indexOf(YAHOO_FIELD_UPDATE_TIME);
-		String currencyName = fields.get(positionName).getValue().trim();
-		String price = fields.get(positionPrice).getValue();
-		String time = fields.get(positionUctime).getValue();
-
-		if(currencyName.length() == 7) {
-			currency = Monetary.getCurrency(currencyName.substring(4).trim());
-		} else {
-			currency = null;
+	public static YahooQuoteItemInformation of(List<YahooField> fields) {
+		String currencyName = null;
+		String price = null;
+		String time = null;
+		for (YahooField field : fields) {
+			if (NAME_KEY.equals(field.getName())) {
+				currencyName = field.getValue();
+			} else if (PRICE_KEY.equals(field.getName())) {
+				price = field.getValue();
+			} else if (UPDATE_TIME_KEY.equals(field.getName())) {
+				time = field.getValue();
+			}
 		}
-		final DateFormat utcFormatter = new SimpleDateFormat(UTC_DATE_FORMAT);
-		utcFormatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-		localDate =  LocalDateTime.ofInstant(
-				utcFormatter.parse(time).toInstant(),
-				ZoneId.of(CST_ZONE)).toLocalDate();
+		return of(currencyName, price, time);
+	}
 
-		value = BigDecimal.valueOf(Double.parseDouble(price));
+	/**
+	 * Creates the information of a quote from the values of its {@code name}, {@code price} and {@code utctime}
+	 * fields.
+	 *
+	 * @param name the quote's name, e.g. {@code USD/EUR}, not null.
+	 * @param price the price, not null.
+	 * @param time the UTC time stamp, not null.
+	 * @return the information, with no currency if the quote is not a known currency.
+	 */
+	public static YahooQuoteItemInformation of(String name, String price, String time) {
+		String currencyName = name.trim();
+		CurrencyUnit currency = null;
+		if (currencyName.length() == 7) {
+			try {
+				currency = Monetary.getCurrency(currencyName.substring(4).trim());
+			} catch (MonetaryException e) {
+				// ignore, not a currency known to the runtime
+			}
+		}
+		Instant instant = Instant.from(UTC_FORMATTER.parse(time.trim(), new ParsePosition(0)));
+		LocalDate localDate = LocalDateTime.ofInstant(instant, CST_ZONE).toLocalDate();
+		BigDecimal value = BigDecimal.valueOf(Double.parseDouble(price));
 		return new YahooQuoteItemInformation(currency, localDate, value);
 	}
 
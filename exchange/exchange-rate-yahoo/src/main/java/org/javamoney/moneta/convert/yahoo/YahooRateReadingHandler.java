@@ -19,69 +19,151 @@ package org.javamoney.moneta.convert.yahoo;
 
 
 import java.io.InputStream;
-import java.text.ParseException;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
+import javax.money.CurrencyUnit;
+import javax.money.convert.ConversionContext;
 import javax.money.convert.ConversionContextBuilder;
 import javax.money.convert.ExchangeRate;
 import javax.money.convert.ProviderContext;
 import javax.money.convert.RateType;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.javamoney.moneta.convert.ExchangeRateBuilder;
 import org.javamoney.moneta.spi.DefaultNumberValue;
 
+/**
+ * Streams the quotes of the Yahoo feed with StAX directly into rates, without unmarshalling the document.
+ */
 class YahooRateReadingHandler {
 
-	private final Map<LocalDate, Map<String, ExchangeRate>> excangeRates;
+	private static final String RESOURCE_ELEMENT = "resource";
+	private static final String FIELD_ELEMENT = "field";
+	private static final String NAME_ATTRIBUTE = "name";
+
+	/**
+	 * Configured once, {@link XMLInputFactory#createXMLStreamReader(InputStream)} is safe for concurrent use.
+	 */
+	private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
 
 	private final ProviderContext context;
 
-	public YahooRateReadingHandler(final Map<LocalDate, Map<String, ExchangeRate>> excangeRates,
-			final ProviderContext context) {
-		this.excangeRates = excangeRates;
+	public YahooRateReadingHandler(final ProviderContext context) {
 		this.context = context;
 	}
 
-	void parse(final InputStream stream) throws JAXBException, ParseException {
-		final String yahooDtoPackage = "org.javamoney.moneta.internal.convert.yahoo";
-		final Unmarshaller unmarshaller = JAXBContext.newInstance(yahooDtoPackage).createUnmarshaller();
-		final YahooRoot root = (YahooRoot) unmarshaller.unmarshal(stream);
-		final YahooCurrencies currencies = root.getResources();
-
-		for (YahooQuoteItem quote : currencies.getResource()) {
-			YahooQuoteItemInformation information = YahooQuoteItemInformation.of(quote.getField());
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return factory;
+	}
 
-			if(!information.isCurrencyValid()) {
-				continue;
+	/**
+	 * Reads the quotes of a feed into a new map, the caller publishes it.
+	 *
+	 * @param stream the feed.
+	 * @return the rates by date and term currency code.
+	 * @throws XMLStreamException if the feed can not be read.
+	 */
+	Map<LocalDate, Map<String, ExchangeRate>> parse(final InputStream stream) throws XMLStreamException {
+		final Map<LocalDate, Map<String, ExchangeRate>> exchangeRates = new HashMap<>();
+		final ConversionContext conversionContext = ConversionContextBuilder.create(context, RateType.DEFERRED).build();
+		final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(stream);
+		try {
+			String name = null;
+			String price = null;
+			String time = null;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String element = reader.getLocalName();
+					if (RESOURCE_ELEMENT.equals(element)) {
+						name = null;
+						price = null;
+						time = null;
+					} else if (FIELD_ELEMENT.equals(element)) {
+						String field = reader.getAttributeValue(null, NAME_ATTRIBUTE);
+						if (YahooQuoteItemInformation.NAME_KEY.equals(field)) {
+							name = reader.getElementText();
+						} else if (YahooQuoteItemInformation.PRICE_KEY.equals(field)) {
+							price = reader.getElementText();
+						} else if (YahooQuoteItemInformation.UPDATE_TIME_KEY.equals(field)) {
+							time = reader.getElementText();
+						}
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT && RESOURCE_ELEMENT.equals(reader.getLocalName())
+						&& name != null && price != null && time != null) {
+					YahooQuoteItemInformation information = YahooQuoteItemInformation.of(name, price, time);
+					if (information.isCurrencyValid()) {
+						addRate(exchangeRates, information, conversionContext);
+					}
+				}
 			}
-			addRate(information);
+		} finally {
+			reader.close();
 		}
+		return exchangeRates;
 	}
 
-   private void addRate(YahooQuoteItemInformation information) {
+	/**
+	 * Creates the rates of quotes returned by {@link #toQuotes(Map)}, equal to the rates parsed from the feed.
+	 *
+	 * @param quotes the quotes by date and term currency.
+	 * @return the rates by date and term currency code.
+	 */
+	Map<LocalDate, Map<String, ExchangeRate>> read(final Map<LocalDate, Map<CurrencyUnit, BigDecimal>> quotes) {
+		final Map<LocalDate, Map<String, ExchangeRate>> exchangeRates = new HashMap<>();
+		final ConversionContext conversionContext = ConversionContextBuilder.create(context, RateType.DEFERRED).build();
+		quotes.forEach((date, day) -> {
+			final Map<String, ExchangeRate> rates = new HashMap<>();
+			day.forEach((term, quote) -> rates.put(term.getCurrencyCode(), createRate(term, quote, conversionContext)));
+			exchangeRates.put(date, rates);
+		});
+		return exchangeRates;
+	}
 
-        final ExchangeRateBuilder builder = new ExchangeRateBuilder(
-        		ConversionContextBuilder.create(context, RateType.DEFERRED).build());
-        builder.setBase(YahooAbstractRateProvider.BASE_CURRENCY);
-        builder.setTerm(information.getCurrency());
-        builder.setFactor(DefaultNumberValue.of(information.getValue()));
-        final ExchangeRate exchangeRate = builder.build();
-
-        Map<String, ExchangeRate> rateMap = this.excangeRates.get(information.getLocalDate());
-        if (Objects.isNull(rateMap)) {
-            synchronized (this.excangeRates) {
-                rateMap = Optional.ofNullable(this.excangeRates.get(information.getLocalDate())).orElse(new ConcurrentHashMap<>());
-                this.excangeRates.putIfAbsent(information.getLocalDate(), rateMap);
-            }
-        }
-        rateMap.put(information.getCurrency().getCurrencyCode(), exchangeRate);
+	/**
+	 * Returns the quotes of rates read by this handler, see {@link #read(Map)}. The feed quotes a few currencies
+	 * over many dates, so the quotes are kept sparse rather than in a dense date by currency store.
+	 *
+	 * @param exchangeRates the rates by date and term currency code.
+	 * @return the quotes by date and term currency.
+	 */
+	static Map<LocalDate, Map<CurrencyUnit, BigDecimal>> toQuotes(
+			final Map<LocalDate, Map<String, ExchangeRate>> exchangeRates) {
+		final Map<LocalDate, Map<CurrencyUnit, BigDecimal>> quotes = new HashMap<>();
+		exchangeRates.forEach((date, targets) -> {
+			final Map<CurrencyUnit, BigDecimal> day = new HashMap<>();
+			targets.values().forEach(rate -> day.put(rate.getCurrency(), rate.getFactor().numberValue(BigDecimal.class)));
+			quotes.put(date, day);
+		});
+		return quotes;
+	}
 
+   private void addRate(Map<LocalDate, Map<String, ExchangeRate>> exchangeRates,
+           YahooQuoteItemInformation information, ConversionContext conversionContext) {
+
+        final ExchangeRate exchangeRate = createRate(information.getCurrency(), information.getValue(),
+                conversionContext);
+
+        exchangeRates.computeIfAbsent(information.getLocalDate(), date -> new HashMap<>())
+                .put(information.getCurrency().getCurrencyCode(), exchangeRate);
+
+    }
+
+    private static ExchangeRate createRate(CurrencyUnit term, BigDecimal value, ConversionContext conversionContext) {
+        final ExchangeRateBuilder builder = new ExchangeRateBuilder(conversionContext);
+        builder.setBase(YahooAbstractRateProvider.BASE_CURRENCY);
+        builder.setTerm(term);
+        builder.setFactor(DefaultNumberValue.of(value));
+        return builder.build();
     }
 }
\ No newline at end of file
@@ -20,18 +20,25 @@ package org.javamoney.moneta.convert.yahoo;
 import static javax.money.convert.MonetaryConversions.getExchangeRateProvider;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import javax.money.CurrencyUnit;
 import javax.money.Monetary;
 import javax.money.MonetaryAmount;
 import javax.money.convert.CurrencyConversion;
+import javax.money.convert.CurrencyConversionException;
+import javax.money.convert.ExchangeRate;
 import javax.money.convert.ExchangeRateProvider;
 
 import org.javamoney.moneta.Money;
+import org.javamoney.moneta.convert.common.ConversionRequest;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
@@ -150,4 +157,41 @@ public class YahooRateProviderTest {
         assertTrue(result.getNumber().doubleValue() > 0);
 
     }
+
+    @Test
+    public void shouldReuseCrossRates() {
+        ExchangeRate rate = provider.getExchangeRate(EURO, BRAZILIAN_REAL);
+        assertNotNull(rate);
+        assertEquals(rate.getExchangeRateChain().size(), 2);
+        assertSame(provider.getExchangeRate(EURO, BRAZILIAN_REAL), rate);
+    }
+
+    @Test
+    public void shouldGetExchangeRateAsync() throws Exception {
+        CompletableFuture<ExchangeRate> rate = ((YahooRateProvider) provider).getExchangeRateAsync(EURO, BRAZILIAN_REAL);
+        assertTrue(rate.isDone());
+        assertSame(rate.get(), provider.getExchangeRate(EURO, BRAZILIAN_REAL));
+    }
+
+    @Test
+    public void shouldConvertInBulk() {
+        List<ConversionRequest> requests = Arrays.asList(
+                ConversionRequest.of(Money.of(10, EURO), BRAZILIAN_REAL),
+                ConversionRequest.of(Money.of(10, DOLLAR), DOLLAR),
+                ConversionRequest.of(Money.of(25, EURO), BRAZILIAN_REAL),
+                ConversionRequest.of(Money.of(10, BRAZILIAN_REAL), EURO));
+        List<MonetaryAmount> result = ((YahooRateProvider) provider).convert(requests);
+        assertEquals(result.size(), requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ConversionRequest request = requests.get(i);
+            assertEquals(result.get(i),
+                    provider.getCurrencyConversion(request.getCurrency()).apply(request.getAmount()));
+        }
+    }
+
+    @Test(expectedExceptions = CurrencyConversionException.class)
+    public void shouldRejectBulkConversionOfUnquotedCurrency() {
+        ((YahooRateProvider) provider).convert(Arrays.asList(
+                ConversionRequest.of(Money.of(1, Monetary.getCurrency("XXX")), EURO)));
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2012, 2018, Werner Keil, Anatole Tresch and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Contributors: @atsticks, @keilw, @otjava
+ */
+package org.javamoney.moneta.convert.yahoo;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.ProviderContext;
+import javax.money.convert.ProviderContextBuilder;
+import javax.money.convert.RateType;
+
+import org.javamoney.moneta.convert.common.RateStoreSnapshot;
+import org.testng.annotations.Test;
+
+public class YahooRateReadingHandlerTest {
+
+    private static final ProviderContext CONTEXT = ProviderContextBuilder.of(YahooRateProvider.PROVIDER,
+            RateType.DEFERRED).build();
+
+    private static Map<LocalDate, Map<String, ExchangeRate>> readBundledFeed() throws Exception {
+        try (InputStream is = YahooRateReadingHandlerTest.class
+                .getResourceAsStream("/java-money/defaults/YAHOO/finance.xml")) {
+            assertNotNull(is);
+            return new YahooRateReadingHandler(CONTEXT).parse(is);
+        }
+    }
+
+    @Test
+    public void shouldReadQuotes() throws Exception {
+        ExchangeRate rate = readBundledFeed().get(LocalDate.of(2018, 3, 27)).get("KRW");
+        assertNotNull(rate);
+        assertEquals(rate.getBaseCurrency(), YahooAbstractRateProvider.BASE_CURRENCY);
+        assertEquals(rate.getCurrency().getCurrencyCode(), "KRW");
+        assertEquals(rate.getFactor().numberValue(BigDecimal.class).compareTo(new BigDecimal("1072.170044")), 0);
+    }
+
+    @Test
+    public void shouldUseChicagoDates() throws Exception {
+        // 2018-03-27T01:05:05+0000 is still March 26 in Chicago
+        Map<LocalDate, Map<String, ExchangeRate>> rates = readBundledFeed();
+        assertTrue(rates.get(LocalDate.of(2018, 3, 26)).containsKey("MOP"));
+        assertFalse(rates.get(LocalDate.of(2018, 3, 27)).containsKey("MOP"));
+    }
+
+    @Test
+    public void shouldSkipUnknownCurrencies() throws Exception {
+        Map<LocalDate, Map<String, ExchangeRate>> rates = readBundledFeed();
+        int count = 0;
+        for (Map<String, ExchangeRate> targets : rates.values()) {
+            assertFalse(targets.containsKey("CNH"));
+            count += targets.size();
+        }
+        assertTrue(count > 150);
+    }
+
+    @Test
+    public void shouldRestoreRatesOfSnapshot() throws Exception {
+        Map<LocalDate, Map<String, ExchangeRate>> rates = readBundledFeed();
+        Path dir = Files.createTempDirectory("yahoo-snapshot");
+        Path file = dir.resolve("YahooRateProvider.snapshot");
+        try {
+            RateStoreSnapshot.writeQuotes(YahooRateReadingHandler.toQuotes(rates), file);
+            // a few bytes per quote, not a dense date by currency store
+            assertTrue(Files.size(file) < 4096, "snapshot size: " + Files.size(file));
+            assertEquals(new YahooRateReadingHandler(CONTEXT).read(
+                    RateStoreSnapshot.readQuotes(file, Instant.EPOCH)), rates);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+}